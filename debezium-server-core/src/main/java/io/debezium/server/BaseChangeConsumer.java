@@ -9,18 +9,25 @@
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.inject.Instance;
 import jakarta.inject.Inject;
 
 import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import io.debezium.DebeziumException;
 import io.debezium.engine.ChangeEvent;
 import io.debezium.engine.Header;
+import io.debezium.server.deadletter.DeadLetterQueue;
+import io.debezium.server.encoding.EncodingCache;
+import io.debezium.server.tracing.BatchTrace;
 
 /**
  * Basic services provided to all change consumers.
@@ -32,11 +39,23 @@ public class BaseChangeConsumer {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(BaseChangeConsumer.class);
 
+    private static final String PROP_ENCODING_CACHE_PREFIX = "debezium.sink.encoding.cache.";
+    private static final String PROP_ENCODING_CACHE_MAX_ENTRIES = PROP_ENCODING_CACHE_PREFIX + "max.entries";
+    private static final String PROP_ENCODING_CACHE_MAX_VALUE_SIZE = PROP_ENCODING_CACHE_PREFIX + "max.value.size";
+    private static final int DEFAULT_ENCODING_CACHE_MAX_ENTRIES = 1024;
+    private static final int DEFAULT_ENCODING_CACHE_MAX_VALUE_SIZE = 16 * 1024;
+
     protected StreamNameMapper streamNameMapper = (x) -> x;
 
+    // The number of destinations is small, the mapped names are kept for the lifetime of the sink
+    private final Map<String, String> streamNames = new ConcurrentHashMap<>();
+
     @Inject
     Instance<StreamNameMapper> customStreamNameMapper;
 
+    @Inject
+    DeadLetterQueue deadLetterQueue;
+
     @PostConstruct
     void init() {
         if (customStreamNameMapper.isResolvable()) {
@@ -67,6 +86,29 @@ protected Map<String, Object> getConfigSubset(Config config, String prefix) {
         return ret;
     }
 
+    /**
+     * Maps the record destination to the target stream name. The names are cached so the mapper is called only once
+     * per destination.
+     */
+    protected String streamName(String destination) {
+        return streamNames.computeIfAbsent(destination, streamNameMapper::map);
+    }
+
+    /**
+     * Creates a cache of encoded record values sized by the {@code debezium.sink.encoding.cache.*} configuration.
+     * The sink is responsible for closing the cache.
+     *
+     * @param name      Name of the cache, used as the metrics context.
+     * @param encoder   Encodes the value into the form sent to the target system.
+     */
+    protected <T> EncodingCache<T> createEncodingCache(String name, Function<Object, T> encoder) {
+        final Config config = ConfigProvider.getConfig();
+        return new EncodingCache<>(name,
+                config.getOptionalValue(PROP_ENCODING_CACHE_MAX_ENTRIES, Integer.class).orElse(DEFAULT_ENCODING_CACHE_MAX_ENTRIES),
+                config.getOptionalValue(PROP_ENCODING_CACHE_MAX_VALUE_SIZE, Integer.class).orElse(DEFAULT_ENCODING_CACHE_MAX_VALUE_SIZE),
+                encoder);
+    }
+
     protected byte[] getBytes(Object object) {
         if (object instanceof byte[]) {
             return (byte[]) object;
@@ -97,4 +139,30 @@ protected Map<String, String> convertHeaders(ChangeEvent<Object, Object> record)
         }
         return result;
     }
+
+    /**
+     * Diverts a record that can never be delivered, e.g. because it exceeds the size limit of the target system,
+     * to the dead-letter queue.
+     *
+     * @param record    The record that cannot be delivered.
+     * @param reason    The reason of the failure, see {@link DeadLetterQueue} for common reasons.
+     * @param error     Optional error reported by the target system.
+     *
+     * @return          {@code true} if the record was stored and must be marked as processed, {@code false} if
+     *                  the dead-letter queue is not enabled and the sink must fail
+     */
+    protected boolean deadLetter(ChangeEvent<Object, Object> record, String reason, Throwable error) {
+        return deadLetterQueue != null && deadLetterQueue.send(record, reason, error);
+    }
+
+    /**
+     * Propagates the trace context of the record into the message headers of the target system.
+     * Does nothing when tracing is not enabled.
+     *
+     * @param record    The record being sent.
+     * @param carrier   Sets a single header on the outgoing message.
+     */
+    protected void propagateTraceContext(ChangeEvent<Object, Object> record, BiConsumer<String, String> carrier) {
+        BatchTrace.inject(record, carrier);
+    }
 }
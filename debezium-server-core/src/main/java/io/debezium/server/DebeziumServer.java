@@ -44,7 +44,12 @@
 import io.debezium.engine.format.Protobuf;
 import io.debezium.engine.format.SimpleString;
 import io.debezium.relational.history.SchemaHistory;
+import io.debezium.server.deadletter.DeadLetterQueue;
+import io.debezium.server.deadletter.ReplayingChangeConsumer;
 import io.debezium.server.events.ConnectorCompletedEvent;
+import io.debezium.server.tracing.BatchTracer;
+import io.debezium.server.tracing.TracingChangeConsumer;
+import io.debezium.server.tracing.TracingConnectorCallback;
 import io.quarkus.runtime.Quarkus;
 import io.quarkus.runtime.ShutdownEvent;
 import io.quarkus.runtime.Startup;
@@ -109,10 +114,14 @@ public class DebeziumServer {
     @Liveness
     ConnectorLifecycle health;
 
+    @Inject
+    DeadLetterQueue deadLetterQueue;
+
     private Bean<DebeziumEngine.ChangeConsumer<ChangeEvent<Object, Object>>> consumerBean;
     private CreationalContext<ChangeConsumer<ChangeEvent<Object, Object>>> consumerBeanCreationalContext;
     private DebeziumEngine.ChangeConsumer<ChangeEvent<Object, Object>> consumer;
     private DebeziumEngine<?> engine;
+    private BatchTracer batchTracer;
     private final Properties props = new Properties();
 
     @SuppressWarnings("unchecked")
@@ -138,6 +147,14 @@ else if (beans.size() > 1) {
         consumer = consumerBean.create(consumerBeanCreationalContext);
         LOGGER.info("Consumer '{}' instantiated", consumer.getClass().getName());
 
+        try {
+            deadLetterQueue.replayIfRequested(consumer);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DebeziumException("Interrupted while replaying dead-letter records", e);
+        }
+
         final Class<Any> keyFormat = (Class<Any>) getFormat(config, PROP_KEY_FORMAT);
         final Class<Any> valueFormat = (Class<Any>) getFormat(config, PROP_VALUE_FORMAT);
         final Class<Any> headerFormat = (Class<Any>) getHeaderFormat(config);
@@ -167,12 +184,26 @@ else if (beans.size() > 1) {
         props.setProperty("name", name);
         LOGGER.debug("Configuration for DebeziumEngine: {}", props);
 
+        DebeziumEngine.ChangeConsumer<ChangeEvent<Object, Object>> engineConsumer = consumer;
+        DebeziumEngine.ConnectorCallback connectorCallback = health;
+        DebeziumEngine.CompletionCallback completionCallback = health;
+        if (config.getOptionalValue(BatchTracer.PROP_ENABLED, Boolean.class).orElse(false)) {
+            batchTracer = BatchTracer.fromConfig(config);
+            engineConsumer = new TracingChangeConsumer(consumer, batchTracer);
+            final TracingConnectorCallback tracingCallback = new TracingConnectorCallback(health, health, batchTracer);
+            connectorCallback = tracingCallback;
+            completionCallback = tracingCallback;
+        }
+        if (deadLetterQueue.isReplaySupported()) {
+            engineConsumer = new ReplayingChangeConsumer(engineConsumer, deadLetterQueue);
+        }
+
         final Optional<String> engineFactory = config.getOptionalValue(PROP_ENGINE_FACTORY, String.class);
         engine = DebeziumEngine.create(keyFormat, valueFormat, headerFormat, engineFactory.orElse(ConvertingAsyncEngineBuilderFactory.class.getName()))
                 .using(props)
-                .using((DebeziumEngine.ConnectorCallback) health)
-                .using((DebeziumEngine.CompletionCallback) health)
-                .notifying(consumer)
+                .using(connectorCallback)
+                .using(completionCallback)
+                .notifying(engineConsumer)
                 .build();
 
         executor.execute(() -> {
@@ -261,6 +292,9 @@ public void stop(@Observes ShutdownEvent event) {
         catch (Exception e) {
             LOGGER.error("Exception while shuttting down Debezium", e);
         }
+        if (batchTracer != null) {
+            batchTracer.close();
+        }
         consumerBean.destroy(consumer, consumerBeanCreationalContext);
     }
 
@@ -0,0 +1,85 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import io.debezium.engine.ChangeEvent;
+
+/**
+ * Records of a single batch that share the same destination, in the order they were delivered by the engine.
+ * Sinks use the runs to resolve the destination state, e.g. a producer or a stream name, and to issue a bulk
+ * request once per destination instead of once per record.
+ *
+ * <p>The order of records for the same destination is preserved, the order of records for different destinations
+ * is not. Sinks should mark the records as processed in the original batch order.</p>
+ */
+public final class DestinationRun {
+
+    private final String destination;
+    private final List<ChangeEvent<Object, Object>> records;
+
+    private DestinationRun(String destination, List<ChangeEvent<Object, Object>> records) {
+        this.destination = destination;
+        this.records = records;
+    }
+
+    /**
+     * Splits the batch into one run per destination. The runs are ordered by the first occurrence of the destination
+     * in the batch. A batch with a single destination is not copied.
+     */
+    public static List<DestinationRun> partition(List<ChangeEvent<Object, Object>> records) {
+        if (records.isEmpty()) {
+            return List.of();
+        }
+
+        final String first = records.get(0).destination();
+        int index = 1;
+        while (index < records.size() && Objects.equals(first, records.get(index).destination())) {
+            index++;
+        }
+        if (index == records.size()) {
+            return List.of(new DestinationRun(first, records));
+        }
+
+        final Map<String, DestinationRun> runs = new LinkedHashMap<>();
+        DestinationRun current = new DestinationRun(first, new ArrayList<>(records.subList(0, index)));
+        runs.put(first, current);
+        for (; index < records.size(); index++) {
+            final ChangeEvent<Object, Object> record = records.get(index);
+            // Records for the same destination tend to be adjacent so the map is consulted only on a change
+            if (!Objects.equals(current.destination, record.destination())) {
+                current = runs.computeIfAbsent(record.destination(), x -> new DestinationRun(x, new ArrayList<>()));
+            }
+            current.records.add(record);
+        }
+        return new ArrayList<>(runs.values());
+    }
+
+    public String destination() {
+        return destination;
+    }
+
+    /**
+     * @return the records of the run, the list must not be modified
+     */
+    public List<ChangeEvent<Object, Object>> records() {
+        return records;
+    }
+
+    public int size() {
+        return records.size();
+    }
+
+    @Override
+    public String toString() {
+        return "DestinationRun [destination=" + destination + ", size=" + records.size() + "]";
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.debezium.DebeziumException;
+
+/**
+ * Registers the metrics of Debezium Server itself, as opposed to the connector metrics read by {@link DebeziumMetrics},
+ * in the platform MBean server. All MBeans share the {@code debezium.server} domain and are named
+ * {@code debezium.server:type=<type>,context=<context>} so they can be exported by the JMX exporter.
+ */
+public final class ServerMetrics {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ServerMetrics.class);
+
+    public static final String DOMAIN = "debezium.server";
+
+    private static final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+
+    private ServerMetrics() {
+    }
+
+    public static ObjectName objectName(String type, String context) {
+        try {
+            return new ObjectName(DOMAIN + ":type=" + type + ",context=" + quoteIfNeeded(context));
+        }
+        catch (MalformedObjectNameException e) {
+            throw new DebeziumException("Invalid metrics name for type '" + type + "' and context '" + context + "'", e);
+        }
+    }
+
+    private static String quoteIfNeeded(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            switch (value.charAt(i)) {
+                case ',':
+                case '=':
+                case ':':
+                case '"':
+                case '*':
+                case '?':
+                case '\n':
+                    return ObjectName.quote(value);
+                default:
+                    break;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Registers the MBean, replacing a previously registered one with the same name, e.g. left over by a sink
+     * that was re-created.
+     */
+    public static ObjectName register(String type, String context, Object mbean) {
+        final ObjectName name = objectName(type, context);
+        try {
+            if (mbeanServer.isRegistered(name)) {
+                mbeanServer.unregisterMBean(name);
+            }
+            mbeanServer.registerMBean(mbean, name);
+        }
+        catch (InstanceAlreadyExistsException | InstanceNotFoundException e) {
+            LOGGER.warn("Metrics MBean '{}' registered concurrently", name, e);
+        }
+        catch (Exception e) {
+            throw new DebeziumException("Failed to register metrics MBean '" + name + "'", e);
+        }
+        return name;
+    }
+
+    public static void unregister(ObjectName name) {
+        if (name == null) {
+            return;
+        }
+        try {
+            if (mbeanServer.isRegistered(name)) {
+                mbeanServer.unregisterMBean(name);
+            }
+        }
+        catch (Exception e) {
+            LOGGER.warn("Failed to unregister metrics MBean '{}'", name, e);
+        }
+    }
+}
@@ -6,7 +6,8 @@
 package io.debezium.server;
 
 /**
- * Transforms the name of the record destination to the target stream name.
+ * Transforms the name of the record destination to the target stream name. The sinks cache the mapped names so
+ * the mapper must always return the same name for the same destination.
  *
  * @author Jiri Pechanec
  *
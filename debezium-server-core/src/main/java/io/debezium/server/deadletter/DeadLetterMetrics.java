@@ -0,0 +1,37 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.deadletter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.ObjectName;
+
+import io.debezium.server.ServerMetrics;
+
+public class DeadLetterMetrics implements DeadLetterMetricsMXBean {
+
+    static final String TYPE = "dead-letter-metrics";
+
+    private final LongAdder records = new LongAdder();
+    private final ObjectName name;
+
+    DeadLetterMetrics(String reason) {
+        this.name = ServerMetrics.register(TYPE, reason, this);
+    }
+
+    void increment() {
+        records.increment();
+    }
+
+    @Override
+    public long getRecords() {
+        return records.sum();
+    }
+
+    void unregister() {
+        ServerMetrics.unregister(name);
+    }
+}
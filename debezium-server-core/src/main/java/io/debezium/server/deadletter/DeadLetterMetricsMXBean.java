@@ -0,0 +1,14 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.deadletter;
+
+/**
+ * Number of records diverted to the dead-letter queue for a single reason.
+ */
+public interface DeadLetterMetricsMXBean {
+
+    long getRecords();
+}
@@ -0,0 +1,314 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.deadletter;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import javax.management.ObjectName;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.spi.CreationalContext;
+import jakarta.enterprise.inject.spi.Bean;
+import jakarta.enterprise.inject.spi.BeanManager;
+import jakarta.inject.Inject;
+
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.debezium.DebeziumException;
+import io.debezium.annotation.VisibleForTesting;
+import io.debezium.engine.ChangeEvent;
+import io.debezium.engine.DebeziumEngine;
+import io.debezium.server.ServerMetrics;
+
+/**
+ * Diverts records that can never be delivered, e.g. because they exceed the size limit of the target system,
+ * so the sink can mark them as processed and continue with the rest of the batch instead of failing the connector.
+ *
+ * <p>The dead-letter queue is disabled by default. When enabled the records are stored either in a local append-only
+ * file ({@code debezium.dead.letter.store=file}, the default) or delivered to a fixed destination of another
+ * configured sink ({@code debezium.dead.letter.store=sink}).</p>
+ *
+ * <p>The records of the file store can be replayed on startup ({@code debezium.dead.letter.replay.on.startup=true})
+ * or inspected and replayed while the server is running via the {@code dead-letter-queue} MBean. A replay requested
+ * at runtime is performed by {@link ReplayingChangeConsumer} on the engine thread before the next batch is handled,
+ * so the sink is never called concurrently.</p>
+ */
+@ApplicationScoped
+public class DeadLetterQueue implements DeadLetterQueueMXBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeadLetterQueue.class);
+
+    public static final String REASON_RECORD_TOO_LARGE = "record-too-large";
+    public static final String REASON_RECORD_REJECTED = "record-rejected";
+
+    private static final String PROP_PREFIX = "debezium.dead.letter.";
+    private static final String PROP_ENABLED = PROP_PREFIX + "enabled";
+    private static final String PROP_STORE = PROP_PREFIX + "store";
+    private static final String PROP_FILE_PATH = PROP_PREFIX + "file.path";
+    private static final String PROP_SINK_TYPE = PROP_PREFIX + "sink.type";
+    private static final String PROP_SINK_DESTINATION = PROP_PREFIX + "sink.destination";
+    private static final String PROP_REPLAY_ON_STARTUP = PROP_PREFIX + "replay.on.startup";
+    private static final String PROP_REPLAY_BATCH_SIZE = PROP_PREFIX + "replay.batch.size";
+
+    private static final String STORE_FILE = "file";
+    private static final String STORE_SINK = "sink";
+    private static final String DEFAULT_FILE_PATH = "data/dead-letters.jsonl";
+    private static final String DEFAULT_SINK_DESTINATION = "debezium-dead-letters";
+    private static final int DEFAULT_REPLAY_BATCH_SIZE = 1024;
+
+    static final String TYPE = "dead-letter-queue";
+
+    @Inject
+    BeanManager beanManager;
+
+    private final Map<String, DeadLetterMetrics> metrics = new ConcurrentHashMap<>();
+    // A sink used as the store can fail on the dead-letter record itself, do not loop in that case
+    private final ThreadLocal<Boolean> storing = ThreadLocal.withInitial(() -> false);
+    // Filter of the records to replay before the next batch, null when no replay was requested
+    private final AtomicReference<Predicate<DeadLetterRecord>> pendingReplay = new AtomicReference<>();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private boolean enabled;
+    private boolean replayOnStartup;
+    private int replayBatchSize = DEFAULT_REPLAY_BATCH_SIZE;
+    private DeadLetterStore store;
+    private ObjectName name;
+
+    public DeadLetterQueue() {
+    }
+
+    @VisibleForTesting
+    public DeadLetterQueue(DeadLetterStore store) {
+        this.store = store;
+        this.enabled = true;
+    }
+
+    @PostConstruct
+    void init() {
+        final Config config = ConfigProvider.getConfig();
+        enabled = config.getOptionalValue(PROP_ENABLED, Boolean.class).orElse(false);
+        if (!enabled) {
+            return;
+        }
+        replayOnStartup = config.getOptionalValue(PROP_REPLAY_ON_STARTUP, Boolean.class).orElse(false);
+        replayBatchSize = config.getOptionalValue(PROP_REPLAY_BATCH_SIZE, Integer.class).orElse(DEFAULT_REPLAY_BATCH_SIZE);
+
+        final String storeType = config.getOptionalValue(PROP_STORE, String.class).orElse(STORE_FILE);
+        if (STORE_FILE.equals(storeType)) {
+            store = new FileDeadLetterStore(Paths.get(config.getOptionalValue(PROP_FILE_PATH, String.class).orElse(DEFAULT_FILE_PATH)));
+        }
+        else if (STORE_SINK.equals(storeType)) {
+            store = createSinkStore(config.getValue(PROP_SINK_TYPE, String.class),
+                    config.getOptionalValue(PROP_SINK_DESTINATION, String.class).orElse(DEFAULT_SINK_DESTINATION));
+        }
+        else {
+            throw new DebeziumException("Unknown dead-letter store '" + storeType + "' for option '" + PROP_STORE + "'");
+        }
+        LOGGER.info("Using dead-letter store '{}'", store);
+        if (isReplaySupported()) {
+            name = ServerMetrics.register(TYPE, STORE_FILE, this);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private DeadLetterStore createSinkStore(String name, String destination) {
+        final Set<Bean<?>> beans = beanManager.getBeans(name).stream()
+                .filter(x -> DebeziumEngine.ChangeConsumer.class.isAssignableFrom(x.getBeanClass()))
+                .collect(Collectors.toSet());
+        if (beans.size() != 1) {
+            throw new DebeziumException("Expected exactly one Debezium consumer named '" + name + "' for the dead-letter store but found " + beans.size());
+        }
+        final Bean<DebeziumEngine.ChangeConsumer<ChangeEvent<Object, Object>>> bean = (Bean<DebeziumEngine.ChangeConsumer<ChangeEvent<Object, Object>>>) beans
+                .iterator().next();
+        final CreationalContext<DebeziumEngine.ChangeConsumer<ChangeEvent<Object, Object>>> context = beanManager.createCreationalContext(bean);
+        final DebeziumEngine.ChangeConsumer<ChangeEvent<Object, Object>> sink = bean.create(context);
+        return new SinkDeadLetterStore(sink, destination, () -> bean.destroy(sink, context));
+    }
+
+    @PreDestroy
+    void close() {
+        ServerMetrics.unregister(name);
+        if (store != null) {
+            store.close();
+        }
+        metrics.values().forEach(DeadLetterMetrics::unregister);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Stores the record in the dead-letter queue.
+     *
+     * @param record    The record that cannot be delivered.
+     * @param reason    Short machine-readable reason, used as the metrics context.
+     * @param error     Optional error that caused the failure.
+     *
+     * @return          {@code true} if the record was stored and the sink should mark it as processed,
+     *                  {@code false} if the dead-letter queue is disabled or the record could not be stored
+     *                  and the sink must fail as it would without the queue
+     */
+    public boolean send(ChangeEvent<Object, Object> record, String reason, Throwable error) {
+        if (!enabled || storing.get()) {
+            return false;
+        }
+        storing.set(true);
+        try {
+            store.store(DeadLetterRecord.of(record, reason, error));
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        catch (Exception e) {
+            LOGGER.error("Failed to store record for destination '{}' in dead-letter queue", record.destination(), e);
+            return false;
+        }
+        finally {
+            storing.set(false);
+        }
+        metrics.computeIfAbsent(reason, DeadLetterMetrics::new).increment();
+        LOGGER.warn("Record for destination '{}' diverted to dead-letter queue, reason '{}'", record.destination(), reason);
+        return true;
+    }
+
+    public long getRecords(String reason) {
+        final DeadLetterMetrics reasonMetrics = metrics.get(reason);
+        return (reasonMetrics != null) ? reasonMetrics.getRecords() : 0;
+    }
+
+    /**
+     * @return {@code true} if the stored records can be inspected and replayed, i.e. the file store is used
+     */
+    public boolean isReplaySupported() {
+        return enabled && store instanceof FileDeadLetterStore;
+    }
+
+    /**
+     * Replays the records stored in the dead-letter file through the given sink if requested by configuration.
+     * Records failing again are stored in the dead-letter queue again.
+     */
+    public void replayIfRequested(DebeziumEngine.ChangeConsumer<ChangeEvent<Object, Object>> sink) throws InterruptedException {
+        if (!enabled || !replayOnStartup) {
+            return;
+        }
+        if (!isReplaySupported()) {
+            LOGGER.warn("Replay is supported only for the '{}' dead-letter store, skipping", STORE_FILE);
+            return;
+        }
+        replay(sink, record -> true);
+    }
+
+    /**
+     * Replays the records requested via {@link #replay(String, String)} through the given sink, does nothing if no
+     * replay was requested. A failed replay is requested again so it is resumed before the next batch.
+     */
+    public void replayIfPending(DebeziumEngine.ChangeConsumer<ChangeEvent<Object, Object>> sink) throws InterruptedException {
+        final Predicate<DeadLetterRecord> filter = pendingReplay.getAndSet(null);
+        if (filter == null) {
+            return;
+        }
+        try {
+            replay(sink, filter);
+        }
+        catch (InterruptedException | RuntimeException e) {
+            requestReplay(filter);
+            throw e;
+        }
+    }
+
+    private void replay(DebeziumEngine.ChangeConsumer<ChangeEvent<Object, Object>> sink, Predicate<DeadLetterRecord> filter)
+            throws InterruptedException {
+        try {
+            final long replayed = fileStore().replay(sink, replayBatchSize, filter);
+            LOGGER.info("Replayed {} dead-letter records", replayed);
+        }
+        catch (IOException e) {
+            throw new DebeziumException("Failed to replay dead-letter records", e);
+        }
+    }
+
+    @Override
+    public long getStoredRecords() {
+        try {
+            return fileStore().count(record -> true);
+        }
+        catch (IOException e) {
+            throw new DebeziumException("Failed to read dead-letter records", e);
+        }
+    }
+
+    @Override
+    public String[] inspect(String destination, String reason, int limit) {
+        try {
+            return fileStore().read(matching(destination, reason), limit).stream()
+                    .map(this::toJson)
+                    .toArray(String[]::new);
+        }
+        catch (IOException e) {
+            throw new DebeziumException("Failed to read dead-letter records", e);
+        }
+    }
+
+    @Override
+    public void replay(String destination, String reason) {
+        // Fails right away when the store cannot be replayed
+        fileStore();
+        requestReplay(matching(destination, reason));
+        LOGGER.info("Replay of dead-letter records for destination '{}' and reason '{}' requested", destination, reason);
+    }
+
+    private void requestReplay(Predicate<DeadLetterRecord> filter) {
+        // Requests made before the replay was performed are combined
+        pendingReplay.accumulateAndGet(filter, (pending, requested) -> (pending != null) ? pending.or(requested) : requested);
+    }
+
+    @Override
+    public boolean isReplayPending() {
+        return pendingReplay.get() != null;
+    }
+
+    private FileDeadLetterStore fileStore() {
+        if (!isReplaySupported()) {
+            throw new DebeziumException("Inspection and replay are supported only for the '" + STORE_FILE + "' dead-letter store");
+        }
+        return (FileDeadLetterStore) store;
+    }
+
+    private static Predicate<DeadLetterRecord> matching(String destination, String reason) {
+        return record -> (isEmpty(destination) || destination.equals(record.destination()))
+                && (isEmpty(reason) || reason.equals(record.reason()));
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    private String toJson(DeadLetterRecord record) {
+        try {
+            return mapper.writeValueAsString(record.toJson(mapper));
+        }
+        catch (JsonProcessingException e) {
+            throw new DebeziumException("Failed to serialize dead-letter record", e);
+        }
+    }
+}
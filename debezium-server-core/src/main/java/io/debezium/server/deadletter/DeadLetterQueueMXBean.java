@@ -0,0 +1,28 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.deadletter;
+
+/**
+ * Inspects and replays the records of the file dead-letter store while the server is running. An empty or
+ * {@code null} destination or reason matches any record.
+ */
+public interface DeadLetterQueueMXBean {
+
+    long getStoredRecords();
+
+    /**
+     * @return the stored records matching the filter as JSON documents, at most {@code limit} of them
+     */
+    String[] inspect(String destination, String reason, int limit);
+
+    /**
+     * Requests the replay of the stored records matching the filter. The records are replayed through the sink
+     * before the next batch is handled, the records not matching the filter are kept in the store.
+     */
+    void replay(String destination, String reason);
+
+    boolean isReplayPending();
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.deadletter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.debezium.DebeziumException;
+import io.debezium.engine.ChangeEvent;
+import io.debezium.engine.Header;
+
+/**
+ * A change event that could not be delivered together with the reason of the failure. The record is itself
+ * a {@link ChangeEvent} so it can be passed to a sink, either as the dead-letter destination or when replayed.
+ */
+public class DeadLetterRecord implements ChangeEvent<Object, Object> {
+
+    public static final String HEADER_REASON = "dead-letter-reason";
+    public static final String HEADER_ERROR = "dead-letter-error";
+    public static final String HEADER_DESTINATION = "dead-letter-destination";
+
+    private static final String ENCODING_BASE64 = "base64";
+
+    private final Instant timestamp;
+    private final String reason;
+    private final String error;
+    private final String destination;
+    private final Integer partition;
+    private final Object key;
+    private final Object value;
+    private final List<Header<Object>> headers;
+
+    DeadLetterRecord(Instant timestamp, String reason, String error, String destination, Integer partition, Object key, Object value,
+                     List<Header<Object>> headers) {
+        this.timestamp = timestamp;
+        this.reason = reason;
+        this.error = error;
+        this.destination = destination;
+        this.partition = partition;
+        this.key = key;
+        this.value = value;
+        this.headers = headers;
+    }
+
+    public static DeadLetterRecord of(ChangeEvent<Object, Object> record, String reason, Throwable error) {
+        final List<Header<Object>> headers = record.headers();
+        return new DeadLetterRecord(Instant.now(), reason, (error != null) ? error.toString() : null, record.destination(), record.partition(),
+                record.key(), record.value(), (headers != null) ? headers : Collections.emptyList());
+    }
+
+    public Instant timestamp() {
+        return timestamp;
+    }
+
+    public String reason() {
+        return reason;
+    }
+
+    public String error() {
+        return error;
+    }
+
+    @Override
+    public Object key() {
+        return key;
+    }
+
+    @Override
+    public Object value() {
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public <H> List<Header<H>> headers() {
+        return (List) headers;
+    }
+
+    @Override
+    public String destination() {
+        return destination;
+    }
+
+    @Override
+    public Integer partition() {
+        return partition;
+    }
+
+    /**
+     * Re-targets the record to the dead-letter destination of a sink, the original destination and the failure
+     * details are kept in headers.
+     */
+    DeadLetterRecord forDestination(String deadLetterDestination) {
+        final List<Header<Object>> deadLetterHeaders = new ArrayList<>(headers);
+        deadLetterHeaders.add(new SimpleHeader(HEADER_DESTINATION, destination));
+        deadLetterHeaders.add(new SimpleHeader(HEADER_REASON, reason));
+        if (error != null) {
+            deadLetterHeaders.add(new SimpleHeader(HEADER_ERROR, error));
+        }
+        return new DeadLetterRecord(timestamp, reason, error, deadLetterDestination, null, key, value, deadLetterHeaders);
+    }
+
+    ObjectNode toJson(ObjectMapper mapper) {
+        final ObjectNode node = mapper.createObjectNode();
+        node.put("timestamp", timestamp.toEpochMilli());
+        node.put("reason", reason);
+        node.put("error", error);
+        node.put("destination", destination);
+        node.put("partition", partition);
+        putData(node, "key", key);
+        putData(node, "value", value);
+        final ArrayNode headersNode = node.putArray("headers");
+        for (Header<Object> header : headers) {
+            final ObjectNode headerNode = headersNode.addObject();
+            headerNode.put("name", header.getKey());
+            putData(headerNode, "value", header.getValue());
+        }
+        return node;
+    }
+
+    static DeadLetterRecord fromJson(JsonNode node) {
+        final List<Header<Object>> headers = new ArrayList<>();
+        for (JsonNode headerNode : node.path("headers")) {
+            headers.add(new SimpleHeader(headerNode.get("name").asText(), readData(headerNode, "value")));
+        }
+        return new DeadLetterRecord(
+                Instant.ofEpochMilli(node.get("timestamp").asLong()),
+                textOrNull(node, "reason"),
+                textOrNull(node, "error"),
+                textOrNull(node, "destination"),
+                node.hasNonNull("partition") ? node.get("partition").asInt() : null,
+                readData(node, "key"),
+                readData(node, "value"),
+                headers);
+    }
+
+    private static void putData(ObjectNode node, String field, Object data) {
+        if (data == null) {
+            node.putNull(field);
+        }
+        else if (data instanceof String) {
+            node.put(field, (String) data);
+        }
+        else if (data instanceof byte[]) {
+            node.put(field, Base64.getEncoder().encodeToString((byte[]) data));
+            node.put(field + "Encoding", ENCODING_BASE64);
+        }
+        else {
+            throw new DebeziumException("Unexpected data type '" + data.getClass().getName() + "' of field '" + field + "'");
+        }
+    }
+
+    private static Object readData(JsonNode node, String field) {
+        final String data = textOrNull(node, field);
+        if (data != null && ENCODING_BASE64.equals(textOrNull(node, field + "Encoding"))) {
+            return Base64.getDecoder().decode(data.getBytes(StandardCharsets.US_ASCII));
+        }
+        return data;
+    }
+
+    private static String textOrNull(JsonNode node, String field) {
+        final JsonNode value = node.get(field);
+        return (value == null || value.isNull()) ? null : value.asText();
+    }
+
+    @Override
+    public String toString() {
+        return "DeadLetterRecord [reason=" + reason + ", destination=" + destination + ", timestamp=" + timestamp + ", error=" + error + "]";
+    }
+
+    private static class SimpleHeader implements Header<Object> {
+
+        private final String key;
+        private final Object value;
+
+        SimpleHeader(String key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public Object getValue() {
+            return value;
+        }
+    }
+}
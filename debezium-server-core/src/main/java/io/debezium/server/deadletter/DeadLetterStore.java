@@ -0,0 +1,19 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.deadletter;
+
+import java.io.IOException;
+
+/**
+ * Backend of the {@link DeadLetterQueue} that persists records which could not be delivered to the sink.
+ */
+public interface DeadLetterStore extends AutoCloseable {
+
+    void store(DeadLetterRecord record) throws IOException, InterruptedException;
+
+    @Override
+    void close();
+}
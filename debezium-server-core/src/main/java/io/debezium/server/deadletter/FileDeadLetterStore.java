@@ -0,0 +1,224 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.deadletter;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.debezium.engine.ChangeEvent;
+import io.debezium.engine.DebeziumEngine;
+
+/**
+ * Stores dead-letter records in a local append-only file, one JSON document per line. Binary keys and values
+ * are stored Base64 encoded.
+ */
+public class FileDeadLetterStore implements DeadLetterStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileDeadLetterStore.class);
+
+    static final String REPLAY_SUFFIX = ".replaying";
+    static final String KEPT_SUFFIX = ".kept";
+
+    private final Path path;
+    private final Path replayPath;
+    private final Path keptPath;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private BufferedWriter writer;
+
+    public FileDeadLetterStore(Path path) {
+        this.path = path;
+        this.replayPath = path.resolveSibling(path.getFileName() + REPLAY_SUFFIX);
+        this.keptPath = path.resolveSibling(path.getFileName() + KEPT_SUFFIX);
+    }
+
+    @Override
+    public synchronized void store(DeadLetterRecord record) throws IOException {
+        append(mapper.writeValueAsString(record.toJson(mapper)));
+    }
+
+    private void append(String line) throws IOException {
+        if (writer == null) {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        writer.write(line);
+        writer.newLine();
+        // Records are rare and must survive a crash of the server
+        writer.flush();
+    }
+
+    /**
+     * Sends all stored records to the given sink in batches of the given size.
+     *
+     * @return number of replayed records
+     */
+    public long replay(DebeziumEngine.ChangeConsumer<ChangeEvent<Object, Object>> sink, int batchSize)
+            throws IOException, InterruptedException {
+        return replay(sink, batchSize, record -> true);
+    }
+
+    /**
+     * Sends the stored records matching the filter to the given sink in batches of the given size. The file is moved
+     * aside before the replay so records failing again are collected into a fresh file. The records not matching the
+     * filter are collected into a separate file that is added to the fresh one only after all records were handled.
+     * The moved file is deleted only then too, an interrupted replay is resumed on the next call and starts collecting
+     * the records not matching the filter anew, so they are never stored twice.
+     *
+     * @return number of replayed records
+     */
+    public synchronized long replay(DebeziumEngine.ChangeConsumer<ChangeEvent<Object, Object>> sink, int batchSize,
+                                    Predicate<DeadLetterRecord> filter)
+            throws IOException, InterruptedException {
+        closeWriter();
+        restoreKeptRecords();
+
+        if (!Files.exists(replayPath)) {
+            if (!Files.exists(path)) {
+                return 0;
+            }
+            Files.move(path, replayPath, StandardCopyOption.ATOMIC_MOVE);
+        }
+        else {
+            LOGGER.info("Resuming interrupted replay of dead-letter records from '{}'", replayPath);
+        }
+
+        long replayed = 0;
+        final List<ChangeEvent<Object, Object>> batch = new ArrayList<>(batchSize);
+        try (BufferedReader reader = Files.newBufferedReader(replayPath, StandardCharsets.UTF_8);
+                BufferedWriter kept = Files.newBufferedWriter(keptPath, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                final DeadLetterRecord record = DeadLetterRecord.fromJson(mapper.readTree(line));
+                if (!filter.test(record)) {
+                    kept.write(line);
+                    kept.newLine();
+                    continue;
+                }
+                batch.add(record);
+                if (batch.size() == batchSize) {
+                    replayed += send(sink, batch);
+                }
+            }
+            replayed += send(sink, batch);
+        }
+
+        Files.delete(replayPath);
+        restoreKeptRecords();
+        return replayed;
+    }
+
+    /**
+     * Adds the records not matching the filter of a completed replay back to the store. A file of kept records next
+     * to the file being replayed belongs to an interrupted replay and is left to be collected anew.
+     */
+    private void restoreKeptRecords() throws IOException {
+        if (!Files.exists(keptPath) || Files.exists(replayPath)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(keptPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                append(line);
+            }
+        }
+        Files.delete(keptPath);
+    }
+
+    /**
+     * @return the stored records matching the filter, at most {@code limit} of them
+     */
+    public synchronized List<DeadLetterRecord> read(Predicate<DeadLetterRecord> filter, int limit) throws IOException {
+        final List<DeadLetterRecord> records = new ArrayList<>();
+        scan(filter, limit, records);
+        return records;
+    }
+
+    /**
+     * @return number of the stored records matching the filter
+     */
+    public synchronized long count(Predicate<DeadLetterRecord> filter) throws IOException {
+        return scan(filter, Integer.MAX_VALUE, null);
+    }
+
+    private long scan(Predicate<DeadLetterRecord> filter, int limit, List<DeadLetterRecord> matching) throws IOException {
+        restoreKeptRecords();
+        long count = 0;
+        // Records left by an interrupted replay are still stored
+        for (Path file : List.of(replayPath, path)) {
+            if (!Files.exists(file)) {
+                continue;
+            }
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while (count < limit && (line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    final DeadLetterRecord record = DeadLetterRecord.fromJson(mapper.readTree(line));
+                    if (filter.test(record)) {
+                        if (matching != null) {
+                            matching.add(record);
+                        }
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private int send(DebeziumEngine.ChangeConsumer<ChangeEvent<Object, Object>> sink, List<ChangeEvent<Object, Object>> batch)
+            throws InterruptedException {
+        final int size = batch.size();
+        if (size > 0) {
+            sink.handleBatch(new ArrayList<>(batch), new IgnoringRecordCommitter());
+            batch.clear();
+        }
+        return size;
+    }
+
+    private void closeWriter() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            closeWriter();
+        }
+        catch (IOException e) {
+            LOGGER.warn("Failed to close dead-letter file '{}'", path, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FileDeadLetterStore [path=" + path + "]";
+    }
+}
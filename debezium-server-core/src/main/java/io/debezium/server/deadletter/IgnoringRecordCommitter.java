@@ -0,0 +1,32 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.deadletter;
+
+import io.debezium.engine.ChangeEvent;
+import io.debezium.engine.DebeziumEngine;
+
+/**
+ * Dead-letter records are not part of the engine batch so there are no offsets to commit for them.
+ */
+class IgnoringRecordCommitter implements DebeziumEngine.RecordCommitter<ChangeEvent<Object, Object>> {
+
+    @Override
+    public void markProcessed(ChangeEvent<Object, Object> record) {
+    }
+
+    @Override
+    public void markBatchFinished() {
+    }
+
+    @Override
+    public void markProcessed(ChangeEvent<Object, Object> record, DebeziumEngine.Offsets sourceOffsets) {
+    }
+
+    @Override
+    public DebeziumEngine.Offsets buildOffsets() {
+        return null;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.deadletter;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.debezium.engine.ChangeEvent;
+import io.debezium.engine.DebeziumEngine;
+import io.debezium.engine.DebeziumEngine.RecordCommitter;
+
+/**
+ * Decorates the configured sink so the dead-letter records whose replay was requested at runtime are replayed
+ * through it before the next batch, on the thread handling the batches. A failed replay does not fail the batch,
+ * it is attempted again before the following one.
+ */
+public class ReplayingChangeConsumer implements DebeziumEngine.ChangeConsumer<ChangeEvent<Object, Object>> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplayingChangeConsumer.class);
+
+    private final DebeziumEngine.ChangeConsumer<ChangeEvent<Object, Object>> delegate;
+    private final DeadLetterQueue deadLetterQueue;
+
+    public ReplayingChangeConsumer(DebeziumEngine.ChangeConsumer<ChangeEvent<Object, Object>> delegate, DeadLetterQueue deadLetterQueue) {
+        this.delegate = delegate;
+        this.deadLetterQueue = deadLetterQueue;
+    }
+
+    @Override
+    public void handleBatch(List<ChangeEvent<Object, Object>> records, RecordCommitter<ChangeEvent<Object, Object>> committer)
+            throws InterruptedException {
+        try {
+            deadLetterQueue.replayIfPending(delegate);
+        }
+        catch (RuntimeException e) {
+            LOGGER.error("Failed to replay dead-letter records, the replay is attempted again before the next batch", e);
+        }
+        delegate.handleBatch(records, committer);
+    }
+
+    @Override
+    public boolean supportsTombstoneEvents() {
+        return delegate.supportsTombstoneEvents();
+    }
+}
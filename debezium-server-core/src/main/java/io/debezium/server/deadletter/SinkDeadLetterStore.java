@@ -0,0 +1,43 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.deadletter;
+
+import java.util.List;
+
+import io.debezium.engine.ChangeEvent;
+import io.debezium.engine.DebeziumEngine;
+
+/**
+ * Delivers dead-letter records to a fixed destination of another configured sink, e.g. a Kafka topic.
+ * The original destination and the failure reason are passed in the record headers.
+ */
+public class SinkDeadLetterStore implements DeadLetterStore {
+
+    private final DebeziumEngine.ChangeConsumer<ChangeEvent<Object, Object>> sink;
+    private final String destination;
+    private final Runnable destroyer;
+
+    public SinkDeadLetterStore(DebeziumEngine.ChangeConsumer<ChangeEvent<Object, Object>> sink, String destination, Runnable destroyer) {
+        this.sink = sink;
+        this.destination = destination;
+        this.destroyer = destroyer;
+    }
+
+    @Override
+    public synchronized void store(DeadLetterRecord record) throws InterruptedException {
+        sink.handleBatch(List.of(record.forDestination(destination)), new IgnoringRecordCommitter());
+    }
+
+    @Override
+    public void close() {
+        destroyer.run();
+    }
+
+    @Override
+    public String toString() {
+        return "SinkDeadLetterStore [sink=" + sink.getClass().getName() + ", destination=" + destination + "]";
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.encoding;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import javax.management.ObjectName;
+
+import io.debezium.server.ServerMetrics;
+
+/**
+ * Reuses the encoded form of record values, e.g. {@code byte[]}, {@code ByteString} or {@code SdkBytes}, for values
+ * that repeat within and across batches such as tombstones, heartbeats or unchanged-row updates.
+ *
+ * <p>The same value instance is found by identity without hashing the content, equal values are found by content.
+ * Only {@code String} and {@code byte[]} values not larger than the configured size are cached, the number of cached
+ * values is bounded and the least recently used ones are evicted first. A value is admitted to the cache only when
+ * its content was seen before, so values that occur once, the bulk of the change events, do not evict the repeating
+ * ones. The encoded values are shared so they must be immutable or never modified by the sink.</p>
+ *
+ * <p>The cache is not thread-safe, it is expected to be used from the thread calling
+ * {@link io.debezium.engine.DebeziumEngine.ChangeConsumer#handleBatch}.</p>
+ *
+ * @param <T> type of the encoded value
+ */
+public class EncodingCache<T> implements EncodingCacheMXBean, AutoCloseable {
+
+    private static final int IDENTITY_SLOTS = 64;
+
+    private final Function<Object, T> encoder;
+    private final int maxValueSize;
+    private final Map<Object, T> cache;
+    private final Object[] identityKeys = new Object[IDENTITY_SLOTS];
+    private final Object[] identityValues = new Object[IDENTITY_SLOTS];
+    // Content hashes of the values seen recently but not cached, a value is cached when its hash is found here
+    private final int[] seen;
+    private final ObjectName name;
+
+    private volatile long hits;
+    private volatile long misses;
+
+    /**
+     * @param name          Name of the cache, used as the metrics context.
+     * @param maxEntries    Maximum number of cached values, zero disables the cache.
+     * @param maxValueSize  Maximum length of a cached value in characters or bytes.
+     * @param encoder       Encodes the value for the sink.
+     */
+    public EncodingCache(String name, int maxEntries, int maxValueSize, Function<Object, T> encoder) {
+        this.encoder = encoder;
+        this.maxValueSize = (maxEntries > 0) ? maxValueSize : -1;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, T> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.seen = new int[(maxEntries > 0) ? Integer.highestOneBit(Math.min(maxEntries, 1 << 20)) * 4 : 0];
+        this.name = (name != null) ? ServerMetrics.register("encoding-cache", name, this) : null;
+    }
+
+    /**
+     * Returns the encoded value, encoding it only if it is not cached.
+     */
+    @SuppressWarnings("unchecked")
+    public T get(Object value) {
+        if (!isCacheable(value)) {
+            misses++;
+            return encoder.apply(value);
+        }
+
+        final int slot = System.identityHashCode(value) & (IDENTITY_SLOTS - 1);
+        if (identityKeys[slot] == value) {
+            hits++;
+            return (T) identityValues[slot];
+        }
+
+        // The content is hashed only when the instance is not known
+        final Object key = (value instanceof byte[]) ? new BytesKey((byte[]) value) : value;
+        T encoded = cache.get(key);
+        if (encoded != null) {
+            hits++;
+        }
+        else {
+            misses++;
+            encoded = encoder.apply(value);
+            if (admit(key.hashCode())) {
+                cache.put(key, encoded);
+            }
+        }
+        identityKeys[slot] = value;
+        identityValues[slot] = encoded;
+        return encoded;
+    }
+
+    private boolean isCacheable(Object value) {
+        if (value instanceof String) {
+            return ((String) value).length() <= maxValueSize;
+        }
+        if (value instanceof byte[]) {
+            return ((byte[]) value).length <= maxValueSize;
+        }
+        return false;
+    }
+
+    /**
+     * @return {@code true} when a value with the same content hash was seen before, otherwise the hash is remembered
+     */
+    private boolean admit(int hash) {
+        final int index = hash & (seen.length - 1);
+        if (seen[index] == hash) {
+            return true;
+        }
+        seen[index] = hash;
+        return false;
+    }
+
+    @Override
+    public long getHits() {
+        return hits;
+    }
+
+    @Override
+    public long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public double getHitRatio() {
+        final long total = hits + misses;
+        return (total == 0) ? 0.0 : (double) hits / total;
+    }
+
+    @Override
+    public int getSize() {
+        return cache.size();
+    }
+
+    @Override
+    public void close() {
+        ServerMetrics.unregister(name);
+    }
+
+    /**
+     * Content based key of a byte array.
+     */
+    private static final class BytesKey {
+        private final byte[] bytes;
+        private final int hash;
+
+        BytesKey(byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof BytesKey && Arrays.equals(bytes, ((BytesKey) obj).bytes);
+        }
+    }
+}
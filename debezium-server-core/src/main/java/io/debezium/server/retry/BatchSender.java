@@ -0,0 +1,27 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.retry;
+
+import java.util.List;
+
+/**
+ * Sends a sub-batch of items to the target system in a single attempt.
+ *
+ * @param <T> type of the sent items, e.g. change events or prepared requests
+ */
+@FunctionalInterface
+public interface BatchSender<T> {
+
+    /**
+     * Sends the items and reports the items that were not delivered into the result. An exception thrown from the
+     * method fails all the items, it is classified by the {@link ErrorClassifier} of the executor.
+     * A {@link io.debezium.DebeziumException} is never retried and is propagated as is.
+     *
+     * @param items     The items to send, never empty.
+     * @param result    Collects the items that were not delivered.
+     */
+    void send(List<T> items, SendResult<T> result) throws Exception;
+}
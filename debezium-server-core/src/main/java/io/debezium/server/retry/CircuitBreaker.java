@@ -0,0 +1,73 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.retry;
+
+import io.debezium.util.Clock;
+
+/**
+ * Circuit breaker of a single destination. The circuit opens after the configured number of consecutive failed
+ * attempts and stays open for the configured time. The first attempt after that is a probe, a success closes the
+ * circuit while a failure opens it again.
+ */
+class CircuitBreaker {
+
+    private enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int threshold;
+    private final long openMs;
+    private final Clock clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    CircuitBreaker(int threshold, long openMs, Clock clock) {
+        this.threshold = threshold;
+        this.openMs = openMs;
+        this.clock = clock;
+    }
+
+    /**
+     * @return time in milliseconds the caller must wait before the next attempt, zero if the circuit is not open
+     */
+    synchronized long remainingOpenMs() {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        final long remaining = openedAt + openMs - clock.currentTimeInMillis();
+        if (remaining <= 0) {
+            state = State.HALF_OPEN;
+            return 0;
+        }
+        return remaining;
+    }
+
+    synchronized void success() {
+        consecutiveFailures = 0;
+        state = State.CLOSED;
+    }
+
+    /**
+     * @return {@code true} if the failure opened the circuit
+     */
+    synchronized boolean failure() {
+        consecutiveFailures++;
+        if (threshold > 0 && (state == State.HALF_OPEN || consecutiveFailures >= threshold)) {
+            state = State.OPEN;
+            openedAt = clock.currentTimeInMillis();
+            return true;
+        }
+        return false;
+    }
+
+    synchronized boolean isOpen() {
+        return state == State.OPEN;
+    }
+}
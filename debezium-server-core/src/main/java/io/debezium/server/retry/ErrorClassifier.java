@@ -0,0 +1,20 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.retry;
+
+/**
+ * Classifies exceptions thrown by the target system client.
+ */
+@FunctionalInterface
+public interface ErrorClassifier {
+
+    /**
+     * Every exception is considered a transient failure.
+     */
+    ErrorClassifier RETRY_ALL = error -> ErrorKind.RETRIABLE;
+
+    ErrorKind classify(Throwable error);
+}
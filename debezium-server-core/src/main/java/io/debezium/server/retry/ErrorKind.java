@@ -0,0 +1,28 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.retry;
+
+/**
+ * Classification of a failure to deliver records, decides how the {@link RetryExecutor} reacts to it.
+ */
+public enum ErrorKind {
+
+    /**
+     * A transient failure, e.g. a network error. Retried with backoff until the maximum number of attempts is reached.
+     */
+    RETRIABLE,
+
+    /**
+     * The target system asks the client to slow down. Retried with backoff for as long as the retry budget allows,
+     * without counting against the maximum number of attempts.
+     */
+    THROTTLED,
+
+    /**
+     * Retrying cannot help, the batch fails immediately.
+     */
+    FATAL
+}
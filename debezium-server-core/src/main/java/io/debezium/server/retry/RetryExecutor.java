@@ -0,0 +1,162 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.retry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.debezium.DebeziumException;
+import io.debezium.annotation.VisibleForTesting;
+import io.debezium.util.Clock;
+import io.debezium.util.Metronome;
+
+/**
+ * Delivers sub-batches of items with retries shared by all sinks. Only the items reported as failed by the
+ * {@link BatchSender} are sent again, with exponential backoff and jitter between the attempts.
+ *
+ * <ul>
+ * <li>{@link ErrorKind#RETRIABLE} failures are retried up to the maximum number of attempts.</li>
+ * <li>{@link ErrorKind#THROTTLED} failures are retried for as long as the retry budget of the sub-batch allows.</li>
+ * <li>{@link ErrorKind#FATAL} failures fail the sub-batch immediately.</li>
+ * </ul>
+ *
+ * Every destination has its own circuit breaker, an open circuit delays the next attempt for the destination
+ * instead of sending requests that are known to fail.
+ */
+public class RetryExecutor implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RetryExecutor.class);
+
+    @FunctionalInterface
+    interface Sleeper {
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    private final RetryPolicy policy;
+    private final ErrorClassifier classifier;
+    private final Clock clock;
+    private final Sleeper sleeper;
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final RetryMetrics metrics;
+
+    /**
+     * @param name          Name of the sink, used as the metrics context.
+     * @param policy        The retry settings.
+     * @param classifier    Classifies exceptions thrown by the {@link BatchSender}.
+     */
+    public RetryExecutor(String name, RetryPolicy policy, ErrorClassifier classifier) {
+        this(name, policy, classifier, Clock.SYSTEM, millis -> Metronome.sleeper(Duration.ofMillis(millis), Clock.SYSTEM).pause());
+    }
+
+    @VisibleForTesting
+    RetryExecutor(String name, RetryPolicy policy, ErrorClassifier classifier, Clock clock, Sleeper sleeper) {
+        this.policy = policy;
+        this.classifier = classifier;
+        this.clock = clock;
+        this.sleeper = sleeper;
+        this.metrics = new RetryMetrics(name,
+                () -> circuitBreakers.values().stream().filter(CircuitBreaker::isOpen).count());
+        LOGGER.info("Using retry policy {} for '{}'", policy, name);
+    }
+
+    /**
+     * Sends the items to the destination, retrying the failed ones.
+     *
+     * @param destination   The destination the items are sent to, every destination has its own circuit breaker.
+     * @param items         The items to send.
+     * @param sender        Sends a single attempt.
+     *
+     * @throws DebeziumException if some items could not be delivered
+     */
+    public <T> void execute(String destination, List<T> items, BatchSender<T> sender) throws InterruptedException {
+        if (items.isEmpty()) {
+            return;
+        }
+        final CircuitBreaker circuitBreaker = circuitBreakers.computeIfAbsent(destination,
+                x -> new CircuitBreaker(policy.getCircuitBreakerThreshold(), policy.getCircuitBreakerOpenMs(), clock));
+        final long start = clock.currentTimeInMillis();
+        List<T> pending = items;
+        int failedAttempts = 0;
+        int retry = 0;
+
+        while (true) {
+            long openMs;
+            while ((openMs = circuitBreaker.remainingOpenMs()) > 0) {
+                checkBudget(destination, start, openMs, null);
+                LOGGER.debug("Circuit for destination '{}' is open, waiting {} ms", destination, openMs);
+                sleeper.sleep(openMs);
+                metrics.waited(openMs);
+            }
+
+            SendResult<T> result = new SendResult<>();
+            try {
+                sender.send(pending, result);
+            }
+            catch (InterruptedException | DebeziumException e) {
+                throw e;
+            }
+            catch (Exception e) {
+                // The items reported before the failure are part of the pending ones, they must not be sent twice
+                result = new SendResult<>();
+                result.failedAll(pending, classifier.classify(e), e);
+            }
+
+            if (result.isSuccess()) {
+                circuitBreaker.success();
+                return;
+            }
+            if (result.isFatal()) {
+                throw new DebeziumException("Failed to publish events to destination '" + destination + "'", result.lastError());
+            }
+            if (circuitBreaker.failure()) {
+                LOGGER.warn("Opening circuit for destination '{}' after repeated failures", destination);
+                metrics.circuitOpened();
+            }
+            if (result.isRetriable()) {
+                failedAttempts++;
+                if (failedAttempts >= policy.getMaxAttempts()) {
+                    metrics.exhausted();
+                    throw new DebeziumException(exhaustedMessage(result.failedItems()), result.lastError());
+                }
+            }
+
+            final long delayMs = policy.backoffMs(retry++);
+            checkBudget(destination, start, delayMs, result.lastError());
+            pending = result.failedItems();
+            LOGGER.warn("Failed to publish {} events to destination '{}', retrying in {} ms", pending.size(), destination, delayMs, result.lastError());
+            sleeper.sleep(delayMs);
+            metrics.retried(!result.isRetriable(), delayMs);
+        }
+    }
+
+    private static <T> String exhaustedMessage(List<T> failedItems) {
+        final String message = "Exceeded maximum number of attempts to publish event " + failedItems.get(0);
+        return (failedItems.size() == 1) ? message : message + " and " + (failedItems.size() - 1) + " more";
+    }
+
+    private void checkBudget(String destination, long start, long delayMs, Throwable lastError) {
+        if (clock.currentTimeInMillis() - start + delayMs > policy.getBudgetMs()) {
+            metrics.exhausted();
+            throw new DebeziumException("Exceeded retry budget of " + policy.getBudgetMs() + " ms to publish events to destination '" + destination + "'",
+                    lastError);
+        }
+    }
+
+    @VisibleForTesting
+    RetryMetrics metrics() {
+        return metrics;
+    }
+
+    @Override
+    public void close() {
+        metrics.unregister();
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.retry;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import javax.management.ObjectName;
+
+import io.debezium.server.ServerMetrics;
+
+/**
+ * Retry statistics of a single sink exposed as {@code debezium.server:type=retry-metrics,context=<sink>}.
+ */
+public class RetryMetrics implements RetryMetricsMXBean {
+
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder throttledRetries = new LongAdder();
+    private final LongAdder retryTimeMs = new LongAdder();
+    private final LongAdder exhaustedBatches = new LongAdder();
+    private final LongAdder circuitBreakerOpenings = new LongAdder();
+    private final LongSupplier openCircuits;
+    private final ObjectName name;
+
+    RetryMetrics(String context, LongSupplier openCircuits) {
+        this.openCircuits = openCircuits;
+        this.name = ServerMetrics.register("retry-metrics", context, this);
+    }
+
+    void retried(boolean throttled, long delayMs) {
+        retries.increment();
+        if (throttled) {
+            throttledRetries.increment();
+        }
+        retryTimeMs.add(delayMs);
+    }
+
+    void waited(long delayMs) {
+        retryTimeMs.add(delayMs);
+    }
+
+    void exhausted() {
+        exhaustedBatches.increment();
+    }
+
+    void circuitOpened() {
+        circuitBreakerOpenings.increment();
+    }
+
+    void unregister() {
+        ServerMetrics.unregister(name);
+    }
+
+    @Override
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    @Override
+    public long getThrottledRetries() {
+        return throttledRetries.sum();
+    }
+
+    @Override
+    public long getRetryTimeMs() {
+        return retryTimeMs.sum();
+    }
+
+    @Override
+    public long getExhaustedBatches() {
+        return exhaustedBatches.sum();
+    }
+
+    @Override
+    public long getCircuitBreakerOpenings() {
+        return circuitBreakerOpenings.sum();
+    }
+
+    @Override
+    public long getOpenCircuits() {
+        return openCircuits.getAsLong();
+    }
+}
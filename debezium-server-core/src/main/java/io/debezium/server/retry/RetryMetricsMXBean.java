@@ -0,0 +1,24 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.retry;
+
+/**
+ * Retry statistics of a single sink.
+ */
+public interface RetryMetricsMXBean {
+
+    long getRetries();
+
+    long getThrottledRetries();
+
+    long getRetryTimeMs();
+
+    long getExhaustedBatches();
+
+    long getCircuitBreakerOpenings();
+
+    long getOpenCircuits();
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.retry;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.eclipse.microprofile.config.Config;
+
+import io.debezium.DebeziumException;
+
+/**
+ * Settings of the {@link RetryExecutor}. The delay before the n-th retry grows exponentially from the initial
+ * interval up to the maximum interval and is randomly shortened by up to the jitter fraction so that retries of
+ * multiple clients hitting the same limit do not synchronize.
+ *
+ * <p>The policy is read from the sink configuration, e.g. {@code debezium.sink.kinesis.retries}.</p>
+ */
+public class RetryPolicy {
+
+    public static final String PROP_RETRIES = "retries";
+    public static final String PROP_RETRY_INTERVAL = "retry.interval.ms";
+    public static final String PROP_RETRY_MAX_INTERVAL = "retry.max.interval.ms";
+    public static final String PROP_RETRY_BACKOFF_MULTIPLIER = "retry.backoff.multiplier";
+    public static final String PROP_RETRY_JITTER = "retry.jitter";
+    public static final String PROP_RETRY_BUDGET = "retry.budget.ms";
+    public static final String PROP_CIRCUIT_BREAKER_THRESHOLD = "retry.circuit.breaker.threshold";
+    public static final String PROP_CIRCUIT_BREAKER_OPEN = "retry.circuit.breaker.open.ms";
+
+    public static final int DEFAULT_RETRIES = 5;
+    public static final Duration DEFAULT_RETRY_INTERVAL = Duration.ofMillis(250);
+    public static final Duration DEFAULT_RETRY_MAX_INTERVAL = Duration.ofSeconds(10);
+    public static final double DEFAULT_BACKOFF_MULTIPLIER = 2.0;
+    public static final double DEFAULT_JITTER = 0.5;
+    public static final Duration DEFAULT_RETRY_BUDGET = Duration.ofMinutes(5);
+    public static final int DEFAULT_CIRCUIT_BREAKER_THRESHOLD = 10;
+    public static final Duration DEFAULT_CIRCUIT_BREAKER_OPEN = Duration.ofSeconds(5);
+
+    private final int maxAttempts;
+    private final long initialIntervalMs;
+    private final long maxIntervalMs;
+    private final double multiplier;
+    private final double jitter;
+    private final long budgetMs;
+    private final int circuitBreakerThreshold;
+    private final long circuitBreakerOpenMs;
+
+    public RetryPolicy(int maxAttempts, Duration initialInterval, Duration maxInterval, double multiplier, double jitter, Duration budget,
+                       int circuitBreakerThreshold, Duration circuitBreakerOpen) {
+        if (maxAttempts < 1) {
+            throw new DebeziumException("Number of retries must be at least 1 but was " + maxAttempts);
+        }
+        if (multiplier < 1.0) {
+            throw new DebeziumException("Retry backoff multiplier must be at least 1.0 but was " + multiplier);
+        }
+        if (jitter < 0.0 || jitter > 1.0) {
+            throw new DebeziumException("Retry jitter must be between 0.0 and 1.0 but was " + jitter);
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialIntervalMs = initialInterval.toMillis();
+        this.maxIntervalMs = Math.max(maxInterval.toMillis(), initialIntervalMs);
+        this.multiplier = multiplier;
+        this.jitter = jitter;
+        this.budgetMs = budget.toMillis();
+        this.circuitBreakerThreshold = circuitBreakerThreshold;
+        this.circuitBreakerOpenMs = circuitBreakerOpen.toMillis();
+    }
+
+    /**
+     * Reads the policy from the properties with the given prefix, e.g. {@code debezium.sink.sqs.}.
+     */
+    public static RetryPolicy fromConfig(Config config, String prefix) {
+        return new RetryPolicy(
+                config.getOptionalValue(prefix + PROP_RETRIES, Integer.class).orElse(DEFAULT_RETRIES),
+                duration(config, prefix + PROP_RETRY_INTERVAL, DEFAULT_RETRY_INTERVAL),
+                duration(config, prefix + PROP_RETRY_MAX_INTERVAL, DEFAULT_RETRY_MAX_INTERVAL),
+                config.getOptionalValue(prefix + PROP_RETRY_BACKOFF_MULTIPLIER, Double.class).orElse(DEFAULT_BACKOFF_MULTIPLIER),
+                config.getOptionalValue(prefix + PROP_RETRY_JITTER, Double.class).orElse(DEFAULT_JITTER),
+                duration(config, prefix + PROP_RETRY_BUDGET, DEFAULT_RETRY_BUDGET),
+                config.getOptionalValue(prefix + PROP_CIRCUIT_BREAKER_THRESHOLD, Integer.class).orElse(DEFAULT_CIRCUIT_BREAKER_THRESHOLD),
+                duration(config, prefix + PROP_CIRCUIT_BREAKER_OPEN, DEFAULT_CIRCUIT_BREAKER_OPEN));
+    }
+
+    private static Duration duration(Config config, String name, Duration defaultValue) {
+        return config.getOptionalValue(name, Long.class).map(Duration::ofMillis).orElse(defaultValue);
+    }
+
+    /**
+     * @param retry zero-based number of the retry
+     * @return delay in milliseconds before the retry
+     */
+    long backoffMs(int retry) {
+        final double exponential = initialIntervalMs * Math.pow(multiplier, retry);
+        final long capped = (long) Math.min(exponential, maxIntervalMs);
+        if (jitter == 0.0 || capped == 0) {
+            return capped;
+        }
+        return capped - (long) (capped * jitter * ThreadLocalRandom.current().nextDouble());
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getBudgetMs() {
+        return budgetMs;
+    }
+
+    /**
+     * @return number of consecutive failed attempts that opens the circuit of a destination, zero disables the breaker
+     */
+    public int getCircuitBreakerThreshold() {
+        return circuitBreakerThreshold;
+    }
+
+    public long getCircuitBreakerOpenMs() {
+        return circuitBreakerOpenMs;
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy [maxAttempts=" + maxAttempts + ", initialIntervalMs=" + initialIntervalMs + ", maxIntervalMs=" + maxIntervalMs
+                + ", multiplier=" + multiplier + ", jitter=" + jitter + ", budgetMs=" + budgetMs + ", circuitBreakerThreshold="
+                + circuitBreakerThreshold + ", circuitBreakerOpenMs=" + circuitBreakerOpenMs + "]";
+    }
+}
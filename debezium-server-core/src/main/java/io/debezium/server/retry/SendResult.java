@@ -0,0 +1,85 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.retry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a single send attempt of a sub-batch. Only the failed items are tracked, every item that is not
+ * reported as failed is considered delivered.
+ *
+ * @param <T> type of the sent items
+ */
+public final class SendResult<T> {
+
+    private List<T> failedItems;
+    private boolean throttled;
+    private boolean retriable;
+    private boolean fatal;
+    private Throwable lastError;
+
+    SendResult() {
+    }
+
+    /**
+     * Reports an item that was not delivered.
+     *
+     * @param item      The failed item, it will be sent again in the next attempt unless the failure is fatal.
+     * @param kind      Classification of the failure.
+     * @param error     The cause of the failure, reported when the retries are exhausted.
+     */
+    public void failed(T item, ErrorKind kind, Throwable error) {
+        if (failedItems == null) {
+            failedItems = new ArrayList<>();
+        }
+        failedItems.add(item);
+        switch (kind) {
+            case THROTTLED:
+                throttled = true;
+                break;
+            case FATAL:
+                fatal = true;
+                break;
+            default:
+                retriable = true;
+                break;
+        }
+        if (error != null) {
+            lastError = error;
+        }
+    }
+
+    void failedAll(List<T> items, ErrorKind kind, Throwable error) {
+        for (T item : items) {
+            failed(item, kind, error);
+        }
+    }
+
+    public boolean isSuccess() {
+        return failedItems == null;
+    }
+
+    List<T> failedItems() {
+        return failedItems;
+    }
+
+    boolean isThrottled() {
+        return throttled;
+    }
+
+    boolean isRetriable() {
+        return retriable;
+    }
+
+    boolean isFatal() {
+        return fatal;
+    }
+
+    Throwable lastError() {
+        return lastError;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.tracing;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import io.debezium.engine.ChangeEvent;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.ContextKey;
+
+/**
+ * Tracing state of a single batch. Destination spans are closed once all records for the destination are marked
+ * as processed, sampled record spans are closed when the record itself is marked as processed. Anything still open
+ * is closed together with the batch span.
+ */
+public final class BatchTrace {
+
+    private static final ContextKey<BatchTrace> KEY = ContextKey.named("debezium-batch-trace");
+
+    private final BatchTracer tracer;
+    private final Span batchSpan;
+    private final Context context;
+    private final Map<String, DestinationTrace> destinations = new HashMap<>();
+    private final Map<ChangeEvent<Object, Object>, Span> recordSpans;
+
+    BatchTrace(BatchTracer tracer, Span batchSpan, List<ChangeEvent<Object, Object>> records) {
+        this.tracer = tracer;
+        this.batchSpan = batchSpan;
+        this.context = Context.current().with(batchSpan).with(KEY, this);
+
+        for (ChangeEvent<Object, Object> record : records) {
+            destinations.computeIfAbsent(record.destination(), x -> new DestinationTrace()).remaining.incrementAndGet();
+        }
+        destinations.forEach((destination, trace) -> {
+            trace.span = tracer.startChildSpan("debezium.destination", SpanKind.PRODUCER, context);
+            trace.span.setAttribute(BatchTracer.ATTRIBUTE_DESTINATION, destination);
+            trace.span.setAttribute(BatchTracer.ATTRIBUTE_RECORD_COUNT, (long) trace.remaining.get());
+            trace.context = context.with(trace.span);
+        });
+
+        // Unsampled batches are not exported so there is no point in allocating record spans for them
+        if (batchSpan.getSpanContext().isSampled()) {
+            Map<ChangeEvent<Object, Object>, Span> sampled = null;
+            for (ChangeEvent<Object, Object> record : records) {
+                if (tracer.sampleRecord()) {
+                    if (sampled == null) {
+                        sampled = new IdentityHashMap<>();
+                    }
+                    final Span span = tracer.startChildSpan("debezium.record", SpanKind.PRODUCER, destinations.get(record.destination()).context);
+                    if (record.partition() != null) {
+                        span.setAttribute(BatchTracer.ATTRIBUTE_PARTITION, (long) record.partition());
+                    }
+                    sampled.put(record, span);
+                }
+            }
+            recordSpans = (sampled == null) ? null : Collections.synchronizedMap(sampled);
+        }
+        else {
+            recordSpans = null;
+        }
+    }
+
+    /**
+     * Propagates the trace context of the batch currently being processed by the calling thread into the
+     * given carrier, e.g. message headers. The most specific context available for the record is used.
+     * No-op when tracing is disabled.
+     */
+    public static void inject(ChangeEvent<Object, Object> record, BiConsumer<String, String> carrier) {
+        final BatchTrace trace = Context.current().get(KEY);
+        if (trace != null) {
+            trace.tracer.propagator().inject(trace.contextOf(record), carrier, (c, key, value) -> c.accept(key, value));
+        }
+    }
+
+    Context context() {
+        return context;
+    }
+
+    void recordProcessed(ChangeEvent<Object, Object> record) {
+        if (recordSpans != null) {
+            final Span span = recordSpans.remove(record);
+            if (span != null) {
+                span.end();
+            }
+        }
+        final DestinationTrace destination = destinations.get(record.destination());
+        if (destination != null && destination.remaining.decrementAndGet() == 0) {
+            destination.span.end();
+        }
+    }
+
+    void failed(Throwable error) {
+        batchSpan.recordException(error);
+        batchSpan.setStatus(StatusCode.ERROR);
+        destinations.values().forEach(destination -> {
+            if (destination.remaining.get() > 0) {
+                destination.span.setStatus(StatusCode.ERROR);
+            }
+        });
+    }
+
+    void end() {
+        if (recordSpans != null) {
+            synchronized (recordSpans) {
+                recordSpans.values().forEach(Span::end);
+                recordSpans.clear();
+            }
+        }
+        destinations.values().forEach(destination -> {
+            // Records not marked as processed, e.g. skipped nulls, must not keep the span open
+            if (destination.remaining.getAndSet(0) > 0) {
+                destination.span.end();
+            }
+        });
+        batchSpan.end();
+    }
+
+    private Context contextOf(ChangeEvent<Object, Object> record) {
+        if (recordSpans != null) {
+            final Span span = recordSpans.get(record);
+            if (span != null) {
+                return context.with(span);
+            }
+        }
+        final DestinationTrace destination = destinations.get(record.destination());
+        return (destination != null) ? destination.context : context;
+    }
+
+    private static class DestinationTrace {
+        final AtomicInteger remaining = new AtomicInteger();
+        Span span;
+        Context context;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.tracing;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.eclipse.microprofile.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.debezium.DebeziumException;
+import io.debezium.engine.ChangeEvent;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.autoconfigure.AutoConfiguredOpenTelemetrySdk;
+
+/**
+ * Creates OpenTelemetry spans for the batches delivered by the engine. Every batch gets a single span with one
+ * child span per destination, per-record spans are created only for the configured fraction of records.
+ *
+ * <p>The OpenTelemetry SDK is configured from {@code debezium.tracing.otel.*} properties which are passed to the
+ * SDK autoconfiguration with the {@code otel.} prefix, e.g. {@code debezium.tracing.otel.exporter.otlp.endpoint}.</p>
+ */
+public class BatchTracer implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchTracer.class);
+
+    public static final String PROP_PREFIX = "debezium.tracing.";
+    public static final String PROP_ENABLED = PROP_PREFIX + "enabled";
+    public static final String PROP_RECORD_SAMPLING_RATIO = PROP_PREFIX + "record.sampling.ratio";
+    private static final String PROP_OTEL_PREFIX = PROP_PREFIX + "otel.";
+
+    private static final String INSTRUMENTATION_NAME = "io.debezium.server";
+    private static final String DEFAULT_SERVICE_NAME = "debezium-server";
+
+    static final String ATTRIBUTE_BATCH_SIZE = "debezium.batch.size";
+    static final String ATTRIBUTE_DESTINATION = "debezium.destination";
+    static final String ATTRIBUTE_RECORD_COUNT = "debezium.destination.record.count";
+    static final String ATTRIBUTE_PARTITION = "debezium.partition";
+
+    private final OpenTelemetry openTelemetry;
+    private final Tracer tracer;
+    private final TextMapPropagator propagator;
+    private final double recordSamplingRatio;
+
+    public BatchTracer(OpenTelemetry openTelemetry, double recordSamplingRatio) {
+        if (recordSamplingRatio < 0.0 || recordSamplingRatio > 1.0) {
+            throw new DebeziumException("Record sampling ratio must be between 0.0 and 1.0 but was " + recordSamplingRatio);
+        }
+        this.openTelemetry = openTelemetry;
+        this.tracer = openTelemetry.getTracer(INSTRUMENTATION_NAME);
+        this.propagator = openTelemetry.getPropagators().getTextMapPropagator();
+        this.recordSamplingRatio = recordSamplingRatio;
+    }
+
+    /**
+     * Creates a tracer backed by an autoconfigured OpenTelemetry SDK.
+     */
+    public static BatchTracer fromConfig(Config config) {
+        final Map<String, String> otelProps = new HashMap<>();
+        otelProps.put("otel.service.name", DEFAULT_SERVICE_NAME);
+        for (String propName : config.getPropertyNames()) {
+            if (propName.startsWith(PROP_OTEL_PREFIX)) {
+                otelProps.put("otel." + propName.substring(PROP_OTEL_PREFIX.length()), config.getConfigValue(propName).getValue());
+            }
+        }
+        final OpenTelemetrySdk sdk = AutoConfiguredOpenTelemetrySdk.builder()
+                .addPropertiesSupplier(() -> otelProps)
+                .build()
+                .getOpenTelemetrySdk();
+
+        final double ratio = config.getOptionalValue(PROP_RECORD_SAMPLING_RATIO, Double.class).orElse(0.0);
+        LOGGER.info("Tracing enabled with record sampling ratio {}", ratio);
+        return new BatchTracer(sdk, ratio);
+    }
+
+    /**
+     * Starts the trace of a single batch. The caller is responsible for making the returned
+     * {@link BatchTrace#context()} current for the duration of the batch processing.
+     */
+    BatchTrace startBatch(List<ChangeEvent<Object, Object>> records) {
+        final Span batchSpan = tracer.spanBuilder("debezium.batch")
+                .setSpanKind(SpanKind.INTERNAL)
+                .setAttribute(ATTRIBUTE_BATCH_SIZE, (long) records.size())
+                .startSpan();
+        return new BatchTrace(this, batchSpan, records);
+    }
+
+    /**
+     * Records a zero-length span for an engine lifecycle callback.
+     */
+    void lifecycleEvent(String name, Throwable error) {
+        final Span span = tracer.spanBuilder(name).setSpanKind(SpanKind.INTERNAL).startSpan();
+        if (error != null) {
+            span.recordException(error);
+        }
+        span.end();
+    }
+
+    Span startChildSpan(String name, SpanKind kind, Context parent) {
+        return tracer.spanBuilder(name).setSpanKind(kind).setParent(parent).startSpan();
+    }
+
+    boolean sampleRecord() {
+        return recordSamplingRatio > 0.0 && ThreadLocalRandom.current().nextDouble() < recordSamplingRatio;
+    }
+
+    TextMapPropagator propagator() {
+        return propagator;
+    }
+
+    @Override
+    public void close() {
+        if (openTelemetry instanceof OpenTelemetrySdk) {
+            ((OpenTelemetrySdk) openTelemetry).close();
+        }
+    }
+}
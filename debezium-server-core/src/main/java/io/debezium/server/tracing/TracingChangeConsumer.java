@@ -0,0 +1,82 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.tracing;
+
+import java.util.List;
+
+import io.debezium.engine.ChangeEvent;
+import io.debezium.engine.DebeziumEngine;
+import io.debezium.engine.DebeziumEngine.RecordCommitter;
+import io.opentelemetry.context.Scope;
+
+/**
+ * Decorates the configured sink so every {@code handleBatch} call is traced. The batch trace context is current
+ * while the sink processes the batch so sinks can propagate it into message headers via {@link BatchTrace#inject}.
+ */
+public class TracingChangeConsumer implements DebeziumEngine.ChangeConsumer<ChangeEvent<Object, Object>> {
+
+    private final DebeziumEngine.ChangeConsumer<ChangeEvent<Object, Object>> delegate;
+    private final BatchTracer tracer;
+
+    public TracingChangeConsumer(DebeziumEngine.ChangeConsumer<ChangeEvent<Object, Object>> delegate, BatchTracer tracer) {
+        this.delegate = delegate;
+        this.tracer = tracer;
+    }
+
+    @Override
+    public void handleBatch(List<ChangeEvent<Object, Object>> records, RecordCommitter<ChangeEvent<Object, Object>> committer)
+            throws InterruptedException {
+        final BatchTrace trace = tracer.startBatch(records);
+        try (Scope ignored = trace.context().makeCurrent()) {
+            delegate.handleBatch(records, new TracingRecordCommitter(committer, trace));
+        }
+        catch (InterruptedException | RuntimeException e) {
+            trace.failed(e);
+            throw e;
+        }
+        finally {
+            trace.end();
+        }
+    }
+
+    @Override
+    public boolean supportsTombstoneEvents() {
+        return delegate.supportsTombstoneEvents();
+    }
+
+    private static class TracingRecordCommitter implements RecordCommitter<ChangeEvent<Object, Object>> {
+
+        private final RecordCommitter<ChangeEvent<Object, Object>> delegate;
+        private final BatchTrace trace;
+
+        TracingRecordCommitter(RecordCommitter<ChangeEvent<Object, Object>> delegate, BatchTrace trace) {
+            this.delegate = delegate;
+            this.trace = trace;
+        }
+
+        @Override
+        public void markProcessed(ChangeEvent<Object, Object> record) throws InterruptedException {
+            delegate.markProcessed(record);
+            trace.recordProcessed(record);
+        }
+
+        @Override
+        public void markBatchFinished() throws InterruptedException {
+            delegate.markBatchFinished();
+        }
+
+        @Override
+        public void markProcessed(ChangeEvent<Object, Object> record, DebeziumEngine.Offsets sourceOffsets) throws InterruptedException {
+            delegate.markProcessed(record, sourceOffsets);
+            trace.recordProcessed(record);
+        }
+
+        @Override
+        public DebeziumEngine.Offsets buildOffsets() {
+            return delegate.buildOffsets();
+        }
+    }
+}
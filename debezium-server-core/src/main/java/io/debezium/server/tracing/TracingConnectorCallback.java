@@ -0,0 +1,55 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.tracing;
+
+import io.debezium.engine.DebeziumEngine;
+
+/**
+ * Records the engine lifecycle callbacks as spans before passing them to the server lifecycle listener.
+ */
+public class TracingConnectorCallback implements DebeziumEngine.ConnectorCallback, DebeziumEngine.CompletionCallback {
+
+    private final DebeziumEngine.ConnectorCallback connectorCallback;
+    private final DebeziumEngine.CompletionCallback completionCallback;
+    private final BatchTracer tracer;
+
+    public TracingConnectorCallback(DebeziumEngine.ConnectorCallback connectorCallback, DebeziumEngine.CompletionCallback completionCallback,
+                                    BatchTracer tracer) {
+        this.connectorCallback = connectorCallback;
+        this.completionCallback = completionCallback;
+        this.tracer = tracer;
+    }
+
+    @Override
+    public void connectorStarted() {
+        tracer.lifecycleEvent("debezium.connector.started", null);
+        connectorCallback.connectorStarted();
+    }
+
+    @Override
+    public void connectorStopped() {
+        tracer.lifecycleEvent("debezium.connector.stopped", null);
+        connectorCallback.connectorStopped();
+    }
+
+    @Override
+    public void taskStarted() {
+        tracer.lifecycleEvent("debezium.task.started", null);
+        connectorCallback.taskStarted();
+    }
+
+    @Override
+    public void taskStopped() {
+        tracer.lifecycleEvent("debezium.task.stopped", null);
+        connectorCallback.taskStopped();
+    }
+
+    @Override
+    public void handle(boolean success, String message, Throwable error) {
+        tracer.lifecycleEvent("debezium.connector.completed", error);
+        completionCallback.handle(success, message, error);
+    }
+}
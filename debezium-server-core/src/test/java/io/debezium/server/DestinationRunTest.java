@@ -0,0 +1,52 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.debezium.engine.ChangeEvent;
+
+public class DestinationRunTest {
+
+    @Test
+    public void shouldNotCopySingleDestinationBatch() {
+        final List<ChangeEvent<Object, Object>> records = List.of(
+                new TestChangeEvent("k1", "v1", "a"),
+                new TestChangeEvent("k2", "v2", "a"));
+
+        final List<DestinationRun> runs = DestinationRun.partition(records);
+
+        assertThat(runs).hasSize(1);
+        assertThat(runs.get(0).destination()).isEqualTo("a");
+        assertThat(runs.get(0).records()).isSameAs(records);
+    }
+
+    @Test
+    public void shouldGroupByDestinationPreservingOrder() {
+        final ChangeEvent<Object, Object> a1 = new TestChangeEvent("k1", "v1", "a");
+        final ChangeEvent<Object, Object> a2 = new TestChangeEvent("k2", "v2", "a");
+        final ChangeEvent<Object, Object> b1 = new TestChangeEvent("k3", "v3", "b");
+        final ChangeEvent<Object, Object> a3 = new TestChangeEvent("k4", "v4", "a");
+        final ChangeEvent<Object, Object> c1 = new TestChangeEvent("k5", "v5", "c");
+        final ChangeEvent<Object, Object> b2 = new TestChangeEvent("k6", "v6", "b");
+
+        final List<DestinationRun> runs = DestinationRun.partition(List.of(a1, a2, b1, a3, c1, b2));
+
+        assertThat(runs).extracting(DestinationRun::destination).containsExactly("a", "b", "c");
+        assertThat(runs.get(0).records()).containsExactly(a1, a2, a3);
+        assertThat(runs.get(1).records()).containsExactly(b1, b2);
+        assertThat(runs.get(2).records()).containsExactly(c1);
+    }
+
+    @Test
+    public void shouldHandleEmptyBatch() {
+        assertThat(DestinationRun.partition(List.of())).isEmpty();
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server;
+
+import java.util.Collections;
+import java.util.List;
+
+import io.debezium.engine.ChangeEvent;
+import io.debezium.engine.Header;
+
+/**
+ * A simple {@link ChangeEvent} used by unit tests that do not run the engine.
+ */
+public class TestChangeEvent implements ChangeEvent<Object, Object> {
+
+    private final Object key;
+    private final Object value;
+    private final String destination;
+    private final Integer partition;
+
+    public TestChangeEvent(Object key, Object value, String destination) {
+        this(key, value, destination, null);
+    }
+
+    public TestChangeEvent(Object key, Object value, String destination, Integer partition) {
+        this.key = key;
+        this.value = value;
+        this.destination = destination;
+        this.partition = partition;
+    }
+
+    @Override
+    public Object key() {
+        return key;
+    }
+
+    @Override
+    public Object value() {
+        return value;
+    }
+
+    @Override
+    public <H> List<Header<H>> headers() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public String destination() {
+        return destination;
+    }
+
+    @Override
+    public Integer partition() {
+        return partition;
+    }
+
+    @Override
+    public String toString() {
+        return "TestChangeEvent [key=" + key + ", value=" + value + ", destination=" + destination + ", partition=" + partition + "]";
+    }
+}
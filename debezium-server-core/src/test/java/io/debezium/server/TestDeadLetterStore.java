@@ -0,0 +1,46 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import io.debezium.server.deadletter.DeadLetterQueue;
+import io.debezium.server.deadletter.DeadLetterRecord;
+import io.debezium.server.deadletter.DeadLetterStore;
+
+/**
+ * A {@link DeadLetterStore} that remembers the diverted records, used by unit tests that invoke sinks directly.
+ */
+public class TestDeadLetterStore implements DeadLetterStore {
+
+    private final List<DeadLetterRecord> records = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * Enables the dead-letter queue of the sink with a new store.
+     */
+    public static TestDeadLetterStore attachTo(BaseChangeConsumer consumer) {
+        final TestDeadLetterStore store = new TestDeadLetterStore();
+        consumer.deadLetterQueue = new DeadLetterQueue(store);
+        return store;
+    }
+
+    @Override
+    public void store(DeadLetterRecord record) {
+        records.add(record);
+    }
+
+    public List<DeadLetterRecord> getRecords() {
+        synchronized (records) {
+            return new ArrayList<>(records);
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import io.debezium.engine.ChangeEvent;
+import io.debezium.engine.DebeziumEngine;
+
+/**
+ * A {@link DebeziumEngine.RecordCommitter} that remembers the records marked as processed, used by unit tests
+ * that invoke sinks directly.
+ */
+public class TestRecordCommitter implements DebeziumEngine.RecordCommitter<ChangeEvent<Object, Object>> {
+
+    private final List<ChangeEvent<Object, Object>> processed = Collections.synchronizedList(new ArrayList<>());
+    private volatile boolean batchFinished = false;
+
+    @Override
+    public void markProcessed(ChangeEvent<Object, Object> record) {
+        processed.add(record);
+    }
+
+    @Override
+    public void markBatchFinished() {
+        batchFinished = true;
+    }
+
+    @Override
+    public void markProcessed(ChangeEvent<Object, Object> record, DebeziumEngine.Offsets sourceOffsets) {
+        processed.add(record);
+    }
+
+    @Override
+    public DebeziumEngine.Offsets buildOffsets() {
+        return null;
+    }
+
+    public List<ChangeEvent<Object, Object>> getProcessed() {
+        return processed;
+    }
+
+    public boolean isBatchFinished() {
+        return batchFinished;
+    }
+}
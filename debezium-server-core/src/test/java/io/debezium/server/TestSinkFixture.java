@@ -0,0 +1,39 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.debezium.engine.ChangeEvent;
+import io.debezium.server.retry.RetryPolicy;
+
+/**
+ * The retry policy and records shared by the unit tests that invoke sinks directly against a fake client.
+ */
+public final class TestSinkFixture {
+
+    /**
+     * Retries a failed send up to three times without any noticeable backoff.
+     */
+    public static final RetryPolicy RETRY_POLICY = new RetryPolicy(3, Duration.ofMillis(1), Duration.ofMillis(1), 1.0, 0.0,
+            Duration.ofMinutes(1), 100, Duration.ofMillis(1));
+
+    private TestSinkFixture() {
+    }
+
+    /**
+     * @return a mutable list of records with keys {@code key-<i>} and values {@code value-<i>}
+     */
+    public static List<ChangeEvent<Object, Object>> records(int count, String destination) {
+        final List<ChangeEvent<Object, Object>> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            records.add(new TestChangeEvent("key-" + i, "value-" + i, destination));
+        }
+        return records;
+    }
+}
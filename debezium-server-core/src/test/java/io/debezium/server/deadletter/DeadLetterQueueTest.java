@@ -0,0 +1,198 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.deadletter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.debezium.engine.ChangeEvent;
+import io.debezium.engine.DebeziumEngine;
+import io.debezium.server.TestChangeEvent;
+import io.debezium.server.TestRecordCommitter;
+import io.debezium.util.Testing;
+
+public class DeadLetterQueueTest {
+
+    private static final Path DEAD_LETTER_PATH = Testing.Files.createTestingPath("dead-letters.jsonl").toAbsolutePath();
+
+    @BeforeEach
+    public void setUp() {
+        Testing.Files.delete(DEAD_LETTER_PATH);
+        Testing.Files.delete(DEAD_LETTER_PATH.resolveSibling(DEAD_LETTER_PATH.getFileName() + FileDeadLetterStore.REPLAY_SUFFIX));
+        Testing.Files.delete(DEAD_LETTER_PATH.resolveSibling(DEAD_LETTER_PATH.getFileName() + FileDeadLetterStore.KEPT_SUFFIX));
+    }
+
+    @Test
+    public void shouldStoreAndCountRecordsPerReason() throws Exception {
+        final DeadLetterQueue queue = new DeadLetterQueue(new FileDeadLetterStore(DEAD_LETTER_PATH));
+        try {
+            assertThat(queue.send(new TestChangeEvent("k1", "v1", "a"), DeadLetterQueue.REASON_RECORD_TOO_LARGE, null)).isTrue();
+            assertThat(queue.send(new TestChangeEvent("k2", "v2", "a"), DeadLetterQueue.REASON_RECORD_TOO_LARGE, null)).isTrue();
+            assertThat(queue.send(new TestChangeEvent("k3", "v3", "b"), DeadLetterQueue.REASON_RECORD_REJECTED, new IllegalStateException("bad"))).isTrue();
+
+            assertThat(queue.getRecords(DeadLetterQueue.REASON_RECORD_TOO_LARGE)).isEqualTo(2);
+            assertThat(queue.getRecords(DeadLetterQueue.REASON_RECORD_REJECTED)).isEqualTo(1);
+            assertThat(Files.readAllLines(DEAD_LETTER_PATH, StandardCharsets.UTF_8)).hasSize(3);
+        }
+        finally {
+            queue.close();
+        }
+    }
+
+    @Test
+    public void shouldReplayStoredRecords() throws Exception {
+        final FileDeadLetterStore store = new FileDeadLetterStore(DEAD_LETTER_PATH);
+        final byte[] binaryValue = new byte[]{ 0, 1, 2, (byte) 255 };
+        store.store(DeadLetterRecord.of(new TestChangeEvent("k1", "v1", "a", 3), DeadLetterQueue.REASON_RECORD_TOO_LARGE, null));
+        store.store(DeadLetterRecord.of(new TestChangeEvent(null, binaryValue, "b"), DeadLetterQueue.REASON_RECORD_REJECTED, null));
+        store.store(DeadLetterRecord.of(new TestChangeEvent("k3", null, "c"), DeadLetterQueue.REASON_RECORD_REJECTED, null));
+
+        final List<ChangeEvent<Object, Object>> replayed = new ArrayList<>();
+        final long count = store.replay((records, committer) -> {
+            replayed.addAll(records);
+            committer.markBatchFinished();
+        }, 2);
+        store.close();
+
+        assertThat(count).isEqualTo(3);
+        assertThat(replayed).extracting(ChangeEvent::destination).containsExactly("a", "b", "c");
+        assertThat(replayed.get(0).key()).isEqualTo("k1");
+        assertThat(replayed.get(0).value()).isEqualTo("v1");
+        assertThat(replayed.get(0).partition()).isEqualTo(3);
+        assertThat(replayed.get(1).key()).isNull();
+        assertThat((byte[]) replayed.get(1).value()).isEqualTo(binaryValue);
+        assertThat(replayed.get(2).value()).isNull();
+        assertThat(Files.exists(DEAD_LETTER_PATH)).isFalse();
+    }
+
+    @Test
+    public void shouldInspectAndReplayMatchingRecordsOnRequest() throws Exception {
+        final DeadLetterQueue queue = new DeadLetterQueue(new FileDeadLetterStore(DEAD_LETTER_PATH));
+        try {
+            queue.send(new TestChangeEvent("k1", "v1", "a"), DeadLetterQueue.REASON_RECORD_TOO_LARGE, null);
+            queue.send(new TestChangeEvent("k2", "v2", "b"), DeadLetterQueue.REASON_RECORD_REJECTED, null);
+            queue.send(new TestChangeEvent("k3", "v3", "a"), DeadLetterQueue.REASON_RECORD_REJECTED, null);
+
+            assertThat(queue.getStoredRecords()).isEqualTo(3);
+            assertThat(queue.inspect("a", null, 10)).hasSize(2).allMatch(json -> json.contains("\"destination\":\"a\""));
+            assertThat(queue.inspect(null, DeadLetterQueue.REASON_RECORD_REJECTED, 1)).hasSize(1).allMatch(json -> json.contains("\"key\":\"k2\""));
+
+            final List<ChangeEvent<Object, Object>> handled = new ArrayList<>();
+            final ReplayingChangeConsumer consumer = new ReplayingChangeConsumer((records, committer) -> handled.addAll(records), queue);
+            final ChangeEvent<Object, Object> record = new TestChangeEvent("k4", "v4", "a");
+
+            queue.replay("a", DeadLetterQueue.REASON_RECORD_REJECTED);
+            assertThat(queue.isReplayPending()).isTrue();
+            consumer.handleBatch(List.of(record), new TestRecordCommitter());
+
+            // The requested record is replayed before the batch, the others are kept
+            assertThat(handled).extracting(ChangeEvent::key).containsExactly("k3", "k4");
+            assertThat(queue.isReplayPending()).isFalse();
+            assertThat(queue.getStoredRecords()).isEqualTo(2);
+            assertThat(queue.inspect("", "", 10)).hasSize(2);
+
+            // No replay is pending
+            consumer.handleBatch(List.of(record), new TestRecordCommitter());
+            assertThat(handled).extracting(ChangeEvent::key).containsExactly("k3", "k4", "k4");
+        }
+        finally {
+            queue.close();
+        }
+    }
+
+    @Test
+    public void shouldResumeFailedReplayWithoutDuplicatingKeptRecords() throws Exception {
+        final FileDeadLetterStore store = new FileDeadLetterStore(DEAD_LETTER_PATH);
+        store.store(DeadLetterRecord.of(new TestChangeEvent("k1", "v1", "a"), DeadLetterQueue.REASON_RECORD_REJECTED, null));
+        store.store(DeadLetterRecord.of(new TestChangeEvent("k2", "v2", "b"), DeadLetterQueue.REASON_RECORD_REJECTED, null));
+        store.store(DeadLetterRecord.of(new TestChangeEvent("k3", "v3", "a"), DeadLetterQueue.REASON_RECORD_REJECTED, null));
+        store.store(DeadLetterRecord.of(new TestChangeEvent("k4", "v4", "b"), DeadLetterQueue.REASON_RECORD_REJECTED, null));
+
+        final List<Object> replayed = new ArrayList<>();
+        final AtomicBoolean failing = new AtomicBoolean(true);
+        final DebeziumEngine.ChangeConsumer<ChangeEvent<Object, Object>> sink = (records, committer) -> {
+            if (failing.get() && records.get(0).key().equals("k3")) {
+                throw new IllegalStateException("Sink unavailable");
+            }
+            records.forEach(record -> replayed.add(record.key()));
+        };
+
+        assertThatThrownBy(() -> store.replay(sink, 1, record -> record.destination().equals("a"))).isInstanceOf(IllegalStateException.class);
+        assertThat(store.count(record -> true)).isEqualTo(4);
+
+        failing.set(false);
+        assertThat(store.replay(sink, 1, record -> record.destination().equals("a"))).isEqualTo(2);
+        store.close();
+
+        // The records replayed before the failure are replayed again, the kept ones are stored once
+        assertThat(replayed).containsExactly("k1", "k1", "k3");
+        assertThat(store.read(record -> true, 10)).extracting(DeadLetterRecord::key).containsExactly("k2", "k4");
+        assertThat(Files.readAllLines(DEAD_LETTER_PATH, StandardCharsets.UTF_8)).hasSize(2);
+    }
+
+    @Test
+    public void shouldHandleBatchWhenRequestedReplayFails() throws Exception {
+        final DeadLetterQueue queue = new DeadLetterQueue(new FileDeadLetterStore(DEAD_LETTER_PATH));
+        try {
+            queue.send(new TestChangeEvent("k1", "v1", "a"), DeadLetterQueue.REASON_RECORD_REJECTED, null);
+
+            final List<Object> handled = new ArrayList<>();
+            final AtomicBoolean failing = new AtomicBoolean(true);
+            final ReplayingChangeConsumer consumer = new ReplayingChangeConsumer((records, committer) -> {
+                if (failing.get() && records.get(0).key().equals("k1")) {
+                    throw new IllegalStateException("Sink unavailable");
+                }
+                records.forEach(record -> handled.add(record.key()));
+            }, queue);
+
+            queue.replay("a", null);
+            consumer.handleBatch(List.of(new TestChangeEvent("k2", "v2", "a")), new TestRecordCommitter());
+
+            // The batch is handled and the replay is still pending
+            assertThat(handled).containsExactly("k2");
+            assertThat(queue.isReplayPending()).isTrue();
+            assertThat(queue.getStoredRecords()).isEqualTo(1);
+
+            failing.set(false);
+            consumer.handleBatch(List.of(new TestChangeEvent("k3", "v3", "a")), new TestRecordCommitter());
+
+            assertThat(handled).containsExactly("k2", "k1", "k3");
+            assertThat(queue.isReplayPending()).isFalse();
+            assertThat(queue.getStoredRecords()).isZero();
+        }
+        finally {
+            queue.close();
+        }
+    }
+
+    @Test
+    public void shouldNotStoreWhenStoreFails() {
+        final DeadLetterQueue queue = new DeadLetterQueue(new DeadLetterStore() {
+            @Override
+            public void store(DeadLetterRecord record) throws IOException {
+                throw new IOException("Disk full");
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+
+        assertThat(queue.send(new TestChangeEvent("k1", "v1", "a"), DeadLetterQueue.REASON_RECORD_REJECTED, null)).isFalse();
+        assertThat(queue.getRecords(DeadLetterQueue.REASON_RECORD_REJECTED)).isZero();
+    }
+}
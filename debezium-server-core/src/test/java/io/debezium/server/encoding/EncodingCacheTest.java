@@ -0,0 +1,95 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.encoding;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class EncodingCacheTest {
+
+    private final AtomicInteger encoded = new AtomicInteger();
+
+    private EncodingCache<byte[]> cache(int maxEntries, int maxValueSize) {
+        return new EncodingCache<>("test", maxEntries, maxValueSize, value -> {
+            encoded.incrementAndGet();
+            return (value instanceof String) ? ((String) value).getBytes(StandardCharsets.UTF_8) : ((byte[]) value).clone();
+        });
+    }
+
+    @Test
+    public void shouldReuseEncodingOfEqualValues() {
+        try (EncodingCache<byte[]> cache = cache(16, 1024)) {
+            // A value is cached once it was seen the second time
+            cache.get(new String("tombstone"));
+            final byte[] second = cache.get(new String("tombstone"));
+            assertThat(cache.get(new String("tombstone"))).isSameAs(second);
+            cache.get(new byte[]{ 1, 2 });
+            assertThat(cache.get(new byte[]{ 1, 2 })).isSameAs(cache.get(new byte[]{ 1, 2 }));
+
+            assertThat(encoded.get()).isEqualTo(4);
+            assertThat(cache.getHits()).isEqualTo(2);
+            assertThat(cache.getMisses()).isEqualTo(4);
+            assertThat(cache.getHitRatio()).isEqualTo(2.0 / 6);
+        }
+    }
+
+    @Test
+    public void shouldReuseEncodingOfSameInstance() {
+        try (EncodingCache<byte[]> cache = cache(16, 1024)) {
+            final String value = "heartbeat";
+            cache.get(value);
+            cache.get(value);
+            cache.get(value);
+
+            assertThat(encoded.get()).isEqualTo(1);
+            assertThat(cache.getHits()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void shouldBoundCachedValues() {
+        try (EncodingCache<byte[]> cache = cache(2, 4)) {
+            for (String value : new String[]{ "a", "b", "c" }) {
+                cache.get(new String(value));
+                cache.get(new String(value));
+            }
+            assertThat(cache.getSize()).isEqualTo(2);
+
+            cache.get(new String("large"));
+            cache.get(new String("large"));
+            assertThat(cache.getSize()).isEqualTo(2);
+            assertThat(encoded.get()).isEqualTo(8);
+        }
+    }
+
+    @Test
+    public void shouldNotCacheValuesSeenOnce() {
+        try (EncodingCache<byte[]> cache = cache(16, 1024)) {
+            for (int i = 0; i < 100; i++) {
+                cache.get("value-" + i);
+            }
+
+            assertThat(cache.getSize()).isZero();
+            assertThat(encoded.get()).isEqualTo(100);
+        }
+    }
+
+    @Test
+    public void shouldNotCacheWhenDisabled() {
+        try (EncodingCache<byte[]> cache = cache(0, 1024)) {
+            final String value = "tombstone";
+            cache.get(value);
+            cache.get(value);
+
+            assertThat(encoded.get()).isEqualTo(2);
+            assertThat(cache.getSize()).isZero();
+        }
+    }
+}
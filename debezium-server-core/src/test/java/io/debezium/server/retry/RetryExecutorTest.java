@@ -0,0 +1,142 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.retry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.debezium.DebeziumException;
+import io.debezium.util.Clock;
+
+public class RetryExecutorTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final List<Long> sleeps = new ArrayList<>();
+    private RetryExecutor executor;
+
+    @AfterEach
+    public void tearDown() {
+        if (executor != null) {
+            executor.close();
+        }
+    }
+
+    private RetryExecutor executor(int maxAttempts, Duration budget, int circuitBreakerThreshold) {
+        final RetryPolicy policy = new RetryPolicy(maxAttempts, Duration.ofMillis(100), Duration.ofMillis(1000), 2.0, 0.0, budget,
+                circuitBreakerThreshold, Duration.ofSeconds(5));
+        final Clock clock = new Clock() {
+            @Override
+            public long currentTimeInMillis() {
+                return now.get();
+            }
+        };
+        executor = new RetryExecutor("test", policy, error -> error instanceof IllegalStateException ? ErrorKind.FATAL : ErrorKind.RETRIABLE,
+                clock, millis -> {
+                    sleeps.add(millis);
+                    now.addAndGet(millis);
+                });
+        return executor;
+    }
+
+    @Test
+    public void shouldRetryOnlyFailedItems() throws Exception {
+        final List<List<String>> attempts = new ArrayList<>();
+        executor(5, Duration.ofMinutes(1), 0).execute("dest", List.of("a", "b", "c"), (items, result) -> {
+            attempts.add(List.copyOf(items));
+            if (attempts.size() == 1) {
+                result.failed("b", ErrorKind.RETRIABLE, null);
+                result.failed("c", ErrorKind.THROTTLED, null);
+            }
+        });
+
+        assertThat(attempts).containsExactly(List.of("a", "b", "c"), List.of("b", "c"));
+        assertThat(sleeps).containsExactly(100L);
+        assertThat(executor.metrics().getRetries()).isEqualTo(1);
+        assertThat(executor.metrics().getRetryTimeMs()).isEqualTo(100);
+    }
+
+    @Test
+    public void shouldRetryEveryItemOnceWhenSenderThrowsAfterReportingFailure() throws Exception {
+        final List<List<String>> attempts = new ArrayList<>();
+        executor(5, Duration.ofMinutes(1), 0).execute("dest", List.of("a", "b", "c"), (items, result) -> {
+            attempts.add(List.copyOf(items));
+            if (attempts.size() == 1) {
+                result.failed("a", ErrorKind.RETRIABLE, null);
+                throw new IOException("Connection reset");
+            }
+        });
+
+        assertThat(attempts).containsExactly(List.of("a", "b", "c"), List.of("a", "b", "c"));
+        assertThat(sleeps).containsExactly(100L);
+    }
+
+    @Test
+    public void shouldFailAfterMaxAttempts() {
+        final AtomicLong attempts = new AtomicLong();
+        assertThatThrownBy(() -> executor(3, Duration.ofMinutes(1), 0).execute("dest", List.of("a"), (items, result) -> {
+            attempts.incrementAndGet();
+            throw new IOException("Connection reset");
+        }))
+                .isInstanceOf(DebeziumException.class)
+                .hasMessage("Exceeded maximum number of attempts to publish event a")
+                .hasCauseInstanceOf(IOException.class);
+
+        assertThat(attempts.get()).isEqualTo(3);
+        assertThat(sleeps).containsExactly(100L, 200L);
+        assertThat(executor.metrics().getExhaustedBatches()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldRetryThrottledUntilBudgetIsExhausted() {
+        final AtomicLong attempts = new AtomicLong();
+        assertThatThrownBy(() -> executor(2, Duration.ofSeconds(3), 0).execute("dest", List.of("a"), (items, result) -> {
+            attempts.incrementAndGet();
+            result.failed("a", ErrorKind.THROTTLED, null);
+        })).isInstanceOf(DebeziumException.class).hasMessageContaining("retry budget");
+
+        // 100 + 200 + 400 + 800 + 1000 fits into the budget, the next delay does not
+        assertThat(sleeps).containsExactly(100L, 200L, 400L, 800L, 1000L);
+        assertThat(attempts.get()).isEqualTo(6);
+        assertThat(executor.metrics().getThrottledRetries()).isEqualTo(5);
+    }
+
+    @Test
+    public void shouldNotRetryFatalErrors() {
+        final AtomicLong attempts = new AtomicLong();
+        assertThatThrownBy(() -> executor(5, Duration.ofMinutes(1), 0).execute("dest", List.of("a"), (items, result) -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("Invalid request");
+        })).isInstanceOf(DebeziumException.class).hasCauseInstanceOf(IllegalStateException.class);
+
+        assertThat(attempts.get()).isEqualTo(1);
+        assertThat(sleeps).isEmpty();
+    }
+
+    @Test
+    public void shouldWaitForOpenCircuit() throws Exception {
+        final AtomicLong attempts = new AtomicLong();
+        executor(5, Duration.ofMinutes(1), 2).execute("dest", List.of("a"), (items, result) -> {
+            if (attempts.incrementAndGet() <= 2) {
+                result.failed("a", ErrorKind.RETRIABLE, null);
+            }
+        });
+
+        // The second failure opens the circuit, the probe waits for the rest of the open time
+        assertThat(attempts.get()).isEqualTo(3);
+        assertThat(sleeps).containsExactly(100L, 200L, 4800L);
+        assertThat(executor.metrics().getCircuitBreakerOpenings()).isEqualTo(1);
+        assertThat(executor.metrics().getOpenCircuits()).isZero();
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.tracing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.debezium.DebeziumException;
+import io.debezium.engine.ChangeEvent;
+import io.debezium.engine.DebeziumEngine;
+import io.debezium.server.BaseChangeConsumer;
+import io.debezium.server.TestChangeEvent;
+import io.debezium.server.TestRecordCommitter;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+
+public class TracingChangeConsumerTest {
+
+    private InMemorySpanExporter exporter;
+    private OpenTelemetrySdk openTelemetry;
+
+    @BeforeEach
+    public void setUp() {
+        // Stands in for an OTLP collector
+        exporter = InMemorySpanExporter.create();
+        openTelemetry = OpenTelemetrySdk.builder()
+                .setTracerProvider(SdkTracerProvider.builder().addSpanProcessor(SimpleSpanProcessor.create(exporter)).build())
+                .setPropagators(ContextPropagators.create(W3CTraceContextPropagator.getInstance()))
+                .build();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        openTelemetry.close();
+    }
+
+    @Test
+    public void shouldCreateBatchAndDestinationSpans() throws Exception {
+        final HeaderCapturingConsumer sink = new HeaderCapturingConsumer();
+        final TracingChangeConsumer consumer = new TracingChangeConsumer(sink, new BatchTracer(openTelemetry, 0.0));
+
+        consumer.handleBatch(List.of(event("a"), event("b"), event("a")), new TestRecordCommitter());
+
+        final List<SpanData> spans = exporter.getFinishedSpanItems();
+        assertThat(spans).extracting(SpanData::getName).containsOnly("debezium.batch", "debezium.destination");
+        assertThat(spans).filteredOn(s -> s.getName().equals("debezium.destination")).hasSize(2);
+        assertThat(spans).filteredOn(s -> s.getName().equals("debezium.record")).isEmpty();
+
+        final SpanData batch = spans.stream().filter(s -> s.getName().equals("debezium.batch")).findFirst().get();
+        assertThat(batch.getAttributes().get(AttributeKey.longKey(BatchTracer.ATTRIBUTE_BATCH_SIZE))).isEqualTo(3L);
+        assertThat(spans).filteredOn(s -> s.getName().equals("debezium.destination"))
+                .allMatch(s -> s.getParentSpanId().equals(batch.getSpanId()));
+
+        // Every record was sent with the trace context of its destination span
+        assertThat(sink.traceParents).hasSize(3).allMatch(h -> h.contains(batch.getTraceId()));
+    }
+
+    @Test
+    public void shouldCreateRecordSpansWhenSampled() throws Exception {
+        final TracingChangeConsumer consumer = new TracingChangeConsumer(new HeaderCapturingConsumer(), new BatchTracer(openTelemetry, 1.0));
+
+        consumer.handleBatch(List.of(event("a"), event("b")), new TestRecordCommitter());
+
+        assertThat(exporter.getFinishedSpanItems()).filteredOn(s -> s.getName().equals("debezium.record")).hasSize(2);
+    }
+
+    @Test
+    public void shouldMarkBatchSpanFailed() {
+        final TracingChangeConsumer consumer = new TracingChangeConsumer((records, committer) -> {
+            throw new DebeziumException("Failed");
+        }, new BatchTracer(openTelemetry, 0.0));
+
+        assertThatThrownBy(() -> consumer.handleBatch(List.of(event("a")), new TestRecordCommitter())).isInstanceOf(DebeziumException.class);
+
+        final SpanData batch = exporter.getFinishedSpanItems().stream().filter(s -> s.getName().equals("debezium.batch")).findFirst().get();
+        assertThat(batch.getStatus().getStatusCode()).isEqualTo(StatusCode.ERROR);
+        assertThat(exporter.getFinishedSpanItems()).filteredOn(s -> s.getName().equals("debezium.destination")).hasSize(1);
+    }
+
+    @Test
+    public void shouldNotPropagateWithoutTracing() {
+        final Map<String, String> headers = new HashMap<>();
+        new HeaderCapturingConsumer().propagateTraceContext(event("a"), headers::put);
+        assertThat(headers).isEmpty();
+    }
+
+    private static ChangeEvent<Object, Object> event(String destination) {
+        return new TestChangeEvent("key", "value", destination);
+    }
+
+    private static class HeaderCapturingConsumer extends BaseChangeConsumer implements DebeziumEngine.ChangeConsumer<ChangeEvent<Object, Object>> {
+
+        final List<String> traceParents = new ArrayList<>();
+
+        @Override
+        public void handleBatch(List<ChangeEvent<Object, Object>> records, DebeziumEngine.RecordCommitter<ChangeEvent<Object, Object>> committer)
+                throws InterruptedException {
+            for (ChangeEvent<Object, Object> record : records) {
+                final Map<String, String> headers = new HashMap<>();
+                propagateTraceContext(record, headers::put);
+                traceParents.add(headers.get("traceparent"));
+                committer.markProcessed(record);
+            }
+            committer.markBatchFinished();
+        }
+
+        @Override
+        protected void propagateTraceContext(ChangeEvent<Object, Object> record, BiConsumer<String, String> carrier) {
+            super.propagateTraceContext(record, carrier);
+        }
+    }
+}
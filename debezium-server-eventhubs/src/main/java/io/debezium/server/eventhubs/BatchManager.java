@@ -95,15 +95,20 @@ public void closeAndEmitBatches() {
         });
     }
 
-    public void sendEventToPartitionId(EventData eventData, Integer recordIndex, Integer partitionId) {
+    /**
+     * Adds the event to the batch of the partition, emitting the batch first if it is full.
+     *
+     * @return false if the event is too large to fit even into an empty batch
+     */
+    public boolean sendEventToPartitionId(EventData eventData, Integer recordIndex, Integer partitionId) {
         EventDataBatchProxy batch = batches.get(partitionId);
 
         if (!batch.tryAdd(eventData)) {
             if (batch.getCount() == 0) {
                 // If we fail to add at least the very first event to the batch that is because
                 // the event's size exceeds the maxBatchSize in which case we cannot safely
-                // recover and dispatch the event, only option is to throw an exception.
-                throw new DebeziumException("Event data is too large to fit into batch");
+                // dispatch the event, the caller must decide what to do with it.
+                return false;
             }
             // reached the maximum allowed size for the batch
             LOGGER.debug("Maximum batch size reached, dispatching {} events.", batch.getCount());
@@ -116,9 +121,10 @@ public void sendEventToPartitionId(EventData eventData, Integer recordIndex, Int
             // Add event which we failed to add to the previous batch which was already full.
             if (!batch.tryAdd(eventData)) {
                 // This is the first event in the batch, if we failed to add it, it has to be too large.
-                throw new DebeziumException("Event data is too large to fit into batch");
+                return false;
             }
         }
+        return true;
     }
 
     private void emitBatchToEventHub(EventDataBatchProxy batch) {
@@ -25,11 +25,13 @@
 import com.azure.messaging.eventhubs.EventHubProducerClient;
 
 import io.debezium.DebeziumException;
+import io.debezium.annotation.VisibleForTesting;
 import io.debezium.engine.ChangeEvent;
 import io.debezium.engine.DebeziumEngine;
 import io.debezium.engine.DebeziumEngine.RecordCommitter;
 import io.debezium.server.BaseChangeConsumer;
 import io.debezium.server.CustomConsumerBuilder;
+import io.debezium.server.deadletter.DeadLetterQueue;
 
 /**
  * This sink adapter delivers change event messages to Azure Event Hubs
@@ -69,6 +71,17 @@ public class EventHubsChangeConsumer extends BaseChangeConsumer
     @CustomConsumerBuilder
     Instance<EventHubProducerClient> customProducer;
 
+    public EventHubsChangeConsumer() {
+    }
+
+    @VisibleForTesting
+    EventHubsChangeConsumer(BatchManager batchManager, int partitionCount) {
+        this.batchManager = batchManager;
+        this.partitionCount = partitionCount;
+        this.configuredPartitionId = "";
+        this.configuredPartitionKey = "";
+    }
+
     @PostConstruct
     void connect() {
         if (customProducer.isResolvable()) {
@@ -177,8 +190,9 @@ else if (!configuredPartitionKey.isEmpty()) {
                             String.format("Target partition id %d does not exist in target EventHub %s", targetPartitionId, eventHubName));
                 }
 
+                final boolean added;
                 try {
-                    batchManager.sendEventToPartitionId(eventData, recordIndex, targetPartitionId);
+                    added = batchManager.sendEventToPartitionId(eventData, recordIndex, targetPartitionId);
                 }
                 catch (IllegalArgumentException e) {
                     // thrown by tryAdd if event data is null
@@ -187,11 +201,15 @@ else if (!configuredPartitionKey.isEmpty()) {
                 catch (AmqpException e) {
                     // tryAdd throws AmqpException if "eventData is larger than the maximum size of
                     // the EventDataBatch."
-                    throw new DebeziumException("Event data was larger than the maximum size of the batch", e);
+                    divertTooLargeEvent(record, e);
+                    continue;
                 }
                 catch (Exception e) {
                     throw new DebeziumException(e);
                 }
+                if (!added) {
+                    divertTooLargeEvent(record, null);
+                }
             }
         }
 
@@ -204,4 +222,11 @@ else if (!configuredPartitionKey.isEmpty()) {
         committer.markBatchFinished();
         LOGGER.trace("Batch marked finished");
     }
+
+    private void divertTooLargeEvent(ChangeEvent<Object, Object> record, Throwable error) {
+        // The record is marked as processed together with the rest of the batch
+        if (!deadLetter(record, DeadLetterQueue.REASON_RECORD_TOO_LARGE, error)) {
+            throw new DebeziumException("Event data is too large to fit into batch", error);
+        }
+    }
 }
@@ -0,0 +1,109 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.eventhubs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.azure.core.amqp.exception.AmqpException;
+import com.azure.messaging.eventhubs.EventData;
+
+import io.debezium.DebeziumException;
+import io.debezium.engine.ChangeEvent;
+import io.debezium.server.TestChangeEvent;
+import io.debezium.server.TestDeadLetterStore;
+import io.debezium.server.TestRecordCommitter;
+import io.debezium.server.deadletter.DeadLetterQueue;
+import io.debezium.server.deadletter.DeadLetterRecord;
+
+public class EventHubsChangeConsumerTest {
+
+    private static final int MAX_EVENT_SIZE = 1024;
+
+    /**
+     * Collects the events instead of sending them. Events larger than the maximum size do not fit into a batch,
+     * events with the rejected body fail with an AMQP error.
+     */
+    private static class FakeBatchManager extends BatchManager {
+
+        final List<String> sent = new ArrayList<>();
+        final String rejected;
+        boolean emitted;
+
+        FakeBatchManager(String rejected) {
+            super(null, "", "", 0);
+            this.rejected = rejected;
+        }
+
+        @Override
+        public void initializeBatch() {
+        }
+
+        @Override
+        public boolean sendEventToPartitionId(EventData eventData, Integer recordIndex, Integer partitionId) {
+            final String body = eventData.getBodyAsString();
+            if (body.equals(rejected)) {
+                throw new AmqpException(false, "Event data is larger than the maximum size of the batch", null);
+            }
+            if (body.length() > MAX_EVENT_SIZE) {
+                return false;
+            }
+            sent.add(body);
+            return true;
+        }
+
+        @Override
+        public void closeAndEmitBatches() {
+            emitted = true;
+        }
+    }
+
+    private static List<ChangeEvent<Object, Object>> records() {
+        final List<ChangeEvent<Object, Object>> records = new ArrayList<>();
+        records.add(new TestChangeEvent("key-0", "value-0", "hub"));
+        records.add(new TestChangeEvent("key-1", "x".repeat(MAX_EVENT_SIZE + 1), "hub"));
+        records.add(new TestChangeEvent("key-2", "value-2", "hub"));
+        records.add(new TestChangeEvent("key-3", "value-3", "hub"));
+        records.add(new TestChangeEvent("key-4", "value-4", "hub"));
+        return records;
+    }
+
+    @Test
+    public void shouldDivertTooLargeEventsToDeadLetterQueue() throws Exception {
+        final FakeBatchManager batchManager = new FakeBatchManager("value-3");
+        final EventHubsChangeConsumer consumer = new EventHubsChangeConsumer(batchManager, 2);
+        final TestDeadLetterStore deadLetters = TestDeadLetterStore.attachTo(consumer);
+        final List<ChangeEvent<Object, Object>> records = records();
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        consumer.handleBatch(records, committer);
+
+        assertThat(batchManager.sent).containsExactly("value-0", "value-2", "value-4");
+        assertThat(batchManager.emitted).isTrue();
+        assertThat(deadLetters.getRecords()).extracting(DeadLetterRecord::key).containsExactly("key-1", "key-3");
+        assertThat(deadLetters.getRecords()).extracting(DeadLetterRecord::reason).containsOnly(DeadLetterQueue.REASON_RECORD_TOO_LARGE);
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+        assertThat(committer.isBatchFinished()).isTrue();
+    }
+
+    @Test
+    public void shouldFailOnTooLargeEventWithoutDeadLetterQueue() {
+        final FakeBatchManager batchManager = new FakeBatchManager(null);
+        final EventHubsChangeConsumer consumer = new EventHubsChangeConsumer(batchManager, 2);
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        assertThatThrownBy(() -> consumer.handleBatch(records(), committer))
+                .isInstanceOf(DebeziumException.class)
+                .hasMessageContaining("too large");
+        assertThat(batchManager.emitted).isFalse();
+        assertThat(committer.getProcessed()).isEmpty();
+    }
+}
@@ -6,10 +6,25 @@
 package io.debezium.server.http;
 
 import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
 import java.util.UUID;
 
 public interface Authenticator {
     void setAuthorizationHeader(HttpRequest.Builder httpRequestBuilder, String bodyContent, UUID messageId);
 
+    /**
+     * Sets the authorization header of a request whose body is given as the first {@code length} bytes of the array,
+     * the array must not be modified.
+     */
+    default void setAuthorizationHeader(HttpRequest.Builder httpRequestBuilder, byte[] body, int length, UUID messageId) {
+        setAuthorizationHeader(httpRequestBuilder, new String(body, 0, length, StandardCharsets.UTF_8), messageId);
+    }
+
     boolean authenticate() throws InterruptedException;
+
+    /**
+     * Releases the resources of the authenticator, e.g. background threads.
+     */
+    default void close() {
+    }
 }
@@ -0,0 +1,155 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.http;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.debezium.server.ServerMetrics;
+
+/**
+ * A receiver of the HTTP sink with its own client, and so its own connection pool. The endpoint is ejected passively:
+ * after a number of consecutive failed or slow requests it receives no requests until the cooldown elapsed. Its
+ * statistics are exposed as {@code debezium.server:type=http-endpoint-metrics,context=<url>}.
+ */
+class Endpoint implements EndpointMetricsMXBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Endpoint.class);
+
+    private final URI uri;
+    private final HttpClient client;
+    private final int ejectionFailures;
+    private final long slowRequestMs;
+    private final long cooldownMs;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long ejectedUntil;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder slowRequests = new LongAdder();
+    private final LongAdder ejections = new LongAdder();
+    private final LongAdder requestTimeMs = new LongAdder();
+    private final ObjectName name;
+
+    /**
+     * @param ejectionFailures  Number of consecutive failed or slow requests after which the endpoint is ejected.
+     * @param slowRequestMs     Duration from which a request counts as slow, 0 to not consider the duration.
+     * @param cooldownMs        Duration an ejected endpoint receives no requests.
+     */
+    Endpoint(URI uri, HttpClient client, int ejectionFailures, long slowRequestMs, long cooldownMs) {
+        this.uri = uri;
+        this.client = client;
+        this.ejectionFailures = ejectionFailures;
+        this.slowRequestMs = slowRequestMs;
+        this.cooldownMs = cooldownMs;
+        this.name = ServerMetrics.register("http-endpoint-metrics", uri.toString(), this);
+    }
+
+    URI uri() {
+        return uri;
+    }
+
+    HttpClient client() {
+        return client;
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    boolean isAvailable(long now) {
+        return ejectedUntil <= now;
+    }
+
+    /**
+     * @return the start time of the request
+     */
+    long started() {
+        inFlight.incrementAndGet();
+        requests.increment();
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * @param failed Whether the request failed for a reason the endpoint is responsible for, e.g. a connection
+     *               error or a server error, as opposed to a rejected record.
+     */
+    void completed(long started, boolean failed) {
+        inFlight.decrementAndGet();
+        final long duration = System.currentTimeMillis() - started;
+        requestTimeMs.add(duration);
+        final boolean slow = slowRequestMs > 0 && duration >= slowRequestMs;
+        if (slow) {
+            slowRequests.increment();
+        }
+        if (failed) {
+            failures.increment();
+        }
+        if (!failed && !slow) {
+            consecutiveFailures.set(0);
+            return;
+        }
+        if (consecutiveFailures.incrementAndGet() >= ejectionFailures && isAvailable(System.currentTimeMillis())) {
+            consecutiveFailures.set(0);
+            ejectedUntil = System.currentTimeMillis() + cooldownMs;
+            ejections.increment();
+            LOGGER.warn("Ejecting endpoint {} for {} ms after {} consecutive {} requests", uri, cooldownMs, ejectionFailures, failed ? "failed" : "slow");
+        }
+    }
+
+    void close() {
+        ServerMetrics.unregister(name);
+    }
+
+    @Override
+    public String getUrl() {
+        return uri.toString();
+    }
+
+    @Override
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public long getSlowRequests() {
+        return slowRequests.sum();
+    }
+
+    @Override
+    public long getEjections() {
+        return ejections.sum();
+    }
+
+    @Override
+    public long getInFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public long getRequestTimeMs() {
+        return requestTimeMs.sum();
+    }
+
+    @Override
+    public boolean isEjected() {
+        return !isAvailable(System.currentTimeMillis());
+    }
+}
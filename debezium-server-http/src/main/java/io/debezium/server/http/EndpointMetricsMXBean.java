@@ -0,0 +1,28 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.http;
+
+/**
+ * Request statistics of a single endpoint of the HTTP sink.
+ */
+public interface EndpointMetricsMXBean {
+
+    String getUrl();
+
+    long getRequests();
+
+    long getFailures();
+
+    long getSlowRequests();
+
+    long getEjections();
+
+    long getInFlight();
+
+    long getRequestTimeMs();
+
+    boolean isEjected();
+}
@@ -6,8 +6,12 @@
 package io.debezium.server.http;
 
 import static java.net.HttpURLConnection.HTTP_ACCEPTED;
+import static java.net.HttpURLConnection.HTTP_BAD_REQUEST;
+import static java.net.HttpURLConnection.HTTP_CLIENT_TIMEOUT;
+import static java.net.HttpURLConnection.HTTP_INTERNAL_ERROR;
 import static java.net.HttpURLConnection.HTTP_NO_CONTENT;
 import static java.net.HttpURLConnection.HTTP_OK;
+import static java.net.HttpURLConnection.HTTP_UNAVAILABLE;
 
 import java.io.IOException;
 import java.net.URI;
@@ -17,14 +21,25 @@
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.Dependent;
 import jakarta.inject.Named;
 
@@ -38,10 +53,16 @@
 import io.debezium.engine.ChangeEvent;
 import io.debezium.engine.DebeziumEngine;
 import io.debezium.server.BaseChangeConsumer;
+import io.debezium.server.deadletter.DeadLetterQueue;
 import io.debezium.server.http.jwt.JWTAuthenticatorBuilder;
 import io.debezium.server.http.webhooks.StandardWebhooksAuthenticatorBuilder;
-import io.debezium.util.Clock;
-import io.debezium.util.Metronome;
+import io.debezium.server.retry.ErrorClassifier;
+import io.debezium.server.retry.ErrorKind;
+import io.debezium.server.retry.RetryExecutor;
+import io.debezium.server.retry.RetryPolicy;
+import io.debezium.server.retry.SendResult;
+import io.debezium.util.Threads;
+import io.opentelemetry.context.Context;
 
 /**
  * Implementation of the consumer that delivers the messages to an HTTP Webhook destination.
@@ -56,10 +77,26 @@ public class HttpChangeConsumer extends BaseChangeConsumer implements DebeziumEn
     public static final String PROP_PREFIX = "debezium.sink.http.";
     public static final String PROP_WEBHOOK_URL = "url";
     public static final String PROP_CLIENT_TIMEOUT = "timeout.ms";
-    public static final String PROP_RETRIES = "retries";
-    public static final String PROP_RETRY_INTERVAL = "retry.interval.ms";
+    public static final String PROP_RETRIES = RetryPolicy.PROP_RETRIES;
+    public static final String PROP_RETRY_INTERVAL = RetryPolicy.PROP_RETRY_INTERVAL;
     public static final String PROP_HEADERS_ENCODE_BASE64 = "headers.encode.base64";
     public static final String PROP_HEADERS_PREFIX = "headers.prefix";
+    public static final String PROP_MAX_IN_FLIGHT = "max.in.flight";
+    public static final String PROP_ORDERING = "ordering";
+    public static final String ORDERING_NONE = "none";
+    public static final String ORDERING_KEY = "key";
+    public static final String PROP_BATCH_MAX_RECORDS = "batch.max.records";
+    public static final String PROP_BATCH_MAX_BYTES = "batch.max.bytes";
+    public static final String PROP_BATCH_ENCODING = "batch.encoding";
+    public static final String BATCH_ENCODING_JSON = "json";
+    public static final String BATCH_ENCODING_NDJSON = "ndjson";
+    public static final String BATCH_SIZE_HEADER = "BATCH-SIZE";
+    public static final String PROP_COMPRESSION = "compression";
+    public static final String PROP_COMPRESSION_THRESHOLD = "compression.threshold.bytes";
+    public static final String PROP_LOAD_BALANCING = "load.balancing";
+    public static final String PROP_EJECTION_FAILURES = "ejection.consecutive.failures";
+    public static final String PROP_EJECTION_SLOW_REQUEST = "ejection.slow.request.ms";
+    public static final String PROP_EJECTION_COOLDOWN = "ejection.cooldown.ms";
 
     public static final String PROP_AUTHENTICATION_PREFIX = PROP_PREFIX + "authentication.";
     public static final String PROP_AUTHENTICATION_TYPE = "type";
@@ -67,22 +104,37 @@ public class HttpChangeConsumer extends BaseChangeConsumer implements DebeziumEn
     public static final String STANDARD_WEBHOOKS_AUTHENTICATION = "standard-webhooks";
 
     private static final Long HTTP_TIMEOUT = Integer.toUnsignedLong(60000); // Default to 60s
-    private static final int DEFAULT_RETRIES = 5;
-    private static final Long RETRY_INTERVAL = Integer.toUnsignedLong(1_000); // Default to 1s
     private static final String DEFAULT_HEADERS_PREFIX = "X-DEBEZIUM-";
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final int DEFAULT_BATCH_MAX_BYTES = 1024 * 1024;
+    private static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+    private static final int DEFAULT_EJECTION_FAILURES = 5;
+    private static final long DEFAULT_EJECTION_COOLDOWN_MS = 30_000;
 
     private static Duration timeoutDuration;
-    private static int retries;
-    private static Duration retryInterval;
     private boolean base64EncodeHeaders = true;
     private String headersPrefix = DEFAULT_HEADERS_PREFIX;
 
-    private HttpClient client;
+    private LoadBalancer loadBalancer;
+    private RetryExecutor retryExecutor;
     private HttpRequest.Builder requestBuilder;
 
     // not null if using authentication; null otherwise
     private Authenticator authenticator;
 
+    // Set only when more than one request may be in flight
+    private ExecutorService sendExecutor;
+    private int maxInFlight = 1;
+    private boolean orderByKey = false;
+
+    // A single record per request by default
+    private int batchMaxRecords = 1;
+    private int batchMaxBytes = DEFAULT_BATCH_MAX_BYTES;
+    private boolean ndjson = false;
+    private String batchContentType;
+
+    private RequestBodies bodies;
+
     // If this is running as a Knative object, then expect the sink URL to be located in `K_SINK`
     // as per https://knative.dev/development/eventing/custom-event-source/sinkbinding/
     @PostConstruct
@@ -96,11 +148,8 @@ void initWithConfig(Config config) throws URISyntaxException {
         String sinkUrl;
         String contentType;
 
-        client = HttpClient.newHttpClient();
         String sink = System.getenv("K_SINK");
         timeoutDuration = Duration.ofMillis(HTTP_TIMEOUT);
-        retries = DEFAULT_RETRIES;
-        retryInterval = Duration.ofMillis(RETRY_INTERVAL);
 
         if (sink != null) {
             sinkUrl = sink;
@@ -112,11 +161,7 @@ void initWithConfig(Config config) throws URISyntaxException {
         config.getOptionalValue(PROP_PREFIX + PROP_CLIENT_TIMEOUT, String.class)
                 .ifPresent(t -> timeoutDuration = Duration.ofMillis(Long.parseLong(t)));
 
-        config.getOptionalValue(PROP_PREFIX + PROP_RETRIES, String.class)
-                .ifPresent(n -> retries = Integer.parseInt(n));
-
-        config.getOptionalValue(PROP_PREFIX + PROP_RETRY_INTERVAL, String.class)
-                .ifPresent(t -> retryInterval = Duration.ofMillis(Long.parseLong(t)));
+        retryExecutor = new RetryExecutor("http", RetryPolicy.fromConfig(config, PROP_PREFIX), ErrorClassifier.RETRY_ALL);
 
         config.getOptionalValue(PROP_PREFIX + PROP_HEADERS_PREFIX, String.class)
                 .ifPresent(p -> headersPrefix = p);
@@ -124,6 +169,25 @@ void initWithConfig(Config config) throws URISyntaxException {
         config.getOptionalValue(PROP_PREFIX + PROP_HEADERS_ENCODE_BASE64, Boolean.class)
                 .ifPresent(b -> base64EncodeHeaders = b);
 
+        config.getOptionalValue(PROP_PREFIX + PROP_MAX_IN_FLIGHT, Integer.class)
+                .ifPresent(n -> maxInFlight = n);
+        if (maxInFlight < 1) {
+            throw new DebeziumException("Property " + PROP_PREFIX + PROP_MAX_IN_FLIGHT + " must be at least 1");
+        }
+        final String ordering = config.getOptionalValue(PROP_PREFIX + PROP_ORDERING, String.class).orElse(ORDERING_NONE);
+        if (ORDERING_KEY.equalsIgnoreCase(ordering)) {
+            orderByKey = true;
+        }
+        else if (!ORDERING_NONE.equalsIgnoreCase(ordering)) {
+            throw new DebeziumException("Unknown value '" + ordering + "' encountered for property " + PROP_PREFIX + PROP_ORDERING);
+        }
+        if (maxInFlight > 1) {
+            // The requests of all senders share the client of an endpoint, over HTTP/2 they are multiplexed on a single connection.
+            // The tasks carry the context of the submitting thread, the trace context of the batch is taken from it.
+            sendExecutor = Context.taskWrapping(Threads.newFixedThreadPool(HttpChangeConsumer.class, "http", "http-sender", maxInFlight));
+            LOGGER.info("Sending up to {} concurrent requests{}", maxInFlight, orderByKey ? ", one per key" : "");
+        }
+
         switch (config.getValue("debezium.format.value", String.class)) {
             case "avro":
                 contentType = "avro/bytes";
@@ -136,39 +200,278 @@ void initWithConfig(Config config) throws URISyntaxException {
                 contentType = "application/json";
         }
 
+        config.getOptionalValue(PROP_PREFIX + PROP_BATCH_MAX_RECORDS, Integer.class)
+                .ifPresent(n -> batchMaxRecords = n);
+        config.getOptionalValue(PROP_PREFIX + PROP_BATCH_MAX_BYTES, Integer.class)
+                .ifPresent(n -> batchMaxBytes = n);
+        if (batchMaxRecords < 1 || batchMaxBytes < 1) {
+            throw new DebeziumException("Properties " + PROP_PREFIX + PROP_BATCH_MAX_RECORDS + " and " + PROP_PREFIX + PROP_BATCH_MAX_BYTES
+                    + " must be at least 1");
+        }
+        final String batchEncoding = config.getOptionalValue(PROP_PREFIX + PROP_BATCH_ENCODING, String.class).orElse(BATCH_ENCODING_JSON);
+        if (BATCH_ENCODING_NDJSON.equalsIgnoreCase(batchEncoding)) {
+            ndjson = true;
+            batchContentType = "application/x-ndjson";
+        }
+        else if (BATCH_ENCODING_JSON.equalsIgnoreCase(batchEncoding)) {
+            // A JSON array of structured CloudEvents is the batched content mode of the CloudEvents HTTP binding
+            batchContentType = contentType.equals("application/cloudevents+json") ? "application/cloudevents-batch+json" : "application/json";
+        }
+        else {
+            throw new DebeziumException("Unknown value '" + batchEncoding + "' encountered for property " + PROP_PREFIX + PROP_BATCH_ENCODING);
+        }
+        if (batchMaxRecords > 1) {
+            if (contentType.equals("avro/bytes")) {
+                throw new DebeziumException("Batching requires a JSON value format, it cannot be used with Avro");
+            }
+            LOGGER.info("Sending up to {} records or {} bytes per request as {}", batchMaxRecords, batchMaxBytes, batchContentType);
+        }
+
+        final RequestBodies.Compression compression = RequestBodies.Compression.parse(
+                config.getOptionalValue(PROP_PREFIX + PROP_COMPRESSION, String.class).orElse(RequestBodies.Compression.NONE.contentEncoding()));
+        final int compressionThreshold = config.getOptionalValue(PROP_PREFIX + PROP_COMPRESSION_THRESHOLD, Integer.class)
+                .orElse(DEFAULT_COMPRESSION_THRESHOLD);
+        if (compression != RequestBodies.Compression.NONE) {
+            LOGGER.info("Compressing request bodies of at least {} bytes with {}", compressionThreshold, compression.contentEncoding());
+        }
+        bodies = new RequestBodies(compression, compressionThreshold, maxInFlight);
+
         authenticator = buildAuthenticator(config);
 
         LOGGER.info("Using http content-type type {}", contentType);
         LOGGER.info("Using sink URL: {}", sinkUrl);
-        requestBuilder = HttpRequest.newBuilder(new URI(sinkUrl)).timeout(timeoutDuration);
+        loadBalancer = buildLoadBalancer(config, sinkUrl);
+        // The URI is replaced by the one of the endpoint selected for the request
+        requestBuilder = HttpRequest.newBuilder(loadBalancer.endpoints().get(0).uri()).timeout(timeoutDuration);
         requestBuilder.setHeader("content-type", contentType);
     }
 
+    /**
+     * The sink URL may list several endpoints separated by commas, every endpoint gets its own client.
+     */
+    private LoadBalancer buildLoadBalancer(Config config, String sinkUrl) throws URISyntaxException {
+        final int ejectionFailures = config.getOptionalValue(PROP_PREFIX + PROP_EJECTION_FAILURES, Integer.class).orElse(DEFAULT_EJECTION_FAILURES);
+        final long slowRequestMs = config.getOptionalValue(PROP_PREFIX + PROP_EJECTION_SLOW_REQUEST, Long.class).orElse(0L);
+        final long cooldownMs = config.getOptionalValue(PROP_PREFIX + PROP_EJECTION_COOLDOWN, Long.class).orElse(DEFAULT_EJECTION_COOLDOWN_MS);
+        if (ejectionFailures < 1) {
+            throw new DebeziumException("Property " + PROP_PREFIX + PROP_EJECTION_FAILURES + " must be at least 1");
+        }
+        final LoadBalancer.Strategy strategy = LoadBalancer.Strategy.parse(
+                config.getOptionalValue(PROP_PREFIX + PROP_LOAD_BALANCING, String.class).orElse(LoadBalancer.Strategy.ROUND_ROBIN.getValue()));
+
+        final List<Endpoint> endpoints = new ArrayList<>();
+        for (String url : sinkUrl.split(",")) {
+            if (!url.isBlank()) {
+                endpoints.add(new Endpoint(new URI(url.trim()), HttpClient.newHttpClient(), ejectionFailures, slowRequestMs, cooldownMs));
+            }
+        }
+        if (endpoints.isEmpty()) {
+            throw new DebeziumException("No endpoint configured in " + PROP_PREFIX + PROP_WEBHOOK_URL);
+        }
+        if (endpoints.size() > 1) {
+            LOGGER.info("Balancing requests over {} endpoints with strategy {}", endpoints.size(), strategy.getValue());
+        }
+        return new LoadBalancer(endpoints, strategy);
+    }
+
+    @PreDestroy
+    void close() {
+        if (sendExecutor != null) {
+            sendExecutor.shutdownNow();
+        }
+        if (retryExecutor != null) {
+            retryExecutor.close();
+        }
+        if (authenticator != null) {
+            authenticator.close();
+        }
+        if (loadBalancer != null) {
+            loadBalancer.endpoints().forEach(Endpoint::close);
+        }
+    }
+
     @Override
     public void handleBatch(List<ChangeEvent<Object, Object>> records, DebeziumEngine.RecordCommitter<ChangeEvent<Object, Object>> committer)
             throws InterruptedException {
-        for (ChangeEvent<Object, Object> record : records) {
+        if (sendExecutor != null) {
+            sendConcurrently(records, committer);
+            return;
+        }
+        for (List<ChangeEvent<Object, Object>> request : requests(records)) {
+            send(request);
+            for (ChangeEvent<Object, Object> record : request) {
+                committer.markProcessed(record);
+            }
+        }
+
+        committer.markBatchFinished();
+    }
+
+    /**
+     * Sends the records in a single request, a failed request is retried as a whole.
+     */
+    private void send(List<ChangeEvent<Object, Object>> request) throws InterruptedException {
+        for (ChangeEvent<Object, Object> record : request) {
             LOGGER.trace("Received event '{}'", record);
+        }
 
-            UUID messageId = UUID.randomUUID();
-            LOGGER.trace("Using message ID '{}'", messageId);
+        UUID messageId = UUID.randomUUID();
+        LOGGER.trace("Using message ID '{}'", messageId);
 
-            if (record.value() != null) {
-                int attempts = 0;
-                while (!recordSent(record, messageId)) {
-                    attempts++;
-                    if (attempts >= retries) {
-                        throw new DebeziumException("Exceeded maximum number of attempts to publish event " + record);
+        // The body is encoded once and sent as is by every attempt
+        try (RequestBodies.Body body = bodies.acquire()) {
+            writeBody(request, body);
+            final String contentEncoding = body.encode();
+            retryExecutor.execute(request.get(0).destination(), request,
+                    (items, result) -> sendRecords(request, body, contentEncoding, messageId, result));
+        }
+    }
+
+    /**
+     * Packs the records into requests of at most the configured number of records and bytes. A request contains
+     * records of a single destination only and, when balancing by key, of keys owned by a single endpoint. Records
+     * without value are not sent.
+     */
+    private List<List<ChangeEvent<Object, Object>>> requests(List<ChangeEvent<Object, Object>> records) {
+        final List<List<ChangeEvent<Object, Object>>> requests = new ArrayList<>();
+        List<ChangeEvent<Object, Object>> request = new ArrayList<>();
+        long requestSize = 0;
+        for (ChangeEvent<Object, Object> record : records) {
+            if (record.value() == null) {
+                continue;
+            }
+            final int size = (batchMaxRecords > 1) ? valueLength(record.value()) + 1 : 0;
+            if (!request.isEmpty() && (request.size() == batchMaxRecords || requestSize + size > batchMaxBytes
+                    || !request.get(0).destination().equals(record.destination())
+                    || (loadBalancer.isKeyAffine() && loadBalancer.owner(request.get(0).key()) != loadBalancer.owner(record.key())))) {
+                requests.add(request);
+                request = new ArrayList<>();
+                requestSize = 0;
+            }
+            request.add(record);
+            requestSize += size;
+        }
+        if (!request.isEmpty()) {
+            requests.add(request);
+        }
+        return requests;
+    }
+
+    private int valueLength(Object value) {
+        if (value instanceof byte[]) {
+            return ((byte[]) value).length;
+        }
+        return utf8Length(getString(value));
+    }
+
+    private static int utf8Length(String value) {
+        int length = value.length();
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c >= 0x800) {
+                // Surrogate pairs take four bytes, two per char
+                length += Character.isSurrogate(c) ? 1 : 2;
+            }
+            else if (c >= 0x80) {
+                length++;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Sends the requests concurrently, every request is retried on its own. The records are marked as processed in
+     * the batch order once their requests completed. When a request fails, the records preceding it are still marked
+     * so that the offsets of the delivered records can be committed.
+     */
+    private void sendConcurrently(List<ChangeEvent<Object, Object>> records, DebeziumEngine.RecordCommitter<ChangeEvent<Object, Object>> committer)
+            throws InterruptedException {
+        final Map<ChangeEvent<Object, Object>, Future<?>> completions = new IdentityHashMap<>();
+        final List<Future<?>> sends = new ArrayList<>();
+        final Set<Future<?>> failed = Collections.newSetFromMap(new IdentityHashMap<>());
+        DebeziumException failure = null;
+        try {
+            for (List<List<ChangeEvent<Object, Object>>> lane : lanes(records)) {
+                final Future<?> send = sendExecutor.submit(() -> {
+                    for (List<ChangeEvent<Object, Object>> request : lane) {
+                        send(request);
+                    }
+                    return null;
+                });
+                sends.add(send);
+                for (List<ChangeEvent<Object, Object>> request : lane) {
+                    for (ChangeEvent<Object, Object> record : request) {
+                        completions.put(record, send);
                     }
-                    Metronome.sleeper(retryInterval, Clock.SYSTEM).pause();
                 }
-                committer.markProcessed(record);
             }
         }
+        finally {
+            // No request of the batch may be in flight when the batch fails
+            failure = awaitAll(sends, failed);
+        }
 
+        for (ChangeEvent<Object, Object> record : records) {
+            final Future<?> send = completions.get(record);
+            if (send == null) {
+                // Records without value are not sent
+                continue;
+            }
+            if (failed.contains(send)) {
+                break;
+            }
+            committer.markProcessed(record);
+        }
+        if (failure != null) {
+            throw failure;
+        }
         committer.markBatchFinished();
     }
 
+    /**
+     * Splits the requests into lanes that are sent concurrently, the requests of a lane are sent one after another.
+     * Without ordering every request has its own lane. With ordering by key the records are assigned to the lanes by
+     * their key before they are packed into requests, so the records of a key are sent in order and never in flight
+     * at the same time.
+     */
+    private List<List<List<ChangeEvent<Object, Object>>>> lanes(List<ChangeEvent<Object, Object>> records) {
+        final List<List<List<ChangeEvent<Object, Object>>>> lanes = new ArrayList<>();
+        if (!orderByKey) {
+            for (List<ChangeEvent<Object, Object>> request : requests(records)) {
+                lanes.add(List.of(request));
+            }
+            return lanes;
+        }
+        final Map<Integer, List<ChangeEvent<Object, Object>>> keyLanes = new LinkedHashMap<>();
+        for (ChangeEvent<Object, Object> record : records) {
+            keyLanes.computeIfAbsent(Math.floorMod(keyHash(record.key()), maxInFlight), x -> new ArrayList<>()).add(record);
+        }
+        for (List<ChangeEvent<Object, Object>> lane : keyLanes.values()) {
+            lanes.add(requests(lane));
+        }
+        return lanes;
+    }
+
+    private static int keyHash(Object key) {
+        return (key instanceof byte[]) ? Arrays.hashCode((byte[]) key) : Objects.hashCode(key);
+    }
+
+    private static DebeziumException awaitAll(List<Future<?>> sends, Set<Future<?>> failed) throws InterruptedException {
+        DebeziumException failure = null;
+        for (Future<?> send : sends) {
+            try {
+                send.get();
+            }
+            catch (ExecutionException e) {
+                failed.add(send);
+                if (failure == null) {
+                    failure = (e.getCause() instanceof DebeziumException) ? (DebeziumException) e.getCause() : new DebeziumException(e.getCause());
+                }
+            }
+        }
+        return failure;
+    }
+
     private Authenticator buildAuthenticator(Config config) {
         // Need to be able to throw an exception
         // so not using ifPresent() syntax
@@ -191,46 +494,109 @@ else if (t.equalsIgnoreCase(STANDARD_WEBHOOKS_AUTHENTICATION)) {
         return null;
     }
 
-    private boolean recordSent(ChangeEvent<Object, Object> record, UUID messageId) throws InterruptedException {
-        boolean sent = false;
+    private void sendRecords(List<ChangeEvent<Object, Object>> records, RequestBodies.Body body, String contentEncoding, UUID messageId,
+                             SendResult<ChangeEvent<Object, Object>> result)
+            throws InterruptedException {
         HttpResponse<String> r;
 
-        HttpRequest.Builder requestBuilder = generateRequest(record);
+        // With batching enabled a request always has the batch encoding, even if it carries a single record
+        HttpRequest.Builder requestBuilder = (batchMaxRecords > 1) ? generateBatchRequest(records) : generateRequest(records.get(0));
+        requestBuilder.POST(body.publisher());
+        if (contentEncoding != null) {
+            requestBuilder.setHeader("content-encoding", contentEncoding);
+        }
 
-        try {
-            if (authenticator != null) {
-                if (!authenticator.authenticate()) {
-                    throw new DebeziumException("Failed to authenticate successfully.  Cannot continue.");
-                }
-                authenticator.setAuthorizationHeader(requestBuilder, (String) record.value(), messageId);
+        if (authenticator != null) {
+            // The authenticators are shared by the concurrent senders
+            if (!authenticator.authenticate()) {
+                throw new DebeziumException("Failed to authenticate successfully.  Cannot continue.");
             }
+            // The signature covers the content, as the receiver sees it once the content encoding is decoded
+            authenticator.setAuthorizationHeader(requestBuilder, body.content().array(), body.content().length(), messageId);
+        }
 
-            HttpRequest request = requestBuilder.build();
-
-            r = client.send(request, HttpResponse.BodyHandlers.ofString());
+        // Every attempt selects the endpoint anew, a retry avoids an endpoint ejected meanwhile
+        final Endpoint endpoint = loadBalancer.select(records.get(0).key());
+        requestBuilder.uri(endpoint.uri());
+        final long started = endpoint.started();
+        try {
+            r = endpoint.client().send(requestBuilder.build(), HttpResponse.BodyHandlers.ofString());
         }
         catch (IOException ioe) {
-            if (!ioe.getMessage().contains("GOAWAY")) {
+            endpoint.completed(started, true);
+            // The client may still read the body of the failed request
+            body.discard();
+            if (!ioe.getMessage().contains("GOAWAY") && loadBalancer.endpoints().size() == 1) {
                 throw new InterruptedException(ioe.toString());
             }
-            LOGGER.info("HTTP/2 GOAWAY received: {}", ioe.getMessage());
-            return false;
+            LOGGER.info("Request to {} failed: {}", endpoint.uri(), ioe.getMessage());
+            for (ChangeEvent<Object, Object> record : records) {
+                result.failed(record, ErrorKind.RETRIABLE, ioe);
+            }
+            return;
+        }
+        catch (RuntimeException | InterruptedException e) {
+            endpoint.completed(started, true);
+            throw e;
+        }
+
+        final int statusCode = r.statusCode();
+        // A rejected record says nothing about the health of the endpoint
+        endpoint.completed(started, !isSuccess(statusCode) && !isRejected(statusCode));
+        if (isSuccess(statusCode)) {
+            return;
+        }
+        if (isRejected(statusCode) && deadLetterAll(records)) {
+            LOGGER.info("Event rejected with status {}: {}", statusCode, r.body());
+            return;
         }
 
-        if ((r.statusCode() == HTTP_OK) || (r.statusCode() == HTTP_NO_CONTENT) || (r.statusCode() == HTTP_ACCEPTED)) {
-            sent = true;
+        LOGGER.info("Failed to publish event: " + r.body());
+        final ErrorKind kind;
+        if (statusCode == HTTP_TOO_MANY_REQUESTS || statusCode == HTTP_UNAVAILABLE) {
+            kind = ErrorKind.THROTTLED;
+        }
+        else if (isRejected(statusCode)) {
+            kind = ErrorKind.FATAL;
         }
         else {
-            LOGGER.info("Failed to publish event: " + r.body());
+            kind = ErrorKind.RETRIABLE;
         }
+        final DebeziumException error = new DebeziumException("Event rejected by the receiver with status " + statusCode);
+        for (ChangeEvent<Object, Object> record : records) {
+            result.failed(record, kind, error);
+        }
+    }
+
+    /**
+     * The receiver rejects a batch as a whole, all its records are dead-lettered.
+     *
+     * @return {@code true} if all records were dead-lettered
+     */
+    private boolean deadLetterAll(List<ChangeEvent<Object, Object>> records) {
+        for (ChangeEvent<Object, Object> record : records) {
+            if (!deadLetter(record, DeadLetterQueue.REASON_RECORD_REJECTED, null)) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-        return sent;
+    private static boolean isSuccess(int statusCode) {
+        return (statusCode == HTTP_OK) || (statusCode == HTTP_NO_CONTENT) || (statusCode == HTTP_ACCEPTED);
+    }
+
+    /**
+     * Client errors other than timeouts and throttling mean the receiver will never accept the event.
+     */
+    private static boolean isRejected(int statusCode) {
+        return statusCode >= HTTP_BAD_REQUEST && statusCode < HTTP_INTERNAL_ERROR && statusCode != HTTP_CLIENT_TIMEOUT && statusCode != HTTP_TOO_MANY_REQUESTS;
     }
 
     @VisibleForTesting
     HttpRequest.Builder generateRequest(ChangeEvent<Object, Object> record) {
-        String value = (String) record.value();
-        HttpRequest.Builder builder = requestBuilder.POST(HttpRequest.BodyPublishers.ofString(value));
+        // The template is shared by all records, the headers of a record must not leak into the next one
+        HttpRequest.Builder builder = requestBuilder.copy();
 
         Map<String, String> headers = convertHeaders(record);
 
@@ -241,7 +607,49 @@ HttpRequest.Builder generateRequest(ChangeEvent<Object, Object> record) {
             }
             builder.header(headersPrefix + entry.getKey().toUpperCase(Locale.ROOT), headerValue);
         }
+        propagateTraceContext(record, builder::setHeader);
+
+        return builder;
+    }
 
+    /**
+     * Generates the request of a batch of records. The headers of the individual records are not sent, the request
+     * carries the number of records instead.
+     */
+    @VisibleForTesting
+    HttpRequest.Builder generateBatchRequest(List<ChangeEvent<Object, Object>> records) {
+        HttpRequest.Builder builder = requestBuilder.copy();
+        builder.setHeader("content-type", batchContentType);
+        builder.setHeader(headersPrefix + BATCH_SIZE_HEADER, Integer.toString(records.size()));
+        propagateTraceContext(records.get(0), builder::setHeader);
         return builder;
     }
+
+    /**
+     * Writes the value of the record, or with batching enabled joins the values of the records into a JSON array or
+     * into newline-delimited JSON.
+     */
+    @VisibleForTesting
+    void writeBody(List<ChangeEvent<Object, Object>> records, RequestBodies.Body body) {
+        if (batchMaxRecords == 1) {
+            body.write(records.get(0).value());
+            return;
+        }
+        final RequestBodies.Buffer content = body.content();
+        if (!ndjson) {
+            content.write('[');
+        }
+        for (int i = 0; i < records.size(); i++) {
+            if (i > 0 && !ndjson) {
+                content.write(',');
+            }
+            body.write(records.get(i).value());
+            if (ndjson) {
+                content.write('\n');
+            }
+        }
+        if (!ndjson) {
+            content.write(']');
+        }
+    }
 }
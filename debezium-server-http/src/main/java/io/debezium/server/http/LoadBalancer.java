@@ -0,0 +1,177 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.http;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.debezium.DebeziumException;
+
+/**
+ * Selects the endpoint of a request. Ejected endpoints are skipped, when all endpoints are ejected the requests are
+ * distributed over all of them as if none was.
+ * <ul>
+ * <li>Round-robin cycles through the endpoints.</li>
+ * <li>Least-in-flight picks the endpoint with the fewest requests in flight, a slow endpoint accumulates requests
+ * and so receives fewer new ones.</li>
+ * <li>Key-hash places the endpoints on a hash ring and sends the records of a key to the same endpoint, so the
+ * changes of an entity are received in order. While that endpoint is ejected, its keys go to the next endpoint on
+ * the ring, adding or removing an endpoint moves only the keys of that endpoint.</li>
+ * </ul>
+ */
+class LoadBalancer {
+
+    // Points of every endpoint on the ring, spreads the keys evenly
+    static final int VIRTUAL_NODES = 128;
+
+    enum Strategy {
+        ROUND_ROBIN("round-robin"),
+        LEAST_IN_FLIGHT("least-in-flight"),
+        KEY_HASH("key-hash");
+
+        private final String value;
+
+        Strategy(String value) {
+            this.value = value;
+        }
+
+        String getValue() {
+            return value;
+        }
+
+        static Strategy parse(String value) {
+            for (Strategy strategy : values()) {
+                if (strategy.value.equalsIgnoreCase(value)) {
+                    return strategy;
+                }
+            }
+            throw new DebeziumException("Unknown load balancing strategy '" + value + "'");
+        }
+    }
+
+    private final List<Endpoint> endpoints;
+    private final Strategy strategy;
+    private final AtomicInteger next = new AtomicInteger();
+    // Sorted hashes of the ring and the index of the endpoint owning each
+    private final int[] ringHashes;
+    private final int[] ringEndpoints;
+
+    LoadBalancer(List<Endpoint> endpoints, Strategy strategy) {
+        this.endpoints = endpoints;
+        this.strategy = strategy;
+
+        final long[] ring = new long[endpoints.size() * VIRTUAL_NODES];
+        for (int i = 0; i < endpoints.size(); i++) {
+            final String url = endpoints.get(i).uri().toString();
+            for (int node = 0; node < VIRTUAL_NODES; node++) {
+                // The hash in the upper half and the endpoint in the lower half sort the ring by hash
+                final int hash = mix(Arrays.hashCode((url + '#' + node).getBytes(StandardCharsets.UTF_8)));
+                ring[i * VIRTUAL_NODES + node] = ((long) hash << 32) | i;
+            }
+        }
+        Arrays.sort(ring);
+        ringHashes = new int[ring.length];
+        ringEndpoints = new int[ring.length];
+        for (int i = 0; i < ring.length; i++) {
+            ringHashes[i] = (int) (ring[i] >> 32);
+            ringEndpoints[i] = (int) ring[i];
+        }
+    }
+
+    List<Endpoint> endpoints() {
+        return endpoints;
+    }
+
+    boolean isKeyAffine() {
+        return strategy == Strategy.KEY_HASH && endpoints.size() > 1;
+    }
+
+    /**
+     * @return the endpoint owning the key on the ring regardless of ejection, requests must not combine records of
+     *         keys with different owners
+     */
+    int owner(Object key) {
+        return ringEndpoints[ringPosition(key)];
+    }
+
+    Endpoint select(Object key) {
+        if (endpoints.size() == 1) {
+            return endpoints.get(0);
+        }
+        final long now = System.currentTimeMillis();
+        switch (strategy) {
+            case LEAST_IN_FLIGHT:
+                return leastInFlight(now);
+            case KEY_HASH:
+                return byKey(key, now);
+            default:
+                return roundRobin(now);
+        }
+    }
+
+    private Endpoint roundRobin(long now) {
+        final int start = Math.floorMod(next.getAndIncrement(), endpoints.size());
+        for (int i = 0; i < endpoints.size(); i++) {
+            final Endpoint endpoint = endpoints.get((start + i) % endpoints.size());
+            if (endpoint.isAvailable(now)) {
+                return endpoint;
+            }
+        }
+        return endpoints.get(start);
+    }
+
+    private Endpoint leastInFlight(long now) {
+        // Ties are broken in round-robin order so that idle endpoints share the load
+        final int start = Math.floorMod(next.getAndIncrement(), endpoints.size());
+        Endpoint selected = null;
+        for (int i = 0; i < endpoints.size(); i++) {
+            final Endpoint endpoint = endpoints.get((start + i) % endpoints.size());
+            if (endpoint.isAvailable(now) && (selected == null || endpoint.inFlight() < selected.inFlight())) {
+                selected = endpoint;
+            }
+        }
+        return (selected != null) ? selected : endpoints.get(start);
+    }
+
+    private Endpoint byKey(Object key, long now) {
+        final int position = ringPosition(key);
+        for (int i = 0; i < ringEndpoints.length; i++) {
+            final Endpoint endpoint = endpoints.get(ringEndpoints[(position + i) % ringEndpoints.length]);
+            if (endpoint.isAvailable(now)) {
+                return endpoint;
+            }
+        }
+        return endpoints.get(ringEndpoints[position]);
+    }
+
+    /**
+     * @return the index of the first point on the ring at or after the hash of the key
+     */
+    private int ringPosition(Object key) {
+        final int hash = mix((key instanceof byte[]) ? Arrays.hashCode((byte[]) key) : Objects.hashCode(key));
+        int position = Arrays.binarySearch(ringHashes, hash);
+        if (position < 0) {
+            position = -position - 1;
+        }
+        return (position == ringHashes.length) ? 0 : position;
+    }
+
+    /**
+     * Spreads the bits of a hash code, the final step of MurmurHash3.
+     */
+    private static int mix(int hash) {
+        int h = hash;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.http;
+
+import java.net.http.HttpRequest;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdCompressCtx;
+
+import io.debezium.DebeziumException;
+
+/**
+ * Encodes the request bodies into buffers that are reused across requests. A body is written as UTF-8 or raw bytes
+ * and, when it reaches the compression threshold, compressed with the configured content encoding. The compressed
+ * form is sent only when it is smaller. The buffers and the compressors of a body are returned to the pool once the
+ * request completed, buffers that grew beyond {@value #MAX_RETAINED_CAPACITY} bytes are released instead.
+ */
+class RequestBodies {
+
+    static final int MAX_RETAINED_CAPACITY = 4 * 1024 * 1024;
+
+    private static final int INITIAL_CAPACITY = 8 * 1024;
+    // Header of a GZIP member without file name, comment and modification time
+    private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+
+    enum Compression {
+        NONE("none"),
+        GZIP("gzip"),
+        ZSTD("zstd");
+
+        private final String value;
+
+        Compression(String value) {
+            this.value = value;
+        }
+
+        String contentEncoding() {
+            return value;
+        }
+
+        static Compression parse(String value) {
+            for (Compression compression : values()) {
+                if (compression.value.equalsIgnoreCase(value)) {
+                    return compression;
+                }
+            }
+            throw new DebeziumException("Unknown compression '" + value + "'");
+        }
+    }
+
+    private final Compression compression;
+    private final int threshold;
+    private final BlockingQueue<Body> pool;
+
+    /**
+     * @param compression   The content encoding of large bodies.
+     * @param threshold     Size in bytes from which a body is compressed.
+     * @param poolSize      Number of bodies kept for reuse, usually the number of requests in flight.
+     */
+    RequestBodies(Compression compression, int threshold, int poolSize) {
+        this.compression = compression;
+        this.threshold = threshold;
+        this.pool = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    Body acquire() {
+        final Body body = pool.poll();
+        return (body != null) ? body : new Body();
+    }
+
+    /**
+     * A growable byte array that exposes its content without copying.
+     */
+    static final class Buffer {
+        private byte[] bytes;
+        private int length;
+
+        Buffer(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        byte[] array() {
+            return bytes;
+        }
+
+        int length() {
+            return length;
+        }
+
+        void reset() {
+            length = 0;
+        }
+
+        void setLength(int length) {
+            this.length = length;
+        }
+
+        void ensureCapacity(int capacity) {
+            if (capacity > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+            }
+        }
+
+        void write(int b) {
+            ensureCapacity(length + 1);
+            bytes[length++] = (byte) b;
+        }
+
+        void write(byte[] value) {
+            ensureCapacity(length + value.length);
+            System.arraycopy(value, 0, bytes, length, value.length);
+            length += value.length;
+        }
+
+        void writeIntLE(int value) {
+            write(value);
+            write(value >> 8);
+            write(value >> 16);
+            write(value >> 24);
+        }
+
+        /**
+         * Encodes the string as UTF-8 directly into the buffer, unpaired surrogates are replaced by {@code ?}.
+         */
+        void writeUtf8(String value) {
+            // A char takes at most three bytes, a surrogate pair four
+            ensureCapacity(length + value.length() * 3);
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                if (c < 0x80) {
+                    bytes[length++] = (byte) c;
+                }
+                else if (c < 0x800) {
+                    bytes[length++] = (byte) (0xc0 | (c >> 6));
+                    bytes[length++] = (byte) (0x80 | (c & 0x3f));
+                }
+                else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    bytes[length++] = (byte) (0xf0 | (codePoint >> 18));
+                    bytes[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                    bytes[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                    bytes[length++] = (byte) (0x80 | (codePoint & 0x3f));
+                }
+                else if (Character.isSurrogate(c)) {
+                    bytes[length++] = '?';
+                }
+                else {
+                    bytes[length++] = (byte) (0xe0 | (c >> 12));
+                    bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    bytes[length++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+        }
+    }
+
+    /**
+     * The body of a single request. Must be closed once the request completed, a closed body must not be used.
+     */
+    final class Body implements AutoCloseable {
+        private final Buffer content = new Buffer(INITIAL_CAPACITY);
+        private final Buffer encoded = new Buffer(INITIAL_CAPACITY);
+        private final CRC32 crc = new CRC32();
+        private Deflater deflater;
+        private ZstdCompressCtx zstd;
+        private boolean compressed;
+        private boolean discarded;
+
+        /**
+         * @return the buffer the uncompressed content is written to
+         */
+        Buffer content() {
+            return content;
+        }
+
+        void write(Object value) {
+            if (value instanceof byte[]) {
+                content.write((byte[]) value);
+            }
+            else if (value instanceof String) {
+                content.writeUtf8((String) value);
+            }
+            else {
+                throw new DebeziumException("Unexpected data type '" + ((value == null) ? "null" : value.getClass().getName()) + "'");
+            }
+        }
+
+        /**
+         * Compresses the content if it reached the threshold.
+         *
+         * @return the content encoding of the body, {@code null} if it is not compressed
+         */
+        String encode() {
+            compressed = false;
+            if (compression == Compression.NONE || content.length() < threshold) {
+                return null;
+            }
+            encoded.reset();
+            if (compression == Compression.GZIP) {
+                gzip();
+            }
+            else {
+                zstd();
+            }
+            compressed = encoded.length() < content.length();
+            return compressed ? compression.contentEncoding() : null;
+        }
+
+        /**
+         * @return the buffer that is sent, the compressed content if the body was compressed
+         */
+        Buffer encodedContent() {
+            return compressed ? encoded : content;
+        }
+
+        HttpRequest.BodyPublisher publisher() {
+            final Buffer body = encodedContent();
+            return HttpRequest.BodyPublishers.ofByteArray(body.array(), 0, body.length());
+        }
+
+        /**
+         * The buffers may still be referenced by a request that failed, they must not be reused.
+         */
+        void discard() {
+            discarded = true;
+        }
+
+        private void gzip() {
+            if (deflater == null) {
+                deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            }
+            encoded.write(GZIP_HEADER);
+            deflater.setInput(content.array(), 0, content.length());
+            deflater.finish();
+            while (!deflater.finished()) {
+                encoded.ensureCapacity(encoded.length() + Math.max(content.length() / 4, 512));
+                encoded.setLength(encoded.length() + deflater.deflate(encoded.array(), encoded.length(), encoded.array().length - encoded.length()));
+            }
+            deflater.reset();
+            crc.reset();
+            crc.update(content.array(), 0, content.length());
+            encoded.writeIntLE((int) crc.getValue());
+            encoded.writeIntLE(content.length());
+        }
+
+        private void zstd() {
+            if (zstd == null) {
+                zstd = new ZstdCompressCtx();
+                zstd.setLevel(Zstd.defaultCompressionLevel());
+            }
+            final int bound = (int) Zstd.compressBound(content.length());
+            encoded.ensureCapacity(bound);
+            encoded.setLength(zstd.compressByteArray(encoded.array(), 0, bound, content.array(), 0, content.length()));
+        }
+
+        @Override
+        public void close() {
+            content.reset();
+            encoded.reset();
+            compressed = false;
+            if (discarded || content.array().length > MAX_RETAINED_CAPACITY || encoded.array().length > MAX_RETAINED_CAPACITY || !pool.offer(this)) {
+                release();
+            }
+        }
+
+        private void release() {
+            if (deflater != null) {
+                deflater.end();
+            }
+            if (zstd != null) {
+                zstd.close();
+            }
+        }
+    }
+}
@@ -17,6 +17,9 @@
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,13 +29,16 @@
 import io.debezium.DebeziumException;
 import io.debezium.annotation.VisibleForTesting;
 import io.debezium.server.http.Authenticator;
+import io.debezium.util.Threads;
 
 /**
  * Implements the logic for authenticating against an endpoint supporting the
  * JSON Web Tokens (JWT) scheme.  Once authentication is successful, the
  * authenticator can add the authentication details to the header of an HTTP
  * request using a <a href="https://docs.oracle.com/en/java/javase/11/docs/api/java.net.http/java/net/http/HttpRequest.html">HTTPRequest.Builder</a> instance. After the initial authentication
- * is successful, additional authentication attempts will refresh the token.
+ * is successful, the token is refreshed in the background once the configured fraction of its lifetime passed.
+ * The senders only read the current token, they authenticate themselves only when the token actually expired,
+ * e.g. because the refreshes kept failing.
  */
 public class JWTAuthenticator implements Authenticator {
     @VisibleForTesting
@@ -43,32 +49,66 @@ enum AuthenticationState {
         EXPIRED // successful authentication but token has expired
     }
 
+    /**
+     * A token and its expiration, replaced as a whole so that the senders never see a partially updated token.
+     */
+    private static final class Token {
+        private final String jwt;
+        private final String refreshToken;
+        private final Instant expiration;
+
+        private Token(String jwt, String refreshToken, Instant expiration) {
+            this.jwt = jwt;
+            this.refreshToken = refreshToken;
+            this.expiration = expiration;
+        }
+
+        private boolean isExpired() {
+            return !expiration.isAfter(Instant.now());
+        }
+    }
+
     private static final Logger LOGGER = LoggerFactory.getLogger(JWTAuthenticator.class);
 
     // Want to authenticate before expiration
-    private static final double EXPIRATION_DURATION_MULTIPLIER = 0.9;
+    static final double DEFAULT_REFRESH_FRACTION = 0.9;
+
+    private static final Duration INITIAL_REFRESH_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration MAX_REFRESH_BACKOFF = Duration.ofMinutes(1);
 
     private final String username;
     private final String password;
     private final long tokenExpirationDuration; // minutes
     private final long refreshTokenExpirationDuration; // minutes
+    private final double refreshFraction;
 
-    private String jwtToken;
-    private String jwtRefreshToken;
     private final HttpClient client;
     private final HttpRequest.Builder authRequestBuilder;
     private final HttpRequest.Builder refreshRequestBuilder;
     private final ObjectMapper mapper;
 
-    private AuthenticationState authenticationState;
-    private Instant expirationDateTime;
+    // null before the first successful authentication
+    private volatile Token token;
+    private volatile boolean authenticationFailed;
+    private ScheduledExecutorService refresher;
+    private ScheduledFuture<?> pendingRefresh;
+    private Duration refreshBackoff = INITIAL_REFRESH_BACKOFF;
 
     JWTAuthenticator(URI authUri, URI refreshUri, String username, String password, long tokenExpirationDuration, long refreshTokenExpirationDuration,
                      Duration httpTimeoutDuration) {
+        this(authUri, refreshUri, username, password, tokenExpirationDuration, refreshTokenExpirationDuration, httpTimeoutDuration, DEFAULT_REFRESH_FRACTION);
+    }
+
+    /**
+     * @param refreshFraction   Fraction of the token lifetime after which the token is refreshed.
+     */
+    JWTAuthenticator(URI authUri, URI refreshUri, String username, String password, long tokenExpirationDuration, long refreshTokenExpirationDuration,
+                     Duration httpTimeoutDuration, double refreshFraction) {
         this.username = username;
         this.password = password;
         this.tokenExpirationDuration = tokenExpirationDuration;
         this.refreshTokenExpirationDuration = refreshTokenExpirationDuration;
+        this.refreshFraction = refreshFraction;
 
         mapper = new ObjectMapper();
         client = HttpClient.newHttpClient();
@@ -76,25 +116,43 @@ enum AuthenticationState {
         authRequestBuilder.setHeader("content-type", "application/json");
         refreshRequestBuilder = HttpRequest.newBuilder(refreshUri).timeout(httpTimeoutDuration);
         refreshRequestBuilder.setHeader("content-type", "application/json");
+    }
 
-        authenticationState = AuthenticationState.NOT_AUTHENTICATED;
-        // initialize to value before now to correspond to not authenticated state
-        expirationDateTime = Instant.now().minus(1, ChronoUnit.DAYS);
+    @VisibleForTesting
+    AuthenticationState getAuthenticationState() {
+        final Token current = token;
+        if (current == null) {
+            return authenticationFailed ? AuthenticationState.FAILED_AUTHENTICATION : AuthenticationState.NOT_AUTHENTICATED;
+        }
+        return current.isExpired() ? AuthenticationState.EXPIRED : AuthenticationState.ACTIVE;
     }
 
     @VisibleForTesting
     void setAuthenticationState(AuthenticationState state) {
-        this.authenticationState = state;
+        final Token current = (token != null) ? token : new Token(null, null, Instant.now());
+        switch (state) {
+            case ACTIVE:
+                token = new Token(current.jwt, current.refreshToken, Instant.now().plus(1, ChronoUnit.DAYS));
+                break;
+            case EXPIRED:
+                token = new Token(current.jwt, current.refreshToken, Instant.now().minus(1, ChronoUnit.DAYS));
+                break;
+            default:
+                token = null;
+                authenticationFailed = state == AuthenticationState.FAILED_AUTHENTICATION;
+        }
     }
 
     @VisibleForTesting
-    void setJwtToken(String token) {
-        this.jwtToken = token;
+    void setJwtToken(String jwt) {
+        final Token current = token;
+        token = (current != null) ? new Token(jwt, current.refreshToken, current.expiration) : new Token(jwt, null, Instant.now());
     }
 
     @VisibleForTesting
-    void setJwtRefreshToken(String token) {
-        this.jwtRefreshToken = token;
+    void setJwtRefreshToken(String refreshToken) {
+        final Token current = token;
+        token = (current != null) ? new Token(current.jwt, refreshToken, current.expiration) : new Token(null, refreshToken, Instant.now());
     }
 
     @VisibleForTesting
@@ -110,28 +168,20 @@ HttpRequest generateInitialAuthenticationRequest() {
         }
 
         String payloadJSON = payloadWriter.toString();
-        HttpRequest.Builder builder = authRequestBuilder.POST(HttpRequest.BodyPublishers.ofString(payloadJSON));
+        // The template is shared by the senders and the refresher
+        HttpRequest.Builder builder = authRequestBuilder.copy().POST(HttpRequest.BodyPublishers.ofString(payloadJSON));
 
         return builder.build();
     }
 
-    private void checkAuthenticationExpired() {
-        if (authenticationState == AuthenticationState.ACTIVE) {
-            if (expirationDateTime.isBefore(Instant.now())) {
-                authenticationState = AuthenticationState.EXPIRED;
-            }
-        }
-    }
-
     @VisibleForTesting
     HttpRequest generateRefreshAuthenticationRequest() {
-        checkAuthenticationExpired();
-
-        if (authenticationState == AuthenticationState.NOT_AUTHENTICATED || authenticationState == AuthenticationState.FAILED_AUTHENTICATION) {
+        final Token current = token;
+        if (current == null) {
             throw new DebeziumException("Must perform initial authentication successfully before attempting to refresh authentication");
         }
 
-        JWTAuthorizationRefreshRequest payload = new JWTAuthorizationRefreshRequest(jwtRefreshToken, tokenExpirationDuration, refreshTokenExpirationDuration);
+        JWTAuthorizationRefreshRequest payload = new JWTAuthorizationRefreshRequest(current.refreshToken, tokenExpirationDuration, refreshTokenExpirationDuration);
 
         StringWriter payloadWriter = new StringWriter();
         try {
@@ -142,43 +192,80 @@ HttpRequest generateRefreshAuthenticationRequest() {
         }
 
         String payloadJSON = payloadWriter.toString();
-        HttpRequest.Builder builder = authRequestBuilder.POST(HttpRequest.BodyPublishers.ofString(payloadJSON));
+        HttpRequest.Builder builder = refreshRequestBuilder.copy().POST(HttpRequest.BodyPublishers.ofString(payloadJSON));
 
         return builder.build();
     }
 
     public void setAuthorizationHeader(HttpRequest.Builder httpRequestBuilder, final String bodyContent, final UUID messageId) {
-        checkAuthenticationExpired();
-        if (authenticationState == AuthenticationState.NOT_AUTHENTICATED || authenticationState == AuthenticationState.FAILED_AUTHENTICATION) {
+        final Token current = token;
+        if (current == null) {
             throw new DebeziumException("Must successfully authenticate against JWT endpoint before you can add the authorization information to the HTTP header.");
         }
-        else if (authenticationState == AuthenticationState.EXPIRED) {
+        else if (current.isExpired()) {
             throw new DebeziumException("JWT authentication is expired. Must renew authentication before you can add the authorization information to the HTTP header.");
         }
 
-        httpRequestBuilder.setHeader("Authorization", "Bearer: " + jwtToken);
+        httpRequestBuilder.setHeader("Authorization", "Bearer: " + current.jwt);
     }
 
-    public boolean authenticate() throws InterruptedException {
-        checkAuthenticationExpired();
+    @Override
+    public void setAuthorizationHeader(HttpRequest.Builder httpRequestBuilder, final byte[] body, final int length, final UUID messageId) {
+        // The token does not depend on the body
+        setAuthorizationHeader(httpRequestBuilder, (String) null, messageId);
+    }
 
-        HttpResponse<String> r;
-        HttpRequest request;
-        JWTAuthorizationResponse response;
+    /**
+     * Returns immediately while the token is valid. Otherwise authenticates synchronously, only one of the
+     * concurrent senders sends the authentication request.
+     */
+    public boolean authenticate() throws InterruptedException {
+        final Token current = token;
+        if (current != null && !current.isExpired()) {
+            return true;
+        }
+        return authenticateNow();
+    }
 
-        if (authenticationState == AuthenticationState.ACTIVE) {
+    private synchronized boolean authenticateNow() throws InterruptedException {
+        // Another sender or the refresher may have renewed the token meanwhile
+        final Token current = token;
+        if (current != null && !current.isExpired()) {
             return true;
         }
-        else if (authenticationState == AuthenticationState.NOT_AUTHENTICATED || authenticationState == AuthenticationState.FAILED_AUTHENTICATION) {
-            request = generateInitialAuthenticationRequest();
+
+        Token renewed = null;
+        if (current != null) {
+            renewed = requestToken(generateRefreshAuthenticationRequest());
         }
-        else if (authenticationState == AuthenticationState.EXPIRED) {
-            request = generateRefreshAuthenticationRequest();
+        if (renewed == null) {
+            renewed = requestToken(generateInitialAuthenticationRequest());
         }
-        else {
-            // we should never get here...
-            throw new DebeziumException("Reached invalid authentication state.");
+        if (renewed == null) {
+            token = null;
+            authenticationFailed = true;
+            LOGGER.error("JWT Authentication failure. Check credentials.");
+            return false;
         }
+        return true;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    /**
+     * Sends the authentication request and publishes the received token. The refresh of the token is scheduled
+     * after the configured fraction of its lifetime.
+     *
+     * @return the received token, {@code null} if the endpoint declined the request
+     */
+    private synchronized Token requestToken(HttpRequest request) throws InterruptedException {
+        HttpResponse<String> r;
+        JWTAuthorizationResponse response;
 
         try {
             r = client.send(request, HttpResponse.BodyHandlers.ofString());
@@ -187,31 +274,71 @@ else if (authenticationState == AuthenticationState.EXPIRED) {
             throw new DebeziumException("Failed to send authentication request", e);
         }
 
-        if (r.statusCode() == HTTP_OK) {
-            String responseBody = r.body();
+        if (r.statusCode() != HTTP_OK) {
+            return null;
+        }
 
-            try {
-                response = mapper.readValue(responseBody, JWTAuthorizationResponse.class);
-            }
-            catch (IOException e) {
-                throw new DebeziumException("Could not deserialize JWT authorization response.", e);
-            }
+        String responseBody = r.body();
 
-            jwtToken = response.getJwt();
-            jwtRefreshToken = response.getJwtRefreshToken();
+        try {
+            response = mapper.readValue(responseBody, JWTAuthorizationResponse.class);
+        }
+        catch (IOException e) {
+            throw new DebeziumException("Could not deserialize JWT authorization response.", e);
+        }
 
-            // in ms
-            long expirationDuration = (long) (EXPIRATION_DURATION_MULTIPLIER * response.getExpiresIn());
-            expirationDateTime = Instant.now().plus(expirationDuration, ChronoUnit.MILLIS);
+        // expiresIn is in ms
+        final Token renewed = new Token(response.getJwt(), response.getJwtRefreshToken(), Instant.now().plus(response.getExpiresIn(), ChronoUnit.MILLIS));
+        token = renewed;
+        authenticationFailed = false;
 
-            authenticationState = AuthenticationState.ACTIVE;
+        refreshBackoff = INITIAL_REFRESH_BACKOFF;
+        scheduleRefresh(Duration.ofMillis((long) (refreshFraction * response.getExpiresIn())));
 
-            return true;
-        }
+        return renewed;
+    }
 
-        authenticationState = AuthenticationState.FAILED_AUTHENTICATION;
-        LOGGER.error("JWT Authentication failure. Check credentials.");
+    private void scheduleRefresh(Duration delay) {
+        if (refresher == null) {
+            refresher = Threads.newSingleThreadScheduledExecutor(JWTAuthenticator.class, "http", "jwt-refresher", true);
+        }
+        // A sender that authenticated itself replaces the refresh still pending from a failed attempt
+        if (pendingRefresh != null) {
+            pendingRefresh.cancel(false);
+        }
+        if (!refresher.isShutdown()) {
+            pendingRefresh = refresher.schedule(this::refresh, delay.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
 
-        return false;
+    /**
+     * Renews the token in the background. A failed refresh is retried with an exponential backoff, the senders keep
+     * using the current token until it expires.
+     */
+    private synchronized void refresh() {
+        try {
+            Token renewed = (token != null) ? requestToken(generateRefreshAuthenticationRequest()) : null;
+            if (renewed == null) {
+                // The refresh token may have expired as well
+                renewed = requestToken(generateInitialAuthenticationRequest());
+            }
+            if (renewed != null) {
+                LOGGER.debug("JWT token refreshed");
+                return;
+            }
+            LOGGER.warn("JWT token refresh was declined, retrying in {}", refreshBackoff);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        catch (RuntimeException e) {
+            LOGGER.warn("JWT token refresh failed, retrying in {}", refreshBackoff, e);
+        }
+        scheduleRefresh(refreshBackoff);
+        refreshBackoff = refreshBackoff.multipliedBy(2);
+        if (refreshBackoff.compareTo(MAX_REFRESH_BACKOFF) > 0) {
+            refreshBackoff = MAX_REFRESH_BACKOFF;
+        }
     }
 }
@@ -25,6 +25,7 @@ public class JWTAuthenticatorBuilder {
     private static final String PROP_URL = "jwt.url";
     private static final String PROP_TOKEN_EXPIRATION = "jwt.token_expiration";
     private static final String PROP_RENEW_TOKEN_EXPIRATION = "jwt.refresh_token_expiration";
+    private static final String PROP_TOKEN_REFRESH_FRACTION = "jwt.token_refresh_fraction";
 
     private static final String AUTHENTICATE_PATH = "auth/authenticate";
     private static final String REFRESH_PATH = "auth/refreshToken";
@@ -36,6 +37,7 @@ public class JWTAuthenticatorBuilder {
     private long tokenExpirationDuration = Integer.toUnsignedLong(60); // Default to 60 min
     private long refreshTokenExpirationDuration = Integer.toUnsignedLong(60 * 24); // Default to 24 hours
     private Duration httpTimeoutDuration = Duration.ofMillis(HTTP_TIMEOUT); // in ms
+    private double tokenRefreshFraction = JWTAuthenticator.DEFAULT_REFRESH_FRACTION;
 
     public static JWTAuthenticatorBuilder fromConfig(Config config, String prop_prefix) {
         JWTAuthenticatorBuilder builder = new JWTAuthenticatorBuilder();
@@ -69,6 +71,9 @@ public static JWTAuthenticatorBuilder fromConfig(Config config, String prop_pref
         config.getOptionalValue(prop_prefix + PROP_RENEW_TOKEN_EXPIRATION, Long.class)
                 .ifPresent(builder::setRefreshTokenExpirationDuration);
 
+        config.getOptionalValue(prop_prefix + PROP_TOKEN_REFRESH_FRACTION, Double.class)
+                .ifPresent(builder::setTokenRefreshFraction);
+
         return builder;
     }
 
@@ -101,6 +106,14 @@ public JWTAuthenticatorBuilder setRefreshTokenExpirationDuration(long refreshTok
         return this;
     }
 
+    /**
+     * @param tokenRefreshFraction Fraction of the token lifetime after which the token is refreshed in the background.
+     */
+    public JWTAuthenticatorBuilder setTokenRefreshFraction(double tokenRefreshFraction) {
+        this.tokenRefreshFraction = tokenRefreshFraction;
+        return this;
+    }
+
     public JWTAuthenticatorBuilder setHttpTimeoutDuration(long timeoutDuration) {
         this.httpTimeoutDuration = Duration.ofMillis(timeoutDuration);
         return this;
@@ -131,6 +144,13 @@ public JWTAuthenticator build() {
             throw new NoSuchElementException(msg);
         }
 
-        return new JWTAuthenticator(authUri, refreshUri, username, password, tokenExpirationDuration, refreshTokenExpirationDuration, httpTimeoutDuration);
+        if (tokenRefreshFraction <= 0 || tokenRefreshFraction > 1) {
+            String msg = "Cannot build JWTAuthenticator.  Token refresh fraction must be greater than 0 and at most 1.";
+            LOGGER.error(msg);
+            throw new DebeziumException(msg);
+        }
+
+        return new JWTAuthenticator(authUri, refreshUri, username, password, tokenExpirationDuration, refreshTokenExpirationDuration, httpTimeoutDuration,
+                tokenRefreshFraction);
     }
 }
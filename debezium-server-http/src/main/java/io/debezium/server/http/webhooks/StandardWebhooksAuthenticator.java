@@ -7,8 +7,7 @@
 
 import java.net.http.HttpRequest.Builder;
 import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
+import java.security.GeneralSecurityException;
 import java.time.Clock;
 import java.time.Instant;
 import java.util.Base64;
@@ -27,9 +26,27 @@ public class StandardWebhooksAuthenticator implements Authenticator {
     static final String UNBRANDED_MSG_SIGNATURE_KEY = "webhook-signature";
     static final String UNBRANDED_MSG_TIMESTAMP_KEY = "webhook-timestamp";
     private static final String HMAC_SHA256 = "HmacSHA256";
+    private static final String MSG_ID_PREFIX = "msg_";
+    private static final String SIGNATURE_PREFIX = "v1,";
+    // msg_<UUID>.<epoch seconds>.
+    private static final int MAX_SIGNED_PREFIX_LENGTH = MSG_ID_PREFIX.length() + 36 + 1 + 20 + 1;
+
+    /**
+     * The MAC of a sender thread together with a buffer for the part of the signed content preceding the payload.
+     */
+    private static final class Signer {
+        private final Mac mac;
+        private final byte[] prefix = new byte[MAX_SIGNED_PREFIX_LENGTH];
+
+        private Signer(Mac mac) {
+            this.mac = mac;
+        }
+    }
 
     private final Clock clock;
-    private final Mac sha512Hmac;
+    private final Mac sha256Hmac;
+    // A Mac is not thread-safe, every sender signs with its own copy of the initialized Mac
+    private final ThreadLocal<Signer> signers = ThreadLocal.withInitial(this::newSigner);
 
     public StandardWebhooksAuthenticator(final String secret) {
         this(secret, Clock.systemUTC());
@@ -54,21 +71,37 @@ public StandardWebhooksAuthenticator(final String secret) {
         }
 
         try {
-            this.sha512Hmac = Mac.getInstance(HMAC_SHA256);
+            this.sha256Hmac = Mac.getInstance(HMAC_SHA256);
             SecretKeySpec keySpec = new SecretKeySpec(key, HMAC_SHA256);
-            sha512Hmac.init(keySpec);
+            sha256Hmac.init(keySpec);
         }
-        catch (InvalidKeyException | NoSuchAlgorithmException e) {
+        catch (GeneralSecurityException e) {
             throw new DebeziumException("Failed to initialize HMAC-SHA256 signing algorithm", e);
         }
 
     }
 
+    private Signer newSigner() {
+        try {
+            // The clone keeps the key schedule, the key is not processed again
+            return new Signer((Mac) sha256Hmac.clone());
+        }
+        catch (CloneNotSupportedException e) {
+            throw new DebeziumException("Failed to copy HMAC-SHA256 signing algorithm", e);
+        }
+    }
+
     @Override
     public void setAuthorizationHeader(Builder httpRequestBuilder, final String bodyContent, final UUID messageId) {
+        final byte[] body = bodyContent.getBytes(StandardCharsets.UTF_8);
+        setAuthorizationHeader(httpRequestBuilder, body, body.length, messageId);
+    }
+
+    @Override
+    public void setAuthorizationHeader(Builder httpRequestBuilder, final byte[] body, final int length, final UUID messageId) {
         final long timestamp = Instant.now(this.clock).getEpochSecond();
-        final String msgId = "msg_" + messageId;
-        final String signature = sign(msgId, timestamp, bodyContent);
+        final String msgId = MSG_ID_PREFIX + messageId;
+        final String signature = sign(msgId, timestamp, body, length);
         httpRequestBuilder.setHeader(StandardWebhooksAuthenticator.UNBRANDED_MSG_ID_KEY, msgId);
         httpRequestBuilder.setHeader(StandardWebhooksAuthenticator.UNBRANDED_MSG_SIGNATURE_KEY, signature);
         httpRequestBuilder.setHeader(StandardWebhooksAuthenticator.UNBRANDED_MSG_TIMESTAMP_KEY, Long.toString(timestamp));
@@ -81,10 +114,51 @@ public boolean authenticate() throws InterruptedException {
 
     @VisibleForTesting
     String sign(final String msgId, final long timestamp, final String payload) {
+        final byte[] body = payload.getBytes(StandardCharsets.UTF_8);
+        return sign(msgId, timestamp, body, body.length);
+    }
+
+    /**
+     * Signs {@code <msgId>.<timestamp>.<payload>}, the parts are fed to the MAC one after another without
+     * concatenating them.
+     */
+    private String sign(final String msgId, final long timestamp, final byte[] payload, final int length) {
         // https://github.com/standard-webhooks/standard-webhooks/blob/main/spec/standard-webhooks.md#signature-scheme
-        final String toSign = String.format("%s.%s.%s", msgId, timestamp, payload);
-        byte[] macData = sha512Hmac.doFinal(toSign.getBytes(StandardCharsets.UTF_8));
-        final String signature = Base64.getEncoder().encodeToString(macData);
-        return String.format("v1,%s", signature);
+        final Signer signer = signers.get();
+        final Mac mac = signer.mac;
+        final int prefixLength = writePrefix(signer.prefix, msgId, Long.toString(timestamp));
+        if (prefixLength >= 0) {
+            mac.update(signer.prefix, 0, prefixLength);
+        }
+        else {
+            mac.update((msgId + '.' + timestamp + '.').getBytes(StandardCharsets.UTF_8));
+        }
+        mac.update(payload, 0, length);
+        return SIGNATURE_PREFIX + Base64.getEncoder().encodeToString(mac.doFinal());
+    }
+
+    /**
+     * Writes {@code <msgId>.<timestamp>.} into the buffer.
+     *
+     * @return the number of bytes written, -1 if the message id is not ASCII or the prefix does not fit
+     */
+    private static int writePrefix(byte[] buffer, String msgId, String timestamp) {
+        if (msgId.length() + timestamp.length() + 2 > buffer.length) {
+            return -1;
+        }
+        int pos = 0;
+        for (int i = 0; i < msgId.length(); i++) {
+            final char c = msgId.charAt(i);
+            if (c >= 0x80) {
+                return -1;
+            }
+            buffer[pos++] = (byte) c;
+        }
+        buffer[pos++] = '.';
+        for (int i = 0; i < timestamp.length(); i++) {
+            buffer[pos++] = (byte) timestamp.charAt(i);
+        }
+        buffer[pos++] = '.';
+        return pos;
     }
-}
\ No newline at end of file
+}
@@ -5,26 +5,393 @@
  */
 package io.debezium.server.http;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
 import java.net.URISyntaxException;
 import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 
 import org.eclipse.microprofile.config.Config;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.debezium.DebeziumException;
 import io.debezium.engine.ChangeEvent;
 import io.debezium.engine.Header;
+import io.debezium.server.TestChangeEvent;
+import io.debezium.server.TestDeadLetterStore;
+import io.debezium.server.TestRecordCommitter;
+import io.debezium.server.deadletter.DeadLetterQueue;
+import io.debezium.server.deadletter.DeadLetterRecord;
+import io.debezium.server.tracing.BatchTracer;
+import io.debezium.server.tracing.TracingChangeConsumer;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
 
 public class HttpChangeConsumerTest {
 
+    private final ExecutorService serverExecutor = Executors.newFixedThreadPool(16);
+    private final List<HttpServer> servers = new ArrayList<>();
+    private HttpChangeConsumer consumer;
+
+    @AfterEach
+    public void tearDown() {
+        if (consumer != null) {
+            consumer.close();
+        }
+        for (HttpServer server : servers) {
+            server.stop(0);
+        }
+        serverExecutor.shutdownNow();
+    }
+
+    /**
+     * Receives the events after a delay, events with a body matching the rejected one are answered with status 400.
+     * Tracks how many requests were in flight overall and per key prefix of the body.
+     */
+    private static class Receiver {
+        final List<String> received = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger requests = new AtomicInteger();
+        final List<String> contentTypes = Collections.synchronizedList(new ArrayList<>());
+        final List<String> contentEncodings = Collections.synchronizedList(new ArrayList<>());
+        final List<String> traceParents = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger inFlight = new AtomicInteger();
+        final Map<String, AtomicInteger> keyInFlight = new ConcurrentHashMap<>();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final AtomicInteger maxKeyInFlight = new AtomicInteger();
+        final String rejected;
+        volatile boolean failing;
+
+        Receiver(String rejected) {
+            this.rejected = rejected;
+        }
+
+        void handle(HttpExchange exchange) throws IOException {
+            final String body;
+            final String contentEncoding = exchange.getRequestHeaders().getFirst("content-encoding");
+            try (InputStream in = "gzip".equals(contentEncoding) ? new GZIPInputStream(exchange.getRequestBody()) : exchange.getRequestBody()) {
+                body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            final String key = body.substring(0, body.indexOf(':'));
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            maxKeyInFlight.accumulateAndGet(keyInFlight.computeIfAbsent(key, x -> new AtomicInteger()).incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            keyInFlight.get(key).decrementAndGet();
+            inFlight.decrementAndGet();
+
+            requests.incrementAndGet();
+            final int status = failing ? 500 : body.equals(rejected) ? 400 : 200;
+            if (status == 200) {
+                received.add(body);
+                contentTypes.add(exchange.getRequestHeaders().getFirst("content-type"));
+                contentEncodings.add(String.valueOf(contentEncoding));
+                traceParents.add(String.valueOf(exchange.getRequestHeaders().getFirst("traceparent")));
+            }
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        }
+    }
+
+    private String startServer(Receiver receiver) throws IOException {
+        final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", receiver::handle);
+        server.setExecutor(serverExecutor);
+        server.start();
+        servers.add(server);
+        return "http://localhost:" + server.getAddress().getPort() + "/";
+    }
+
+    private HttpChangeConsumer startConsumer(Receiver receiver, Map<String, Object> config) throws IOException, URISyntaxException {
+        final Map<String, Object> consumerConfig = new HashMap<>(config);
+        consumerConfig.put(HttpChangeConsumer.PROP_PREFIX + HttpChangeConsumer.PROP_WEBHOOK_URL, startServer(receiver));
+        return startConsumer(consumerConfig);
+    }
+
+    private HttpChangeConsumer startConsumer(Map<String, Object> config) throws URISyntaxException {
+        final Map<String, Object> consumerConfig = new HashMap<>(config);
+        consumerConfig.put("debezium.format.value", "json");
+        consumer = new HttpChangeConsumer();
+        consumer.initWithConfig(generateMockConfig(consumerConfig));
+        return consumer;
+    }
+
+    private static List<ChangeEvent<Object, Object>> records(int count, int keys) {
+        final List<ChangeEvent<Object, Object>> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            records.add(new TestChangeEvent("key-" + (i % keys), "key-" + (i % keys) + ":" + i, "dest"));
+        }
+        return records;
+    }
+
+    @Test
+    public void shouldSendConcurrently() throws Exception {
+        final Receiver receiver = new Receiver(null);
+        startConsumer(receiver, Map.of(HttpChangeConsumer.PROP_PREFIX + HttpChangeConsumer.PROP_MAX_IN_FLIGHT, 4));
+        final List<ChangeEvent<Object, Object>> records = records(40, 40);
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        consumer.handleBatch(records, committer);
+
+        assertThat(receiver.maxInFlight.get()).isGreaterThan(1).isLessThanOrEqualTo(4);
+        assertThat(receiver.received).hasSize(40).doesNotHaveDuplicates();
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+        assertThat(committer.isBatchFinished()).isTrue();
+    }
+
+    @Test
+    public void shouldPropagateTraceContextWhenSendingConcurrently() throws Exception {
+        final InMemorySpanExporter exporter = InMemorySpanExporter.create();
+        try (OpenTelemetrySdk openTelemetry = OpenTelemetrySdk.builder()
+                .setTracerProvider(SdkTracerProvider.builder().addSpanProcessor(SimpleSpanProcessor.create(exporter)).build())
+                .setPropagators(ContextPropagators.create(W3CTraceContextPropagator.getInstance()))
+                .build()) {
+            final Receiver receiver = new Receiver(null);
+            startConsumer(receiver, Map.of(HttpChangeConsumer.PROP_PREFIX + HttpChangeConsumer.PROP_MAX_IN_FLIGHT, 4));
+            final TracingChangeConsumer tracing = new TracingChangeConsumer(consumer, new BatchTracer(openTelemetry, 0.0));
+
+            tracing.handleBatch(records(20, 20), new TestRecordCommitter());
+
+            final SpanData batch = exporter.getFinishedSpanItems().stream().filter(s -> s.getName().equals("debezium.batch")).findFirst().get();
+            assertThat(receiver.maxInFlight.get()).isGreaterThan(1);
+            assertThat(receiver.traceParents).hasSize(20).allMatch(header -> header.contains(batch.getTraceId()));
+        }
+    }
+
+    @Test
+    public void shouldSendRecordsOfKeyInOrder() throws Exception {
+        final Receiver receiver = new Receiver(null);
+        startConsumer(receiver, Map.of(
+                HttpChangeConsumer.PROP_PREFIX + HttpChangeConsumer.PROP_MAX_IN_FLIGHT, 4,
+                HttpChangeConsumer.PROP_PREFIX + HttpChangeConsumer.PROP_ORDERING, HttpChangeConsumer.ORDERING_KEY));
+        final List<ChangeEvent<Object, Object>> records = records(40, 4);
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        consumer.handleBatch(records, committer);
+
+        assertThat(receiver.maxKeyInFlight.get()).isEqualTo(1);
+        for (int key = 0; key < 4; key++) {
+            final String prefix = "key-" + key + ":";
+            final List<Integer> sequence = receiver.received.stream()
+                    .filter(body -> body.startsWith(prefix))
+                    .map(body -> Integer.parseInt(body.substring(prefix.length())))
+                    .collect(Collectors.toList());
+            assertThat(sequence).hasSize(10).isSorted();
+        }
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+    }
+
+    @Test
+    public void shouldMarkRecordsBeforeFailedRequest() throws Exception {
+        final Receiver receiver = new Receiver("key-10:10");
+        startConsumer(receiver, Map.of(HttpChangeConsumer.PROP_PREFIX + HttpChangeConsumer.PROP_MAX_IN_FLIGHT, 4));
+        final List<ChangeEvent<Object, Object>> records = records(20, 20);
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        assertThatThrownBy(() -> consumer.handleBatch(records, committer)).isInstanceOf(DebeziumException.class);
+
+        assertThat(receiver.received).hasSize(19);
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records.subList(0, 10));
+        assertThat(committer.isBatchFinished()).isFalse();
+    }
+
+    @Test
+    public void shouldDivertRejectedRecordToDeadLetterQueue() throws Exception {
+        final Receiver receiver = new Receiver("key-10:10");
+        startConsumer(receiver, Map.of(HttpChangeConsumer.PROP_PREFIX + HttpChangeConsumer.PROP_MAX_IN_FLIGHT, 4));
+        final TestDeadLetterStore deadLetters = TestDeadLetterStore.attachTo(consumer);
+        final List<ChangeEvent<Object, Object>> records = records(20, 20);
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        consumer.handleBatch(records, committer);
+
+        assertThat(receiver.received).hasSize(19).doesNotContain("key-10:10");
+        assertThat(deadLetters.getRecords()).extracting(DeadLetterRecord::key).containsExactly("key-10");
+        assertThat(deadLetters.getRecords()).extracting(DeadLetterRecord::reason).containsExactly(DeadLetterQueue.REASON_RECORD_REJECTED);
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+        assertThat(committer.isBatchFinished()).isTrue();
+    }
+
+    @Test
+    public void shouldSendBatchesAsJsonArray() throws Exception {
+        final Receiver receiver = new Receiver(null);
+        startConsumer(receiver, Map.of(HttpChangeConsumer.PROP_PREFIX + HttpChangeConsumer.PROP_BATCH_MAX_RECORDS, 4));
+        final List<ChangeEvent<Object, Object>> records = records(10, 10);
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        consumer.handleBatch(records, committer);
+
+        assertThat(receiver.received).containsExactly(
+                "[key-0:0,key-1:1,key-2:2,key-3:3]",
+                "[key-4:4,key-5:5,key-6:6,key-7:7]",
+                "[key-8:8,key-9:9]");
+        assertThat(receiver.contentTypes).containsOnly("application/json");
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+        assertThat(committer.isBatchFinished()).isTrue();
+    }
+
+    @Test
+    public void shouldSendBatchesAsNdjsonUpToMaxBytes() throws Exception {
+        final Receiver receiver = new Receiver(null);
+        startConsumer(receiver, Map.of(
+                HttpChangeConsumer.PROP_PREFIX + HttpChangeConsumer.PROP_BATCH_MAX_RECORDS, 10,
+                HttpChangeConsumer.PROP_PREFIX + HttpChangeConsumer.PROP_BATCH_MAX_BYTES, 24,
+                HttpChangeConsumer.PROP_PREFIX + HttpChangeConsumer.PROP_BATCH_ENCODING, HttpChangeConsumer.BATCH_ENCODING_NDJSON));
+        final List<ChangeEvent<Object, Object>> records = records(5, 5);
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        consumer.handleBatch(records, committer);
+
+        assertThat(receiver.received).containsExactly(
+                "key-0:0\nkey-1:1\nkey-2:2\n",
+                "key-3:3\nkey-4:4\n");
+        assertThat(receiver.contentTypes).containsOnly("application/x-ndjson");
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+    }
+
+    @Test
+    public void shouldNotMarkRecordsOfRejectedBatch() throws Exception {
+        final Receiver receiver = new Receiver("[key-2:2,key-3:3]");
+        startConsumer(receiver, Map.of(HttpChangeConsumer.PROP_PREFIX + HttpChangeConsumer.PROP_BATCH_MAX_RECORDS, 2));
+        final List<ChangeEvent<Object, Object>> records = records(6, 6);
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        assertThatThrownBy(() -> consumer.handleBatch(records, committer)).isInstanceOf(DebeziumException.class);
+
+        assertThat(receiver.received).containsExactly("[key-0:0,key-1:1]");
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records.subList(0, 2));
+        assertThat(committer.isBatchFinished()).isFalse();
+    }
+
+    @Test
+    public void shouldCompressLargeBodies() throws Exception {
+        final Receiver receiver = new Receiver(null);
+        startConsumer(receiver, Map.of(
+                HttpChangeConsumer.PROP_PREFIX + HttpChangeConsumer.PROP_COMPRESSION, "gzip",
+                HttpChangeConsumer.PROP_PREFIX + HttpChangeConsumer.PROP_COMPRESSION_THRESHOLD, 100));
+        final String large = "key-1:" + "x".repeat(1000);
+        final List<ChangeEvent<Object, Object>> records = List.of(
+                new TestChangeEvent("key-0", "key-0:0", "dest"),
+                new TestChangeEvent("key-1", large, "dest"));
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        consumer.handleBatch(records, committer);
+
+        assertThat(receiver.received).containsExactly("key-0:0", large);
+        assertThat(receiver.contentEncodings).containsExactly("null", "gzip");
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+    }
+
+    @Test
+    public void shouldSendBinaryValues() throws Exception {
+        final Receiver receiver = new Receiver(null);
+        startConsumer(receiver, Map.of());
+        final List<ChangeEvent<Object, Object>> records = List.of(
+                new TestChangeEvent("key-0", "key-0:\u00e9".getBytes(StandardCharsets.UTF_8), "dest"));
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        consumer.handleBatch(records, committer);
+
+        assertThat(receiver.received).containsExactly("key-0:\u00e9");
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+    }
+
+    @Test
+    public void shouldSendRecordsOfKeyToSameEndpoint() throws Exception {
+        final Receiver first = new Receiver(null);
+        final Receiver second = new Receiver(null);
+        startConsumer(Map.of(
+                HttpChangeConsumer.PROP_PREFIX + HttpChangeConsumer.PROP_WEBHOOK_URL, startServer(first) + "," + startServer(second),
+                HttpChangeConsumer.PROP_PREFIX + HttpChangeConsumer.PROP_LOAD_BALANCING, "key-hash",
+                HttpChangeConsumer.PROP_PREFIX + HttpChangeConsumer.PROP_MAX_IN_FLIGHT, 4,
+                HttpChangeConsumer.PROP_PREFIX + HttpChangeConsumer.PROP_ORDERING, HttpChangeConsumer.ORDERING_KEY));
+        final List<ChangeEvent<Object, Object>> records = records(80, 40);
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        consumer.handleBatch(records, committer);
+
+        assertThat(first.received).isNotEmpty();
+        assertThat(second.received).isNotEmpty();
+        assertThat(first.received.size() + second.received.size()).isEqualTo(80);
+        final Set<String> firstKeys = first.received.stream().map(body -> body.substring(0, body.indexOf(':'))).collect(Collectors.toSet());
+        final Set<String> secondKeys = second.received.stream().map(body -> body.substring(0, body.indexOf(':'))).collect(Collectors.toSet());
+        assertThat(firstKeys).doesNotContainAnyElementsOf(secondKeys);
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+    }
+
+    @Test
+    public void shouldEjectFailingEndpoint() throws Exception {
+        final Receiver failing = new Receiver(null);
+        failing.failing = true;
+        final Receiver healthy = new Receiver(null);
+        startConsumer(Map.of(
+                HttpChangeConsumer.PROP_PREFIX + HttpChangeConsumer.PROP_WEBHOOK_URL, startServer(failing) + "," + startServer(healthy),
+                HttpChangeConsumer.PROP_PREFIX + HttpChangeConsumer.PROP_EJECTION_FAILURES, 2,
+                HttpChangeConsumer.PROP_PREFIX + HttpChangeConsumer.PROP_RETRY_INTERVAL, 10L));
+        final List<ChangeEvent<Object, Object>> records = records(10, 10);
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        consumer.handleBatch(records, committer);
+
+        // The retries of the failed requests go to the other endpoint, after the second failure none is sent
+        assertThat(failing.requests.get()).isEqualTo(2);
+        assertThat(healthy.received).hasSize(10);
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+    }
+
+    @Test
+    public void verifyGenerateBatchRequestForCloudEvents() throws URISyntaxException {
+        HttpChangeConsumer changeConsumer = new HttpChangeConsumer();
+        changeConsumer.initWithConfig(generateMockConfig(Map.of(
+                HttpChangeConsumer.PROP_PREFIX + HttpChangeConsumer.PROP_WEBHOOK_URL, "http://url",
+                HttpChangeConsumer.PROP_PREFIX + HttpChangeConsumer.PROP_BATCH_MAX_RECORDS, 10,
+                "debezium.format.value", "cloudevents")));
+        final List<ChangeEvent<Object, Object>> records = List.of(
+                new TestChangeEvent("k1", "{\"id\":1}", "dest"),
+                new TestChangeEvent("k2", "{\"id\":2}", "dest"));
+        final RequestBodies.Body body = new RequestBodies(RequestBodies.Compression.NONE, 0, 1).acquire();
+        changeConsumer.writeBody(records, body);
+        HttpRequest request = changeConsumer.generateBatchRequest(records).build();
+
+        assertEquals("[{\"id\":1},{\"id\":2}]", new String(body.content().array(), 0, body.content().length(), StandardCharsets.UTF_8));
+        assertEquals("application/cloudevents-batch+json", request.headers().firstValue("content-type").orElse(null));
+        assertEquals("2", request.headers().firstValue("X-DEBEZIUM-" + HttpChangeConsumer.BATCH_SIZE_HEADER).orElse(null));
+    }
+
     @Test
     public void verifyGenerateRequestWithDefaultConfig() throws URISyntaxException {
         HttpChangeConsumer changeConsumer = new HttpChangeConsumer();
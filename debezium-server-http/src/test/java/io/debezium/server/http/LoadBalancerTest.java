@@ -0,0 +1,145 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class LoadBalancerTest {
+
+    private final List<Endpoint> endpoints = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() {
+        endpoints.forEach(Endpoint::close);
+    }
+
+    private LoadBalancer loadBalancer(LoadBalancer.Strategy strategy, int count) {
+        for (int i = 0; i < count; i++) {
+            endpoints.add(new Endpoint(URI.create("http://receiver-" + i + ":8080/"), HttpClient.newHttpClient(), 2, 0, 60_000));
+        }
+        return new LoadBalancer(endpoints, strategy);
+    }
+
+    private static void fail(Endpoint endpoint) {
+        endpoint.completed(endpoint.started(), true);
+    }
+
+    @Test
+    public void shouldCycleThroughEndpoints() {
+        final LoadBalancer loadBalancer = loadBalancer(LoadBalancer.Strategy.ROUND_ROBIN, 3);
+
+        final List<Endpoint> selected = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            selected.add(loadBalancer.select("key"));
+        }
+
+        assertThat(selected).containsExactlyElementsOf(List.of(endpoints.get(0), endpoints.get(1), endpoints.get(2),
+                endpoints.get(0), endpoints.get(1), endpoints.get(2)));
+    }
+
+    @Test
+    public void shouldSkipEjectedEndpoints() {
+        final LoadBalancer loadBalancer = loadBalancer(LoadBalancer.Strategy.ROUND_ROBIN, 3);
+        fail(endpoints.get(1));
+        assertThat(endpoints.get(1).isEjected()).isFalse();
+        fail(endpoints.get(1));
+        assertThat(endpoints.get(1).isEjected()).isTrue();
+        assertThat(endpoints.get(1).getEjections()).isEqualTo(1);
+
+        for (int i = 0; i < 6; i++) {
+            assertThat(loadBalancer.select("key")).isNotSameAs(endpoints.get(1));
+        }
+    }
+
+    @Test
+    public void shouldResetFailuresOnSuccess() {
+        loadBalancer(LoadBalancer.Strategy.ROUND_ROBIN, 1);
+        final Endpoint endpoint = endpoints.get(0);
+
+        fail(endpoint);
+        endpoint.completed(endpoint.started(), false);
+        fail(endpoint);
+
+        assertThat(endpoint.isEjected()).isFalse();
+        assertThat(endpoint.getFailures()).isEqualTo(2);
+        assertThat(endpoint.getRequests()).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldUseAllEndpointsWhenAllAreEjected() {
+        final LoadBalancer loadBalancer = loadBalancer(LoadBalancer.Strategy.LEAST_IN_FLIGHT, 2);
+        for (Endpoint endpoint : endpoints) {
+            fail(endpoint);
+            fail(endpoint);
+        }
+
+        assertThat(loadBalancer.select("key")).isIn(endpoints);
+    }
+
+    @Test
+    public void shouldSelectEndpointWithFewestRequestsInFlight() {
+        final LoadBalancer loadBalancer = loadBalancer(LoadBalancer.Strategy.LEAST_IN_FLIGHT, 3);
+        endpoints.get(0).started();
+        endpoints.get(0).started();
+        endpoints.get(2).started();
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(loadBalancer.select("key")).isSameAs(endpoints.get(1));
+        }
+    }
+
+    @Test
+    public void shouldSendKeyToSameEndpoint() {
+        final LoadBalancer loadBalancer = loadBalancer(LoadBalancer.Strategy.KEY_HASH, 3);
+
+        final Map<String, Endpoint> owners = new HashMap<>();
+        for (int i = 0; i < 300; i++) {
+            owners.put("key-" + i, loadBalancer.select("key-" + i));
+        }
+        for (int i = 0; i < 300; i++) {
+            assertThat(loadBalancer.select("key-" + i)).isSameAs(owners.get("key-" + i));
+            assertThat(endpoints.get(loadBalancer.owner("key-" + i))).isSameAs(owners.get("key-" + i));
+        }
+        assertThat(new HashSet<>(owners.values())).hasSize(3);
+        assertThat(loadBalancer.select(new byte[]{ 1, 2 })).isSameAs(loadBalancer.select(new byte[]{ 1, 2 }));
+    }
+
+    @Test
+    public void shouldMoveOnlyKeysOfEjectedEndpoint() {
+        final LoadBalancer loadBalancer = loadBalancer(LoadBalancer.Strategy.KEY_HASH, 3);
+        final Map<String, Endpoint> owners = new HashMap<>();
+        for (int i = 0; i < 300; i++) {
+            owners.put("key-" + i, loadBalancer.select("key-" + i));
+        }
+
+        fail(endpoints.get(0));
+        fail(endpoints.get(0));
+
+        final Set<Endpoint> moved = new HashSet<>();
+        for (Map.Entry<String, Endpoint> owner : owners.entrySet()) {
+            final Endpoint selected = loadBalancer.select(owner.getKey());
+            if (owner.getValue() == endpoints.get(0)) {
+                moved.add(selected);
+            }
+            else {
+                assertThat(selected).isSameAs(owner.getValue());
+            }
+        }
+        assertThat(moved).doesNotContain(endpoints.get(0)).isNotEmpty();
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.luben.zstd.Zstd;
+
+public class RequestBodiesTest {
+
+    private static final String VALUE = "{\"id\":1,\"name\":\"\u00e9t\u00e9 \u20ac \uD83D\uDE00\"}".repeat(50);
+
+    @Test
+    public void shouldEncodeStringsAsUtf8() {
+        final RequestBodies bodies = new RequestBodies(RequestBodies.Compression.NONE, 0, 1);
+        try (RequestBodies.Body body = bodies.acquire()) {
+            body.write(VALUE);
+
+            assertThat(body.encode()).isNull();
+            assertThat(content(body.content())).isEqualTo(VALUE.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void shouldCompressWithGzip() throws IOException {
+        final RequestBodies bodies = new RequestBodies(RequestBodies.Compression.GZIP, 100, 1);
+        // The second body reuses the buffers and the deflater of the first one
+        for (int i = 0; i < 2; i++) {
+            try (RequestBodies.Body body = bodies.acquire()) {
+                body.write(VALUE);
+
+                assertThat(body.encode()).isEqualTo("gzip");
+                try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(published(body)))) {
+                    assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(VALUE);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldCompressWithZstd() {
+        final RequestBodies bodies = new RequestBodies(RequestBodies.Compression.ZSTD, 100, 1);
+        try (RequestBodies.Body body = bodies.acquire()) {
+            body.write(VALUE.getBytes(StandardCharsets.UTF_8));
+
+            assertThat(body.encode()).isEqualTo("zstd");
+            final byte[] compressed = published(body);
+            assertThat(Zstd.decompress(compressed, (int) Zstd.decompressedSize(compressed))).isEqualTo(VALUE.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void shouldNotCompressBelowThresholdOrWhenNotSmaller() {
+        final RequestBodies bodies = new RequestBodies(RequestBodies.Compression.GZIP, 100, 1);
+        try (RequestBodies.Body body = bodies.acquire()) {
+            body.write("{\"id\":1}");
+            assertThat(body.encode()).isNull();
+        }
+        final RequestBodies noThreshold = new RequestBodies(RequestBodies.Compression.GZIP, 0, 1);
+        try (RequestBodies.Body body = noThreshold.acquire()) {
+            body.write("{\"id\":1}");
+            assertThat(body.encode()).isNull();
+            assertThat(published(body)).isEqualTo("{\"id\":1}".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void shouldReuseBodies() {
+        final RequestBodies bodies = new RequestBodies(RequestBodies.Compression.NONE, 0, 1);
+        final RequestBodies.Body first = bodies.acquire();
+        first.write(VALUE);
+        first.close();
+
+        final RequestBodies.Body second = bodies.acquire();
+        assertThat(second).isSameAs(first);
+        assertThat(second.content().length()).isZero();
+
+        second.discard();
+        second.close();
+        assertThat(bodies.acquire()).isNotSameAs(second);
+    }
+
+    private static byte[] content(RequestBodies.Buffer buffer) {
+        return Arrays.copyOf(buffer.array(), buffer.length());
+    }
+
+    private static byte[] published(RequestBodies.Body body) {
+        final RequestBodies.Buffer buffer = body.encodedContent();
+        return Arrays.copyOf(buffer.array(), buffer.length());
+    }
+}
@@ -5,19 +5,133 @@
  */
 package io.debezium.server.http.jwt;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import org.junit.Test;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
 
 public class JWTAuthenticatorTest {
 
+    private HttpServer server;
+    private JWTAuthenticator authenticator;
+
+    @AfterEach
+    public void tearDown() {
+        if (authenticator != null) {
+            authenticator.close();
+        }
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    /**
+     * Issues tokens valid for the given time, numbered by the request. Once declining, all requests are answered
+     * with status 401.
+     */
+    private static class TokenServer {
+        final AtomicInteger issued = new AtomicInteger();
+        final AtomicInteger refreshes = new AtomicInteger();
+        final long expiresIn;
+        volatile boolean declining;
+
+        TokenServer(long expiresIn) {
+            this.expiresIn = expiresIn;
+        }
+
+        void authenticate(HttpExchange exchange) throws IOException {
+            respond(exchange);
+        }
+
+        void refresh(HttpExchange exchange) throws IOException {
+            refreshes.incrementAndGet();
+            respond(exchange);
+        }
+
+        private void respond(HttpExchange exchange) throws IOException {
+            exchange.getRequestBody().readAllBytes();
+            if (declining) {
+                exchange.sendResponseHeaders(401, -1);
+                exchange.close();
+                return;
+            }
+            final int n = issued.incrementAndGet();
+            final byte[] body = ("{\"expiresIn\":" + expiresIn + ",\"jwt\":\"token-" + n + "\",\"jwtRefreshToken\":\"refresh-" + n
+                    + "\",\"refreshTokenExpiresIn\":600000}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        }
+    }
+
+    private JWTAuthenticator startAuthenticator(TokenServer tokenServer, double refreshFraction) throws IOException, URISyntaxException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/auth/authenticate", tokenServer::authenticate);
+        server.createContext("/auth/refreshToken", tokenServer::refresh);
+        server.start();
+
+        final String url = "http://localhost:" + server.getAddress().getPort() + "/";
+        authenticator = new JWTAuthenticator(new URI(url + "auth/authenticate"), new URI(url + "auth/refreshToken"), "testUser", "testPassword",
+                10000, 10000, Duration.ofMillis(10000), refreshFraction);
+        return authenticator;
+    }
+
+    private static String authorization(JWTAuthenticator authenticator) throws URISyntaxException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(new URI("http://test.com/cookies"));
+        authenticator.setAuthorizationHeader(builder, "", new UUID(0, 0));
+        return builder.build().headers().firstValue("Authorization").orElse(null);
+    }
+
+    @Test
+    public void shouldRefreshTokenInBackground() throws Exception {
+        final TokenServer tokenServer = new TokenServer(400);
+        startAuthenticator(tokenServer, 0.25);
+
+        Assertions.assertTrue(authenticator.authenticate());
+        Assertions.assertEquals("Bearer: token-1", authorization(authenticator));
+
+        Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> tokenServer.refreshes.get() >= 2);
+        Assertions.assertTrue(authenticator.authenticate());
+        assertThat(authorization(authenticator)).isNotEqualTo("Bearer: token-1");
+        Assertions.assertEquals(JWTAuthenticator.AuthenticationState.ACTIVE, authenticator.getAuthenticationState());
+    }
+
+    @Test
+    public void shouldKeepTokenWhileRefreshFails() throws Exception {
+        final TokenServer tokenServer = new TokenServer(1500);
+        startAuthenticator(tokenServer, 0.1);
+
+        Assertions.assertTrue(authenticator.authenticate());
+        tokenServer.declining = true;
+
+        Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> tokenServer.refreshes.get() >= 1);
+        Assertions.assertTrue(authenticator.authenticate());
+        Assertions.assertEquals("Bearer: token-1", authorization(authenticator));
+
+        Awaitility.await().atMost(5, TimeUnit.SECONDS)
+                .until(() -> authenticator.getAuthenticationState() == JWTAuthenticator.AuthenticationState.EXPIRED);
+        Assertions.assertFalse(authenticator.authenticate());
+        Assertions.assertEquals(JWTAuthenticator.AuthenticationState.FAILED_AUTHENTICATION, authenticator.getAuthenticationState());
+    }
+
     @Test
     public void generateInitialAuthenticationRequest() throws URISyntaxException {
         URI authURI = new URI("http://test.com/auth/authenticate");
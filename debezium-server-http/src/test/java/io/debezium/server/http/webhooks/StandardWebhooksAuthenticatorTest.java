@@ -9,14 +9,24 @@
 import java.net.URISyntaxException;
 import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
 import java.time.Clock;
 import java.time.Instant;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 
-import org.junit.Test;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
 
 public class StandardWebhooksAuthenticatorTest {
 
@@ -55,4 +65,49 @@ public void addAuthorizationHeader() throws URISyntaxException {
 
         Assertions.assertEquals(expected, signatureHeader.get());
     }
+
+    @Test
+    public void signConcurrently() throws Exception {
+        Clock clock = Clock.fixed(Instant.ofEpochSecond(1234), ZoneOffset.UTC);
+        StandardWebhooksAuthenticator authenticator = new StandardWebhooksAuthenticator(
+                "whsec_MfKQ9r8GKYqrTwjUPD8ILPZIo2LaLaSw", clock);
+        String expected = "v1,qCVBRIv6rKQVhSJBAmUSE9GkdCdPe2j6xzzkm89UcoA=";
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    int mismatches = 0;
+                    for (int j = 0; j < 1000; j++) {
+                        if (!expected.equals(authenticator.sign("msg_22bd292a-71ab-46fe-a460-8632d6754ac6", 1234, "{\"hello\":\"world\"}"))) {
+                            mismatches++;
+                        }
+                    }
+                    return mismatches;
+                }));
+            }
+            for (Future<Integer> result : results) {
+                Assertions.assertEquals(0, result.get());
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void signMessageIdsOfAnyLength() throws Exception {
+        Clock clock = Clock.fixed(Instant.ofEpochSecond(1234), ZoneOffset.UTC);
+        StandardWebhooksAuthenticator authenticator = new StandardWebhooksAuthenticator(
+                "whsec_MfKQ9r8GKYqrTwjUPD8ILPZIo2LaLaSw", clock);
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(Base64.getDecoder().decode("MfKQ9r8GKYqrTwjUPD8ILPZIo2LaLaSw"), "HmacSHA256"));
+
+        // Message ids that do not fit the prefix buffer or are not ASCII are signed as well
+        for (String msgId : List.of("msg_" + "x".repeat(100), "msg_\u00e9")) {
+            String expected = "v1," + Base64.getEncoder().encodeToString(mac.doFinal((msgId + ".1234.{}").getBytes(StandardCharsets.UTF_8)));
+            Assertions.assertEquals(expected, authenticator.sign(msgId, 1234, "{}"));
+        }
+    }
 }
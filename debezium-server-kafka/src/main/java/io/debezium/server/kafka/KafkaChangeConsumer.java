@@ -5,10 +5,19 @@
  */
 package io.debezium.server.kafka;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
@@ -18,8 +27,13 @@
 import jakarta.inject.Named;
 
 import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.errors.AuthorizationException;
+import org.apache.kafka.common.errors.OutOfOrderSequenceException;
+import org.apache.kafka.common.errors.ProducerFencedException;
 import org.apache.kafka.common.header.Headers;
 import org.apache.kafka.common.header.internals.RecordHeaders;
 import org.eclipse.microprofile.config.Config;
@@ -29,12 +43,14 @@
 import org.slf4j.LoggerFactory;
 
 import io.debezium.DebeziumException;
+import io.debezium.annotation.VisibleForTesting;
 import io.debezium.engine.ChangeEvent;
 import io.debezium.engine.DebeziumEngine;
 import io.debezium.engine.DebeziumEngine.RecordCommitter;
 import io.debezium.engine.Header;
 import io.debezium.server.BaseChangeConsumer;
 import io.debezium.server.CustomConsumerBuilder;
+import io.debezium.util.Clock;
 
 /**
  * An implementation of the {@link DebeziumEngine.ChangeConsumer} interface that publishes change event messages to Kafka.
@@ -48,39 +64,163 @@ public class KafkaChangeConsumer extends BaseChangeConsumer implements DebeziumE
     private static final String PROP_PREFIX = "debezium.sink.kafka.";
 
     private static final String PROP_PREFIX_PRODUCER = PROP_PREFIX + "producer.";
+    private static final String PROP_TRANSACTIONAL_ID = PROP_PREFIX + "transactional.id";
+    private static final String PROP_PARTITION_ROUTING = PROP_PREFIX + "partition.routing";
+    private static final String PROP_PARTITION_COUNT_REFRESH = PROP_PREFIX + "partition.count.refresh.ms";
+    private static final long DEFAULT_PARTITION_COUNT_REFRESH_MS = 60_000;
+    private static final String PROP_POOL_SIZE = PROP_PREFIX + "producer.pool.size";
+    private static final String PROP_POOL_SHARDING = PROP_PREFIX + "producer.pool.sharding";
+    private static final String PROP_METRICS_CHECK_INTERVAL = PROP_PREFIX + "metrics.check.interval.ms";
+    private static final long DEFAULT_METRICS_CHECK_INTERVAL_MS = 60_000;
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
 
     @ConfigProperty(name = PROP_PREFIX + "wait.message.delivery.timeout.ms", defaultValue = "30000")
     Integer waitMessageDeliveryTimeout;
 
-    private KafkaProducer<Object, Object> producer;
+    private ProducerPool producers;
+    private boolean transactional;
+    private PartitionRouter partitionRouter;
+    private ProducerMetrics producerMetrics;
 
     @Inject
     @CustomConsumerBuilder
     Instance<KafkaProducer<Object, Object>> customKafkaProducer;
 
+    public KafkaChangeConsumer() {
+    }
+
+    @VisibleForTesting
+    KafkaChangeConsumer(Producer<Object, Object> producer, int waitMessageDeliveryTimeout, boolean transactional) {
+        this.producers = new ProducerPool(nextContext(), List.of(producer), ProducerPool.Sharding.TOPIC);
+        this.waitMessageDeliveryTimeout = waitMessageDeliveryTimeout;
+        this.transactional = transactional;
+        this.partitionRouter = createPartitionRouter(PartitionRouter.Mode.PRODUCER, DEFAULT_PARTITION_COUNT_REFRESH_MS);
+        this.producerMetrics = createProducerMetrics(Map.of(), DEFAULT_METRICS_CHECK_INTERVAL_MS);
+        initTransactions();
+    }
+
+    @VisibleForTesting
+    KafkaChangeConsumer(Producer<Object, Object> producer, int waitMessageDeliveryTimeout, PartitionRouter.Mode partitionRouting) {
+        this(producer, waitMessageDeliveryTimeout, false);
+        this.partitionRouter = createPartitionRouter(partitionRouting, DEFAULT_PARTITION_COUNT_REFRESH_MS);
+    }
+
+    @VisibleForTesting
+    KafkaChangeConsumer(List<Producer<Object, Object>> producers, int waitMessageDeliveryTimeout, ProducerPool.Sharding sharding) {
+        this.producers = new ProducerPool(nextContext(), producers, sharding);
+        this.waitMessageDeliveryTimeout = waitMessageDeliveryTimeout;
+        this.partitionRouter = createPartitionRouter(PartitionRouter.Mode.PRODUCER, DEFAULT_PARTITION_COUNT_REFRESH_MS);
+        this.producerMetrics = createProducerMetrics(Map.of(), DEFAULT_METRICS_CHECK_INTERVAL_MS);
+    }
+
     @PostConstruct
     void start() {
+        final Config config = ConfigProvider.getConfig();
+        final Optional<String> transactionalId = config.getOptionalValue(PROP_TRANSACTIONAL_ID, String.class);
+        partitionRouter = createPartitionRouter(
+                PartitionRouter.Mode.parse(config.getOptionalValue(PROP_PARTITION_ROUTING, String.class).orElse("producer")),
+                config.getOptionalValue(PROP_PARTITION_COUNT_REFRESH, Long.class).orElse(DEFAULT_PARTITION_COUNT_REFRESH_MS));
+
+        final long metricsCheckIntervalMs = config.getOptionalValue(PROP_METRICS_CHECK_INTERVAL, Long.class).orElse(DEFAULT_METRICS_CHECK_INTERVAL_MS);
+        final int poolSize = config.getOptionalValue(PROP_POOL_SIZE, Integer.class).orElse(1);
+        final ProducerPool.Sharding sharding = ProducerPool.Sharding.parse(config.getOptionalValue(PROP_POOL_SHARDING, String.class).orElse("topic"));
+        if (poolSize < 1) {
+            throw new DebeziumException("Property '" + PROP_POOL_SIZE + "' must be at least 1");
+        }
+
         if (customKafkaProducer.isResolvable()) {
-            producer = customKafkaProducer.get();
+            final Producer<Object, Object> producer = customKafkaProducer.get();
             LOGGER.info("Obtained custom configured KafkaProducer '{}'", producer);
+            if (poolSize > 1) {
+                LOGGER.warn("Property '{}' is ignored for custom configured KafkaProducer", PROP_POOL_SIZE);
+            }
+            producers = new ProducerPool(nextContext(), List.of(producer), sharding);
+            producerMetrics = createProducerMetrics(Map.of(), metricsCheckIntervalMs);
+            transactional = transactionalId.isPresent();
+            initTransactions();
             return;
         }
 
-        final Config config = ConfigProvider.getConfig();
-        producer = new KafkaProducer<>(getConfigSubset(config, PROP_PREFIX_PRODUCER));
+        final Map<String, Object> producerConfig = getConfigSubset(config, PROP_PREFIX_PRODUCER);
+        // The pool settings share the producer prefix but are not producer properties
+        producerConfig.remove(PROP_POOL_SIZE.substring(PROP_PREFIX_PRODUCER.length()));
+        producerConfig.remove(PROP_POOL_SHARDING.substring(PROP_PREFIX_PRODUCER.length()));
+        transactionalId.ifPresent(id -> producerConfig.put(ProducerConfig.TRANSACTIONAL_ID_CONFIG, id));
+        transactional = producerConfig.containsKey(ProducerConfig.TRANSACTIONAL_ID_CONFIG);
+        if (transactional && poolSize > 1) {
+            // A batch spanning several producers cannot be committed atomically
+            throw new DebeziumException("Property '" + PROP_POOL_SIZE + "' cannot be combined with transactional producer");
+        }
+        final Object clientId = producerConfig.get(ProducerConfig.CLIENT_ID_CONFIG);
+        producers = new ProducerPool(clientId != null ? clientId.toString() : nextContext(), createProducers(producerConfig, poolSize), sharding);
+        producerMetrics = createProducerMetrics(producerConfig, metricsCheckIntervalMs);
+        if (poolSize > 1) {
+            LOGGER.info("Using pool of {} producers sharded by {}", poolSize, sharding);
+        }
+        initTransactions();
         LOGGER.info("consumer started...");
     }
 
+    /**
+     * @return the MBean context of a sink instance without a configured {@code client.id}
+     */
+    private static String nextContext() {
+        return "kafka-" + INSTANCES.incrementAndGet();
+    }
+
+    private static List<Producer<Object, Object>> createProducers(Map<String, Object> producerConfig, int poolSize) {
+        final List<Producer<Object, Object>> pool = new ArrayList<>(poolSize);
+        final Object clientId = producerConfig.get(ProducerConfig.CLIENT_ID_CONFIG);
+        for (int i = 0; i < poolSize; i++) {
+            final Map<String, Object> config = new HashMap<>(producerConfig);
+            if (clientId != null && poolSize > 1) {
+                // Client ids must differ, otherwise the producers' JMX metrics clash
+                config.put(ProducerConfig.CLIENT_ID_CONFIG, clientId + "-" + i);
+            }
+            pool.add(new KafkaProducer<>(config));
+        }
+        return pool;
+    }
+
+    /**
+     * @param producerConfig The producer configuration used to read {@code batch.size} and {@code linger.ms}, the
+     *                       producer defaults are used for properties not present, e.g. for a custom producer.
+     */
+    private ProducerMetrics createProducerMetrics(Map<String, Object> producerConfig, long checkIntervalMs) {
+        final Map<String, Object> defaults = ProducerConfig.configDef().defaultValues();
+        final int batchSize = Integer.parseInt(String.valueOf(
+                producerConfig.getOrDefault(ProducerConfig.BATCH_SIZE_CONFIG, defaults.get(ProducerConfig.BATCH_SIZE_CONFIG))));
+        final long lingerMs = Long.parseLong(String.valueOf(
+                producerConfig.getOrDefault(ProducerConfig.LINGER_MS_CONFIG, defaults.get(ProducerConfig.LINGER_MS_CONFIG))));
+        return new ProducerMetrics(producers, batchSize, lingerMs, Clock.SYSTEM, checkIntervalMs);
+    }
+
+    private PartitionRouter createPartitionRouter(PartitionRouter.Mode mode, long refreshIntervalMs) {
+        if (mode != PartitionRouter.Mode.PRODUCER) {
+            LOGGER.info("Using '{}' partition routing", mode);
+        }
+        return new PartitionRouter(mode, topic -> producers.primary().partitionsFor(topic).size(), refreshIntervalMs, Clock.SYSTEM);
+    }
+
+    /**
+     * Registers the transactional id with the broker. Transactions left open by a previous instance with the same id
+     * are aborted and that instance is fenced off.
+     */
+    private void initTransactions() {
+        if (transactional) {
+            producers.primary().initTransactions();
+            LOGGER.info("Using transactional producer, every batch is sent in a single transaction");
+        }
+    }
+
     @PreDestroy
     void stop() {
         LOGGER.info("consumer destroyed...");
-        if (producer != null) {
-            try {
-                producer.close(Duration.ofSeconds(5));
-            }
-            catch (Throwable t) {
-                LOGGER.warn("Could not close producer", t);
-            }
+        if (producerMetrics != null) {
+            producerMetrics.close();
+        }
+        if (producers != null) {
+            producers.close();
         }
     }
 
@@ -88,36 +228,154 @@ void stop() {
     public void handleBatch(final List<ChangeEvent<Object, Object>> records,
                             final RecordCommitter<ChangeEvent<Object, Object>> committer)
             throws InterruptedException {
+        if (transactional) {
+            handleBatchInTransaction(records, committer);
+            return;
+        }
+
+        final AtomicReference<Exception> sendFailure = new AtomicReference<>();
+        final List<Future<RecordMetadata>> deliveries = enqueue(records, sendFailure);
+
+        // Acknowledgements are awaited in the batch order so the first failed record deterministically fails the batch
+        for (int i = 0; i < deliveries.size(); i++) {
+            awaitDelivery(deliveries.get(i));
+            committer.markProcessed(records.get(i));
+        }
+        if (deliveries.size() < records.size()) {
+            throw new DebeziumException("Failed to send record to Kafka", sendFailure.get());
+        }
+
+        committer.markBatchFinished();
+        producerMetrics.check();
+    }
+
+    /**
+     * Sends the whole batch in a single transaction. The records are marked as processed only after the transaction
+     * is committed so the offsets never get ahead of the data visible to read-committed consumers.
+     */
+    private void handleBatchInTransaction(List<ChangeEvent<Object, Object>> records, RecordCommitter<ChangeEvent<Object, Object>> committer)
+            throws InterruptedException {
+        try {
+            producers.primary().beginTransaction();
+
+            final AtomicReference<Exception> sendFailure = new AtomicReference<>();
+            final List<Future<RecordMetadata>> deliveries = enqueue(records, sendFailure);
+            for (Future<RecordMetadata> delivery : deliveries) {
+                awaitDelivery(delivery);
+            }
+            if (deliveries.size() < records.size()) {
+                throw new DebeziumException("Failed to send record to Kafka", sendFailure.get());
+            }
+
+            producers.primary().commitTransaction();
+        }
+        catch (InterruptedException e) {
+            abortTransaction();
+            throw e;
+        }
+        catch (RuntimeException e) {
+            final Throwable unrecoverable = unrecoverableCause(e);
+            if (unrecoverable != null) {
+                // The producer cannot be used anymore, e.g. because another instance with the same transactional id
+                // started, so the transaction cannot be aborted either
+                closeProducer();
+                throw new DebeziumException("Kafka producer is in an unrecoverable state, the transaction cannot be completed", unrecoverable);
+            }
+            abortTransaction();
+            throw (e instanceof DebeziumException) ? e : new DebeziumException(e);
+        }
+
+        for (ChangeEvent<Object, Object> record : records) {
+            committer.markProcessed(record);
+        }
+        committer.markBatchFinished();
+        producerMetrics.check();
+    }
+
+    /**
+     * @return the failure that leaves the producer unusable, searched in the cause chain as the send failures are
+     *         reported wrapped; {@code null} if the transaction can be aborted
+     */
+    private static Throwable unrecoverableCause(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ProducerFencedException || cause instanceof OutOfOrderSequenceException || cause instanceof AuthorizationException) {
+                return cause;
+            }
+        }
+        return null;
+    }
+
+    private void closeProducer() {
+        try {
+            producers.primary().close(Duration.ZERO);
+        }
+        catch (RuntimeException e) {
+            LOGGER.warn("Failed to close Kafka producer", e);
+        }
+    }
+
+    private void abortTransaction() {
+        try {
+            producers.primary().abortTransaction();
+        }
+        catch (RuntimeException e) {
+            LOGGER.warn("Failed to abort Kafka transaction", e);
+        }
+    }
+
+    /**
+     * Enqueues the records so the producer can batch them according to {@code linger.ms} and {@code batch.size}.
+     * Stops at the first failure reported by the producer as the batch is going to fail anyway.
+     */
+    private List<Future<RecordMetadata>> enqueue(List<ChangeEvent<Object, Object>> records, AtomicReference<Exception> sendFailure) {
+        final List<Future<RecordMetadata>> deliveries = new ArrayList<>(records.size());
         for (ChangeEvent<Object, Object> record : records) {
+            if (sendFailure.get() != null) {
+                break;
+            }
+            LOGGER.trace("Received event '{}'", record);
             try {
-                LOGGER.trace("Received event '{}'", record);
-                Headers headers = convertKafkaHeaders(record);
-
-                String topicName = streamNameMapper.map(record.destination());
-                Future<RecordMetadata> recordMetadataFuture = producer.send(new ProducerRecord<>(topicName, null, null, record.key(), record.value(), headers),
-                        (metadata, exception) -> {
-                            if (exception != null) {
-                                LOGGER.error("Failed to send record to {}:", topicName, exception);
-                                throw new DebeziumException(exception);
-                            }
-                            else {
-                                LOGGER.trace("Sent message with offset: {}", metadata.offset());
-                            }
-                        });
-                if (waitMessageDeliveryTimeout == 0) {
-                    recordMetadataFuture.get();
-                }
-                else {
-                    recordMetadataFuture.get(waitMessageDeliveryTimeout, TimeUnit.MILLISECONDS);
-                }
-                committer.markProcessed(record);
+                deliveries.add(send(record, sendFailure));
             }
             catch (Exception e) {
                 throw new DebeziumException(e);
             }
         }
+        return deliveries;
+    }
 
-        committer.markBatchFinished();
+    private Future<RecordMetadata> send(ChangeEvent<Object, Object> record, AtomicReference<Exception> sendFailure) {
+        final Headers headers = convertKafkaHeaders(record);
+        final String topicName = streamName(record.destination());
+        final Integer partition = partitionRouter.partition(topicName, record);
+        return producers.producerFor(topicName, record.key()).send(new ProducerRecord<>(topicName, partition, null, record.key(), record.value(), headers),
+                (metadata, exception) -> {
+                    // Executed in the producer I/O thread, the failure is reported to the engine by awaitDelivery()
+                    if (exception != null) {
+                        LOGGER.error("Failed to send record to {}:", topicName, exception);
+                        sendFailure.compareAndSet(null, exception);
+                    }
+                    else {
+                        LOGGER.trace("Sent message with offset: {}", metadata.offset());
+                    }
+                });
+    }
+
+    private void awaitDelivery(Future<RecordMetadata> delivery) throws InterruptedException {
+        try {
+            if (waitMessageDeliveryTimeout == 0) {
+                delivery.get();
+            }
+            else {
+                delivery.get(waitMessageDeliveryTimeout, TimeUnit.MILLISECONDS);
+            }
+        }
+        catch (ExecutionException e) {
+            throw new DebeziumException(e.getCause());
+        }
+        catch (TimeoutException e) {
+            throw new DebeziumException(e);
+        }
     }
 
     private Headers convertKafkaHeaders(ChangeEvent<Object, Object> record) {
@@ -126,6 +384,7 @@ private Headers convertKafkaHeaders(ChangeEvent<Object, Object> record) {
         for (Header<Object> header : headers) {
             kafkaHeaders.add(header.getKey(), getBytes(header.getValue()));
         }
+        propagateTraceContext(record, (key, value) -> kafkaHeaders.add(key, value.getBytes(StandardCharsets.UTF_8)));
         return kafkaHeaders;
     }
 }
@@ -0,0 +1,137 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.kafka;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.ToIntFunction;
+
+import org.apache.kafka.common.utils.Utils;
+
+import io.debezium.DebeziumException;
+import io.debezium.engine.ChangeEvent;
+import io.debezium.util.Clock;
+
+/**
+ * Chooses the target partition of a record in the sink instead of leaving it to the producer partitioner.
+ *
+ * <ul>
+ * <li>{@code producer} - the partition is chosen by the producer partitioner, the default.</li>
+ * <li>{@code record} - the partition set on the record, e.g. by a transformation, is used when present,
+ * otherwise the partition is chosen as in the {@code key} mode.</li>
+ * <li>{@code key} - murmur2 hash of the key bytes, the same function as used by the default producer partitioner,
+ * records without a key are sent to a partition chosen once per topic.</li>
+ * </ul>
+ *
+ * Partition counts are read from the producer metadata once per topic and refreshed periodically so the lookup is
+ * not done for every record.
+ */
+class PartitionRouter {
+
+    enum Mode {
+        PRODUCER("producer"),
+        RECORD("record"),
+        KEY("key");
+
+        private final String value;
+
+        Mode(String value) {
+            this.value = value;
+        }
+
+        static Mode parse(String value) {
+            for (Mode mode : values()) {
+                if (mode.value.equalsIgnoreCase(value)) {
+                    return mode;
+                }
+            }
+            throw new DebeziumException("Unknown partition routing mode '" + value + "'");
+        }
+    }
+
+    private final Mode mode;
+    private final ToIntFunction<String> partitionCountLookup;
+    private final long refreshIntervalMs;
+    private final Clock clock;
+    private final Map<String, TopicPartitions> topics = new ConcurrentHashMap<>();
+
+    /**
+     * @param mode                  The routing mode.
+     * @param partitionCountLookup  Returns the number of partitions of a topic from the producer metadata.
+     * @param refreshIntervalMs     How long the partition count of a topic is cached.
+     * @param clock                 The clock used to expire the partition counts.
+     */
+    PartitionRouter(Mode mode, ToIntFunction<String> partitionCountLookup, long refreshIntervalMs, Clock clock) {
+        this.mode = mode;
+        this.partitionCountLookup = partitionCountLookup;
+        this.refreshIntervalMs = refreshIntervalMs;
+        this.clock = clock;
+    }
+
+    /**
+     * @return the partition the record is sent to, {@code null} if the producer partitioner should decide
+     */
+    Integer partition(String topic, ChangeEvent<Object, Object> record) {
+        if (mode == Mode.PRODUCER) {
+            return null;
+        }
+        if (mode == Mode.RECORD && record.partition() != null) {
+            return record.partition();
+        }
+
+        final Object key = record.key();
+        final byte[] keyBytes;
+        if (key == null) {
+            return topicPartitions(topic).stickyPartition;
+        }
+        else if (key instanceof byte[]) {
+            keyBytes = (byte[]) key;
+        }
+        else if (key instanceof String) {
+            keyBytes = ((String) key).getBytes(StandardCharsets.UTF_8);
+        }
+        else {
+            // The serialized form of other key types is known only to the producer
+            return null;
+        }
+        return Utils.toPositive(Utils.murmur2(keyBytes)) % topicPartitions(topic).count;
+    }
+
+    private TopicPartitions topicPartitions(String topic) {
+        final long now = clock.currentTimeInMillis();
+        TopicPartitions partitions = topics.get(topic);
+        if (partitions == null || now - partitions.fetchedAt >= refreshIntervalMs) {
+            final int count = partitionCountLookup.applyAsInt(topic);
+            if (count <= 0) {
+                throw new DebeziumException("No partitions available for topic '" + topic + "'");
+            }
+            // Keep the keyless records on the same partition unless the partition count changed
+            final int sticky = (partitions != null && partitions.count == count) ? partitions.stickyPartition
+                    : ThreadLocalRandom.current().nextInt(count);
+            partitions = new TopicPartitions(count, sticky, now);
+            topics.put(topic, partitions);
+        }
+        return partitions;
+    }
+
+    Mode mode() {
+        return mode;
+    }
+
+    private static final class TopicPartitions {
+        final int count;
+        final int stickyPartition;
+        final long fetchedAt;
+
+        TopicPartitions(int count, int stickyPartition, long fetchedAt) {
+            this.count = count;
+            this.stickyPartition = stickyPartition;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.kafka;
+
+import java.util.Map;
+
+import javax.management.ObjectName;
+
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.debezium.server.ServerMetrics;
+import io.debezium.util.Clock;
+
+/**
+ * Bridges the metrics of the Kafka producers into {@code debezium.server:type=kafka-producer-metrics,context=<context>},
+ * using the context of the producer pool, and periodically checks them for the two most common causes of poor
+ * throughput:
+ * <ul>
+ * <li>the accumulator buffer is exhausted so the sends block, {@code buffer.memory} is too small for the load</li>
+ * <li>batches are sent while mostly empty under a sustained load, {@code linger.ms} is too low</li>
+ * </ul>
+ */
+class ProducerMetrics implements ProducerMetricsMXBean, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProducerMetrics.class);
+
+    private static final String GROUP = "producer-metrics";
+
+    /**
+     * Batches filled below this ratio of {@code batch.size} are considered tiny.
+     */
+    static final double TINY_BATCH_RATIO = 0.1;
+
+    /**
+     * Tiny batches are expected when the load is low, they are reported only above this send rate.
+     */
+    static final double SUSTAINED_SEND_RATE = 1000;
+
+    private final ProducerPool producers;
+    private final int batchSize;
+    private final long lingerMs;
+    private final Clock clock;
+    private final long checkIntervalMs;
+    private final ObjectName name;
+
+    private long lastCheck;
+    private double lastBufferExhausted;
+
+    /**
+     * @param producers       The producers whose metrics are bridged.
+     * @param batchSize       The configured {@code batch.size}.
+     * @param lingerMs        The configured {@code linger.ms}.
+     * @param clock           The clock used to throttle the checks.
+     * @param checkIntervalMs How often the tuning signals are checked.
+     */
+    ProducerMetrics(ProducerPool producers, int batchSize, long lingerMs, Clock clock, long checkIntervalMs) {
+        this.producers = producers;
+        this.batchSize = batchSize;
+        this.lingerMs = lingerMs;
+        this.clock = clock;
+        this.checkIntervalMs = checkIntervalMs;
+        this.lastCheck = clock.currentTimeInMillis();
+        this.name = ServerMetrics.register("kafka-producer-metrics", producers.context(), this);
+    }
+
+    /**
+     * Logs a warning when the metrics indicate a misconfigured producer. Cheap enough to be called after every batch
+     * as the metrics are read at most once per check interval.
+     *
+     * @return {@code true} if a warning was raised
+     */
+    boolean check() {
+        final long now = clock.currentTimeInMillis();
+        if (now - lastCheck < checkIntervalMs) {
+            return false;
+        }
+        lastCheck = now;
+
+        boolean warned = false;
+        final double bufferExhausted = getBufferExhaustedTotal();
+        if (bufferExhausted > lastBufferExhausted) {
+            LOGGER.warn("Kafka producer buffer was exhausted {} times in the last {} ms, sends were blocked; "
+                    + "consider increasing 'buffer.memory' (available {} of {} bytes)",
+                    (long) (bufferExhausted - lastBufferExhausted), checkIntervalMs, (long) getBufferAvailableBytes(), (long) getBufferTotalBytes());
+            warned = true;
+        }
+        lastBufferExhausted = bufferExhausted;
+
+        final double fillRatio = getBatchFillRatio();
+        if (fillRatio > 0 && fillRatio < TINY_BATCH_RATIO && getRecordSendRate() > SUSTAINED_SEND_RATE) {
+            LOGGER.warn("Kafka producer batches are on average {} bytes, {}% of 'batch.size' at {} records/s; "
+                    + "consider increasing 'linger.ms' (currently {} ms)",
+                    (long) getBatchSizeAvg(), Math.round(fillRatio * 100), Math.round(getRecordSendRate()), lingerMs);
+            warned = true;
+        }
+        return warned;
+    }
+
+    private double average(String metric) {
+        double sum = 0;
+        int count = 0;
+        for (Producer<Object, Object> producer : producers.producers()) {
+            final double value = value(producer, metric);
+            if (!Double.isNaN(value)) {
+                sum += value;
+                count++;
+            }
+        }
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
+    private double max(String metric) {
+        double max = Double.NaN;
+        for (Producer<Object, Object> producer : producers.producers()) {
+            final double value = value(producer, metric);
+            if (!Double.isNaN(value) && (Double.isNaN(max) || value > max)) {
+                max = value;
+            }
+        }
+        return max;
+    }
+
+    private double sum(String metric) {
+        double sum = 0;
+        for (Producer<Object, Object> producer : producers.producers()) {
+            final double value = value(producer, metric);
+            if (!Double.isNaN(value)) {
+                sum += value;
+            }
+        }
+        return sum;
+    }
+
+    private static double value(Producer<Object, Object> producer, String metric) {
+        for (Map.Entry<MetricName, ? extends Metric> entry : producer.metrics().entrySet()) {
+            final MetricName metricName = entry.getKey();
+            if (GROUP.equals(metricName.group()) && metric.equals(metricName.name())) {
+                final Object value = entry.getValue().metricValue();
+                return (value instanceof Number) ? ((Number) value).doubleValue() : Double.NaN;
+            }
+        }
+        return Double.NaN;
+    }
+
+    @Override
+    public void close() {
+        ServerMetrics.unregister(name);
+    }
+
+    @Override
+    public double getRecordQueueTimeAvgMs() {
+        return average("record-queue-time-avg");
+    }
+
+    @Override
+    public double getRecordQueueTimeMaxMs() {
+        return max("record-queue-time-max");
+    }
+
+    @Override
+    public double getRequestLatencyAvgMs() {
+        return average("request-latency-avg");
+    }
+
+    @Override
+    public double getBatchSizeAvg() {
+        return average("batch-size-avg");
+    }
+
+    @Override
+    public double getCompressionRateAvg() {
+        return average("compression-rate-avg");
+    }
+
+    @Override
+    public double getRecordSendRate() {
+        return sum("record-send-rate");
+    }
+
+    @Override
+    public double getBufferAvailableBytes() {
+        return sum("buffer-available-bytes");
+    }
+
+    @Override
+    public double getBufferTotalBytes() {
+        return sum("buffer-total-bytes");
+    }
+
+    @Override
+    public double getBufferExhaustedTotal() {
+        return sum("buffer-exhausted-total");
+    }
+
+    @Override
+    public double getBatchFillRatio() {
+        final double batchSizeAvg = getBatchSizeAvg();
+        if (Double.isNaN(batchSizeAvg) || batchSize <= 0) {
+            return Double.NaN;
+        }
+        return batchSizeAvg / batchSize;
+    }
+}
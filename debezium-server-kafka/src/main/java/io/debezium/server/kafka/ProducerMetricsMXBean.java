@@ -0,0 +1,39 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.kafka;
+
+/**
+ * The key metrics of the Kafka producers used by the sink and the tuning signals derived from them. When the sink
+ * uses a pool of producers the byte counts are summed and the other values averaged across the pool.
+ */
+public interface ProducerMetricsMXBean {
+
+    double getRecordQueueTimeAvgMs();
+
+    double getRecordQueueTimeMaxMs();
+
+    double getRequestLatencyAvgMs();
+
+    double getBatchSizeAvg();
+
+    double getCompressionRateAvg();
+
+    double getRecordSendRate();
+
+    double getBufferAvailableBytes();
+
+    double getBufferTotalBytes();
+
+    /**
+     * @return number of times a send was blocked because the accumulator buffer was full
+     */
+    double getBufferExhaustedTotal();
+
+    /**
+     * @return average batch size as a fraction of {@code batch.size}
+     */
+    double getBatchFillRatio();
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.kafka;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.ObjectName;
+
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.common.utils.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.debezium.DebeziumException;
+import io.debezium.server.ServerMetrics;
+
+/**
+ * A fixed set of producers, each with its own accumulator and sender thread, the records are sharded across them
+ * either by topic or by key. A given topic, resp. key, is always sent by the same producer so the per-key ordering
+ * is preserved. Exposed as {@code debezium.server:type=kafka-producer-pool,context=<context>}, the context identifies
+ * the sink instance so several Kafka sinks, e.g. the dead-letter sink store, do not replace each other's registration.
+ */
+class ProducerPool implements ProducerPoolMXBean, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProducerPool.class);
+
+    enum Sharding {
+        TOPIC("topic"),
+        KEY("key");
+
+        private final String value;
+
+        Sharding(String value) {
+            this.value = value;
+        }
+
+        static Sharding parse(String value) {
+            for (Sharding sharding : values()) {
+                if (sharding.value.equalsIgnoreCase(value)) {
+                    return sharding;
+                }
+            }
+            throw new DebeziumException("Unknown producer pool sharding '" + value + "'");
+        }
+    }
+
+    private final String context;
+    private final List<Producer<Object, Object>> producers;
+    private final Sharding sharding;
+    private final LongAdder[] recordsSent;
+    private final ObjectName name;
+
+    /**
+     * @param context   The context of the registered MBeans, unique per sink instance.
+     * @param producers The producers of the pool.
+     * @param sharding  How the records are sharded across the producers.
+     */
+    ProducerPool(String context, List<Producer<Object, Object>> producers, Sharding sharding) {
+        if (producers.isEmpty()) {
+            throw new DebeziumException("Producer pool must contain at least one producer");
+        }
+        this.context = context;
+        this.producers = List.copyOf(producers);
+        this.sharding = sharding;
+        this.recordsSent = new LongAdder[producers.size()];
+        for (int i = 0; i < recordsSent.length; i++) {
+            recordsSent[i] = new LongAdder();
+        }
+        this.name = ServerMetrics.register("kafka-producer-pool", context, this);
+    }
+
+    /**
+     * @return the producer that sends all records of the topic, or of the key when sharding by key
+     */
+    Producer<Object, Object> producerFor(String topic, Object key) {
+        final int index = shard(topic, key);
+        recordsSent[index].increment();
+        return producers.get(index);
+    }
+
+    private int shard(String topic, Object key) {
+        if (producers.size() == 1) {
+            return 0;
+        }
+        final int hash;
+        if (sharding == Sharding.KEY && key != null) {
+            hash = (key instanceof byte[]) ? Arrays.hashCode((byte[]) key) : key.hashCode();
+        }
+        else {
+            hash = topic.hashCode();
+        }
+        // Spread the hash as String and array hash codes of similar values differ mostly in the low bits
+        return Utils.toPositive(hash * 0x9E3779B9) % producers.size();
+    }
+
+    /**
+     * @return the producer used for the operations that are not bound to a topic, e.g. transactions or metadata
+     */
+    Producer<Object, Object> primary() {
+        return producers.get(0);
+    }
+
+    String context() {
+        return context;
+    }
+
+    List<Producer<Object, Object>> producers() {
+        return producers;
+    }
+
+    int size() {
+        return producers.size();
+    }
+
+    @Override
+    public void close() {
+        ServerMetrics.unregister(name);
+        for (Producer<Object, Object> producer : producers) {
+            try {
+                producer.close(Duration.ofSeconds(5));
+            }
+            catch (Throwable t) {
+                LOGGER.warn("Could not close producer", t);
+            }
+        }
+    }
+
+    @Override
+    public int getPoolSize() {
+        return producers.size();
+    }
+
+    @Override
+    public String getSharding() {
+        return sharding.value;
+    }
+
+    @Override
+    public long getRecordsSent() {
+        long total = 0;
+        for (LongAdder sent : recordsSent) {
+            total += sent.sum();
+        }
+        return total;
+    }
+
+    @Override
+    public long[] getRecordsSentPerProducer() {
+        final long[] sent = new long[recordsSent.length];
+        for (int i = 0; i < sent.length; i++) {
+            sent[i] = recordsSent[i].sum();
+        }
+        return sent;
+    }
+
+    @Override
+    public double getShardSkew() {
+        final long[] sent = getRecordsSentPerProducer();
+        final long total = Arrays.stream(sent).sum();
+        if (total == 0) {
+            return 1.0;
+        }
+        return Arrays.stream(sent).max().getAsLong() * sent.length / (double) total;
+    }
+}
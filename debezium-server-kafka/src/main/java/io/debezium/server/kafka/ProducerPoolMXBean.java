@@ -0,0 +1,28 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.kafka;
+
+/**
+ * Statistics of the producers used by the Kafka sink.
+ */
+public interface ProducerPoolMXBean {
+
+    int getPoolSize();
+
+    String getSharding();
+
+    long getRecordsSent();
+
+    /**
+     * @return number of records sent by each producer of the pool
+     */
+    long[] getRecordsSentPerProducer();
+
+    /**
+     * @return ratio of the records sent by the busiest producer to the average, {@code 1.0} for an even distribution
+     */
+    double getShardSkew();
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.errors.ProducerFencedException;
+import org.apache.kafka.common.serialization.Serializer;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.debezium.DebeziumException;
+import io.debezium.engine.ChangeEvent;
+import io.debezium.server.TestChangeEvent;
+import io.debezium.server.TestRecordCommitter;
+
+public class KafkaChangeConsumerTest {
+
+    private static final Serializer<Object> SERIALIZER = (topic, data) -> (data == null) ? null : data.toString().getBytes(StandardCharsets.UTF_8);
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static List<ChangeEvent<Object, Object>> records() {
+        return List.of(
+                new TestChangeEvent("k1", "v1", "a"),
+                new TestChangeEvent("k2", "v2", "b"),
+                new TestChangeEvent("k3", "v3", "a"));
+    }
+
+    @Test
+    public void shouldEnqueueWholeBatchBeforeWaiting() throws Exception {
+        final MockProducer<Object, Object> producer = new MockProducer<>(false, SERIALIZER, SERIALIZER);
+        final KafkaChangeConsumer consumer = new KafkaChangeConsumer(producer, 0, false);
+        final List<ChangeEvent<Object, Object>> records = records();
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        final Future<?> batch = executor.submit(() -> {
+            consumer.handleBatch(records, committer);
+            return null;
+        });
+
+        // All records are in flight at the same time
+        Awaitility.await().atMost(Duration.ofSeconds(10)).until(() -> producer.history().size() == 3);
+        assertThat(committer.getProcessed()).isEmpty();
+
+        producer.completeNext();
+        producer.completeNext();
+        producer.completeNext();
+        batch.get(10, TimeUnit.SECONDS);
+
+        assertThat(producer.history()).extracting(ProducerRecord::topic).containsExactly("a", "b", "a");
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+        assertThat(committer.isBatchFinished()).isTrue();
+    }
+
+    @Test
+    public void shouldFailBatchOnFirstFailedRecord() throws Exception {
+        final MockProducer<Object, Object> producer = new MockProducer<>(false, SERIALIZER, SERIALIZER);
+        final KafkaChangeConsumer consumer = new KafkaChangeConsumer(producer, 0, false);
+        final List<ChangeEvent<Object, Object>> records = records();
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        final Future<?> batch = executor.submit(() -> {
+            consumer.handleBatch(records, committer);
+            return null;
+        });
+
+        Awaitility.await().atMost(Duration.ofSeconds(10)).until(() -> producer.history().size() == 3);
+        producer.completeNext();
+        producer.errorNext(new IllegalStateException("Broker unavailable"));
+        producer.completeNext();
+
+        assertThatThrownBy(() -> batch.get(10, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(DebeziumException.class)
+                .hasRootCauseMessage("Broker unavailable");
+        assertThat(committer.getProcessed()).containsExactly(records.get(0));
+        assertThat(committer.isBatchFinished()).isFalse();
+    }
+
+    @Test
+    public void shouldCommitTransactionPerBatch() throws Exception {
+        final MockProducer<Object, Object> producer = new MockProducer<>(true, SERIALIZER, SERIALIZER);
+        final KafkaChangeConsumer consumer = new KafkaChangeConsumer(producer, 0, true);
+        final List<ChangeEvent<Object, Object>> records = records();
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        consumer.handleBatch(records, committer);
+
+        assertThat(producer.transactionInitialized()).isTrue();
+        assertThat(producer.transactionCommitted()).isTrue();
+        assertThat(producer.commitCount()).isEqualTo(1);
+        assertThat(producer.history()).hasSize(3);
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+        assertThat(committer.isBatchFinished()).isTrue();
+    }
+
+    @Test
+    public void shouldAbortTransactionOnFailure() {
+        final MockProducer<Object, Object> producer = new MockProducer<>(true, SERIALIZER, SERIALIZER);
+        final KafkaChangeConsumer consumer = new KafkaChangeConsumer(producer, 0, true);
+        final TestRecordCommitter committer = new TestRecordCommitter();
+        producer.commitTransactionException = new KafkaException("Transaction coordinator unavailable");
+
+        assertThatThrownBy(() -> consumer.handleBatch(records(), committer))
+                .isInstanceOf(DebeziumException.class)
+                .hasRootCauseMessage("Transaction coordinator unavailable");
+
+        assertThat(producer.transactionAborted()).isTrue();
+        assertThat(producer.history()).isEmpty();
+        assertThat(committer.getProcessed()).isEmpty();
+        assertThat(committer.isBatchFinished()).isFalse();
+    }
+
+    @Test
+    public void shouldFailWhenProducerIsFenced() {
+        final MockProducer<Object, Object> producer = new MockProducer<>(true, SERIALIZER, SERIALIZER);
+        final KafkaChangeConsumer consumer = new KafkaChangeConsumer(producer, 0, true);
+        final TestRecordCommitter committer = new TestRecordCommitter();
+        producer.fenceProducer();
+
+        assertThatThrownBy(() -> consumer.handleBatch(records(), committer))
+                .isInstanceOf(DebeziumException.class)
+                .hasCauseInstanceOf(ProducerFencedException.class);
+
+        assertThat(producer.history()).isEmpty();
+        assertThat(committer.getProcessed()).isEmpty();
+    }
+
+    @Test
+    public void shouldCloseProducerFencedWhileSending() {
+        final MockProducer<Object, Object> producer = new MockProducer<>(true, SERIALIZER, SERIALIZER);
+        final KafkaChangeConsumer consumer = new KafkaChangeConsumer(producer, 0, true);
+        final TestRecordCommitter committer = new TestRecordCommitter();
+        producer.sendException = new ProducerFencedException("Fenced by another instance");
+
+        assertThatThrownBy(() -> consumer.handleBatch(records(), committer))
+                .isInstanceOf(DebeziumException.class)
+                .hasCauseInstanceOf(ProducerFencedException.class);
+
+        // A fenced producer cannot abort the transaction
+        assertThat(producer.transactionAborted()).isFalse();
+        assertThat(producer.closed()).isTrue();
+        assertThat(committer.getProcessed()).isEmpty();
+    }
+
+    @Test
+    public void shouldSendToRecordPartition() throws Exception {
+        final MockProducer<Object, Object> producer = new MockProducer<>(true, SERIALIZER, SERIALIZER);
+        final KafkaChangeConsumer consumer = new KafkaChangeConsumer(producer, 0, PartitionRouter.Mode.RECORD);
+        final List<ChangeEvent<Object, Object>> records = List.of(
+                new TestChangeEvent("k1", "v1", "a", 2),
+                new TestChangeEvent("k2", "v2", "a", 0));
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        consumer.handleBatch(records, committer);
+
+        assertThat(producer.history()).extracting(ProducerRecord::partition).containsExactly(2, 0);
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+    }
+}
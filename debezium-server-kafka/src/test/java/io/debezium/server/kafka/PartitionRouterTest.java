@@ -0,0 +1,109 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.kafka.common.utils.Utils;
+import org.junit.jupiter.api.Test;
+
+import io.debezium.DebeziumException;
+import io.debezium.server.TestChangeEvent;
+import io.debezium.util.Clock;
+
+public class PartitionRouterTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final Clock clock = now::get;
+
+    @Test
+    public void shouldLeavePartitioningToProducerByDefault() {
+        final PartitionRouter router = new PartitionRouter(PartitionRouter.Mode.PRODUCER, topic -> 6, 1000, clock);
+
+        assertThat(router.partition("t", new TestChangeEvent("key", "value", "t", 3))).isNull();
+    }
+
+    @Test
+    public void shouldHonourRecordPartition() {
+        final PartitionRouter router = new PartitionRouter(PartitionRouter.Mode.RECORD, topic -> 6, 1000, clock);
+
+        assertThat(router.partition("t", new TestChangeEvent("key", "value", "t", 3))).isEqualTo(3);
+        assertThat(router.partition("t", new TestChangeEvent("key", "value", "t"))).isEqualTo(expectedPartition("key", 6));
+    }
+
+    @Test
+    public void shouldHashKeyLikeProducerPartitioner() {
+        final PartitionRouter router = new PartitionRouter(PartitionRouter.Mode.KEY, topic -> 6, 1000, clock);
+
+        for (int i = 0; i < 100; i++) {
+            final String key = "key-" + i;
+            assertThat(router.partition("t", new TestChangeEvent(key, "value", "t", 5))).isEqualTo(expectedPartition(key, 6));
+            assertThat(router.partition("t", new TestChangeEvent(key.getBytes(StandardCharsets.UTF_8), "value", "t")))
+                    .isEqualTo(expectedPartition(key, 6));
+        }
+        assertThat(router.partition("t", new TestChangeEvent(42, "value", "t"))).isNull();
+    }
+
+    @Test
+    public void shouldKeepKeylessRecordsOnSamePartition() {
+        final PartitionRouter router = new PartitionRouter(PartitionRouter.Mode.KEY, topic -> 6, 1000, clock);
+
+        final Integer partition = router.partition("t", new TestChangeEvent(null, "value", "t"));
+        assertThat(partition).isBetween(0, 5);
+        for (int i = 0; i < 10; i++) {
+            now.addAndGet(500);
+            assertThat(router.partition("t", new TestChangeEvent(null, "value", "t"))).isEqualTo(partition);
+        }
+    }
+
+    @Test
+    public void shouldCacheAndRefreshPartitionCount() {
+        final AtomicInteger lookups = new AtomicInteger();
+        final AtomicInteger count = new AtomicInteger(4);
+        final PartitionRouter router = new PartitionRouter(PartitionRouter.Mode.KEY, topic -> {
+            lookups.incrementAndGet();
+            return count.get();
+        }, 1000, clock);
+
+        router.partition("t", new TestChangeEvent("key", "value", "t"));
+        router.partition("t", new TestChangeEvent("key", "value", "t"));
+        now.addAndGet(999);
+        count.set(8);
+        assertThat(router.partition("t", new TestChangeEvent("key", "value", "t"))).isEqualTo(expectedPartition("key", 4));
+        assertThat(lookups.get()).isEqualTo(1);
+
+        now.addAndGet(1);
+        assertThat(router.partition("t", new TestChangeEvent("key", "value", "t"))).isEqualTo(expectedPartition("key", 8));
+        assertThat(lookups.get()).isEqualTo(2);
+
+        router.partition("other", new TestChangeEvent("key", "value", "other"));
+        assertThat(lookups.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldFailForTopicWithoutPartitions() {
+        final PartitionRouter router = new PartitionRouter(PartitionRouter.Mode.KEY, topic -> 0, 1000, clock);
+
+        assertThatThrownBy(() -> router.partition("t", new TestChangeEvent("key", "value", "t")))
+                .isInstanceOf(DebeziumException.class)
+                .hasMessageContaining("'t'");
+    }
+
+    @Test
+    public void shouldRejectUnknownMode() {
+        assertThat(PartitionRouter.Mode.parse("Key")).isEqualTo(PartitionRouter.Mode.KEY);
+        assertThatThrownBy(() -> PartitionRouter.Mode.parse("round-robin")).isInstanceOf(DebeziumException.class);
+    }
+
+    private static int expectedPartition(String key, int partitions) {
+        return Utils.toPositive(Utils.murmur2(key.getBytes(StandardCharsets.UTF_8))) % partitions;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.metrics.Metrics;
+import org.apache.kafka.common.serialization.Serializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.debezium.server.ServerMetrics;
+import io.debezium.util.Clock;
+
+public class ProducerMetricsTest {
+
+    private static final Serializer<Object> SERIALIZER = (topic, data) -> (data == null) ? null : data.toString().getBytes(StandardCharsets.UTF_8);
+
+    private final Metrics registry = new Metrics();
+    private final AtomicLong now = new AtomicLong();
+    private final Clock clock = now::get;
+
+    @AfterEach
+    public void tearDown() {
+        registry.close();
+    }
+
+    private void setMetric(MockProducer<Object, Object> producer, String name, double value) {
+        final MetricName metricName = registry.metricName(name, "producer-metrics", Map.of("client-id", "producer-" + System.identityHashCode(producer)));
+        registry.removeMetric(metricName);
+        registry.addMetric(metricName, (config, time) -> value);
+        producer.setMockMetrics(metricName, registry.metric(metricName));
+    }
+
+    private ProducerPool pool(List<MockProducer<Object, Object>> mocks) {
+        final List<Producer<Object, Object>> producers = new ArrayList<>(mocks);
+        return new ProducerPool("test", producers, ProducerPool.Sharding.TOPIC);
+    }
+
+    @Test
+    public void shouldAggregateMetricsAcrossPool() {
+        final MockProducer<Object, Object> first = new MockProducer<>(true, SERIALIZER, SERIALIZER);
+        final MockProducer<Object, Object> second = new MockProducer<>(true, SERIALIZER, SERIALIZER);
+        setMetric(first, "record-queue-time-avg", 10);
+        setMetric(second, "record-queue-time-avg", 30);
+        setMetric(first, "record-queue-time-max", 250);
+        setMetric(second, "record-queue-time-max", 40);
+        setMetric(first, "buffer-available-bytes", 1000);
+        setMetric(second, "buffer-available-bytes", 500);
+        setMetric(first, "batch-size-avg", 8192);
+        setMetric(second, "batch-size-avg", 8192);
+        setMetric(first, "compression-rate-avg", 0.5);
+
+        final ProducerPool pool = pool(List.of(first, second));
+        final ProducerMetrics metrics = new ProducerMetrics(pool, 16384, 5, clock, 1000);
+
+        assertThat(metrics.getRecordQueueTimeAvgMs()).isEqualTo(20.0);
+        assertThat(metrics.getRecordQueueTimeMaxMs()).isEqualTo(250.0);
+        assertThat(metrics.getBufferAvailableBytes()).isEqualTo(1500.0);
+        assertThat(metrics.getBatchFillRatio()).isCloseTo(0.5, within(0.001));
+        assertThat(metrics.getCompressionRateAvg()).isEqualTo(0.5);
+        assertThat(metrics.getRequestLatencyAvgMs()).isNaN();
+        assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(ServerMetrics.objectName("kafka-producer-metrics", "test"))).isTrue();
+        metrics.close();
+        pool.close();
+    }
+
+    @Test
+    public void shouldWarnWhenBufferIsExhausted() {
+        final MockProducer<Object, Object> producer = new MockProducer<>(true, SERIALIZER, SERIALIZER);
+        setMetric(producer, "buffer-exhausted-total", 0);
+        final ProducerPool pool = pool(List.of(producer));
+        final ProducerMetrics metrics = new ProducerMetrics(pool, 16384, 5, clock, 1000);
+
+        setMetric(producer, "buffer-exhausted-total", 3);
+        // Checks are throttled to the interval
+        assertThat(metrics.check()).isFalse();
+        now.addAndGet(1000);
+        assertThat(metrics.check()).isTrue();
+
+        // Only new exhaustions are reported
+        now.addAndGet(1000);
+        assertThat(metrics.check()).isFalse();
+        metrics.close();
+        pool.close();
+    }
+
+    @Test
+    public void shouldWarnAboutTinyBatchesOnlyUnderLoad() {
+        final MockProducer<Object, Object> producer = new MockProducer<>(true, SERIALIZER, SERIALIZER);
+        setMetric(producer, "batch-size-avg", 200);
+        setMetric(producer, "record-send-rate", 10);
+        final ProducerPool pool = pool(List.of(producer));
+        final ProducerMetrics metrics = new ProducerMetrics(pool, 16384, 0, clock, 1000);
+
+        now.addAndGet(1000);
+        assertThat(metrics.check()).isFalse();
+
+        setMetric(producer, "record-send-rate", 5000);
+        now.addAndGet(1000);
+        assertThat(metrics.check()).isTrue();
+
+        setMetric(producer, "batch-size-avg", 12000);
+        now.addAndGet(1000);
+        assertThat(metrics.check()).isFalse();
+        metrics.close();
+        pool.close();
+    }
+}
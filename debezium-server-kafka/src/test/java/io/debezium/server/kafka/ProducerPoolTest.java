@@ -0,0 +1,127 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import javax.management.MBeanServer;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.junit.jupiter.api.Test;
+
+import io.debezium.DebeziumException;
+import io.debezium.engine.ChangeEvent;
+import io.debezium.server.ServerMetrics;
+import io.debezium.server.TestChangeEvent;
+import io.debezium.server.TestRecordCommitter;
+
+public class ProducerPoolTest {
+
+    private static final Serializer<Object> SERIALIZER = (topic, data) -> (data == null) ? null : data.toString().getBytes(StandardCharsets.UTF_8);
+
+    private static List<MockProducer<Object, Object>> mockProducers(int count) {
+        final List<MockProducer<Object, Object>> producers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            producers.add(new MockProducer<>(true, SERIALIZER, SERIALIZER));
+        }
+        return producers;
+    }
+
+    @Test
+    public void shouldSendSameKeyThroughSameProducer() {
+        final List<MockProducer<Object, Object>> mocks = mockProducers(4);
+        final ProducerPool pool = new ProducerPool("test", new ArrayList<>(mocks), ProducerPool.Sharding.KEY);
+
+        for (int i = 0; i < 100; i++) {
+            final String key = "key-" + (i % 10);
+            assertThat(pool.producerFor("topic-" + i, key)).isSameAs(pool.producerFor("other", key));
+            assertThat(pool.producerFor("t", key.getBytes(StandardCharsets.UTF_8)))
+                    .isSameAs(pool.producerFor("u", key.getBytes(StandardCharsets.UTF_8)));
+        }
+        // Keyless records are sharded by topic
+        assertThat(pool.producerFor("t", null)).isSameAs(pool.producerFor("t", null));
+        pool.close();
+    }
+
+    @Test
+    public void shouldSendSameTopicThroughSameProducer() {
+        final ProducerPool pool = new ProducerPool("test", new ArrayList<>(mockProducers(4)), ProducerPool.Sharding.TOPIC);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(pool.producerFor("topic-" + (i % 10), "key-" + i)).isSameAs(pool.producerFor("topic-" + (i % 10), "x"));
+        }
+        pool.close();
+    }
+
+    @Test
+    public void shouldSpreadTopicsAcrossProducers() {
+        final ProducerPool pool = new ProducerPool("test", new ArrayList<>(mockProducers(4)), ProducerPool.Sharding.TOPIC);
+
+        for (int i = 0; i < 400; i++) {
+            pool.producerFor("server.inventory.table" + i, null);
+        }
+
+        assertThat(pool.getRecordsSent()).isEqualTo(400);
+        assertThat(pool.getRecordsSentPerProducer()).hasSize(4);
+        assertThat(LongStream.of(pool.getRecordsSentPerProducer()).min().getAsLong()).isGreaterThan(0);
+        assertThat(pool.getShardSkew()).isGreaterThanOrEqualTo(1.0).isLessThan(2.0);
+        pool.close();
+    }
+
+    @Test
+    public void shouldMarkRecordsInBatchOrderAcrossProducers() throws Exception {
+        final List<MockProducer<Object, Object>> mocks = mockProducers(3);
+        final List<Producer<Object, Object>> producers = new ArrayList<>(mocks);
+        final KafkaChangeConsumer consumer = new KafkaChangeConsumer(producers, 0, ProducerPool.Sharding.KEY);
+        final List<ChangeEvent<Object, Object>> records = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            records.add(new TestChangeEvent("key-" + (i % 7), "v" + i, "t"));
+        }
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        consumer.handleBatch(records, committer);
+
+        assertThat(mocks.stream().mapToInt(p -> p.history().size()).sum()).isEqualTo(30);
+        for (MockProducer<Object, Object> mock : mocks) {
+            // Every key is sent by exactly one producer
+            mock.history().forEach(r -> mocks.stream().filter(other -> other != mock)
+                    .forEach(other -> assertThat(other.history()).noneMatch(o -> o.key().equals(r.key()))));
+        }
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+        assertThat(committer.isBatchFinished()).isTrue();
+        consumer.stop();
+        assertThat(mocks).allMatch(MockProducer::closed);
+    }
+
+    @Test
+    public void shouldRegisterEachPoolUnderItsOwnContext() {
+        final ProducerPool first = new ProducerPool("first", new ArrayList<>(mockProducers(1)), ProducerPool.Sharding.TOPIC);
+        final ProducerPool second = new ProducerPool("second", new ArrayList<>(mockProducers(1)), ProducerPool.Sharding.TOPIC);
+        final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+
+        first.close();
+
+        assertThat(mbeanServer.isRegistered(ServerMetrics.objectName("kafka-producer-pool", "first"))).isFalse();
+        assertThat(mbeanServer.isRegistered(ServerMetrics.objectName("kafka-producer-pool", "second"))).isTrue();
+        second.close();
+    }
+
+    @Test
+    public void shouldRejectUnknownSharding() {
+        assertThat(ProducerPool.Sharding.parse("Key")).isEqualTo(ProducerPool.Sharding.KEY);
+        assertThatThrownBy(() -> ProducerPool.Sharding.parse("partition")).isInstanceOf(DebeziumException.class);
+        assertThatThrownBy(() -> new ProducerPool("test", List.of(), ProducerPool.Sharding.TOPIC)).isInstanceOf(DebeziumException.class);
+    }
+}
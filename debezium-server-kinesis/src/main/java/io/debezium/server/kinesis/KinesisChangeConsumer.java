@@ -6,9 +6,23 @@
 package io.debezium.server.kinesis;
 
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
@@ -24,21 +38,38 @@
 import org.slf4j.LoggerFactory;
 
 import io.debezium.DebeziumException;
+import io.debezium.annotation.VisibleForTesting;
 import io.debezium.engine.ChangeEvent;
 import io.debezium.engine.DebeziumEngine;
 import io.debezium.engine.DebeziumEngine.RecordCommitter;
 import io.debezium.server.BaseChangeConsumer;
 import io.debezium.server.CustomConsumerBuilder;
+import io.debezium.server.DestinationRun;
+import io.debezium.server.deadletter.DeadLetterQueue;
+import io.debezium.server.encoding.EncodingCache;
+import io.debezium.server.retry.ErrorKind;
+import io.debezium.server.retry.RetryExecutor;
+import io.debezium.server.retry.RetryPolicy;
+import io.debezium.server.retry.SendResult;
 import io.debezium.util.Clock;
 import io.debezium.util.Metronome;
+import io.debezium.util.Threads;
 
 import software.amazon.awssdk.auth.credentials.ProfileCredentialsProvider;
+import software.amazon.awssdk.awscore.client.builder.AwsClientBuilder;
 import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.core.exception.SdkServiceException;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.kinesis.KinesisAsyncClient;
 import software.amazon.awssdk.services.kinesis.KinesisClient;
-import software.amazon.awssdk.services.kinesis.KinesisClientBuilder;
+import software.amazon.awssdk.services.kinesis.model.InvalidArgumentException;
 import software.amazon.awssdk.services.kinesis.model.KinesisException;
-import software.amazon.awssdk.services.kinesis.model.PutRecordRequest;
+import software.amazon.awssdk.services.kinesis.model.LimitExceededException;
+import software.amazon.awssdk.services.kinesis.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.kinesis.model.PutRecordsRequest;
+import software.amazon.awssdk.services.kinesis.model.PutRecordsRequestEntry;
+import software.amazon.awssdk.services.kinesis.model.PutRecordsResponse;
+import software.amazon.awssdk.services.kinesis.model.PutRecordsResultEntry;
 
 /**
  * Implementation of the consumer that delivers the messages into Amazon Kinesis destination.
@@ -56,47 +87,185 @@ public class KinesisChangeConsumer extends BaseChangeConsumer implements Debeziu
     private static final String PROP_REGION_NAME = PROP_PREFIX + "region";
     private static final String PROP_ENDPOINT_NAME = PROP_PREFIX + "endpoint";
     private static final String PROP_CREDENTIALS_PROFILE = PROP_PREFIX + "credentials.profile";
+    private static final String PROP_AGGREGATION_ENABLED = PROP_PREFIX + "aggregation.enabled";
+    private static final String PROP_AGGREGATION_MAX_SIZE = PROP_PREFIX + "aggregation.max.size";
+    private static final String PROP_SHARD_MAP_REFRESH = PROP_PREFIX + "shard.map.refresh.ms";
+    private static final int DEFAULT_AGGREGATION_MAX_SIZE = 50 * 1024;
+    private static final long DEFAULT_SHARD_MAP_REFRESH_MS = 60_000;
+    private static final String PROP_ASYNC_ENABLED = PROP_PREFIX + "async.enabled";
+    private static final String PROP_ASYNC_MAX_CONCURRENT_REQUESTS = PROP_PREFIX + "async.max.concurrent.requests";
+    private static final String PROP_ASYNC_MAX_IN_FLIGHT_PER_SHARD = PROP_PREFIX + "async.max.in.flight.per.shard";
+    private static final String PROP_SHARD_RECORDS_PER_SECOND = PROP_PREFIX + "shard.records.per.second";
+    private static final String PROP_SHARD_BYTES_PER_SECOND = PROP_PREFIX + "shard.bytes.per.second";
+    private static final int DEFAULT_ASYNC_MAX_CONCURRENT_REQUESTS = 64;
+    // Write quota of a shard
+    private static final int DEFAULT_SHARD_RECORDS_PER_SECOND = 1000;
+    private static final int DEFAULT_SHARD_BYTES_PER_SECOND = 1024 * 1024;
+    private static final String PROP_PARTITION_KEY_FIELD = PROP_PREFIX + "partition.key.field";
+    private static final String PROP_PARTITION_KEY_OVERFLOW = PROP_PREFIX + "partition.key.overflow";
+    private static final String PROP_THROTTLING_BACKOFF_BASE = PROP_PREFIX + "throttling.backoff.base.ms";
+    private static final String PROP_THROTTLING_BACKOFF_MAX = PROP_PREFIX + "throttling.backoff.max.ms";
+    private static final String PROP_THROTTLING_RATE_DECREASE = PROP_PREFIX + "throttling.rate.decrease.factor";
+    private static final String PROP_THROTTLING_RATE_INCREASE = PROP_PREFIX + "throttling.rate.increase";
+    private static final String PROP_THROTTLING_MIN_RATE = PROP_PREFIX + "throttling.min.rate";
+    private static final long DEFAULT_THROTTLING_BACKOFF_BASE_MS = 100;
+    private static final long DEFAULT_THROTTLING_BACKOFF_MAX_MS = 5_000;
+    private static final double DEFAULT_THROTTLING_RATE_DECREASE = 0.5;
+    private static final double DEFAULT_THROTTLING_RATE_INCREASE = 50;
+    private static final double DEFAULT_THROTTLING_MIN_RATE = 10;
 
     private String region;
     private Optional<String> endpointOverride;
     private Optional<String> credentialsProfile;
-    private static final int DEFAULT_RETRIES = 5;
-    private static final Duration RETRY_INTERVAL = Duration.ofSeconds(1);
+    // Maximum size of the data blob plus the partition key
+    private static final int MAX_RECORD_SIZE = 1024 * 1024;
+    // Limits of a single PutRecords request
+    private static final int MAX_RECORDS_PER_REQUEST = 500;
+    private static final int MAX_REQUEST_SIZE = 5 * 1024 * 1024;
+    private static final String PROVISIONED_THROUGHPUT_EXCEEDED = "ProvisionedThroughputExceededException";
+    // Leaves room for the partition key of up to 256 characters
+    private static final int MAX_AGGREGATION_SIZE = MAX_RECORD_SIZE - 1024;
 
     @ConfigProperty(name = PROP_PREFIX + "null.key", defaultValue = "default")
     String nullKey;
 
     private KinesisClient client = null;
+    private KinesisAsyncClient asyncClient = null;
+    private RetryExecutor retryExecutor;
+    private EncodingCache<SdkBytes> encodingCache;
+    private ThrottlingController throttling;
+    private PartitionKeyExtractor partitionKeyExtractor;
+    // Set only when aggregation or the asynchronous client is enabled
+    private ShardMap shardMap;
+    // Zero when aggregation is disabled
+    private int aggregationMaxSize;
+    // Set only when the asynchronous client is enabled
+    private ShardLimiter shardLimiter;
+    private ExecutorService sendExecutor;
 
     @Inject
     @CustomConsumerBuilder
     Instance<KinesisClient> customClient;
 
+    @Inject
+    @CustomConsumerBuilder
+    Instance<KinesisAsyncClient> customAsyncClient;
+
+    public KinesisChangeConsumer() {
+    }
+
+    @VisibleForTesting
+    KinesisChangeConsumer(KinesisClient client, RetryPolicy retryPolicy) {
+        this.client = client;
+        this.nullKey = "default";
+        this.partitionKeyExtractor = new PartitionKeyExtractor(null, PartitionKeyExtractor.Overflow.HASH);
+        this.retryExecutor = new RetryExecutor("kinesis", retryPolicy, KinesisChangeConsumer::classify);
+        this.encodingCache = createEncodingCache("kinesis", this::wrap);
+        this.throttling = new ThrottlingController(DEFAULT_THROTTLING_BACKOFF_BASE_MS, DEFAULT_THROTTLING_BACKOFF_MAX_MS,
+                DEFAULT_THROTTLING_RATE_DECREASE, DEFAULT_THROTTLING_RATE_INCREASE, DEFAULT_THROTTLING_MIN_RATE, Clock.SYSTEM, new Random());
+    }
+
+    @VisibleForTesting
+    KinesisChangeConsumer(KinesisClient client, RetryPolicy retryPolicy, int aggregationMaxSize) {
+        this(client, retryPolicy);
+        this.shardMap = new ShardMap(client::listShards, DEFAULT_SHARD_MAP_REFRESH_MS);
+        this.aggregationMaxSize = aggregationMaxSize;
+    }
+
+    @VisibleForTesting
+    KinesisChangeConsumer(KinesisAsyncClient asyncClient, RetryPolicy retryPolicy, int maxInFlightPerShard, int maxConcurrentRequests) {
+        this((KinesisClient) null, retryPolicy);
+        initAsync(asyncClient, DEFAULT_SHARD_MAP_REFRESH_MS, maxInFlightPerShard, maxConcurrentRequests,
+                DEFAULT_SHARD_RECORDS_PER_SECOND, DEFAULT_SHARD_BYTES_PER_SECOND);
+    }
+
     @PostConstruct
     void connect() {
-        if (customClient.isResolvable()) {
+        final Config config = ConfigProvider.getConfig();
+        retryExecutor = new RetryExecutor("kinesis", RetryPolicy.fromConfig(config, PROP_PREFIX), KinesisChangeConsumer::classify);
+        encodingCache = createEncodingCache("kinesis", this::wrap);
+        partitionKeyExtractor = new PartitionKeyExtractor(config.getOptionalValue(PROP_PARTITION_KEY_FIELD, String.class).orElse(null),
+                PartitionKeyExtractor.Overflow.parse(config.getOptionalValue(PROP_PARTITION_KEY_OVERFLOW, String.class).orElse("hash")));
+        throttling = new ThrottlingController(
+                config.getOptionalValue(PROP_THROTTLING_BACKOFF_BASE, Long.class).orElse(DEFAULT_THROTTLING_BACKOFF_BASE_MS),
+                config.getOptionalValue(PROP_THROTTLING_BACKOFF_MAX, Long.class).orElse(DEFAULT_THROTTLING_BACKOFF_MAX_MS),
+                config.getOptionalValue(PROP_THROTTLING_RATE_DECREASE, Double.class).orElse(DEFAULT_THROTTLING_RATE_DECREASE),
+                config.getOptionalValue(PROP_THROTTLING_RATE_INCREASE, Double.class).orElse(DEFAULT_THROTTLING_RATE_INCREASE),
+                config.getOptionalValue(PROP_THROTTLING_MIN_RATE, Double.class).orElse(DEFAULT_THROTTLING_MIN_RATE),
+                Clock.SYSTEM, new Random());
+
+        final long shardMapRefreshMs = config.getOptionalValue(PROP_SHARD_MAP_REFRESH, Long.class).orElse(DEFAULT_SHARD_MAP_REFRESH_MS);
+        if (config.getOptionalValue(PROP_ASYNC_ENABLED, Boolean.class).orElse(false)) {
+            final KinesisAsyncClient kinesisAsyncClient;
+            if (customAsyncClient.isResolvable()) {
+                kinesisAsyncClient = customAsyncClient.get();
+                LOGGER.info("Obtained custom configured KinesisAsyncClient '{}'", kinesisAsyncClient);
+            }
+            else {
+                kinesisAsyncClient = configure(KinesisAsyncClient.builder(), config).build();
+                LOGGER.info("Using default KinesisAsyncClient '{}'", kinesisAsyncClient);
+            }
+            initAsync(kinesisAsyncClient, shardMapRefreshMs,
+                    config.getOptionalValue(PROP_ASYNC_MAX_IN_FLIGHT_PER_SHARD, Integer.class).orElse(1),
+                    config.getOptionalValue(PROP_ASYNC_MAX_CONCURRENT_REQUESTS, Integer.class).orElse(DEFAULT_ASYNC_MAX_CONCURRENT_REQUESTS),
+                    config.getOptionalValue(PROP_SHARD_RECORDS_PER_SECOND, Integer.class).orElse(DEFAULT_SHARD_RECORDS_PER_SECOND),
+                    config.getOptionalValue(PROP_SHARD_BYTES_PER_SECOND, Integer.class).orElse(DEFAULT_SHARD_BYTES_PER_SECOND));
+        }
+        else if (customClient.isResolvable()) {
             client = customClient.get();
             LOGGER.info("Obtained custom configured KinesisClient '{}'", client);
-            return;
+        }
+        else {
+            client = configure(KinesisClient.builder(), config).build();
+            LOGGER.info("Using default KinesisClient '{}'", client);
         }
 
-        final Config config = ConfigProvider.getConfig();
+        if (config.getOptionalValue(PROP_AGGREGATION_ENABLED, Boolean.class).orElse(false)) {
+            aggregationMaxSize = config.getOptionalValue(PROP_AGGREGATION_MAX_SIZE, Integer.class).orElse(DEFAULT_AGGREGATION_MAX_SIZE);
+            if (aggregationMaxSize <= 0 || aggregationMaxSize > MAX_AGGREGATION_SIZE) {
+                throw new DebeziumException("Property '" + PROP_AGGREGATION_MAX_SIZE + "' must be between 1 and " + MAX_AGGREGATION_SIZE + " bytes");
+            }
+            if (shardMap == null) {
+                shardMap = new ShardMap(client::listShards, shardMapRefreshMs);
+            }
+            LOGGER.info("Aggregating records into Kinesis records of up to {} bytes", aggregationMaxSize);
+        }
+    }
+
+    private <B extends AwsClientBuilder<B, ?>> B configure(B builder, Config config) {
         region = config.getValue(PROP_REGION_NAME, String.class);
         endpointOverride = config.getOptionalValue(PROP_ENDPOINT_NAME, String.class);
         credentialsProfile = config.getOptionalValue(PROP_CREDENTIALS_PROFILE, String.class);
-        final KinesisClientBuilder builder = KinesisClient.builder()
-                .region(Region.of(region));
+        builder.region(Region.of(region));
         endpointOverride.ifPresent(endpoint -> builder.endpointOverride(URI.create(endpoint)));
         credentialsProfile.ifPresent(profile -> builder.credentialsProvider(ProfileCredentialsProvider.create(profile)));
+        return builder;
+    }
 
-        client = builder.build();
-        LOGGER.info("Using default KinesisClient '{}'", client);
+    private void initAsync(KinesisAsyncClient kinesisAsyncClient, long shardMapRefreshMs, int maxInFlightPerShard, int maxConcurrentRequests,
+                           int recordsPerSecond, int bytesPerSecond) {
+        asyncClient = kinesisAsyncClient;
+        shardMap = new ShardMap(request -> join(asyncClient.listShards(request)), shardMapRefreshMs);
+        shardLimiter = new ShardLimiter(maxInFlightPerShard, recordsPerSecond, bytesPerSecond, Clock.SYSTEM);
+        sendExecutor = Threads.newFixedThreadPool(KinesisChangeConsumer.class, "kinesis", "kinesis-sender", maxConcurrentRequests);
+        LOGGER.info("Sending up to {} concurrent requests, {} per shard", maxConcurrentRequests, maxInFlightPerShard);
     }
 
     @PreDestroy
     void close() {
+        retryExecutor.close();
+        encodingCache.close();
+        throttling.close();
+        if (sendExecutor != null) {
+            sendExecutor.shutdownNow();
+        }
         try {
-            client.close();
+            if (client != null) {
+                client.close();
+            }
+            if (asyncClient != null) {
+                asyncClient.close();
+            }
         }
         catch (Exception e) {
             LOGGER.warn("Exception while closing Kinesis client: {}", e);
@@ -106,41 +275,417 @@ void close() {
     @Override
     public void handleBatch(List<ChangeEvent<Object, Object>> records, RecordCommitter<ChangeEvent<Object, Object>> committer)
             throws InterruptedException {
-        for (ChangeEvent<Object, Object> record : records) {
-            LOGGER.trace("Received event '{}'", record);
-
-            int attempts = 0;
-            while (!recordSent(record)) {
-                attempts++;
-                if (attempts >= DEFAULT_RETRIES) {
-                    throw new DebeziumException("Exceeded maximum number of attempts to publish event " + record);
+        for (DestinationRun run : DestinationRun.partition(records)) {
+            final String streamName = streamName(run.destination());
+            final List<PendingRecord> pending = (aggregationMaxSize > 0) ? aggregate(streamName, run.records()) : toPendingRecords(run.records());
+            if (asyncClient != null) {
+                sendConcurrently(run.destination(), streamName, pending);
+            }
+            else {
+                for (List<PendingRecord> request : requests(pending)) {
+                    retryExecutor.execute(run.destination(), request, (items, result) -> putRecords(streamName, items, result));
                 }
-                Metronome.sleeper(RETRY_INTERVAL, Clock.SYSTEM).pause();
             }
+        }
+        for (ChangeEvent<Object, Object> record : records) {
             committer.markProcessed(record);
         }
         committer.markBatchFinished();
     }
 
-    private boolean recordSent(ChangeEvent<Object, Object> record) {
-        Object rv = record.value();
-        if (rv == null) {
-            rv = "";
+    /**
+     * Packs the records into PutRecords requests within the request limits.
+     */
+    private static List<List<PendingRecord>> requests(List<PendingRecord> records) {
+        final List<List<PendingRecord>> requests = new ArrayList<>();
+        List<PendingRecord> request = new ArrayList<>();
+        int requestSize = 0;
+        for (PendingRecord record : records) {
+            if (request.size() == MAX_RECORDS_PER_REQUEST || requestSize + record.size > MAX_REQUEST_SIZE) {
+                requests.add(request);
+                request = new ArrayList<>();
+                requestSize = 0;
+            }
+            request.add(record);
+            requestSize += record.size;
+        }
+        if (!request.isEmpty()) {
+            requests.add(request);
+        }
+        return requests;
+    }
+
+    /**
+     * Sends the requests of different shards concurrently. The requests of a shard are sent in the record order,
+     * with a single request in flight per shard the order per partition key is kept. Once a request of a shard failed
+     * the remaining requests of the shard are not sent, so no record is stored ahead of a failed one of the same
+     * partition key. Returns once all requests completed.
+     */
+    private void sendConcurrently(String destination, String streamName, List<PendingRecord> records) throws InterruptedException {
+        final Map<String, List<PendingRecord>> shardRecords = new LinkedHashMap<>();
+        for (PendingRecord record : records) {
+            if (record.shardId == null) {
+                record.shardId = shardMap.shardFor(streamName, ShardMap.hashKey(record.entry.partitionKey()));
+            }
+            shardRecords.computeIfAbsent(record.shardId, x -> new ArrayList<>()).add(record);
         }
+        final Map<String, Iterator<List<PendingRecord>>> shardRequests = new LinkedHashMap<>();
+        shardRecords.forEach((shardId, pending) -> shardRequests.put(shardId, requests(pending).iterator()));
 
-        final PutRecordRequest putRecord = PutRecordRequest.builder()
-                .partitionKey((record.key() != null) ? getString(record.key()) : nullKey)
-                .streamName(streamNameMapper.map(record.destination()))
-                .data(SdkBytes.fromByteArray(getBytes(rv)))
-                .build();
+        final List<Future<?>> sends = new ArrayList<>();
+        final Set<String> failedShards = ConcurrentHashMap.newKeySet();
+        try {
+            // The shards take turns so a shard at its limit does not hold back the others for long
+            while (!shardRequests.isEmpty()) {
+                final Iterator<Map.Entry<String, Iterator<List<PendingRecord>>>> shards = shardRequests.entrySet().iterator();
+                while (shards.hasNext()) {
+                    final Map.Entry<String, Iterator<List<PendingRecord>>> shard = shards.next();
+                    final Future<?> send = submit(destination, streamName, shard.getKey(), shard.getValue().next(), failedShards);
+                    if (send != null) {
+                        sends.add(send);
+                    }
+                    if (send == null || !shard.getValue().hasNext()) {
+                        shards.remove();
+                    }
+                }
+            }
+        }
+        finally {
+            awaitAll(sends);
+        }
+    }
 
+    /**
+     * @return the pending request, {@code null} if the request is not sent because an earlier one of the shard failed
+     */
+    private Future<?> submit(String destination, String streamName, String shardId, List<PendingRecord> request, Set<String> failedShards)
+            throws InterruptedException {
+        shardLimiter.acquire(shardId);
+        if (failedShards.contains(shardId)) {
+            shardLimiter.release(shardId);
+            return null;
+        }
         try {
-            client.putRecord(putRecord);
-            return true;
+            final long delayMs = shardLimiter.reserve(shardId, request.size(), requestSize(request));
+            return sendExecutor.submit(() -> {
+                try {
+                    // An earlier request of the shard may have failed while this one was queued
+                    if (failedShards.contains(shardId)) {
+                        return null;
+                    }
+                    if (delayMs > 0) {
+                        Metronome.sleeper(Duration.ofMillis(delayMs), Clock.SYSTEM).pause();
+                    }
+                    retryExecutor.execute(destination, request, (items, result) -> putRecords(streamName, items, result));
+                    return null;
+                }
+                catch (InterruptedException | RuntimeException e) {
+                    failedShards.add(shardId);
+                    throw e;
+                }
+                finally {
+                    shardLimiter.release(shardId);
+                }
+            });
+        }
+        catch (RuntimeException e) {
+            shardLimiter.release(shardId);
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for all requests, also after a failure, so no request of the batch is in flight when the batch fails.
+     */
+    private static void awaitAll(List<Future<?>> sends) throws InterruptedException {
+        DebeziumException failure = null;
+        for (Future<?> send : sends) {
+            try {
+                send.get();
+            }
+            catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = (e.getCause() instanceof DebeziumException) ? (DebeziumException) e.getCause() : new DebeziumException(e.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static long requestSize(List<PendingRecord> request) {
+        long size = 0;
+        for (PendingRecord record : request) {
+            size += record.size;
+        }
+        return size;
+    }
+
+    private List<PendingRecord> toPendingRecords(List<ChangeEvent<Object, Object>> records) {
+        final List<PendingRecord> pending = new ArrayList<>(records.size());
+        for (ChangeEvent<Object, Object> record : records) {
+            LOGGER.trace("Received event '{}'", record);
+
+            final String partitionKey = partitionKey(record);
+            final SdkBytes data = encodingCache.get(value(record));
+            final int size = data.asByteBuffer().remaining() + partitionKey.getBytes(StandardCharsets.UTF_8).length;
+            if (isTooLarge(record, size)) {
+                continue;
+            }
+            pending.add(new PendingRecord(List.of(record), entry(partitionKey, data), size));
+        }
+        return pending;
+    }
+
+    /**
+     * Aggregates the records of every shard into as few Kinesis records as the aggregation size allows. The
+     * aggregates of a shard are created in the order of the records so the order per partition key is kept.
+     */
+    private List<PendingRecord> aggregate(String streamName, List<ChangeEvent<Object, Object>> records) {
+        final List<PendingRecord> pending = new ArrayList<>();
+        final Map<String, RecordAggregator> aggregators = new LinkedHashMap<>();
+        for (ChangeEvent<Object, Object> record : records) {
+            LOGGER.trace("Received event '{}'", record);
+
+            final String partitionKey = partitionKey(record);
+            final byte[] data = getBytes(value(record));
+            if (isTooLarge(record, data.length + partitionKey.getBytes(StandardCharsets.UTF_8).length)) {
+                continue;
+            }
+
+            final String shardId = shardMap.shardFor(streamName, ShardMap.hashKey(partitionKey));
+            RecordAggregator aggregator = aggregators.computeIfAbsent(shardId, x -> new RecordAggregator(aggregationMaxSize));
+            if (!aggregator.add(record, partitionKey, data)) {
+                pending.add(toPendingRecord(shardId, aggregator));
+                aggregator = new RecordAggregator(aggregationMaxSize);
+                aggregators.put(shardId, aggregator);
+                aggregator.add(record, partitionKey, data);
+            }
         }
-        catch (KinesisException exception) {
-            LOGGER.warn("Failed to send record to {}", record.destination(), exception);
+        aggregators.forEach((shardId, aggregator) -> pending.add(toPendingRecord(shardId, aggregator)));
+        return pending;
+    }
+
+    private PendingRecord toPendingRecord(String shardId, RecordAggregator aggregator) {
+        final String partitionKey = aggregator.partitionKey();
+        final byte[] data = aggregator.build();
+        final PendingRecord pending = new PendingRecord(aggregator.records(), entry(partitionKey, SdkBytes.fromByteArrayUnsafe(data)),
+                data.length + partitionKey.getBytes(StandardCharsets.UTF_8).length);
+        pending.shardId = shardId;
+        return pending;
+    }
+
+    private String partitionKey(ChangeEvent<Object, Object> record) {
+        return (record.key() != null) ? partitionKeyExtractor.extract(getString(record.key())) : nullKey;
+    }
+
+    /**
+     * Wraps the serialized value without copying, the value is not modified after it is handed over to the sink.
+     */
+    private SdkBytes wrap(Object value) {
+        return SdkBytes.fromByteArrayUnsafe(getBytes(value));
+    }
+
+    private static Object value(ChangeEvent<Object, Object> record) {
+        return (record.value() != null) ? record.value() : "";
+    }
+
+    private static PutRecordsRequestEntry entry(String partitionKey, SdkBytes data) {
+        return PutRecordsRequestEntry.builder()
+                .partitionKey(partitionKey)
+                .data(data)
+                .build();
+    }
+
+    /**
+     * @return {@code true} if the record exceeds the size limit and was dead-lettered
+     */
+    private boolean isTooLarge(ChangeEvent<Object, Object> record, int size) {
+        if (size <= MAX_RECORD_SIZE) {
             return false;
         }
+        if (deadLetter(record, DeadLetterQueue.REASON_RECORD_TOO_LARGE, null)) {
+            return true;
+        }
+        throw new DebeziumException("Record for destination '" + record.destination() + "' exceeds the Kinesis record size limit");
+    }
+
+    /**
+     * Sends the records in a single request. Kinesis accepts or rejects every record of the request individually,
+     * the rejected ones are reported as failed and sent again. The records following a rejected one with the same
+     * partition key are reported as failed too, even when they were accepted, so that the retry keeps their order.
+     */
+    private void putRecords(String streamName, List<PendingRecord> records, SendResult<PendingRecord> result) throws InterruptedException {
+        putRecords(streamName, records, result, new HashMap<>());
+    }
+
+    /**
+     * @param failedKeys    The partition keys with a rejected record and the kind of the rejection, records for these
+     *                      keys are held back.
+     */
+    private void putRecords(String streamName, List<PendingRecord> records, SendResult<PendingRecord> result, Map<String, ErrorKind> failedKeys)
+            throws InterruptedException {
+        final List<PutRecordsRequestEntry> entries = new ArrayList<>(records.size());
+        final Map<String, Integer> shardRecords = new HashMap<>();
+        for (PendingRecord record : records) {
+            entries.add(record.entry);
+            shardRecords.merge(throttlingKey(streamName, record), 1, Integer::sum);
+        }
+
+        long delayMs = 0;
+        for (Map.Entry<String, Integer> shard : shardRecords.entrySet()) {
+            delayMs = Math.max(delayMs, throttling.reserve(shard.getKey(), shard.getValue()));
+        }
+        if (delayMs > 0) {
+            LOGGER.debug("Delaying {} records to stream '{}' by {} ms due to throttling", records.size(), streamName, delayMs);
+            Metronome.sleeper(Duration.ofMillis(delayMs), Clock.SYSTEM).pause();
+        }
+
+        final PutRecordsResponse response;
+        try {
+            final PutRecordsRequest request = PutRecordsRequest.builder()
+                    .streamName(streamName)
+                    .records(entries)
+                    .build();
+            response = (asyncClient != null) ? join(asyncClient.putRecords(request)) : client.putRecords(request);
+        }
+        catch (InvalidArgumentException exception) {
+            // The request is rejected as a whole, send the records one by one to isolate the invalid ones
+            if (records.size() > 1) {
+                for (int i = 0; i < records.size(); i++) {
+                    final PendingRecord record = records.get(i);
+                    final ErrorKind kind = failedKeys.get(record.entry.partitionKey());
+                    if (kind != null) {
+                        heldBack(record, kind, result);
+                        continue;
+                    }
+                    try {
+                        putRecords(streamName, List.of(record), result, failedKeys);
+                    }
+                    catch (DebeziumException e) {
+                        throw e;
+                    }
+                    catch (RuntimeException e) {
+                        // The records before were delivered, dead-lettered or reported already, only the rest is retried
+                        final ErrorKind errorKind = classify(e);
+                        for (PendingRecord remaining : records.subList(i, records.size())) {
+                            result.failed(remaining, errorKind, e);
+                        }
+                        return;
+                    }
+                }
+                return;
+            }
+            // The record itself is invalid, retrying cannot help
+            for (ChangeEvent<Object, Object> record : records.get(0).records) {
+                if (!deadLetter(record, DeadLetterQueue.REASON_RECORD_REJECTED, exception)) {
+                    throw exception;
+                }
+            }
+            return;
+        }
+
+        final Map<String, Integer> throttledRecords = new HashMap<>();
+        if (response.failedRecordCount() != null && response.failedRecordCount() > 0) {
+            final List<PutRecordsResultEntry> results = response.records();
+            for (int i = 0; i < results.size(); i++) {
+                final PutRecordsResultEntry entry = results.get(i);
+                final String partitionKey = records.get(i).entry.partitionKey();
+                if (entry.errorCode() != null) {
+                    final ErrorKind kind = classifyErrorCode(entry.errorCode());
+                    if (kind == ErrorKind.THROTTLED) {
+                        throttledRecords.merge(throttlingKey(streamName, records.get(i)), 1, Integer::sum);
+                    }
+                    failedKeys.putIfAbsent(partitionKey, kind);
+                    result.failed(records.get(i), kind, KinesisException.builder().message(entry.errorCode() + ": " + entry.errorMessage()).build());
+                }
+                else if (failedKeys.containsKey(partitionKey)) {
+                    heldBack(records.get(i), failedKeys.get(partitionKey), result);
+                }
+            }
+        }
+        for (String shard : shardRecords.keySet()) {
+            final Integer throttled = throttledRecords.get(shard);
+            if (throttled != null) {
+                throttling.throttled(shard, throttled);
+            }
+            else {
+                throttling.succeeded(shard);
+            }
+        }
+    }
+
+    /**
+     * Reports a record as failed because an earlier record with the same partition key was rejected. The record may
+     * have been stored already and is then delivered twice, but never ahead of the rejected one.
+     */
+    private static void heldBack(PendingRecord record, ErrorKind kind, SendResult<PendingRecord> result) {
+        result.failed(record, kind, KinesisException.builder().message("Held back after a rejected record with partition key '"
+                + record.entry.partitionKey() + "'").build());
+    }
+
+    /**
+     * @return the shard the record is throttled by, the whole stream when the shard is not known
+     */
+    private static String throttlingKey(String streamName, PendingRecord record) {
+        return (record.shardId != null) ? streamName + "/" + record.shardId : streamName;
+    }
+
+    /**
+     * Waits for the response of the asynchronous client, failures are rethrown unwrapped so they are handled the same
+     * way as the failures of the synchronous client.
+     */
+    private static <T> T join(CompletableFuture<T> response) {
+        try {
+            return response.join();
+        }
+        catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static ErrorKind classifyErrorCode(String errorCode) {
+        // PutRecords reports either throughput exceeded or internal failure for a rejected record
+        return PROVISIONED_THROUGHPUT_EXCEEDED.equals(errorCode) ? ErrorKind.THROTTLED : ErrorKind.RETRIABLE;
+    }
+
+    private static ErrorKind classify(Throwable error) {
+        if (error instanceof ProvisionedThroughputExceededException || error instanceof LimitExceededException) {
+            return ErrorKind.THROTTLED;
+        }
+        if (error instanceof InvalidArgumentException) {
+            return ErrorKind.FATAL;
+        }
+        if (error instanceof SdkServiceException && ((SdkServiceException) error).isThrottlingException()) {
+            return ErrorKind.THROTTLED;
+        }
+        return ErrorKind.RETRIABLE;
+    }
+
+    /**
+     * A record, or an aggregate of records, converted into a request entry. The entry is kept so the records are
+     * not encoded again when retried.
+     */
+    private static final class PendingRecord {
+        final List<ChangeEvent<Object, Object>> records;
+        final PutRecordsRequestEntry entry;
+        final int size;
+        // Known when the records are aggregated or sent concurrently
+        String shardId;
+
+        PendingRecord(List<ChangeEvent<Object, Object>> records, PutRecordsRequestEntry entry, int size) {
+            this.records = records;
+            this.entry = entry;
+            this.size = size;
+        }
+
+        @Override
+        public String toString() {
+            return (records.size() == 1) ? records.get(0).toString() : records.get(0) + " aggregated with " + (records.size() - 1) + " more";
+        }
     }
 }
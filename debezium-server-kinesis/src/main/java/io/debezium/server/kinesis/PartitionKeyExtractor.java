@@ -0,0 +1,246 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.kinesis;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import io.debezium.DebeziumException;
+
+/**
+ * Derives the Kinesis partition key from the serialized record key.
+ * <ul>
+ * <li>When a field path is configured, e.g. {@code id} or {@code payload.id} for keys serialized with schema, the
+ * value of the field is used. The key is scanned only up to the field, without being parsed into a tree. Keys that
+ * are not a JSON object or do not contain the field are used as a whole.</li>
+ * <li>Keys longer than the 256 characters accepted by Kinesis are either replaced by their hash, which keeps the
+ * distribution of the keys, or truncated.</li>
+ * </ul>
+ */
+class PartitionKeyExtractor {
+
+    static final int MAX_PARTITION_KEY_LENGTH = 256;
+
+    enum Overflow {
+        HASH("hash"),
+        TRUNCATE("truncate");
+
+        private final String value;
+
+        Overflow(String value) {
+            this.value = value;
+        }
+
+        static Overflow parse(String value) {
+            for (Overflow overflow : values()) {
+                if (overflow.value.equalsIgnoreCase(value)) {
+                    return overflow;
+                }
+            }
+            throw new DebeziumException("Unknown partition key overflow handling '" + value + "'");
+        }
+    }
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final String[] path;
+    private final Overflow overflow;
+
+    /**
+     * @param fieldPath Dot separated path of the key field, {@code null} to use the whole key.
+     * @param overflow  How keys longer than the Kinesis limit are shortened.
+     */
+    PartitionKeyExtractor(String fieldPath, Overflow overflow) {
+        this.path = (fieldPath == null || fieldPath.isEmpty()) ? null : fieldPath.split("\\.");
+        this.overflow = overflow;
+    }
+
+    String extract(String key) {
+        String partitionKey = key;
+        if (path != null) {
+            final String field = new Scanner(key).find(path);
+            if (field != null && !field.isEmpty()) {
+                partitionKey = field;
+            }
+        }
+        return shorten(partitionKey);
+    }
+
+    private String shorten(String partitionKey) {
+        if (partitionKey.length() <= MAX_PARTITION_KEY_LENGTH) {
+            return partitionKey;
+        }
+        if (overflow == Overflow.TRUNCATE) {
+            // Do not split a surrogate pair
+            final int end = Character.isHighSurrogate(partitionKey.charAt(MAX_PARTITION_KEY_LENGTH - 1)) ? MAX_PARTITION_KEY_LENGTH - 1
+                    : MAX_PARTITION_KEY_LENGTH;
+            return partitionKey.substring(0, end);
+        }
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(partitionKey.getBytes(StandardCharsets.UTF_8));
+            final char[] hex = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                hex[i * 2] = HEX[(digest[i] >> 4) & 0xF];
+                hex[i * 2 + 1] = HEX[digest[i] & 0xF];
+            }
+            return new String(hex);
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new DebeziumException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * A minimal JSON scanner that skips over the values it is not interested in.
+     */
+    private static final class Scanner {
+        private final String json;
+        private int pos;
+
+        Scanner(String json) {
+            this.json = json;
+        }
+
+        /**
+         * @return the field value, strings unquoted and other values as they are serialized, {@code null} if the
+         *         field is not present or the input is not valid JSON
+         */
+        String find(String[] path) {
+            try {
+                for (int i = 0; i < path.length; i++) {
+                    if (!findField(path[i])) {
+                        return null;
+                    }
+                }
+                skipWhitespace();
+                if (json.charAt(pos) == '"') {
+                    return readString();
+                }
+                final int start = pos;
+                skipValue();
+                return json.substring(start, pos);
+            }
+            catch (IndexOutOfBoundsException | NumberFormatException e) {
+                return null;
+            }
+        }
+
+        /**
+         * Positions the scanner at the value of the field of the object at the current position.
+         */
+        private boolean findField(String name) {
+            skipWhitespace();
+            if (json.charAt(pos) != '{') {
+                return false;
+            }
+            pos++;
+            while (true) {
+                skipWhitespace();
+                if (json.charAt(pos) == '}') {
+                    return false;
+                }
+                final String field = readString();
+                skipWhitespace();
+                if (json.charAt(pos++) != ':') {
+                    return false;
+                }
+                if (field.equals(name)) {
+                    return true;
+                }
+                skipValue();
+                skipWhitespace();
+                if (json.charAt(pos) == ',') {
+                    pos++;
+                }
+            }
+        }
+
+        private String readString() {
+            if (json.charAt(pos) != '"') {
+                throw new IndexOutOfBoundsException("Expected string at " + pos);
+            }
+            pos++;
+            final int start = pos;
+            // Fast path for strings without escapes
+            while (json.charAt(pos) != '"' && json.charAt(pos) != '\\') {
+                pos++;
+            }
+            if (json.charAt(pos) == '"') {
+                return json.substring(start, pos++);
+            }
+            final StringBuilder value = new StringBuilder(json.substring(start, pos));
+            while (json.charAt(pos) != '"') {
+                char c = json.charAt(pos++);
+                if (c == '\\') {
+                    c = json.charAt(pos++);
+                    switch (c) {
+                        case 'b':
+                            c = '\b';
+                            break;
+                        case 'f':
+                            c = '\f';
+                            break;
+                        case 'n':
+                            c = '\n';
+                            break;
+                        case 'r':
+                            c = '\r';
+                            break;
+                        case 't':
+                            c = '\t';
+                            break;
+                        case 'u':
+                            c = (char) Integer.parseInt(json.substring(pos, pos + 4), 16);
+                            pos += 4;
+                            break;
+                        default:
+                            break;
+                    }
+                }
+                value.append(c);
+            }
+            pos++;
+            return value.toString();
+        }
+
+        private void skipValue() {
+            skipWhitespace();
+            final char c = json.charAt(pos);
+            if (c == '"') {
+                readString();
+            }
+            else if (c == '{' || c == '[') {
+                int depth = 0;
+                do {
+                    final char current = json.charAt(pos);
+                    if (current == '"') {
+                        readString();
+                        continue;
+                    }
+                    if (current == '{' || current == '[') {
+                        depth++;
+                    }
+                    else if (current == '}' || current == ']') {
+                        depth--;
+                    }
+                    pos++;
+                } while (depth > 0);
+            }
+            else {
+                while (pos < json.length() && ",}] \t\r\n".indexOf(json.charAt(pos)) < 0) {
+                    pos++;
+                }
+            }
+        }
+
+        private void skipWhitespace() {
+            while (Character.isWhitespace(json.charAt(pos))) {
+                pos++;
+            }
+        }
+    }
+}
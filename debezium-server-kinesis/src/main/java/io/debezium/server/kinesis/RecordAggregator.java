@@ -0,0 +1,187 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.kinesis;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.debezium.DebeziumException;
+import io.debezium.engine.ChangeEvent;
+
+/**
+ * Packs records into a single Kinesis record in the aggregated format of the Kinesis Producer Library so the
+ * Kinesis Client Library de-aggregates them transparently. The format is the magic number, the protobuf encoded
+ * message below and the MD5 digest of the message.
+ *
+ * <pre>
+ * message AggregatedRecord {
+ *   repeated string partition_key_table = 1;
+ *   repeated string explicit_hash_key_table = 2;
+ *   repeated Record records = 3;
+ * }
+ * message Record {
+ *   required uint64 partition_key_index = 1;
+ *   optional uint64 explicit_hash_key_index = 2;
+ *   required bytes data = 3;
+ * }
+ * </pre>
+ *
+ * The records of an aggregate must belong to the same shard, the consumers drop the records that do not match
+ * the shard of the aggregate.
+ */
+class RecordAggregator {
+
+    static final byte[] MAGIC = { (byte) 0xF3, (byte) 0x89, (byte) 0x9A, (byte) 0xC2 };
+    private static final int DIGEST_SIZE = 16;
+
+    private static final int PARTITION_KEY_TABLE_TAG = (1 << 3) | 2;
+    private static final int RECORDS_TAG = (3 << 3) | 2;
+    private static final int PARTITION_KEY_INDEX_TAG = 1 << 3;
+    private static final int DATA_TAG = (3 << 3) | 2;
+
+    private final int maxSize;
+    private final List<ChangeEvent<Object, Object>> records = new ArrayList<>();
+    private final List<byte[]> data = new ArrayList<>();
+    private final List<Integer> partitionKeyIndexes = new ArrayList<>();
+    private final Map<String, Integer> partitionKeyIndex = new HashMap<>();
+    private final List<byte[]> partitionKeys = new ArrayList<>();
+    private String firstPartitionKey;
+    private int messageSize;
+
+    /**
+     * @param maxSize   Maximum size of the aggregated record including the magic number and digest.
+     */
+    RecordAggregator(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Adds the record unless the aggregate would exceed the maximum size.
+     *
+     * @return {@code false} if the record does not fit, the aggregate must be built first
+     */
+    boolean add(ChangeEvent<Object, Object> record, String partitionKey, byte[] value) {
+        final Integer existingIndex = partitionKeyIndex.get(partitionKey);
+        final byte[] partitionKeyBytes = (existingIndex == null) ? partitionKey.getBytes(StandardCharsets.UTF_8) : null;
+        final int index = (existingIndex == null) ? partitionKeys.size() : existingIndex;
+
+        int size = messageSize + fieldSize(recordSize(index, value.length));
+        if (partitionKeyBytes != null) {
+            size += fieldSize(partitionKeyBytes.length);
+        }
+        if (!isEmpty() && MAGIC.length + size + DIGEST_SIZE > maxSize) {
+            return false;
+        }
+
+        if (partitionKeyBytes != null) {
+            partitionKeyIndex.put(partitionKey, index);
+            partitionKeys.add(partitionKeyBytes);
+        }
+        if (firstPartitionKey == null) {
+            firstPartitionKey = partitionKey;
+        }
+        records.add(record);
+        data.add(value);
+        partitionKeyIndexes.add(index);
+        messageSize = size;
+        return true;
+    }
+
+    boolean isEmpty() {
+        return records.isEmpty();
+    }
+
+    /**
+     * @return the change events in the aggregate
+     */
+    List<ChangeEvent<Object, Object>> records() {
+        return records;
+    }
+
+    /**
+     * @return the partition key of the aggregated record, the key of its first record
+     */
+    String partitionKey() {
+        return firstPartitionKey;
+    }
+
+    /**
+     * @return the aggregated record, or the data of the only record as is
+     */
+    byte[] build() {
+        if (records.size() == 1) {
+            return data.get(0);
+        }
+        final byte[] result = new byte[MAGIC.length + messageSize + DIGEST_SIZE];
+        System.arraycopy(MAGIC, 0, result, 0, MAGIC.length);
+        int pos = MAGIC.length;
+        for (byte[] partitionKey : partitionKeys) {
+            pos = writeVarint(result, pos, PARTITION_KEY_TABLE_TAG);
+            pos = writeBytes(result, pos, partitionKey);
+        }
+        for (int i = 0; i < records.size(); i++) {
+            final int index = partitionKeyIndexes.get(i);
+            final byte[] value = data.get(i);
+            pos = writeVarint(result, pos, RECORDS_TAG);
+            pos = writeVarint(result, pos, recordSize(index, value.length));
+            pos = writeVarint(result, pos, PARTITION_KEY_INDEX_TAG);
+            pos = writeVarint(result, pos, index);
+            pos = writeVarint(result, pos, DATA_TAG);
+            pos = writeBytes(result, pos, value);
+        }
+
+        final MessageDigest md5;
+        try {
+            md5 = MessageDigest.getInstance("MD5");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new DebeziumException("MD5 is not available", e);
+        }
+        md5.update(result, MAGIC.length, messageSize);
+        System.arraycopy(md5.digest(), 0, result, pos, DIGEST_SIZE);
+        return result;
+    }
+
+    private static int recordSize(int partitionKeyIndex, int dataLength) {
+        return 1 + varintSize(partitionKeyIndex) + fieldSize(dataLength);
+    }
+
+    /**
+     * @return size of a length-delimited field with a single byte tag
+     */
+    private static int fieldSize(int length) {
+        return 1 + varintSize(length) + length;
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static int writeVarint(byte[] target, int pos, int value) {
+        while ((value & ~0x7F) != 0) {
+            target[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        target[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static int writeBytes(byte[] target, int pos, byte[] value) {
+        pos = writeVarint(target, pos, value.length);
+        System.arraycopy(value, 0, target, pos, value.length);
+        return pos + value.length;
+    }
+}
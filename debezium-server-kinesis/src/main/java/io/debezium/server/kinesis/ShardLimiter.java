@@ -0,0 +1,103 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.kinesis;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+import io.debezium.util.Clock;
+
+/**
+ * Keeps the requests sent to a shard within the shard write quota. Every shard has a limit of requests in flight
+ * and token buckets for records and bytes per second, refilled continuously with a burst of one second.
+ * A request larger than the bucket is admitted when the bucket is full and leaves the bucket in debt, so the
+ * following requests wait until the quota recovers.
+ */
+class ShardLimiter {
+
+    private final int maxInFlight;
+    private final double recordsPerSecond;
+    private final double bytesPerSecond;
+    private final Clock clock;
+    private final Map<String, ShardQuota> shards = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxInFlight       Maximum number of requests in flight per shard.
+     * @param recordsPerSecond  Records per second accepted by a shard.
+     * @param bytesPerSecond    Bytes per second accepted by a shard.
+     * @param clock             The clock used to refill the buckets.
+     */
+    ShardLimiter(int maxInFlight, double recordsPerSecond, double bytesPerSecond, Clock clock) {
+        this.maxInFlight = maxInFlight;
+        this.recordsPerSecond = recordsPerSecond;
+        this.bytesPerSecond = bytesPerSecond;
+        this.clock = clock;
+    }
+
+    /**
+     * Blocks until a request can be sent to the shard, every call must be followed by {@link #release(String)}.
+     */
+    void acquire(String shardId) throws InterruptedException {
+        shard(shardId).inFlight.acquire();
+    }
+
+    void release(String shardId) {
+        shard(shardId).inFlight.release();
+    }
+
+    /**
+     * Takes the records and bytes of a request from the buckets of the shard.
+     *
+     * @return how long the request must wait before it is sent, in milliseconds
+     */
+    long reserve(String shardId, int records, long bytes) {
+        return shard(shardId).reserve(records, bytes, clock.currentTimeInMillis());
+    }
+
+    private ShardQuota shard(String shardId) {
+        return shards.computeIfAbsent(shardId, x -> new ShardQuota(maxInFlight, recordsPerSecond, bytesPerSecond, clock.currentTimeInMillis()));
+    }
+
+    private static final class ShardQuota {
+        final Semaphore inFlight;
+        final TokenBucket records;
+        final TokenBucket bytes;
+
+        ShardQuota(int maxInFlight, double recordsPerSecond, double bytesPerSecond, long now) {
+            this.inFlight = new Semaphore(maxInFlight);
+            this.records = new TokenBucket(recordsPerSecond, now);
+            this.bytes = new TokenBucket(bytesPerSecond, now);
+        }
+
+        synchronized long reserve(int recordCount, long byteCount, long now) {
+            return Math.max(records.reserve(recordCount, now), bytes.reserve(byteCount, now));
+        }
+    }
+
+    private static final class TokenBucket {
+        final double ratePerMs;
+        final double capacity;
+        double tokens;
+        long lastRefill;
+
+        TokenBucket(double ratePerSecond, long now) {
+            this.ratePerMs = ratePerSecond / 1000;
+            this.capacity = ratePerSecond;
+            this.tokens = capacity;
+            this.lastRefill = now;
+        }
+
+        long reserve(double permits, long now) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * ratePerMs);
+            lastRefill = now;
+            // Wait until the debt of the previous requests is paid off
+            final long delayMs = (tokens < 0) ? (long) Math.ceil(-tokens / ratePerMs) : 0;
+            tokens -= permits;
+            return delayMs;
+        }
+    }
+}
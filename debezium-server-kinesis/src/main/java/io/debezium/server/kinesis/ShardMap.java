@@ -0,0 +1,139 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.kinesis;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import io.debezium.DebeziumException;
+import io.debezium.util.Clock;
+
+import software.amazon.awssdk.services.kinesis.model.ListShardsRequest;
+import software.amazon.awssdk.services.kinesis.model.ListShardsResponse;
+import software.amazon.awssdk.services.kinesis.model.Shard;
+
+/**
+ * Maps partition keys to the open shards of a stream the same way Kinesis does, by the MD5 hash of the key as
+ * an unsigned 128-bit integer falling into the hash key range of the shard. The shard list of a stream is cached
+ * and refreshed periodically to follow resharding.
+ */
+class ShardMap {
+
+    private static final ThreadLocal<MessageDigest> MD5 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("MD5");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new DebeziumException("MD5 is not available", e);
+        }
+    });
+
+    private final Function<String, List<Shard>> shardLister;
+    private final long refreshIntervalMs;
+    private final Clock clock;
+    private final Map<String, StreamShards> streams = new ConcurrentHashMap<>();
+
+    /**
+     * @param shardLister       Lists all shards of a stream.
+     * @param refreshIntervalMs How long the shard list of a stream is cached.
+     * @param clock             The clock used to expire the shard lists.
+     */
+    ShardMap(Function<String, List<Shard>> shardLister, long refreshIntervalMs, Clock clock) {
+        this.shardLister = shardLister;
+        this.refreshIntervalMs = refreshIntervalMs;
+        this.clock = clock;
+    }
+
+    /**
+     * @param listShards        Executes a ListShards request, either by the synchronous or asynchronous client.
+     * @param refreshIntervalMs How long the shard list of a stream is cached.
+     */
+    ShardMap(Function<ListShardsRequest, ListShardsResponse> listShards, long refreshIntervalMs) {
+        this(stream -> listShards(listShards, stream), refreshIntervalMs, Clock.SYSTEM);
+    }
+
+    private static List<Shard> listShards(Function<ListShardsRequest, ListShardsResponse> listShards, String stream) {
+        final List<Shard> shards = new ArrayList<>();
+        ListShardsResponse response = listShards.apply(ListShardsRequest.builder().streamName(stream).build());
+        shards.addAll(response.shards());
+        while (response.nextToken() != null) {
+            // The stream name must not be set together with the token
+            response = listShards.apply(ListShardsRequest.builder().nextToken(response.nextToken()).build());
+            shards.addAll(response.shards());
+        }
+        return shards;
+    }
+
+    /**
+     * @return the hash key Kinesis derives from the partition key
+     */
+    static BigInteger hashKey(String partitionKey) {
+        final MessageDigest md5 = MD5.get();
+        return new BigInteger(1, md5.digest(partitionKey.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * @return id of the open shard of the stream the hash key belongs to
+     */
+    String shardFor(String stream, BigInteger hashKey) {
+        final StreamShards shards = streamShards(stream);
+        int index = Arrays.binarySearch(shards.startingHashKeys, hashKey);
+        if (index < 0) {
+            // The shard starting with the greatest key lower than the hash key
+            index = -index - 2;
+        }
+        if (index < 0) {
+            throw new DebeziumException("No shard of stream '" + stream + "' covers hash key " + hashKey);
+        }
+        return shards.shardIds[index];
+    }
+
+    private StreamShards streamShards(String stream) {
+        final long now = clock.currentTimeInMillis();
+        StreamShards shards = streams.get(stream);
+        if (shards == null || now - shards.fetchedAt >= refreshIntervalMs) {
+            shards = new StreamShards(shardLister.apply(stream), now);
+            if (shards.shardIds.length == 0) {
+                throw new DebeziumException("Stream '" + stream + "' has no open shards");
+            }
+            streams.put(stream, shards);
+        }
+        return shards;
+    }
+
+    private static final class StreamShards {
+        final BigInteger[] startingHashKeys;
+        final String[] shardIds;
+        final long fetchedAt;
+
+        StreamShards(List<Shard> shards, long fetchedAt) {
+            // Closed shards, i.e. parents of a resharding, do not accept records anymore
+            final List<Shard> open = new ArrayList<>();
+            for (Shard shard : shards) {
+                if (shard.sequenceNumberRange() == null || shard.sequenceNumberRange().endingSequenceNumber() == null) {
+                    open.add(shard);
+                }
+            }
+            open.sort(Comparator.comparing(shard -> new BigInteger(shard.hashKeyRange().startingHashKey())));
+            this.startingHashKeys = new BigInteger[open.size()];
+            this.shardIds = new String[open.size()];
+            for (int i = 0; i < open.size(); i++) {
+                startingHashKeys[i] = new BigInteger(open.get(i).hashKeyRange().startingHashKey());
+                shardIds[i] = open.get(i).shardId();
+            }
+            this.fetchedAt = fetchedAt;
+        }
+    }
+}
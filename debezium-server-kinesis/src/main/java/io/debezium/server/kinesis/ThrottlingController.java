@@ -0,0 +1,208 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.kinesis;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.ObjectName;
+
+import io.debezium.server.ServerMetrics;
+import io.debezium.util.Clock;
+
+/**
+ * Adapts the send rate of every shard to the throttling reported by Kinesis.
+ * <ul>
+ * <li>The rate is not limited until a shard is throttled for the first time, then it is set to a fraction of the
+ * rate observed in the last second and afterwards decreased multiplicatively on every throttling and increased
+ * additively on every accepted request (AIMD).</li>
+ * <li>A throttled shard backs off with decorrelated jitter, every backoff is random between the base delay and
+ * three times the previous backoff, capped by the maximum delay.</li>
+ * </ul>
+ * The shard is the unit of throttling in Kinesis, a whole stream is used instead when the shard of the records is
+ * not known. Exposed as {@code debezium.server:type=kinesis-throttling,context=kinesis}.
+ */
+class ThrottlingController implements ThrottlingMetricsMXBean, AutoCloseable {
+
+    private static final long RATE_WINDOW_MS = 1000;
+
+    private final long baseBackoffMs;
+    private final long maxBackoffMs;
+    private final double decreaseFactor;
+    private final double additiveIncrease;
+    private final double minRate;
+    private final Clock clock;
+    private final Random random;
+    private final Map<String, ShardState> shards = new ConcurrentHashMap<>();
+    private final LongAdder throttledRecords = new LongAdder();
+    private final LongAdder rateDecreases = new LongAdder();
+    private final LongAdder backoffTimeMs = new LongAdder();
+    private final ObjectName name;
+
+    /**
+     * @param baseBackoffMs     The minimal backoff after throttling.
+     * @param maxBackoffMs      The maximal backoff after throttling.
+     * @param decreaseFactor    The send rate is multiplied by the factor when a shard is throttled.
+     * @param additiveIncrease  The send rate is increased by the number of records per second on every accepted request.
+     * @param minRate           The lowest send rate in records per second.
+     */
+    ThrottlingController(long baseBackoffMs, long maxBackoffMs, double decreaseFactor, double additiveIncrease, double minRate, Clock clock,
+                         Random random) {
+        this.baseBackoffMs = baseBackoffMs;
+        this.maxBackoffMs = Math.max(baseBackoffMs, maxBackoffMs);
+        this.decreaseFactor = decreaseFactor;
+        this.additiveIncrease = additiveIncrease;
+        this.minRate = minRate;
+        this.clock = clock;
+        this.random = random;
+        this.name = ServerMetrics.register("kinesis-throttling", "kinesis", this);
+    }
+
+    /**
+     * Takes the records from the send rate of the shard.
+     *
+     * @return how long the records must wait before they are sent, in milliseconds
+     */
+    long reserve(String shard, int records) {
+        return state(shard).reserve(records, clock.currentTimeInMillis());
+    }
+
+    /**
+     * Reports records of the shard accepted by Kinesis.
+     */
+    void succeeded(String shard) {
+        state(shard).increase();
+    }
+
+    /**
+     * Reports records of the shard rejected because the shard throughput was exceeded. Should be called once per
+     * request and shard so a single request does not decrease the rate several times.
+     */
+    void throttled(String shard, int records) {
+        throttledRecords.add(records);
+        rateDecreases.increment();
+        backoffTimeMs.add(state(shard).decrease(clock.currentTimeInMillis()));
+    }
+
+    private ShardState state(String shard) {
+        return shards.computeIfAbsent(shard, x -> new ShardState(clock.currentTimeInMillis()));
+    }
+
+    @Override
+    public void close() {
+        ServerMetrics.unregister(name);
+    }
+
+    @Override
+    public long getThrottledRecords() {
+        return throttledRecords.sum();
+    }
+
+    @Override
+    public long getRateDecreases() {
+        return rateDecreases.sum();
+    }
+
+    @Override
+    public long getBackoffTimeMs() {
+        return backoffTimeMs.sum();
+    }
+
+    @Override
+    public int getRateLimitedShards() {
+        int limited = 0;
+        for (ShardState state : shards.values()) {
+            if (state.isRateLimited()) {
+                limited++;
+            }
+        }
+        return limited;
+    }
+
+    @Override
+    public double getMinSendRate() {
+        double min = -1;
+        for (ShardState state : shards.values()) {
+            final double rate = state.rate();
+            if (!Double.isInfinite(rate) && (min < 0 || rate < min)) {
+                min = rate;
+            }
+        }
+        return min;
+    }
+
+    private final class ShardState {
+        // Records per second, infinite until the shard is throttled
+        private double rate = Double.POSITIVE_INFINITY;
+        private double tokens;
+        private long lastRefill;
+        private long backoffMs;
+        private long backoffUntil;
+        // Records sent in the current and previous window, used to find the rate at which the shard got throttled
+        private long windowStart;
+        private long windowRecords;
+        private long previousWindowRecords;
+
+        ShardState(long now) {
+            this.lastRefill = now;
+            this.windowStart = now;
+        }
+
+        synchronized long reserve(int records, long now) {
+            if (now - windowStart >= RATE_WINDOW_MS) {
+                previousWindowRecords = (now - windowStart < 2 * RATE_WINDOW_MS) ? windowRecords : 0;
+                windowRecords = 0;
+                windowStart = now;
+            }
+            windowRecords += records;
+
+            long delayMs = Math.max(0, backoffUntil - now);
+            if (!Double.isInfinite(rate)) {
+                tokens = Math.min(rate, tokens + (now - lastRefill) * rate / 1000);
+                if (tokens < 0) {
+                    delayMs = Math.max(delayMs, (long) Math.ceil(-tokens * 1000 / rate));
+                }
+                tokens -= records;
+            }
+            lastRefill = now;
+            return delayMs;
+        }
+
+        synchronized void increase() {
+            backoffMs = 0;
+            if (!Double.isInfinite(rate)) {
+                rate += additiveIncrease;
+            }
+        }
+
+        synchronized long decrease(long now) {
+            final double currentRate = Double.isInfinite(rate) ? observedRate(now) : rate;
+            rate = Math.max(minRate, currentRate * decreaseFactor);
+            tokens = Math.min(tokens, 0);
+
+            // Decorrelated jitter
+            final long upper = Math.min(maxBackoffMs, Math.max(baseBackoffMs, backoffMs * 3));
+            backoffMs = baseBackoffMs + (long) (random.nextDouble() * (upper - baseBackoffMs));
+            backoffUntil = now + backoffMs;
+            return backoffMs;
+        }
+
+        private double observedRate(long now) {
+            final long elapsed = Math.max(1, now - windowStart + ((previousWindowRecords > 0) ? RATE_WINDOW_MS : 0));
+            return (windowRecords + previousWindowRecords) * 1000.0 / elapsed;
+        }
+
+        synchronized boolean isRateLimited() {
+            return !Double.isInfinite(rate);
+        }
+
+        synchronized double rate() {
+            return rate;
+        }
+    }
+}
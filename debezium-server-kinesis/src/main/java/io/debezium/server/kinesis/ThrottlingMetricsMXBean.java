@@ -0,0 +1,34 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.kinesis;
+
+/**
+ * Statistics of the throttling of the Kinesis sink by the service.
+ */
+public interface ThrottlingMetricsMXBean {
+
+    /**
+     * @return number of records rejected with {@code ProvisionedThroughputExceededException}
+     */
+    long getThrottledRecords();
+
+    /**
+     * @return number of times the send rate of a shard was decreased
+     */
+    long getRateDecreases();
+
+    long getBackoffTimeMs();
+
+    /**
+     * @return number of shards sent to at a limited rate
+     */
+    int getRateLimitedShards();
+
+    /**
+     * @return the lowest send rate of a shard in records per second, {@code -1} if no shard is rate limited
+     */
+    double getMinSendRate();
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.kinesis;
+
+import static io.debezium.server.TestSinkFixture.RETRY_POLICY;
+import static io.debezium.server.TestSinkFixture.records;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.debezium.DebeziumException;
+import io.debezium.engine.ChangeEvent;
+import io.debezium.server.TestRecordCommitter;
+
+import software.amazon.awssdk.services.kinesis.KinesisAsyncClient;
+import software.amazon.awssdk.services.kinesis.model.KinesisException;
+import software.amazon.awssdk.services.kinesis.model.ListShardsRequest;
+import software.amazon.awssdk.services.kinesis.model.ListShardsResponse;
+import software.amazon.awssdk.services.kinesis.model.PutRecordsRequest;
+import software.amazon.awssdk.services.kinesis.model.PutRecordsRequestEntry;
+import software.amazon.awssdk.services.kinesis.model.PutRecordsResponse;
+import software.amazon.awssdk.services.kinesis.model.PutRecordsResultEntry;
+
+public class KinesisAsyncChangeConsumerTest {
+
+
+    private final ScheduledExecutorService responses = Executors.newScheduledThreadPool(4);
+    private KinesisChangeConsumer consumer;
+
+    @AfterEach
+    public void tearDown() {
+        if (consumer != null) {
+            consumer.close();
+        }
+        responses.shutdownNow();
+    }
+
+    /**
+     * Responds to every request after a delay and records how many requests were in flight per shard. Requests
+     * matching the failure predicate fail with an internal error.
+     */
+    private class FakeKinesisAsyncClient implements KinesisAsyncClient {
+
+        final List<PutRecordsRequest> requests = Collections.synchronizedList(new ArrayList<>());
+        final List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+        final Map<Boolean, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+        final Map<Boolean, Integer> maxInFlight = new ConcurrentHashMap<>();
+        final AtomicInteger totalInFlight = new AtomicInteger();
+        volatile int maxTotalInFlight;
+        final Predicate<PutRecordsRequest> failing;
+
+        FakeKinesisAsyncClient() {
+            this(request -> false);
+        }
+
+        FakeKinesisAsyncClient(Predicate<PutRecordsRequest> failing) {
+            this.failing = failing;
+        }
+
+        @Override
+        public CompletableFuture<PutRecordsResponse> putRecords(PutRecordsRequest request) {
+            requests.add(request);
+            // Every request goes to a single shard, identified by the half of the hash key range
+            final boolean lowerShard = isLowerShard(request.records().get(0).partitionKey());
+            for (PutRecordsRequestEntry entry : request.records()) {
+                assertThat(isLowerShard(entry.partitionKey())).isEqualTo(lowerShard);
+            }
+            final int shardInFlight = inFlight.computeIfAbsent(lowerShard, x -> new AtomicInteger()).incrementAndGet();
+            maxInFlight.merge(lowerShard, shardInFlight, Math::max);
+            synchronized (this) {
+                maxTotalInFlight = Math.max(maxTotalInFlight, totalInFlight.incrementAndGet());
+            }
+
+            final CompletableFuture<PutRecordsResponse> response = new CompletableFuture<>();
+            responses.schedule(() -> {
+                if (failing.test(request)) {
+                    inFlight.get(lowerShard).decrementAndGet();
+                    totalInFlight.decrementAndGet();
+                    response.completeExceptionally(KinesisException.builder().message("Internal failure").statusCode(500).build());
+                    return;
+                }
+                final List<PutRecordsResultEntry> results = new ArrayList<>();
+                for (PutRecordsRequestEntry entry : request.records()) {
+                    delivered.add(entry.partitionKey());
+                    results.add(PutRecordsResultEntry.builder().sequenceNumber("1").shardId(lowerShard ? "shard-0" : "shard-1").build());
+                }
+                inFlight.get(lowerShard).decrementAndGet();
+                totalInFlight.decrementAndGet();
+                response.complete(PutRecordsResponse.builder().failedRecordCount(0).records(results).build());
+            }, 50, TimeUnit.MILLISECONDS);
+            return response;
+        }
+
+        @Override
+        public CompletableFuture<ListShardsResponse> listShards(ListShardsRequest request) {
+            return CompletableFuture.completedFuture(ListShardsResponse.builder().shards(ShardMapTest.twoShards()).build());
+        }
+
+        @Override
+        public String serviceName() {
+            return SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static boolean isLowerShard(String partitionKey) {
+        return ShardMap.hashKey(partitionKey).compareTo(ShardMapTest.HALF) < 0;
+    }
+
+    @Test
+    public void shouldSendShardsConcurrentlyAndEachShardInOrder() throws Exception {
+        final FakeKinesisAsyncClient client = new FakeKinesisAsyncClient();
+        consumer = new KinesisChangeConsumer(client, RETRY_POLICY, 1, 8);
+        final List<ChangeEvent<Object, Object>> records = records(2000, "stream");
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        consumer.handleBatch(records, committer);
+
+        assertThat(client.delivered).hasSize(2000).doesNotHaveDuplicates();
+        assertThat(client.maxTotalInFlight).isEqualTo(2);
+        assertThat(client.maxInFlight.values()).containsOnly(1);
+
+        // Records of a shard are delivered in the record order
+        for (boolean lowerShard : List.of(true, false)) {
+            final List<String> expected = records.stream()
+                    .map(record -> (String) record.key())
+                    .filter(key -> isLowerShard(key) == lowerShard)
+                    .collect(Collectors.toList());
+            assertThat(client.delivered.stream().filter(key -> isLowerShard(key) == lowerShard)).containsExactlyElementsOf(expected);
+        }
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+        assertThat(committer.isBatchFinished()).isTrue();
+    }
+
+    @Test
+    public void shouldNotSendFurtherRequestsOfShardAfterFailedRequest() {
+        // The first request of the shard of 'key-0' fails on every attempt
+        final FakeKinesisAsyncClient client = new FakeKinesisAsyncClient(
+                request -> request.records().stream().anyMatch(entry -> entry.partitionKey().equals("key-0")));
+        consumer = new KinesisChangeConsumer(client, RETRY_POLICY, 1, 8);
+        final List<ChangeEvent<Object, Object>> records = records(1500, "stream");
+        final TestRecordCommitter committer = new TestRecordCommitter();
+        final boolean failedShard = isLowerShard("key-0");
+
+        assertThatThrownBy(() -> consumer.handleBatch(records, committer))
+                .isInstanceOf(DebeziumException.class)
+                .hasMessageContaining("maximum number of attempts");
+
+        // Only the attempts of the failed request were sent to its shard, the other shard delivered all its records
+        assertThat(client.requests.stream().filter(request -> isLowerShard(request.records().get(0).partitionKey()) == failedShard))
+                .hasSize(3)
+                .allMatch(request -> request.records().get(0).partitionKey().equals("key-0"));
+        assertThat(client.delivered).noneMatch(key -> isLowerShard(key) == failedShard);
+        assertThat(client.delivered).hasSize((int) records.stream().filter(record -> isLowerShard((String) record.key()) != failedShard).count());
+        assertThat(committer.getProcessed()).isEmpty();
+        assertThat(committer.isBatchFinished()).isFalse();
+    }
+
+    @Test
+    public void shouldLimitRequestsInFlightPerShard() throws Exception {
+        final FakeKinesisAsyncClient client = new FakeKinesisAsyncClient();
+        consumer = new KinesisChangeConsumer(client, RETRY_POLICY, 2, 8);
+        final List<ChangeEvent<Object, Object>> records = records(3000, "stream");
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        consumer.handleBatch(records, committer);
+
+        assertThat(client.delivered).hasSize(3000).doesNotHaveDuplicates();
+        assertThat(client.maxInFlight.values()).allMatch(max -> max <= 2);
+        assertThat(client.maxTotalInFlight).isGreaterThan(2).isLessThanOrEqualTo(4);
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.kinesis;
+
+import static io.debezium.server.TestSinkFixture.RETRY_POLICY;
+import static io.debezium.server.TestSinkFixture.records;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiPredicate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.debezium.DebeziumException;
+import io.debezium.engine.ChangeEvent;
+import io.debezium.server.TestChangeEvent;
+import io.debezium.server.TestDeadLetterStore;
+import io.debezium.server.TestRecordCommitter;
+import io.debezium.server.deadletter.DeadLetterQueue;
+import io.debezium.server.deadletter.DeadLetterRecord;
+import io.debezium.server.retry.RetryPolicy;
+
+import software.amazon.awssdk.services.kinesis.KinesisClient;
+import software.amazon.awssdk.services.kinesis.model.InvalidArgumentException;
+import software.amazon.awssdk.services.kinesis.model.ListShardsRequest;
+import software.amazon.awssdk.services.kinesis.model.ListShardsResponse;
+import software.amazon.awssdk.services.kinesis.model.PutRecordsRequest;
+import software.amazon.awssdk.services.kinesis.model.PutRecordsRequestEntry;
+import software.amazon.awssdk.services.kinesis.model.PutRecordsResponse;
+import software.amazon.awssdk.services.kinesis.model.PutRecordsResultEntry;
+
+public class KinesisChangeConsumerTest {
+
+
+    private KinesisChangeConsumer consumer;
+
+    @AfterEach
+    public void tearDown() {
+        if (consumer != null) {
+            consumer.close();
+        }
+    }
+
+    /**
+     * Accepts every record except those matching the rejection predicate, which gets the number of the request and
+     * the partition key of the entry.
+     */
+    private static class FakeKinesisClient implements KinesisClient {
+
+        final List<PutRecordsRequest> requests = Collections.synchronizedList(new ArrayList<>());
+        final List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+        final BiPredicate<Integer, String> reject;
+
+        FakeKinesisClient(BiPredicate<Integer, String> reject) {
+            this.reject = reject;
+        }
+
+        @Override
+        public PutRecordsResponse putRecords(PutRecordsRequest request) {
+            final int requestNumber = requests.size();
+            requests.add(request);
+            final List<PutRecordsResultEntry> results = new ArrayList<>();
+            int failed = 0;
+            for (PutRecordsRequestEntry entry : request.records()) {
+                if (reject.test(requestNumber, entry.partitionKey())) {
+                    results.add(PutRecordsResultEntry.builder()
+                            .errorCode("ProvisionedThroughputExceededException")
+                            .errorMessage("Rate exceeded for shard")
+                            .build());
+                    failed++;
+                }
+                else {
+                    delivered.add(entry.partitionKey());
+                    results.add(PutRecordsResultEntry.builder().sequenceNumber(String.valueOf(delivered.size())).shardId("shard-0").build());
+                }
+            }
+            return PutRecordsResponse.builder().failedRecordCount(failed).records(results).build();
+        }
+
+        @Override
+        public ListShardsResponse listShards(ListShardsRequest request) {
+            return ListShardsResponse.builder().shards(ShardMapTest.twoShards()).build();
+        }
+
+        @Override
+        public String serviceName() {
+            return SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    public void shouldPackRecordsIntoRequestsOfAtMost500() throws Exception {
+        final FakeKinesisClient client = new FakeKinesisClient((request, key) -> false);
+        consumer = new KinesisChangeConsumer(client, RETRY_POLICY);
+        final List<ChangeEvent<Object, Object>> records = records(1200, "stream");
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        consumer.handleBatch(records, committer);
+
+        assertThat(client.requests).extracting(r -> r.records().size()).containsExactly(500, 500, 200);
+        assertThat(client.requests).extracting(PutRecordsRequest::streamName).containsOnly("stream");
+        assertThat(client.delivered).hasSize(1200);
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+        assertThat(committer.isBatchFinished()).isTrue();
+    }
+
+    @Test
+    public void shouldSplitRequestsPerStreamAndBySize() throws Exception {
+        final FakeKinesisClient client = new FakeKinesisClient((request, key) -> false);
+        consumer = new KinesisChangeConsumer(client, RETRY_POLICY);
+        final List<ChangeEvent<Object, Object>> records = new ArrayList<>();
+        final String largeValue = "x".repeat(900 * 1024);
+        for (int i = 0; i < 12; i++) {
+            records.add(new TestChangeEvent("key-" + i, largeValue + i, (i % 2 == 0) ? "a" : "b"));
+        }
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        consumer.handleBatch(records, committer);
+
+        // Five records of 900 kB fit into the 5 MB request limit
+        assertThat(client.requests).extracting(r -> r.records().size()).containsExactly(5, 1, 5, 1);
+        assertThat(client.requests).extracting(PutRecordsRequest::streamName).containsExactly("a", "a", "b", "b");
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+    }
+
+    @Test
+    public void shouldRetryOnlyFailedEntries() throws Exception {
+        // The first request rejects every third record
+        final FakeKinesisClient client = new FakeKinesisClient((request, key) -> request == 0 && Integer.parseInt(key.substring(4)) % 3 == 0);
+        consumer = new KinesisChangeConsumer(client, RETRY_POLICY);
+        final List<ChangeEvent<Object, Object>> records = records(30, "stream");
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        consumer.handleBatch(records, committer);
+
+        assertThat(client.requests).hasSize(2);
+        assertThat(client.requests.get(1).records()).extracting(PutRecordsRequestEntry::partitionKey)
+                .containsExactly("key-0", "key-3", "key-6", "key-9", "key-12", "key-15", "key-18", "key-21", "key-24", "key-27");
+        assertThat(client.delivered).hasSize(30).doesNotHaveDuplicates();
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+    }
+
+    @Test
+    public void shouldHoldBackRecordsFollowingRejectedRecordOfSameKey() throws Exception {
+        // Only the first record of key 'a' is rejected, the following ones of the same request are accepted
+        final AtomicBoolean rejected = new AtomicBoolean();
+        final FakeKinesisClient client = new FakeKinesisClient((request, key) -> key.equals("a") && rejected.compareAndSet(false, true));
+        consumer = new KinesisChangeConsumer(client, RETRY_POLICY);
+        final List<ChangeEvent<Object, Object>> records = List.of(
+                new TestChangeEvent("a", "value-0", "stream"),
+                new TestChangeEvent("b", "value-1", "stream"),
+                new TestChangeEvent("a", "value-2", "stream"),
+                new TestChangeEvent("b", "value-3", "stream"),
+                new TestChangeEvent("a", "value-4", "stream"));
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        consumer.handleBatch(records, committer);
+
+        assertThat(client.requests).hasSize(2);
+        // The accepted records of key 'a' are sent again after the rejected one
+        assertThat(client.requests.get(1).records()).extracting(entry -> entry.data().asUtf8String())
+                .containsExactly("value-0", "value-2", "value-4");
+        assertThat(client.delivered).containsExactly("b", "a", "b", "a", "a", "a", "a");
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+    }
+
+    @Test
+    public void shouldFailWhenEntryIsRejectedRepeatedly() {
+        final FakeKinesisClient client = new FakeKinesisClient((request, key) -> key.equals("key-1"));
+        // Throttling is retried until the retry budget is spent
+        consumer = new KinesisChangeConsumer(client, new RetryPolicy(3, Duration.ofMillis(10), Duration.ofMillis(10), 1.0, 0.0,
+                Duration.ofMillis(200), 100, Duration.ofMillis(1)));
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        assertThatThrownBy(() -> consumer.handleBatch(records(3, "stream"), committer))
+                .isInstanceOf(DebeziumException.class)
+                .hasMessageContaining("retry budget");
+        assertThat(client.delivered).containsExactly("key-0", "key-2");
+        assertThat(committer.getProcessed()).isEmpty();
+        assertThat(committer.isBatchFinished()).isFalse();
+    }
+
+    @Test
+    public void shouldDivertInvalidAndTooLargeRecordsToDeadLetterQueue() throws Exception {
+        final FakeKinesisClient client = new FakeKinesisClient((request, key) -> false) {
+            @Override
+            public PutRecordsResponse putRecords(PutRecordsRequest request) {
+                if (request.records().stream().anyMatch(entry -> entry.partitionKey().equals("key-1"))) {
+                    throw InvalidArgumentException.builder().message("Invalid record").build();
+                }
+                return super.putRecords(request);
+            }
+        };
+        consumer = new KinesisChangeConsumer(client, RETRY_POLICY);
+        final TestDeadLetterStore deadLetters = TestDeadLetterStore.attachTo(consumer);
+        final List<ChangeEvent<Object, Object>> records = records(5, "stream");
+        records.set(3, new TestChangeEvent("key-3", "x".repeat(1024 * 1024), "stream"));
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        consumer.handleBatch(records, committer);
+
+        assertThat(client.delivered).containsExactly("key-0", "key-2", "key-4");
+        assertThat(deadLetters.getRecords()).extracting(DeadLetterRecord::key).containsExactly("key-3", "key-1");
+        assertThat(deadLetters.getRecords()).extracting(DeadLetterRecord::reason)
+                .containsExactly(DeadLetterQueue.REASON_RECORD_TOO_LARGE, DeadLetterQueue.REASON_RECORD_REJECTED);
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+        assertThat(committer.isBatchFinished()).isTrue();
+    }
+
+    @Test
+    public void shouldAggregateRecordsPerShard() throws Exception {
+        final FakeKinesisClient client = new FakeKinesisClient((request, key) -> false);
+        consumer = new KinesisChangeConsumer(client, RETRY_POLICY, 50 * 1024);
+        final List<ChangeEvent<Object, Object>> records = records(100, "stream");
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        consumer.handleBatch(records, committer);
+
+        assertThat(client.requests).hasSize(1);
+        final List<PutRecordsRequestEntry> entries = client.requests.get(0).records();
+        assertThat(entries).hasSize(2);
+        final List<String> deaggregated = new ArrayList<>();
+        for (PutRecordsRequestEntry entry : entries) {
+            final BigInteger shardHashKey = ShardMap.hashKey(entry.partitionKey());
+            for (String[] record : RecordAggregatorTest.deaggregate(entry.data().asByteArray())) {
+                // Every aggregated record belongs to the shard of the aggregate
+                assertThat(ShardMap.hashKey(record[0]).compareTo(ShardMapTest.HALF) < 0)
+                        .isEqualTo(shardHashKey.compareTo(ShardMapTest.HALF) < 0);
+                assertThat(record[1]).isEqualTo("value-" + record[0].substring(4));
+                deaggregated.add(record[0]);
+            }
+        }
+        assertThat(deaggregated).hasSize(100).doesNotHaveDuplicates();
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.kinesis;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+import io.debezium.DebeziumException;
+
+public class PartitionKeyExtractorTest {
+
+    private static final String KEY_WITH_SCHEMA = "{\"schema\":{\"type\":\"struct\",\"fields\":[{\"type\":\"int32\",\"optional\":false,\"field\":\"id\"}],"
+            + "\"optional\":false,\"name\":\"testc.inventory.customers.Key\"},\"payload\":{\"id\":1001}}";
+
+    @Test
+    public void shouldUseWholeKeyByDefault() {
+        final PartitionKeyExtractor extractor = new PartitionKeyExtractor(null, PartitionKeyExtractor.Overflow.HASH);
+
+        assertThat(extractor.extract("{\"id\":1001}")).isEqualTo("{\"id\":1001}");
+    }
+
+    @Test
+    public void shouldExtractField() {
+        final PartitionKeyExtractor extractor = new PartitionKeyExtractor("id", PartitionKeyExtractor.Overflow.HASH);
+
+        assertThat(extractor.extract("{\"id\":1001}")).isEqualTo("1001");
+        assertThat(extractor.extract(" { \"name\" : \"a,}\\\"b\" , \"nested\": {\"id\": 1}, \"list\": [1, {\"x\": \"]\"}], \"id\" : -5.5e3 }"))
+                .isEqualTo("-5.5e3");
+        assertThat(extractor.extract("{\"id\":\"customer\\u0041\\n\"}")).isEqualTo("customerA\n");
+        assertThat(extractor.extract("{\"id\":{\"a\":1,\"b\":2}}")).isEqualTo("{\"a\":1,\"b\":2}");
+    }
+
+    @Test
+    public void shouldExtractNestedField() {
+        final PartitionKeyExtractor extractor = new PartitionKeyExtractor("payload.id", PartitionKeyExtractor.Overflow.HASH);
+
+        assertThat(extractor.extract(KEY_WITH_SCHEMA)).isEqualTo("1001");
+    }
+
+    @Test
+    public void shouldFallBackToWholeKey() {
+        final PartitionKeyExtractor extractor = new PartitionKeyExtractor("payload.id", PartitionKeyExtractor.Overflow.HASH);
+
+        assertThat(extractor.extract("{\"id\":1001}")).isEqualTo("{\"id\":1001}");
+        assertThat(extractor.extract("1001")).isEqualTo("1001");
+        assertThat(extractor.extract("{\"payload\":")).isEqualTo("{\"payload\":");
+        assertThat(extractor.extract("")).isEqualTo("");
+    }
+
+    @Test
+    public void shouldHashLongKeys() {
+        final PartitionKeyExtractor extractor = new PartitionKeyExtractor(null, PartitionKeyExtractor.Overflow.HASH);
+        final String longKey = "k".repeat(1000);
+
+        final String partitionKey = extractor.extract(longKey);
+        assertThat(partitionKey).hasSize(64).matches("[0-9a-f]+");
+        assertThat(extractor.extract(longKey)).isEqualTo(partitionKey);
+        assertThat(extractor.extract(longKey + "x")).isNotEqualTo(partitionKey);
+        assertThat(extractor.extract("k".repeat(256))).isEqualTo("k".repeat(256));
+    }
+
+    @Test
+    public void shouldTruncateLongKeys() {
+        final PartitionKeyExtractor extractor = new PartitionKeyExtractor(null, PartitionKeyExtractor.Overflow.TRUNCATE);
+
+        assertThat(extractor.extract("k".repeat(1000))).isEqualTo("k".repeat(256));
+        assertThat(extractor.extract("k".repeat(255) + "\uD83D\uDE00")).hasSize(255);
+    }
+
+    @Test
+    public void shouldRejectUnknownOverflow() {
+        assertThatThrownBy(() -> PartitionKeyExtractor.Overflow.parse("drop")).isInstanceOf(DebeziumException.class);
+    }
+}
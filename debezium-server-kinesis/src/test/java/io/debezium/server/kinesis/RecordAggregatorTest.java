@@ -0,0 +1,125 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.kinesis;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.debezium.server.TestChangeEvent;
+
+public class RecordAggregatorTest {
+
+    /**
+     * Decodes an aggregated record the way the Kinesis Client Library does.
+     */
+    static List<String[]> deaggregate(byte[] aggregate) throws Exception {
+        assertThat(Arrays.copyOfRange(aggregate, 0, 4)).isEqualTo(RecordAggregator.MAGIC);
+        final byte[] message = Arrays.copyOfRange(aggregate, 4, aggregate.length - 16);
+        final byte[] digest = Arrays.copyOfRange(aggregate, aggregate.length - 16, aggregate.length);
+        assertThat(MessageDigest.getInstance("MD5").digest(message)).isEqualTo(digest);
+
+        final List<String> partitionKeys = new ArrayList<>();
+        final List<String[]> records = new ArrayList<>();
+        final int[] pos = { 0 };
+        while (pos[0] < message.length) {
+            final int tag = (int) readVarint(message, pos);
+            final byte[] field = readBytes(message, pos);
+            if (tag == ((1 << 3) | 2)) {
+                partitionKeys.add(new String(field, StandardCharsets.UTF_8));
+            }
+            else if (tag == ((3 << 3) | 2)) {
+                final int[] recordPos = { 0 };
+                int keyIndex = -1;
+                String data = null;
+                while (recordPos[0] < field.length) {
+                    final int recordTag = (int) readVarint(field, recordPos);
+                    if (recordTag == (1 << 3)) {
+                        keyIndex = (int) readVarint(field, recordPos);
+                    }
+                    else if (recordTag == ((3 << 3) | 2)) {
+                        data = new String(readBytes(field, recordPos), StandardCharsets.UTF_8);
+                    }
+                }
+                records.add(new String[]{ String.valueOf(keyIndex), data });
+            }
+        }
+        for (String[] record : records) {
+            record[0] = partitionKeys.get(Integer.parseInt(record[0]));
+        }
+        return records;
+    }
+
+    private static long readVarint(byte[] buffer, int[] pos) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer[pos[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static byte[] readBytes(byte[] buffer, int[] pos) {
+        final int length = (int) readVarint(buffer, pos);
+        final byte[] value = Arrays.copyOfRange(buffer, pos[0], pos[0] + length);
+        pos[0] += length;
+        return value;
+    }
+
+    @Test
+    public void shouldEncodeAggregatedRecord() throws Exception {
+        final RecordAggregator aggregator = new RecordAggregator(50 * 1024);
+        final String largeValue = "v".repeat(300);
+        assertThat(aggregator.add(new TestChangeEvent("a", "1", "s"), "a", "1".getBytes(StandardCharsets.UTF_8))).isTrue();
+        assertThat(aggregator.add(new TestChangeEvent("b", "2", "s"), "b", largeValue.getBytes(StandardCharsets.UTF_8))).isTrue();
+        assertThat(aggregator.add(new TestChangeEvent("a", "3", "s"), "a", "3".getBytes(StandardCharsets.UTF_8))).isTrue();
+
+        final byte[] aggregate = aggregator.build();
+        final List<String[]> records = deaggregate(aggregate);
+
+        assertThat(records).extracting(r -> r[0]).containsExactly("a", "b", "a");
+        assertThat(records).extracting(r -> r[1]).containsExactly("1", largeValue, "3");
+        assertThat(aggregator.partitionKey()).isEqualTo("a");
+        assertThat(aggregator.records()).hasSize(3);
+    }
+
+    @Test
+    public void shouldSendSingleRecordAsIs() {
+        final RecordAggregator aggregator = new RecordAggregator(50 * 1024);
+        aggregator.add(new TestChangeEvent("a", "1", "s"), "a", "value".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(aggregator.build()).isEqualTo("value".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void shouldRespectMaximumSize() throws Exception {
+        final int maxSize = 1000;
+        final RecordAggregator aggregator = new RecordAggregator(maxSize);
+        int added = 0;
+        while (aggregator.add(new TestChangeEvent("key" + added, "v", "s"), "key" + added, new byte[50])) {
+            added++;
+        }
+
+        final byte[] aggregate = aggregator.build();
+        assertThat(aggregate.length).isLessThanOrEqualTo(maxSize);
+        assertThat(aggregate.length).isGreaterThan(maxSize - 70);
+        assertThat(deaggregate(aggregate)).hasSize(added);
+
+        // The first record is always accepted, it is sent as is when too large to aggregate
+        final RecordAggregator large = new RecordAggregator(maxSize);
+        assertThat(large.add(new TestChangeEvent("k", "v", "s"), "k", new byte[2000])).isTrue();
+        assertThat(large.add(new TestChangeEvent("k", "v", "s"), "k", new byte[1])).isFalse();
+    }
+}
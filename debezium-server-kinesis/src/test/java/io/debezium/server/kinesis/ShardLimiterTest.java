@@ -0,0 +1,83 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.kinesis;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import io.debezium.util.Clock;
+
+public class ShardLimiterTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final Clock clock = now::get;
+
+    @Test
+    public void shouldAdmitBurstOfOneSecond() {
+        final ShardLimiter limiter = new ShardLimiter(1, 1000, 1024 * 1024, clock);
+
+        assertThat(limiter.reserve("shard-0", 500, 1000)).isZero();
+        assertThat(limiter.reserve("shard-0", 500, 1000)).isZero();
+        // An empty bucket still admits a request, the following one waits until the debt is paid off
+        assertThat(limiter.reserve("shard-0", 500, 1000)).isZero();
+        assertThat(limiter.reserve("shard-0", 500, 1000)).isEqualTo(500);
+    }
+
+    @Test
+    public void shouldRefillOverTime() {
+        final ShardLimiter limiter = new ShardLimiter(1, 1000, 1024 * 1024, clock);
+
+        limiter.reserve("shard-0", 1000, 1000);
+        limiter.reserve("shard-0", 400, 1000);
+        assertThat(limiter.reserve("shard-0", 1, 1)).isEqualTo(400);
+
+        now.addAndGet(1000);
+        assertThat(limiter.reserve("shard-0", 1, 1)).isZero();
+    }
+
+    @Test
+    public void shouldLimitBytes() {
+        final ShardLimiter limiter = new ShardLimiter(1, 1000, 1000, clock);
+
+        limiter.reserve("shard-0", 1, 3000);
+        assertThat(limiter.reserve("shard-0", 1, 1)).isEqualTo(2000);
+    }
+
+    @Test
+    public void shouldKeepShardsIndependent() {
+        final ShardLimiter limiter = new ShardLimiter(1, 1000, 1024 * 1024, clock);
+
+        limiter.reserve("shard-0", 2000, 1);
+        assertThat(limiter.reserve("shard-0", 1, 1)).isGreaterThan(0);
+        assertThat(limiter.reserve("shard-1", 1, 1)).isZero();
+    }
+
+    @Test
+    public void shouldLimitRequestsInFlight() throws Exception {
+        final ShardLimiter limiter = new ShardLimiter(2, 1000, 1024 * 1024, clock);
+
+        limiter.acquire("shard-0");
+        limiter.acquire("shard-0");
+        final Thread blocked = new Thread(() -> {
+            try {
+                limiter.acquire("shard-0");
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        blocked.start();
+        blocked.join(200);
+        assertThat(blocked.isAlive()).isTrue();
+
+        limiter.release("shard-0");
+        blocked.join(5000);
+        assertThat(blocked.isAlive()).isFalse();
+    }
+}
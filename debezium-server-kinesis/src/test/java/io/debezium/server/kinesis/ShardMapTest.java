@@ -0,0 +1,102 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.kinesis;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import io.debezium.DebeziumException;
+import io.debezium.util.Clock;
+
+import software.amazon.awssdk.services.kinesis.model.HashKeyRange;
+import software.amazon.awssdk.services.kinesis.model.SequenceNumberRange;
+import software.amazon.awssdk.services.kinesis.model.Shard;
+
+public class ShardMapTest {
+
+    static final BigInteger MAX_HASH_KEY = BigInteger.TWO.pow(128).subtract(BigInteger.ONE);
+    static final BigInteger HALF = BigInteger.TWO.pow(127);
+
+    static Shard shard(String id, BigInteger start, BigInteger end, boolean open) {
+        return Shard.builder()
+                .shardId(id)
+                .hashKeyRange(HashKeyRange.builder().startingHashKey(start.toString()).endingHashKey(end.toString()).build())
+                .sequenceNumberRange(SequenceNumberRange.builder().startingSequenceNumber("1").endingSequenceNumber(open ? null : "2").build())
+                .build();
+    }
+
+    static List<Shard> twoShards() {
+        return List.of(
+                shard("shard-1", HALF, MAX_HASH_KEY, true),
+                shard("shard-0", BigInteger.ZERO, HALF.subtract(BigInteger.ONE), true));
+    }
+
+    private final AtomicLong now = new AtomicLong();
+    private final Clock clock = now::get;
+
+    @Test
+    public void shouldHashPartitionKeyWithMd5() throws Exception {
+        final byte[] md5 = MessageDigest.getInstance("MD5").digest("customer-1".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(ShardMap.hashKey("customer-1")).isEqualTo(new BigInteger(1, md5));
+        assertThat(ShardMap.hashKey("customer-1").signum()).isGreaterThanOrEqualTo(0);
+    }
+
+    @Test
+    public void shouldMapHashKeyToShardRange() {
+        final ShardMap shardMap = new ShardMap(stream -> twoShards(), 1000, clock);
+
+        assertThat(shardMap.shardFor("s", BigInteger.ZERO)).isEqualTo("shard-0");
+        assertThat(shardMap.shardFor("s", HALF.subtract(BigInteger.ONE))).isEqualTo("shard-0");
+        assertThat(shardMap.shardFor("s", HALF)).isEqualTo("shard-1");
+        assertThat(shardMap.shardFor("s", MAX_HASH_KEY)).isEqualTo("shard-1");
+    }
+
+    @Test
+    public void shouldIgnoreClosedShards() {
+        final ShardMap shardMap = new ShardMap(stream -> List.of(
+                shard("parent", BigInteger.ZERO, MAX_HASH_KEY, false),
+                shard("child-0", BigInteger.ZERO, HALF.subtract(BigInteger.ONE), true),
+                shard("child-1", HALF, MAX_HASH_KEY, true)), 1000, clock);
+
+        assertThat(shardMap.shardFor("s", BigInteger.ONE)).isEqualTo("child-0");
+        assertThat(shardMap.shardFor("s", MAX_HASH_KEY)).isEqualTo("child-1");
+    }
+
+    @Test
+    public void shouldCacheAndRefreshShards() {
+        final AtomicInteger listings = new AtomicInteger();
+        final ShardMap shardMap = new ShardMap(stream -> {
+            listings.incrementAndGet();
+            return twoShards();
+        }, 1000, clock);
+
+        shardMap.shardFor("s", BigInteger.ONE);
+        now.addAndGet(999);
+        shardMap.shardFor("s", BigInteger.ONE);
+        assertThat(listings.get()).isEqualTo(1);
+
+        now.addAndGet(1);
+        shardMap.shardFor("s", BigInteger.ONE);
+        assertThat(listings.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldFailForStreamWithoutOpenShards() {
+        final ShardMap shardMap = new ShardMap(stream -> List.of(shard("closed", BigInteger.ZERO, MAX_HASH_KEY, false)), 1000, clock);
+
+        assertThatThrownBy(() -> shardMap.shardFor("s", BigInteger.ONE)).isInstanceOf(DebeziumException.class);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.kinesis;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.debezium.util.Clock;
+
+public class ThrottlingControllerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final Clock clock = now::get;
+    private final ThrottlingController controller = new ThrottlingController(100, 5000, 0.5, 50, 10, clock, new Random(42));
+
+    @AfterEach
+    public void tearDown() {
+        controller.close();
+    }
+
+    @Test
+    public void shouldNotLimitUntilThrottled() {
+        for (int i = 0; i < 100; i++) {
+            assertThat(controller.reserve("s/shard-0", 500)).isZero();
+        }
+        assertThat(controller.getRateLimitedShards()).isZero();
+        assertThat(controller.getMinSendRate()).isEqualTo(-1);
+    }
+
+    @Test
+    public void shouldHalveObservedRateWhenThrottled() {
+        // 2000 records in one second
+        for (int i = 0; i < 4; i++) {
+            controller.reserve("s/shard-0", 500);
+            now.addAndGet(250);
+        }
+        controller.throttled("s/shard-0", 100);
+
+        assertThat(controller.getMinSendRate()).isCloseTo(1000, within(1.0));
+        assertThat(controller.getRateLimitedShards()).isEqualTo(1);
+        assertThat(controller.getThrottledRecords()).isEqualTo(100);
+
+        controller.throttled("s/shard-0", 100);
+        assertThat(controller.getMinSendRate()).isCloseTo(500, within(1.0));
+        assertThat(controller.getRateDecreases()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldIncreaseRateAdditively() {
+        controller.reserve("s/shard-0", 1000);
+        now.addAndGet(1000);
+        controller.throttled("s/shard-0", 1);
+        final double rate = controller.getMinSendRate();
+
+        controller.succeeded("s/shard-0");
+        controller.succeeded("s/shard-0");
+
+        assertThat(controller.getMinSendRate()).isCloseTo(rate + 100, within(0.001));
+    }
+
+    @Test
+    public void shouldNotDecreaseBelowMinimalRate() {
+        controller.reserve("s/shard-0", 1);
+        for (int i = 0; i < 20; i++) {
+            controller.throttled("s/shard-0", 1);
+        }
+        assertThat(controller.getMinSendRate()).isEqualTo(10);
+    }
+
+    @Test
+    public void shouldBackOffWithDecorrelatedJitter() {
+        controller.reserve("s/shard-0", 1);
+        long previous = 0;
+        for (int i = 0; i < 20; i++) {
+            final long before = controller.getBackoffTimeMs();
+            controller.throttled("s/shard-0", 1);
+            final long backoff = controller.getBackoffTimeMs() - before;
+            assertThat(backoff).isBetween(100L, Math.min(5000L, Math.max(100L, previous * 3)));
+            previous = backoff;
+        }
+
+        // The shard waits for the backoff, other shards are not affected
+        assertThat(controller.reserve("s/shard-0", 1)).isGreaterThanOrEqualTo(previous);
+        assertThat(controller.reserve("s/shard-1", 1)).isZero();
+
+        // An accepted request resets the backoff
+        now.addAndGet(60_000);
+        controller.succeeded("s/shard-0");
+        final long before = controller.getBackoffTimeMs();
+        controller.throttled("s/shard-0", 1);
+        assertThat(controller.getBackoffTimeMs() - before).isEqualTo(100);
+    }
+
+    @Test
+    public void shouldPaceAtLimitedRate() {
+        controller.reserve("s/shard-0", 200);
+        now.addAndGet(1000);
+        controller.throttled("s/shard-0", 1);
+        // Rate is now 100 records/s
+        now.addAndGet(60_000);
+
+        assertThat(controller.reserve("s/shard-0", 100)).isZero();
+        assertThat(controller.reserve("s/shard-0", 100)).isZero();
+        assertThat(controller.reserve("s/shard-0", 100)).isEqualTo(1000);
+    }
+}
@@ -9,6 +9,7 @@
 import java.io.FileInputStream;
 import java.security.KeyStore;
 import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -35,8 +36,14 @@
 import io.debezium.engine.DebeziumEngine.RecordCommitter;
 import io.debezium.server.BaseChangeConsumer;
 import io.debezium.server.CustomConsumerBuilder;
+import io.debezium.server.DestinationRun;
+import io.debezium.server.retry.ErrorKind;
+import io.debezium.server.retry.RetryExecutor;
+import io.debezium.server.retry.RetryPolicy;
+import io.debezium.server.retry.SendResult;
 import io.nats.client.Connection;
 import io.nats.client.JetStream;
+import io.nats.client.JetStreamApiException;
 import io.nats.client.JetStreamManagement;
 import io.nats.client.Nats;
 import io.nats.client.Options;
@@ -71,6 +78,7 @@ public class NatsJetStreamChangeConsumer extends BaseChangeConsumer
 
     private Connection nc;
     private JetStream js;
+    private RetryExecutor retryExecutor;
 
     @ConfigProperty(name = PROP_CREATE_STREAM, defaultValue = "false")
     boolean createStream;
@@ -105,6 +113,7 @@ void connect() {
         // Read config
         final Config config = ConfigProvider.getConfig();
         String url = config.getValue(PROP_URL, String.class);
+        retryExecutor = new RetryExecutor("nats-jetstream", RetryPolicy.fromConfig(config, PROP_PREFIX), NatsJetStreamChangeConsumer::classify);
 
         if (customStreamingConnection.isResolvable()) {
             js = customStreamingConnection.get();
@@ -161,6 +170,9 @@ else if (tlsKeyStore.isPresent() && tlsKeyStorePassword.isPresent() && tlsPasswo
 
     @PreDestroy
     void close() {
+        if (retryExecutor != null) {
+            retryExecutor.close();
+        }
         try {
             if (nc != null) {
                 nc.close();
@@ -177,24 +189,51 @@ public void handleBatch(List<ChangeEvent<Object, Object>> records,
                             RecordCommitter<ChangeEvent<Object, Object>> committer)
             throws InterruptedException {
 
-        for (ChangeEvent<Object, Object> rec : records) {
-            if (rec.value() != null) {
-                String subject = streamNameMapper.map(rec.destination());
-                byte[] recordBytes = getBytes(rec.value());
-                LOGGER.trace("Received event @ {} = '{}'", subject, getString(rec.value()));
-
-                try {
-                    js.publish(subject, recordBytes);
-                }
-                catch (Exception e) {
-                    throw new DebeziumException(e);
+        for (DestinationRun run : DestinationRun.partition(records)) {
+            final String subject = streamName(run.destination());
+            final List<ChangeEvent<Object, Object>> pending = new ArrayList<>(run.records().size());
+            for (ChangeEvent<Object, Object> rec : run.records()) {
+                if (rec.value() != null) {
+                    LOGGER.trace("Received event @ {} = '{}'", subject, getString(rec.value()));
+                    pending.add(rec);
                 }
             }
+            retryExecutor.execute(subject, pending, (items, result) -> publish(subject, items, result));
+        }
+        for (ChangeEvent<Object, Object> rec : records) {
             committer.markProcessed(rec);
         }
         committer.markBatchFinished();
     }
 
+    /**
+     * Publishes the records one after another. When a record fails, it and the records following it are reported
+     * as failed so that no record is published ahead of a record that precedes it.
+     */
+    private void publish(String subject, List<ChangeEvent<Object, Object>> records, SendResult<ChangeEvent<Object, Object>> result) {
+        for (int i = 0; i < records.size(); i++) {
+            try {
+                js.publish(subject, getBytes(records.get(i).value()));
+            }
+            catch (Exception e) {
+                final ErrorKind kind = classify(e);
+                for (ChangeEvent<Object, Object> rec : records.subList(i, records.size())) {
+                    result.failed(rec, kind, e);
+                }
+                return;
+            }
+        }
+    }
+
+    private static ErrorKind classify(Throwable error) {
+        // The stream rejected the message, e.g. no stream matches the subject, or the connection is closed and
+        // reconnection is disabled
+        if (error instanceof JetStreamApiException || error instanceof IllegalStateException) {
+            return ErrorKind.FATAL;
+        }
+        return ErrorKind.RETRIABLE;
+    }
+
     private static SSLContext sslAuthContext(String keystorePath, String keystorePassword,
                                              String password)
             throws Exception {
@@ -5,6 +5,7 @@
  */
 package io.debezium.server.nats.streaming;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import jakarta.annotation.PostConstruct;
@@ -25,6 +26,11 @@
 import io.debezium.engine.DebeziumEngine.RecordCommitter;
 import io.debezium.server.BaseChangeConsumer;
 import io.debezium.server.CustomConsumerBuilder;
+import io.debezium.server.DestinationRun;
+import io.debezium.server.retry.ErrorKind;
+import io.debezium.server.retry.RetryExecutor;
+import io.debezium.server.retry.RetryPolicy;
+import io.debezium.server.retry.SendResult;
 import io.nats.client.Connection;
 import io.nats.client.Nats;
 import io.nats.streaming.NatsStreaming;
@@ -53,6 +59,7 @@ public class NatsStreamingChangeConsumer extends BaseChangeConsumer
 
     private Connection nc;
     private StreamingConnection sc;
+    private RetryExecutor retryExecutor;
 
     @Inject
     @CustomConsumerBuilder
@@ -60,6 +67,9 @@ public class NatsStreamingChangeConsumer extends BaseChangeConsumer
 
     @PostConstruct
     void connect() {
+        retryExecutor = new RetryExecutor("nats-streaming", RetryPolicy.fromConfig(ConfigProvider.getConfig(), PROP_PREFIX),
+                NatsStreamingChangeConsumer::classify);
+
         if (customStreamingConnection.isResolvable()) {
             sc = customStreamingConnection.get();
             LOGGER.info("Obtained custom configured StreamingConnection '{}'", sc);
@@ -95,6 +105,9 @@ void connect() {
 
     @PreDestroy
     void close() {
+        if (retryExecutor != null) {
+            retryExecutor.close();
+        }
         try {
             if (sc != null) {
                 sc.close();
@@ -116,21 +129,49 @@ public void handleBatch(List<ChangeEvent<Object, Object>> records,
                             RecordCommitter<ChangeEvent<Object, Object>> committer)
             throws InterruptedException {
 
-        for (ChangeEvent<Object, Object> record : records) {
-            if (record.value() != null) {
-                String subject = streamNameMapper.map(record.destination());
-                byte[] recordBytes = getBytes(record.value());
-                LOGGER.trace("Received event @ {} = '{}'", subject, getString(record.value()));
-
-                try {
-                    sc.publish(subject, recordBytes);
-                }
-                catch (Exception e) {
-                    throw new DebeziumException(e);
+        for (DestinationRun run : DestinationRun.partition(records)) {
+            final String subject = streamName(run.destination());
+            final List<ChangeEvent<Object, Object>> pending = new ArrayList<>(run.records().size());
+            for (ChangeEvent<Object, Object> record : run.records()) {
+                if (record.value() != null) {
+                    LOGGER.trace("Received event @ {} = '{}'", subject, getString(record.value()));
+                    pending.add(record);
                 }
             }
+            retryExecutor.execute(subject, pending, (items, result) -> publish(subject, items, result));
+        }
+        for (ChangeEvent<Object, Object> record : records) {
             committer.markProcessed(record);
         }
         committer.markBatchFinished();
     }
+
+    /**
+     * Publishes the records one after another, waiting for the acknowledgement of each. When a record fails, it and
+     * the records following it are reported as failed so that no record is published ahead of a record that
+     * precedes it.
+     */
+    private void publish(String subject, List<ChangeEvent<Object, Object>> records, SendResult<ChangeEvent<Object, Object>> result)
+            throws InterruptedException {
+        for (int i = 0; i < records.size(); i++) {
+            try {
+                sc.publish(subject, getBytes(records.get(i).value()));
+            }
+            catch (InterruptedException e) {
+                throw e;
+            }
+            catch (Exception e) {
+                final ErrorKind kind = classify(e);
+                for (ChangeEvent<Object, Object> record : records.subList(i, records.size())) {
+                    result.failed(record, kind, e);
+                }
+                return;
+            }
+        }
+    }
+
+    private static ErrorKind classify(Throwable error) {
+        // The connection is closed and reconnection is disabled
+        return (error instanceof IllegalStateException) ? ErrorKind.FATAL : ErrorKind.RETRIABLE;
+    }
 }
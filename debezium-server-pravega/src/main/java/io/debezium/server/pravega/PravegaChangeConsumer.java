@@ -89,7 +89,7 @@ class PravegaSinkImpl implements PravegaSink {
         @Override
         public void handleBatch(List<ChangeEvent<Object, Object>> records, RecordCommitter<ChangeEvent<Object, Object>> committer) throws InterruptedException {
             for (ChangeEvent<Object, Object> changeEvent : records) {
-                String streamName = streamNameMapper.map(changeEvent.destination());
+                String streamName = streamName(changeEvent.destination());
                 final EventStreamWriter<byte[]> writer = writers.computeIfAbsent(streamName, (stream) -> createWriter(stream));
                 if (changeEvent.key() != null) {
                     writer.writeEvent(getString(changeEvent.key()), getBytes(changeEvent.value()));
@@ -121,7 +121,7 @@ class PravegaTxnSinkImpl implements PravegaSink {
         @Override
         public void handleBatch(List<ChangeEvent<Object, Object>> records, RecordCommitter<ChangeEvent<Object, Object>> committer) throws InterruptedException {
             for (ChangeEvent<Object, Object> changeEvent : records) {
-                String streamName = streamNameMapper.map(changeEvent.destination());
+                String streamName = streamName(changeEvent.destination());
                 final Transaction<byte[]> txn = txns.computeIfAbsent(streamName, (stream) -> createTxn(stream));
                 try {
                     if (changeEvent.key() != null) {
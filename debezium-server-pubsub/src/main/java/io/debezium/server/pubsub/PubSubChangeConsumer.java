@@ -55,6 +55,8 @@
 import io.debezium.engine.DebeziumEngine.RecordCommitter;
 import io.debezium.server.BaseChangeConsumer;
 import io.debezium.server.CustomConsumerBuilder;
+import io.debezium.server.DestinationRun;
+import io.debezium.server.encoding.EncodingCache;
 import io.debezium.util.Threads;
 import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
@@ -81,6 +83,7 @@ public interface PublisherBuilder {
 
     private final Map<String, Publisher> publishers = new HashMap<>();
     private PublisherBuilder publisherBuilder;
+    private EncodingCache<ByteString> encodingCache;
 
     @ConfigProperty(name = PROP_PREFIX + "ordering.enabled", defaultValue = "true")
     boolean orderingEnabled;
@@ -149,6 +152,7 @@ public interface PublisherBuilder {
 
     @PostConstruct
     void connect() {
+        encodingCache = createEncodingCache("pubsub", PubSubChangeConsumer::toByteString);
         final Config config = ConfigProvider.getConfig();
         projectId = config.getOptionalValue(PROP_PROJECT_ID, String.class).orElse(ServiceOptions.getDefaultProjectId());
 
@@ -213,6 +217,7 @@ void connect() {
 
     @PreDestroy
     void close() {
+        encodingCache.close();
         publishers.values().forEach(publisher -> {
             try {
                 publisher.shutdown();
@@ -257,16 +262,14 @@ public void handleBatch(List<ChangeEvent<Object, Object>> records, RecordCommitt
 
         final List<ApiFuture<String>> deliveries = new ArrayList<>();
 
-        for (ChangeEvent<Object, Object> record : records) {
-            LOGGER.trace("Received event '{}'", record);
-            final String topicName = streamNameMapper.map(record.destination());
-            Publisher publisher = publishers.computeIfAbsent(topicName, (x) -> publisherBuilder.get(ProjectTopicName.of(projectId, x)));
-
-            PubsubMessage message = buildPubSubMessage(record);
-
-            deliveries.add(publisher.publish(message));
+        for (DestinationRun run : DestinationRun.partition(records)) {
+            final String topicName = streamName(run.destination());
+            final Publisher publisher = publishers.computeIfAbsent(topicName, (x) -> publisherBuilder.get(ProjectTopicName.of(projectId, x)));
 
-            committer.markProcessed(record);
+            for (ChangeEvent<Object, Object> record : run.records()) {
+                LOGGER.trace("Received event '{}'", record);
+                deliveries.add(publisher.publish(buildPubSubMessage(record)));
+            }
         }
         List<String> messageIds;
         try {
@@ -276,6 +279,9 @@ public void handleBatch(List<ChangeEvent<Object, Object>> records, RecordCommitt
             throw new DebeziumException(e);
         }
         LOGGER.trace("Sent messages with ids: {}", messageIds);
+        for (ChangeEvent<Object, Object> record : records) {
+            committer.markProcessed(record);
+        }
         committer.markBatchFinished();
     }
 
@@ -292,7 +298,7 @@ else if (record.key() instanceof String) {
                     pubsubMessage.setOrderingKey((String) record.key());
                 }
                 else if (record.key() instanceof byte[]) {
-                    pubsubMessage.setOrderingKeyBytes(ByteString.copyFrom((byte[]) record.key()));
+                    pubsubMessage.setOrderingKeyBytes(encodingCache.get(record.key()));
                 }
             }
             else {
@@ -300,18 +306,20 @@ else if (record.key() instanceof byte[]) {
             }
         }
 
-        if (record.value() instanceof String) {
-            pubsubMessage.setData(ByteString.copyFromUtf8((String) record.value()));
-        }
-        else if (record.value() instanceof byte[]) {
-            pubsubMessage.setData(ByteString.copyFrom((byte[]) record.value()));
+        if (record.value() instanceof String || record.value() instanceof byte[]) {
+            pubsubMessage.setData(encodingCache.get(record.value()));
         }
 
         pubsubMessage.putAllAttributes(convertHeaders(record));
+        propagateTraceContext(record, pubsubMessage::putAttributes);
 
         return pubsubMessage.build();
     }
 
+    static ByteString toByteString(Object value) {
+        return (value instanceof String) ? ByteString.copyFromUtf8((String) value) : ByteString.copyFrom((byte[]) value);
+    }
+
     @Override
     public boolean supportsTombstoneEvents() {
         return false;
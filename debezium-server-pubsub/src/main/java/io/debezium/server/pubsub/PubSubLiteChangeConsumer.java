@@ -44,6 +44,8 @@
 import io.debezium.engine.DebeziumEngine.RecordCommitter;
 import io.debezium.server.BaseChangeConsumer;
 import io.debezium.server.CustomConsumerBuilder;
+import io.debezium.server.DestinationRun;
+import io.debezium.server.encoding.EncodingCache;
 
 /**
  * Implementation of the consumer that delivers the messages into Google Pub/Sub Lite destination.
@@ -63,6 +65,7 @@ public interface PublisherBuilder {
     }
 
     private PublisherBuilder publisherBuilder;
+    private EncodingCache<ByteString> encodingCache;
     private final Map<String, Publisher> publishers = new HashMap<>();
 
     @ConfigProperty(name = PROP_PREFIX + "ordering.enabled", defaultValue = "true")
@@ -80,6 +83,7 @@ public interface PublisherBuilder {
 
     @PostConstruct
     void connect() {
+        encodingCache = createEncodingCache("pubsublite", PubSubChangeConsumer::toByteString);
         final Config config = ConfigProvider.getConfig();
         String projectId = config.getOptionalValue(PROP_PROJECT_ID, String.class).orElse(ServiceOptions.getDefaultProjectId());
         String region = config.getValue(PROP_REGION, String.class);
@@ -110,6 +114,7 @@ void connect() {
 
     @PreDestroy
     void close() {
+        encodingCache.close();
         publishers.values().forEach(publisher -> {
             try {
                 publisher.stopAsync().awaitTerminated();
@@ -123,16 +128,14 @@ void close() {
     @Override
     public void handleBatch(List<ChangeEvent<Object, Object>> records, RecordCommitter<ChangeEvent<Object, Object>> committer) throws InterruptedException {
         final List<ApiFuture<String>> deliveries = new ArrayList<>();
-        for (ChangeEvent<Object, Object> record : records) {
-            LOGGER.trace("Received event '{}'", record);
-            final String topicName = streamNameMapper.map(record.destination());
-
-            Publisher publisher = publishers.computeIfAbsent(topicName, (topic) -> publisherBuilder.get(topic));
-
-            PubsubMessage message = buildPubSubMessage(record);
+        for (DestinationRun run : DestinationRun.partition(records)) {
+            final String topicName = streamName(run.destination());
+            final Publisher publisher = publishers.computeIfAbsent(topicName, (topic) -> publisherBuilder.get(topic));
 
-            deliveries.add(publisher.publish(message));
-            committer.markProcessed(record);
+            for (ChangeEvent<Object, Object> record : run.records()) {
+                LOGGER.trace("Received event '{}'", record);
+                deliveries.add(publisher.publish(buildPubSubMessage(record)));
+            }
         }
         List<String> messageIds;
         try {
@@ -142,6 +145,9 @@ public void handleBatch(List<ChangeEvent<Object, Object>> records, RecordCommitt
             throw new DebeziumException(e);
         }
         LOGGER.trace("Sent messages with ids: {}", messageIds);
+        for (ChangeEvent<Object, Object> record : records) {
+            committer.markProcessed(record);
+        }
         committer.markBatchFinished();
     }
 
@@ -157,18 +163,16 @@ else if (record.key() instanceof String) {
                 pubsubMessage.setOrderingKey((String) record.key());
             }
             else if (record.key() instanceof byte[]) {
-                pubsubMessage.setOrderingKeyBytes(ByteString.copyFrom((byte[]) record.key()));
+                pubsubMessage.setOrderingKeyBytes(encodingCache.get(record.key()));
             }
         }
 
-        if (record.value() instanceof String) {
-            pubsubMessage.setData(ByteString.copyFromUtf8((String) record.value()));
-        }
-        else if (record.value() instanceof byte[]) {
-            pubsubMessage.setData(ByteString.copyFrom((byte[]) record.value()));
+        if (record.value() instanceof String || record.value() instanceof byte[]) {
+            pubsubMessage.setData(encodingCache.get(record.value()));
         }
 
         pubsubMessage.putAllAttributes(convertHeaders(record));
+        propagateTraceContext(record, pubsubMessage::putAttributes);
 
         return pubsubMessage.build();
     }
@@ -6,6 +6,7 @@
 package io.debezium.server.pulsar;
 
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -35,6 +36,7 @@
 import io.debezium.engine.DebeziumEngine;
 import io.debezium.engine.DebeziumEngine.RecordCommitter;
 import io.debezium.server.BaseChangeConsumer;
+import io.debezium.server.DestinationRun;
 
 /**
  * Implementation of the consumer that delivers the messages into a Pulsar destination.
@@ -131,43 +133,43 @@ private Producer<?> createProducer(String topicName, Object value) {
     public void handleBatch(List<ChangeEvent<Object, Object>> records, RecordCommitter<ChangeEvent<Object, Object>> committer)
             throws InterruptedException {
         final Map<String, Producer<?>> batchProducers = new HashMap<>();
+        final Map<ChangeEvent<Object, Object>, CompletableFuture<?>> sends = new IdentityHashMap<>();
 
-        for (final ChangeEvent<Object, Object> record : records) {
-            LOGGER.trace("Received event '{}'", record);
-            final String topicName = streamNameMapper.map(record.destination());
-            final Producer<?> producer = producers.computeIfAbsent(topicName, (topic) -> createProducer(topic, record.value()));
+        for (DestinationRun run : DestinationRun.partition(records)) {
+            final String topicName = streamName(run.destination());
+            final Producer<?> producer = producers.computeIfAbsent(topicName, (topic) -> createProducer(topic, run.records().get(0).value()));
             batchProducers.put(topicName, producer);
 
-            final String key = (record.key()) == null ? nullKey : getString(record.key());
-            @SuppressWarnings("rawtypes")
-            final TypedMessageBuilder message;
-            if (record.value() instanceof String) {
-                message = producer.newMessage(Schema.STRING);
-            }
-            else {
-                message = producer.newMessage();
-            }
-            message
-                    .properties(convertHeaders(record))
-                    .key(key)
-                    .value(record.value());
-
-            // We will wait for the producers to flush instead of waiting for these individually
-            message.sendAsync()
-                    .whenComplete((messageId, exception) -> {
-                        if (exception == null) {
-                            LOGGER.trace("Sent message with id: {}", messageId);
-                            try {
-                                committer.markProcessed(record);
+            for (final ChangeEvent<Object, Object> record : run.records()) {
+                LOGGER.trace("Received event '{}'", record);
+
+                final String key = (record.key()) == null ? nullKey : getString(record.key());
+                @SuppressWarnings("rawtypes")
+                final TypedMessageBuilder message;
+                if (record.value() instanceof String) {
+                    message = producer.newMessage(Schema.STRING);
+                }
+                else {
+                    message = producer.newMessage();
+                }
+                final Map<String, String> properties = convertHeaders(record);
+                propagateTraceContext(record, properties::put);
+                message
+                        .properties(properties)
+                        .key(key)
+                        .value(record.value());
+
+                // We will wait for the producers to flush instead of waiting for these individually
+                sends.put(record, message.sendAsync()
+                        .whenComplete((messageId, exception) -> {
+                            if (exception == null) {
+                                LOGGER.trace("Sent message with id: {}", messageId);
                             }
-                            catch (InterruptedException e) {
-                                throw new DebeziumException(e);
+                            else {
+                                LOGGER.error("Failed to send record to {} destination", record.destination(), exception);
                             }
-                        }
-                        else {
-                            LOGGER.error("Failed to send record to {} destination", record.destination(), exception);
-                        }
-                    });
+                        }));
+            }
         }
 
         // Flush all producers asynchronously
@@ -193,6 +195,17 @@ public void handleBatch(List<ChangeEvent<Object, Object>> records, RecordCommitt
             throw new DebeziumException(exception);
         }
 
+        // The records are marked in the batch order, not in the order of the runs, so a record is never marked
+        // before a record that precedes it in the batch
+        for (ChangeEvent<Object, Object> record : records) {
+            try {
+                sends.get(record).get();
+            }
+            catch (ExecutionException e) {
+                throw new DebeziumException("Failed to send record to destination '" + record.destination() + "'", e.getCause());
+            }
+            committer.markProcessed(record);
+        }
         committer.markBatchFinished();
     }
 }
@@ -136,8 +136,8 @@ public void handleBatch(List<ChangeEvent<Object, Object>> records, RecordCommitt
             LOGGER.trace("Received event '{}'", record);
 
             final var routingKeyName = routingKey
-                    .orElse(routingKeyFromTopicName ? streamNameMapper.map(record.destination()) : "");
-            final var exchangeName = exchange.orElse(streamNameMapper.map(record.destination()));
+                    .orElse(routingKeyFromTopicName ? streamName(record.destination()) : "");
+            final var exchangeName = exchange.orElse(streamName(record.destination()));
 
             try {
                 if (routingKeyFromTopicName && autoCreateRoutingKey) {
@@ -177,6 +177,7 @@ private Map<String, Object> convertRabbitMqHeaders(ChangeEvent<Object, Object> r
         for (Header<Object> header : headers) {
             rabbitMqHeaders.put(header.getKey(), header.getValue());
         }
+        propagateTraceContext(record, rabbitMqHeaders::put);
         return rabbitMqHeaders;
     }
 }
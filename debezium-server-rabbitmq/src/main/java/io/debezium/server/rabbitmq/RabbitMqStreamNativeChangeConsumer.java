@@ -145,7 +145,7 @@ public void handleBatch(List<ChangeEvent<Object, Object>> records, RecordCommitt
             LOGGER.trace("Received event '{}'", record);
 
             try {
-                String topic = stream.orElse(streamNameMapper.map(record.destination()));
+                String topic = stream.orElse(streamName(record.destination()));
 
                 Producer producer = streamProducers.get(topic);
                 if (producer == null) {
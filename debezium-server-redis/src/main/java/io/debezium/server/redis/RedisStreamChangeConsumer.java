@@ -172,7 +172,7 @@ public void handleBatch(List<ChangeEvent<Object, Object>> records,
 
                         List<SimpleEntry<String, Map<String, String>>> recordsMap = new ArrayList<>(clonedBatch.size());
                         for (ChangeEvent<Object, Object> record : clonedBatch) {
-                            String destination = streamNameMapper.map(record.destination());
+                            String destination = streamName(record.destination());
                             Map<String, String> recordMap = recordMapFunction.apply(record);
                             recordsMap.add(new SimpleEntry<>(destination, recordMap));
                         }
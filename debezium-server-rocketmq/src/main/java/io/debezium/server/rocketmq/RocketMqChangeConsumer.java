@@ -38,6 +38,7 @@
 import io.debezium.engine.DebeziumEngine;
 import io.debezium.server.BaseChangeConsumer;
 import io.debezium.server.CustomConsumerBuilder;
+import io.debezium.server.DestinationRun;
 
 /**
  * rocketmq change consumer
@@ -132,34 +133,10 @@ void close() {
     public void handleBatch(List<ChangeEvent<Object, Object>> records, DebeziumEngine.RecordCommitter<ChangeEvent<Object, Object>> committer)
             throws InterruptedException {
         final CountDownLatch latch = new CountDownLatch(records.size());
-        for (ChangeEvent<Object, Object> record : records) {
-            try {
-                final String topicName = streamNameMapper.map(record.destination());
-                String key = getString(record.key());
-
-                Message message = new Message(topicName, null, key, getBytes(record.value()));
-
-                Map<String, String> headers = convertHeaders(record);
-                for (Map.Entry<String, String> entry : headers.entrySet()) {
-                    message.putUserProperty(entry.getKey(), entry.getValue());
-                }
-
-                mqProducer.send(message, new SelectMessageQueueByHash(), key, new SendCallback() {
-                    @Override
-                    public void onSuccess(SendResult sendResult) {
-                        LOGGER.debug("Sent message with offset: {}", sendResult.getQueueOffset());
-                        latch.countDown();
-                    }
-
-                    @Override
-                    public void onException(Throwable throwable) {
-                        LOGGER.error("Failed to send record to {}:", record.destination(), throwable);
-                        throw new DebeziumException(throwable);
-                    }
-                });
-            }
-            catch (Exception e) {
-                throw new DebeziumException(e);
+        for (DestinationRun run : DestinationRun.partition(records)) {
+            final String topicName = streamName(run.destination());
+            for (ChangeEvent<Object, Object> record : run.records()) {
+                sendRecord(topicName, record, latch);
             }
         }
 
@@ -172,4 +149,35 @@ public void onException(Throwable throwable) {
         committer.markBatchFinished();
     }
 
+    private void sendRecord(String topicName, ChangeEvent<Object, Object> record, CountDownLatch latch) {
+        try {
+            String key = getString(record.key());
+
+            Message message = new Message(topicName, null, key, getBytes(record.value()));
+
+            Map<String, String> headers = convertHeaders(record);
+            for (Map.Entry<String, String> entry : headers.entrySet()) {
+                message.putUserProperty(entry.getKey(), entry.getValue());
+            }
+            propagateTraceContext(record, message::putUserProperty);
+
+            mqProducer.send(message, new SelectMessageQueueByHash(), key, new SendCallback() {
+                @Override
+                public void onSuccess(SendResult sendResult) {
+                    LOGGER.debug("Sent message with offset: {}", sendResult.getQueueOffset());
+                    latch.countDown();
+                }
+
+                @Override
+                public void onException(Throwable throwable) {
+                    LOGGER.error("Failed to send record to {}:", record.destination(), throwable);
+                    throw new DebeziumException(throwable);
+                }
+            });
+        }
+        catch (Exception e) {
+            throw new DebeziumException(e);
+        }
+    }
+
 }
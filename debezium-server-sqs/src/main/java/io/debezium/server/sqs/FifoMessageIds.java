@@ -0,0 +1,175 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.sqs;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import io.debezium.DebeziumException;
+
+/**
+ * Derives the message group and the deduplication id of the messages sent to a FIFO queue.
+ * <ul>
+ * <li>The message group is either a single static group, the record key, or one of a fixed number of buckets the
+ * keys are hashed into. SQS delivers the groups in parallel while keeping the order within a group, so the order
+ * of the changes of a row is kept as long as the group is derived from the key.</li>
+ * <li>The deduplication id is derived from the record key and the position of the change in the source, taken from
+ * the {@code source} block of the value. A change that is sent again after a restart gets the same id and is
+ * deduplicated by SQS. Values without a {@code source} block, e.g. when the new record state is extracted, are
+ * identified by their content.</li>
+ * </ul>
+ */
+class FifoMessageIds {
+
+    // Limit of the message group and the deduplication id
+    static final int MAX_ID_LENGTH = 128;
+
+    enum GroupStrategy {
+        STATIC("static"),
+        KEY("key"),
+        HASH("hash");
+
+        private final String value;
+
+        GroupStrategy(String value) {
+            this.value = value;
+        }
+
+        static GroupStrategy parse(String value) {
+            for (GroupStrategy strategy : values()) {
+                if (strategy.value.equalsIgnoreCase(value)) {
+                    return strategy;
+                }
+            }
+            throw new DebeziumException("Unknown message group strategy '" + value + "'");
+        }
+    }
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final GroupStrategy groupStrategy;
+    private final String staticGroupId;
+    private final int groupBuckets;
+    private final boolean sourceDeduplication;
+
+    /**
+     * @param groupStrategy         How the message group is derived.
+     * @param staticGroupId         The group of the {@link GroupStrategy#STATIC} strategy and of records without key.
+     * @param groupBuckets          Number of groups of the {@link GroupStrategy#HASH} strategy.
+     * @param sourceDeduplication   Whether the deduplication id is derived from the source position, otherwise the
+     *                              queue must have content-based deduplication enabled.
+     */
+    FifoMessageIds(GroupStrategy groupStrategy, String staticGroupId, int groupBuckets, boolean sourceDeduplication) {
+        if (groupStrategy == GroupStrategy.HASH && groupBuckets <= 0) {
+            throw new DebeziumException("The number of message groups must be positive");
+        }
+        this.groupStrategy = groupStrategy;
+        this.staticGroupId = staticGroupId;
+        this.groupBuckets = groupBuckets;
+        this.sourceDeduplication = sourceDeduplication;
+    }
+
+    String groupId(String key) {
+        if (key == null) {
+            return staticGroupId;
+        }
+        switch (groupStrategy) {
+            case KEY:
+                return isValidId(key) ? key : sha256(key);
+            case HASH:
+                return "group-" + Math.floorMod(key.hashCode(), groupBuckets);
+            default:
+                return staticGroupId;
+        }
+    }
+
+    /**
+     * @return the deduplication id, {@code null} when content-based deduplication is used
+     */
+    String deduplicationId(String destination, String key, String value) {
+        if (!sourceDeduplication) {
+            return null;
+        }
+        final String position = sourcePosition(value);
+        return sha256(destination + '\n' + key + '\n' + ((position != null) ? position : value));
+    }
+
+    /**
+     * @return the serialized {@code source} block of the value, with or without the schema envelope, {@code null}
+     *         if the value has none
+     */
+    static String sourcePosition(String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        try (JsonParser parser = JSON.createParser(value)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            return findSource(parser, value, true);
+        }
+        catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String findSource(JsonParser parser, String value, boolean topLevel) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            final JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_OBJECT) {
+                if ("source".equals(field)) {
+                    final int start = (int) parser.getTokenLocation().getCharOffset();
+                    parser.skipChildren();
+                    return value.substring(start, (int) parser.getCurrentLocation().getCharOffset());
+                }
+                if (topLevel && "payload".equals(field)) {
+                    return findSource(parser, value, false);
+                }
+            }
+            parser.skipChildren();
+        }
+        return null;
+    }
+
+    /**
+     * SQS accepts alphanumeric and punctuation characters of at most 128 characters as the message group.
+     */
+    private static boolean isValidId(String id) {
+        if (id.isEmpty() || id.length() > MAX_ID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < id.length(); i++) {
+            final char c = id.charAt(i);
+            if (c < '!' || c > '~') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String sha256(String value) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            final char[] hex = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                hex[i * 2] = HEX[(digest[i] >> 4) & 0xF];
+                hex[i * 2 + 1] = HEX[digest[i] & 0xF];
+            }
+            return new String(hex);
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new DebeziumException("SHA-256 is not available", e);
+        }
+    }
+}
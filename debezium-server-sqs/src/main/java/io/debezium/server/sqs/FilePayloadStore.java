@@ -0,0 +1,47 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.sqs;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Stores the payloads as files of a local directory, the directory is used as the bucket name. Intended for testing
+ * and for consumers sharing a file system with the server.
+ */
+public class FilePayloadStore implements PayloadStore {
+
+    private final Path directory;
+
+    public FilePayloadStore(Path directory) {
+        this.directory = directory.toAbsolutePath();
+    }
+
+    @Override
+    public String bucket() {
+        return directory.toString();
+    }
+
+    @Override
+    public void store(String key, byte[] payload) throws IOException {
+        Files.createDirectories(directory);
+        // A payload is visible only once completely written
+        final Path temporary = directory.resolve(key + ".tmp");
+        Files.write(temporary, payload);
+        Files.move(temporary, directory.resolve(key), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public String toString() {
+        return "file '" + directory + "'";
+    }
+}
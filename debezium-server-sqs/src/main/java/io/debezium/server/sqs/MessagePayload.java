@@ -0,0 +1,101 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.sqs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import io.debezium.DebeziumException;
+
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+
+/**
+ * Body and attributes of an SQS message. Besides plain bodies there are two encodings:
+ * <ul>
+ * <li>Compressed, the body is the Base64 encoded GZIP of the payload and the {@value #ATTRIBUTE_CONTENT_ENCODING}
+ * attribute is set to {@value #CONTENT_ENCODING_GZIP}.</li>
+ * <li>Offloaded, the payload is stored in a {@link PayloadStore} and the body is a pointer to it. The pointer and
+ * the {@value #ATTRIBUTE_EXTENDED_PAYLOAD_SIZE} attribute follow the convention of the SQS Extended Client, so its
+ * consumers resolve the payload transparently.</li>
+ * </ul>
+ */
+final class MessagePayload {
+
+    static final String ATTRIBUTE_CONTENT_ENCODING = "ContentEncoding";
+    static final String CONTENT_ENCODING_GZIP = "gzip";
+    static final String ATTRIBUTE_EXTENDED_PAYLOAD_SIZE = "ExtendedPayloadSize";
+    static final String POINTER_CLASS = "software.amazon.payloadoffloading.PayloadS3Pointer";
+
+    final String body;
+    final Map<String, MessageAttributeValue> attributes;
+    // Size of the body and the attributes as counted towards the message size limit
+    final int size;
+
+    private MessagePayload(String body, Map<String, MessageAttributeValue> attributes, int size) {
+        this.body = body;
+        this.attributes = attributes;
+        this.size = size;
+    }
+
+    static MessagePayload plain(String body, int size) {
+        return new MessagePayload(body, Map.of(), size);
+    }
+
+    /**
+     * @return the compressed payload, {@code null} if the compressed payload is not smaller
+     */
+    static MessagePayload compressed(String body, int size) {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream(size / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        catch (IOException e) {
+            throw new DebeziumException("Failed to compress message", e);
+        }
+        final String encoded = Base64.getEncoder().encodeToString(compressed.toByteArray());
+        final Map<String, MessageAttributeValue> attributes = Map.of(ATTRIBUTE_CONTENT_ENCODING, stringAttribute(CONTENT_ENCODING_GZIP));
+        final int compressedSize = encoded.length() + attributesSize(attributes);
+        return (compressedSize < size) ? new MessagePayload(encoded, attributes, compressedSize) : null;
+    }
+
+    /**
+     * @param payloadSize   Size of the offloaded payload in bytes.
+     */
+    static MessagePayload pointer(String bucket, String key, int payloadSize) {
+        final JsonStringEncoder encoder = JsonStringEncoder.getInstance();
+        final String body = "[\"" + POINTER_CLASS + "\",{\"s3BucketName\":\"" + new String(encoder.quoteAsString(bucket))
+                + "\",\"s3Key\":\"" + new String(encoder.quoteAsString(key)) + "\"}]";
+        final Map<String, MessageAttributeValue> attributes = Map.of(ATTRIBUTE_EXTENDED_PAYLOAD_SIZE, MessageAttributeValue.builder()
+                .dataType("Number")
+                .stringValue(String.valueOf(payloadSize))
+                .build());
+        return new MessagePayload(body, attributes, body.getBytes(StandardCharsets.UTF_8).length + attributesSize(attributes));
+    }
+
+    private static MessageAttributeValue stringAttribute(String value) {
+        return MessageAttributeValue.builder()
+                .dataType("String")
+                .stringValue(value)
+                .build();
+    }
+
+    /**
+     * SQS counts the name, the type and the value of every attribute towards the message size.
+     */
+    private static int attributesSize(Map<String, MessageAttributeValue> attributes) {
+        int size = 0;
+        for (Map.Entry<String, MessageAttributeValue> attribute : attributes.entrySet()) {
+            size += attribute.getKey().length() + attribute.getValue().dataType().length() + attribute.getValue().stringValue().length();
+        }
+        return size;
+    }
+}
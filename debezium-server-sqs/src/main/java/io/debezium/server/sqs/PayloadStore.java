@@ -0,0 +1,25 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.sqs;
+
+import java.io.IOException;
+
+/**
+ * Blob store the payloads exceeding the SQS message size limit are offloaded to. The message then carries only a
+ * pointer to the payload, see {@link MessagePayload#pointer}.
+ */
+public interface PayloadStore extends AutoCloseable {
+
+    /**
+     * @return the name of the bucket the payloads are stored in, it is part of the pointer
+     */
+    String bucket();
+
+    void store(String key, byte[] payload) throws IOException;
+
+    @Override
+    void close();
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.sqs;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+/**
+ * Stores the payloads in an S3 bucket, or a bucket of an S3 compatible store, the way the SQS Extended Client does.
+ */
+public class S3PayloadStore implements PayloadStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(S3PayloadStore.class);
+
+    private final S3Client client;
+    private final String bucket;
+
+    public S3PayloadStore(S3Client client, String bucket) {
+        this.client = client;
+        this.bucket = bucket;
+    }
+
+    @Override
+    public String bucket() {
+        return bucket;
+    }
+
+    @Override
+    public void store(String key, byte[] payload) {
+        client.putObject(PutObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .build(), RequestBody.fromBytes(payload));
+    }
+
+    @Override
+    public void close() {
+        try {
+            client.close();
+        }
+        catch (Exception e) {
+            LOGGER.warn("Exception while closing S3 client", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "S3 bucket '" + bucket + "'";
+    }
+}
@@ -6,8 +6,22 @@
 package io.debezium.server.sqs;
 
 import java.net.URI;
-import java.time.Duration;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
@@ -20,20 +34,34 @@
 import org.slf4j.LoggerFactory;
 
 import io.debezium.DebeziumException;
+import io.debezium.annotation.VisibleForTesting;
 import io.debezium.engine.ChangeEvent;
 import io.debezium.engine.DebeziumEngine.ChangeConsumer;
 import io.debezium.engine.DebeziumEngine.RecordCommitter;
 import io.debezium.server.BaseChangeConsumer;
-import io.debezium.util.Clock;
-import io.debezium.util.Metronome;
+import io.debezium.server.deadletter.DeadLetterQueue;
+import io.debezium.server.retry.ErrorKind;
+import io.debezium.server.retry.RetryExecutor;
+import io.debezium.server.retry.RetryPolicy;
+import io.debezium.server.retry.SendResult;
+import io.debezium.util.Threads;
 
 import software.amazon.awssdk.auth.credentials.ProfileCredentialsProvider;
+import software.amazon.awssdk.awscore.client.builder.AwsClientBuilder;
 import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkServiceException;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 import software.amazon.awssdk.services.sqs.SqsClient;
-import software.amazon.awssdk.services.sqs.SqsClientBuilder;
-import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
-import software.amazon.awssdk.services.sqs.model.SendMessageRequest.Builder;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.InvalidMessageContentsException;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SqsException;
 
 /**
  * Implementation of the consumer that delivers the messages into Amazon SQS destination.
@@ -46,22 +74,127 @@ public class SqsChangeConsumer extends BaseChangeConsumer implements ChangeConsu
     protected static final String PROP_PREFIX = "debezium.sink.sqs.";
     protected static final String PROP_REGION_NAME = PROP_PREFIX + "region";
     private static final Logger LOGGER = LoggerFactory.getLogger(SqsChangeConsumer.class);
-    private static final Duration RETRY_INTERVAL = Duration.ofSeconds(1);
-    private static final int DEFAULT_RETRIES = 5;
+    private static final int MAX_MESSAGE_SIZE = 256 * 1024;
+    // Limits of a single SendMessageBatch request, the size limit applies to the sum of the messages
+    private static final int MAX_MESSAGES_PER_REQUEST = 10;
+    private static final int MAX_REQUEST_SIZE = 256 * 1024;
     private static final String PROP_ENDPOINT_NAME = PROP_PREFIX + "endpoint";
     private static final String PROP_QUEUE_URL = PROP_PREFIX + "queue.url";
     private static final String PROP_CREDENTIALS_PROFILE = PROP_PREFIX + "credentials.profile";
     private static final String PROP_QUEUE_FIFO_MESSAGE_GROUP_ID = PROP_PREFIX + "fifo.message.group.id";
+    private static final String PROP_QUEUE_FIFO_MESSAGE_GROUP_STRATEGY = PROP_PREFIX + "fifo.message.group.strategy";
+    private static final String PROP_QUEUE_FIFO_MESSAGE_GROUP_COUNT = PROP_PREFIX + "fifo.message.group.count";
+    private static final String PROP_QUEUE_FIFO_DEDUPLICATION_ID = PROP_PREFIX + "fifo.deduplication.id";
+    private static final int DEFAULT_QUEUE_FIFO_MESSAGE_GROUP_COUNT = 64;
+    private static final String PROP_ASYNC_ENABLED = PROP_PREFIX + "async.enabled";
+    private static final String PROP_ASYNC_MAX_IN_FLIGHT_REQUESTS = PROP_PREFIX + "async.max.in.flight.requests";
+    private static final int DEFAULT_ASYNC_MAX_IN_FLIGHT_REQUESTS = 16;
+    private static final String PROP_COMPRESSION_THRESHOLD = PROP_PREFIX + "compression.threshold.bytes";
+    private static final String PROP_OFFLOAD_STORE = PROP_PREFIX + "payload.offload.store";
+    private static final String PROP_OFFLOAD_S3_BUCKET = PROP_PREFIX + "payload.offload.s3.bucket";
+    private static final String PROP_OFFLOAD_S3_ENDPOINT = PROP_PREFIX + "payload.offload.s3.endpoint";
+    private static final String PROP_OFFLOAD_FILE_PATH = PROP_PREFIX + "payload.offload.file.path";
+    private static final String OFFLOAD_STORE_NONE = "none";
+    private static final String OFFLOAD_STORE_S3 = "s3";
+    private static final String OFFLOAD_STORE_FILE = "file";
 
-    private String messageGroupId = null;
+    // Set only for FIFO queues
+    private FifoMessageIds fifoMessageIds = null;
     private String queueUrl;
     private SqsClient client = null;
+    private RetryExecutor retryExecutor;
+    // Set only when the asynchronous client is enabled
+    private SqsAsyncClient asyncClient = null;
+    private ExecutorService sendExecutor;
+    private int maxInFlightRequests;
+    // Zero when compression is disabled
+    private int compressionThreshold;
+    // Set only when the payloads exceeding the message size limit are offloaded
+    private PayloadStore payloadStore;
+
+    public SqsChangeConsumer() {
+    }
+
+    @VisibleForTesting
+    SqsChangeConsumer(SqsClient client, String queueUrl, FifoMessageIds fifoMessageIds, RetryPolicy retryPolicy) {
+        this.client = client;
+        this.queueUrl = queueUrl;
+        this.fifoMessageIds = fifoMessageIds;
+        this.retryExecutor = new RetryExecutor("sqs", retryPolicy, SqsChangeConsumer::classify);
+    }
+
+    @VisibleForTesting
+    SqsChangeConsumer(SqsAsyncClient asyncClient, String queueUrl, FifoMessageIds fifoMessageIds, RetryPolicy retryPolicy, int maxInFlightRequests) {
+        this((SqsClient) null, queueUrl, fifoMessageIds, retryPolicy);
+        initAsync(asyncClient, maxInFlightRequests);
+    }
+
+    @VisibleForTesting
+    SqsChangeConsumer(SqsClient client, String queueUrl, RetryPolicy retryPolicy, int compressionThreshold, PayloadStore payloadStore) {
+        this(client, queueUrl, (FifoMessageIds) null, retryPolicy);
+        this.compressionThreshold = compressionThreshold;
+        this.payloadStore = payloadStore;
+    }
 
     @PostConstruct
     void connect() {
         final Config config = ConfigProvider.getConfig();
-        final SqsClientBuilder builder = SqsClient.builder()
+        if (config.getOptionalValue(PROP_ASYNC_ENABLED, Boolean.class).orElse(false)) {
+            initAsync(configure(SqsAsyncClient.builder(), config).build(),
+                    config.getOptionalValue(PROP_ASYNC_MAX_IN_FLIGHT_REQUESTS, Integer.class).orElse(DEFAULT_ASYNC_MAX_IN_FLIGHT_REQUESTS));
+        }
+        else {
+            client = configure(SqsClient.builder(), config).build();
+        }
+        retryExecutor = new RetryExecutor("sqs", RetryPolicy.fromConfig(config, PROP_PREFIX), SqsChangeConsumer::classify);
+
+        queueUrl = config.getValue(PROP_QUEUE_URL, String.class);
+        LOGGER.info("Queue Url {}", queueUrl);
+
+        if (queueUrl.endsWith(".fifo")) {
+            final String deduplication = config.getOptionalValue(PROP_QUEUE_FIFO_DEDUPLICATION_ID, String.class).orElse("source");
+            if (!"source".equalsIgnoreCase(deduplication) && !"content".equalsIgnoreCase(deduplication)) {
+                throw new DebeziumException("Property '" + PROP_QUEUE_FIFO_DEDUPLICATION_ID + "' must be either 'source' or 'content'");
+            }
+            fifoMessageIds = new FifoMessageIds(
+                    FifoMessageIds.GroupStrategy.parse(config.getOptionalValue(PROP_QUEUE_FIFO_MESSAGE_GROUP_STRATEGY, String.class).orElse("static")),
+                    config.getOptionalValue(PROP_QUEUE_FIFO_MESSAGE_GROUP_ID, String.class).orElse("cdc-group"),
+                    config.getOptionalValue(PROP_QUEUE_FIFO_MESSAGE_GROUP_COUNT, Integer.class).orElse(DEFAULT_QUEUE_FIFO_MESSAGE_GROUP_COUNT),
+                    "source".equalsIgnoreCase(deduplication));
+        }
+
+        compressionThreshold = config.getOptionalValue(PROP_COMPRESSION_THRESHOLD, Integer.class).orElse(0);
+        final String offloadStore = config.getOptionalValue(PROP_OFFLOAD_STORE, String.class).orElse(OFFLOAD_STORE_NONE);
+        if (OFFLOAD_STORE_S3.equals(offloadStore)) {
+            payloadStore = new S3PayloadStore(createS3Client(config), config.getValue(PROP_OFFLOAD_S3_BUCKET, String.class));
+        }
+        else if (OFFLOAD_STORE_FILE.equals(offloadStore)) {
+            payloadStore = new FilePayloadStore(Paths.get(config.getValue(PROP_OFFLOAD_FILE_PATH, String.class)));
+        }
+        else if (!OFFLOAD_STORE_NONE.equals(offloadStore)) {
+            throw new DebeziumException("Unknown payload store '" + offloadStore + "' for option '" + PROP_OFFLOAD_STORE + "'");
+        }
+        if (payloadStore != null) {
+            LOGGER.info("Offloading payloads exceeding the message size limit to {}", payloadStore);
+        }
+    }
+
+    private S3Client createS3Client(Config config) {
+        final S3ClientBuilder builder = S3Client.builder()
                 .region(Region.of(config.getValue(PROP_REGION_NAME, String.class)));
+        config.getOptionalValue(PROP_OFFLOAD_S3_ENDPOINT, String.class).ifPresent(endpoint -> {
+            LOGGER.info("Payload store endpoint {}", endpoint);
+            // S3 compatible stores usually do not support virtual host style bucket addressing
+            builder.endpointOverride(URI.create(endpoint))
+                    .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build());
+        });
+        config.getOptionalValue(PROP_CREDENTIALS_PROFILE, String.class)
+                .ifPresent(profile -> builder.credentialsProvider(ProfileCredentialsProvider.create(profile)));
+        return builder.build();
+    }
+
+    private <B extends AwsClientBuilder<B, ?>> B configure(B builder, Config config) {
+        builder.region(Region.of(config.getValue(PROP_REGION_NAME, String.class)));
 
         config.getOptionalValue(PROP_ENDPOINT_NAME, String.class).ifPresent(endpoint -> {
             LOGGER.info("Queue Endpoint {}", endpoint);
@@ -72,21 +205,32 @@ void connect() {
             LOGGER.info("Credentials profile {}", profile);
             builder.credentialsProvider(ProfileCredentialsProvider.create(profile));
         });
+        return builder;
+    }
 
-        client = builder.build();
-
-        queueUrl = config.getValue(PROP_QUEUE_URL, String.class);
-        LOGGER.info("Queue Url {}", queueUrl);
-
-        if (queueUrl.endsWith(".fifo")) {
-            messageGroupId = config.getOptionalValue(PROP_QUEUE_FIFO_MESSAGE_GROUP_ID, String.class).orElse("cdc-group");
-        }
+    private void initAsync(SqsAsyncClient sqsAsyncClient, int maxInFlight) {
+        asyncClient = sqsAsyncClient;
+        maxInFlightRequests = maxInFlight;
+        sendExecutor = Threads.newFixedThreadPool(SqsChangeConsumer.class, "sqs", "sqs-sender", maxInFlight);
+        LOGGER.info("Sending up to {} concurrent requests", maxInFlight);
     }
 
     @PreDestroy
     void close() {
+        retryExecutor.close();
+        if (sendExecutor != null) {
+            sendExecutor.shutdownNow();
+        }
+        if (payloadStore != null) {
+            payloadStore.close();
+        }
         try {
-            client.close();
+            if (client != null) {
+                client.close();
+            }
+            if (asyncClient != null) {
+                asyncClient.close();
+            }
         }
         catch (Exception e) {
             LOGGER.warn("Exception while closing Sqs client", e);
@@ -96,46 +240,370 @@ void close() {
     @Override
     public void handleBatch(List<ChangeEvent<Object, Object>> records, RecordCommitter<ChangeEvent<Object, Object>> committer)
             throws InterruptedException {
+        if (asyncClient != null) {
+            sendConcurrently(records, committer);
+            return;
+        }
+        // All messages go to the same queue, the requests are packed in the batch order so that the order of a FIFO
+        // message group is kept across the destinations
+        for (List<PendingMessage> request : requests(toPendingMessages(records))) {
+            retryExecutor.execute(queueUrl, request, this::sendMessages);
+        }
         for (ChangeEvent<Object, Object> record : records) {
-            LOGGER.trace("Received event '{}'", record);
+            committer.markProcessed(record);
+        }
+        committer.markBatchFinished();
+    }
 
-            int attempts = 0;
-            while (!recordSent(record)) {
-                attempts++;
-                if (attempts >= DEFAULT_RETRIES) {
-                    throw new DebeziumException("Exceeded maximum number of attempts to publish event " + record);
+    /**
+     * Sends the requests concurrently and marks the records as processed in the batch order once their requests
+     * completed. When a request fails, the records preceding its first record are still marked so that the offsets
+     * of the delivered records can be committed.
+     */
+    private void sendConcurrently(List<ChangeEvent<Object, Object>> records, RecordCommitter<ChangeEvent<Object, Object>> committer)
+            throws InterruptedException {
+        final Map<ChangeEvent<Object, Object>, Future<?>> completions = new IdentityHashMap<>();
+        final List<Future<?>> sends = new ArrayList<>();
+        final Set<Future<?>> failed = Collections.newSetFromMap(new IdentityHashMap<>());
+        DebeziumException failure = null;
+        try {
+            // The lanes are built over the whole batch as all messages go to the same queue, a message group shared
+            // by several destinations must still have a single lane
+            for (List<List<PendingMessage>> lane : lanes(toPendingMessages(records))) {
+                final Future<?> send = sendExecutor.submit(() -> {
+                    for (List<PendingMessage> request : lane) {
+                        retryExecutor.execute(queueUrl, request, this::sendMessages);
+                    }
+                    return null;
+                });
+                sends.add(send);
+                for (List<PendingMessage> request : lane) {
+                    for (PendingMessage message : request) {
+                        completions.put(message.record, send);
+                    }
                 }
-                Metronome.sleeper(RETRY_INTERVAL, Clock.SYSTEM).pause();
+            }
+        }
+        finally {
+            // No request of the batch may be in flight when the batch fails
+            failure = awaitAll(sends, failed);
+        }
+
+        for (ChangeEvent<Object, Object> record : records) {
+            // Records without a request were dead-lettered
+            final Future<?> send = completions.get(record);
+            if (send != null && failed.contains(send)) {
+                break;
             }
             committer.markProcessed(record);
         }
+        if (failure != null) {
+            throw failure;
+        }
         committer.markBatchFinished();
     }
 
-    private boolean recordSent(ChangeEvent<Object, Object> event) {
-        Object eventValue = event.value();
-        if (eventValue == null) {
-            eventValue = "";
+    /**
+     * Splits the messages into lanes that are sent concurrently, the requests of a lane are sent one after another.
+     * Every request of a standard queue has its own lane. The messages of a FIFO queue are assigned to the lanes by
+     * their message group, so the messages of a group are never in flight in two requests at the same time.
+     */
+    private List<List<List<PendingMessage>>> lanes(List<PendingMessage> messages) {
+        final List<List<List<PendingMessage>>> lanes = new ArrayList<>();
+        if (fifoMessageIds == null) {
+            for (List<PendingMessage> request : requests(messages)) {
+                lanes.add(List.of(request));
+            }
+            return lanes;
+        }
+        final Map<Integer, List<PendingMessage>> laneMessages = new LinkedHashMap<>();
+        for (PendingMessage message : messages) {
+            laneMessages.computeIfAbsent(Math.floorMod(message.groupId.hashCode(), maxInFlightRequests), x -> new ArrayList<>()).add(message);
+        }
+        for (List<PendingMessage> lane : laneMessages.values()) {
+            lanes.add(requests(lane));
         }
+        return lanes;
+    }
 
-        LOGGER.info(event.toString());
+    private static DebeziumException awaitAll(List<Future<?>> sends, Set<Future<?>> failed) throws InterruptedException {
+        DebeziumException failure = null;
+        for (Future<?> send : sends) {
+            try {
+                send.get();
+            }
+            catch (ExecutionException e) {
+                failed.add(send);
+                if (failure == null) {
+                    failure = (e.getCause() instanceof DebeziumException) ? (DebeziumException) e.getCause() : new DebeziumException(e.getCause());
+                }
+            }
+        }
+        return failure;
+    }
 
-        final Builder sendMessageRequestBuilder = SendMessageRequest.builder()
-                .queueUrl(queueUrl)
-                .messageBody(eventValue.toString());
+    private List<PendingMessage> toPendingMessages(List<ChangeEvent<Object, Object>> records) throws InterruptedException {
+        final List<PendingMessage> pending = new ArrayList<>(records.size());
+        for (ChangeEvent<Object, Object> record : records) {
+            LOGGER.trace("Received event '{}'", record);
 
-        if (messageGroupId != null) {
-            // At the moment this is a static group. If there is a need for more dynamic group id,
-            // then we probably have to modify here by parsing the event and using a dynamic value based on the event payload.
-            sendMessageRequestBuilder.messageGroupId(messageGroupId);
+            final String messageBody = (record.value() != null) ? record.value().toString() : "";
+            final int size = utf8Length(messageBody);
+            MessagePayload payload = MessagePayload.plain(messageBody, size);
+            if (compressionThreshold > 0 && size > compressionThreshold) {
+                final MessagePayload compressed = MessagePayload.compressed(messageBody, size);
+                if (compressed != null) {
+                    payload = compressed;
+                }
+            }
+            if (payload.size > MAX_MESSAGE_SIZE) {
+                if (payloadStore != null) {
+                    payload = offload(record, messageBody, size);
+                }
+                else if (deadLetter(record, DeadLetterQueue.REASON_RECORD_TOO_LARGE, null)) {
+                    continue;
+                }
+                else {
+                    throw new DebeziumException("Record for destination '" + record.destination() + "' exceeds the SQS message size limit");
+                }
+            }
+            if (fifoMessageIds != null) {
+                final String key = (record.key() != null) ? record.key().toString() : null;
+                pending.add(new PendingMessage(record, payload, fifoMessageIds.groupId(key),
+                        fifoMessageIds.deduplicationId(record.destination(), key, messageBody)));
+            }
+            else {
+                pending.add(new PendingMessage(record, payload, null, null));
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Stores the payload in the payload store, the message carries only a pointer to it.
+     */
+    private MessagePayload offload(ChangeEvent<Object, Object> record, String body, int size) throws InterruptedException {
+        final String key = UUID.randomUUID().toString();
+        final byte[] payload = body.getBytes(StandardCharsets.UTF_8);
+        retryExecutor.execute(record.destination(), List.of(record), (items, result) -> payloadStore.store(key, payload));
+        LOGGER.debug("Offloaded payload of {} bytes for destination '{}' as '{}'", size, record.destination(), key);
+        return MessagePayload.pointer(payloadStore.bucket(), key, size);
+    }
+
+    /**
+     * Packs the messages into SendMessageBatch requests within the request limits.
+     */
+    private static List<List<PendingMessage>> requests(List<PendingMessage> messages) {
+        final List<List<PendingMessage>> requests = new ArrayList<>();
+        List<PendingMessage> request = new ArrayList<>();
+        int requestSize = 0;
+        for (PendingMessage message : messages) {
+            if (request.size() == MAX_MESSAGES_PER_REQUEST || requestSize + message.payload.size > MAX_REQUEST_SIZE) {
+                requests.add(request);
+                request = new ArrayList<>();
+                requestSize = 0;
+            }
+            request.add(message);
+            requestSize += message.payload.size;
+        }
+        if (!request.isEmpty()) {
+            requests.add(request);
+        }
+        return requests;
+    }
+
+    /**
+     * Sends the messages in a single request. SQS accepts or rejects every message of the request individually,
+     * only the rejected ones are reported as failed. Messages rejected due to a sender fault cannot succeed when
+     * sent again and are dead-lettered. The messages following a failed one of the same FIFO message group are
+     * reported as failed too, even when they were accepted, so that the retry keeps the order of the group. The
+     * deduplication id prevents them from being delivered twice.
+     */
+    private void sendMessages(List<PendingMessage> messages, SendResult<PendingMessage> result) {
+        sendMessages(messages, result, new HashMap<>());
+    }
+
+    /**
+     * @param failedGroups  The message groups with a failed message and the kind of the failure, messages of these
+     *                      groups are held back.
+     */
+    private void sendMessages(List<PendingMessage> messages, SendResult<PendingMessage> result, Map<String, ErrorKind> failedGroups) {
+        final List<SendMessageBatchRequestEntry> entries = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            // The entry id only needs to be unique within the request
+            final SendMessageBatchRequestEntry.Builder entry = SendMessageBatchRequestEntry.builder()
+                    .id(String.valueOf(i))
+                    .messageBody(messages.get(i).payload.body);
+            if (!messages.get(i).payload.attributes.isEmpty()) {
+                entry.messageAttributes(messages.get(i).payload.attributes);
+            }
+            if (messages.get(i).groupId != null) {
+                entry.messageGroupId(messages.get(i).groupId)
+                        .messageDeduplicationId(messages.get(i).deduplicationId);
+            }
+            entries.add(entry.build());
         }
+
+        final SendMessageBatchResponse response;
         try {
-            client.sendMessage(sendMessageRequestBuilder.build());
-            return true;
+            final SendMessageBatchRequest request = SendMessageBatchRequest.builder()
+                    .queueUrl(queueUrl)
+                    .entries(entries)
+                    .build();
+            response = (asyncClient != null) ? join(asyncClient.sendMessageBatch(request)) : client.sendMessageBatch(request);
+        }
+        catch (InvalidMessageContentsException exception) {
+            // The request is rejected as a whole, send the messages one by one to isolate the invalid ones
+            if (messages.size() > 1) {
+                for (int i = 0; i < messages.size(); i++) {
+                    final PendingMessage message = messages.get(i);
+                    final ErrorKind kind = (message.groupId != null) ? failedGroups.get(message.groupId) : null;
+                    if (kind != null) {
+                        heldBack(message, kind, result);
+                        continue;
+                    }
+                    try {
+                        sendMessages(List.of(message), result, failedGroups);
+                    }
+                    catch (RuntimeException e) {
+                        // The messages before were delivered, dead-lettered or reported already, only the rest is retried
+                        final ErrorKind kind = classify(e);
+                        for (PendingMessage remaining : messages.subList(i, messages.size())) {
+                            result.failed(remaining, kind, e);
+                        }
+                        return;
+                    }
+                }
+                return;
+            }
+            // The message contains characters not allowed by SQS, retrying cannot help
+            rejected(messages.get(0), exception, result, failedGroups);
+            return;
+        }
+
+        if (response.hasFailed()) {
+            final BatchResultErrorEntry[] failedEntries = new BatchResultErrorEntry[messages.size()];
+            for (BatchResultErrorEntry entry : response.failed()) {
+                failedEntries[Integer.parseInt(entry.id())] = entry;
+            }
+            // The entries are checked in the request order so the failures of a group are known for its later messages
+            for (int i = 0; i < messages.size(); i++) {
+                final PendingMessage message = messages.get(i);
+                final BatchResultErrorEntry entry = failedEntries[i];
+                if (entry != null) {
+                    final Exception error = SqsException.builder().message(entry.code() + ": " + entry.message()).build();
+                    if (Boolean.TRUE.equals(entry.senderFault())) {
+                        rejected(message, error, result, failedGroups);
+                    }
+                    else {
+                        failed(message, classifyErrorCode(entry.code()), error, result, failedGroups);
+                    }
+                }
+                else if (message.groupId != null && failedGroups.containsKey(message.groupId)) {
+                    heldBack(message, failedGroups.get(message.groupId), result);
+                }
+            }
         }
-        catch (SdkClientException exception) {
-            LOGGER.error("Failed to send record to {}", event.destination(), exception);
-            return false;
+    }
+
+    private void rejected(PendingMessage message, Exception error, SendResult<PendingMessage> result, Map<String, ErrorKind> failedGroups) {
+        // A dead-lettered message leaves its group for good, the following messages of the group can be delivered
+        if (!deadLetter(message.record, DeadLetterQueue.REASON_RECORD_REJECTED, error)) {
+            failed(message, ErrorKind.FATAL, error, result, failedGroups);
+        }
+    }
+
+    private static void failed(PendingMessage message, ErrorKind kind, Exception error, SendResult<PendingMessage> result,
+                               Map<String, ErrorKind> failedGroups) {
+        if (message.groupId != null) {
+            failedGroups.putIfAbsent(message.groupId, kind);
+        }
+        result.failed(message, kind, error);
+    }
+
+    /**
+     * Reports a message as failed because an earlier message of the same group failed. The message may have been
+     * accepted already, the deduplication id prevents it from being delivered twice.
+     */
+    private static void heldBack(PendingMessage message, ErrorKind kind, SendResult<PendingMessage> result) {
+        result.failed(message, kind, SqsException.builder().message("Held back after a failed message of group '" + message.groupId + "'").build());
+    }
+
+    /**
+     * @return the size of the string encoded in UTF-8, without encoding it
+     */
+    private static int utf8Length(String value) {
+        int length = value.length();
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c >= 0x800) {
+                // Surrogate pairs take four bytes, two per char
+                length += Character.isSurrogate(c) ? 1 : 2;
+            }
+            else if (c >= 0x80) {
+                length++;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Waits for the response of the asynchronous client, failures are rethrown unwrapped so they are handled the same
+     * way as the failures of the synchronous client.
+     */
+    private static <T> T join(CompletableFuture<T> response) {
+        try {
+            return response.join();
+        }
+        catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static ErrorKind classifyErrorCode(String errorCode) {
+        return (errorCode != null && errorCode.contains("Throttl")) ? ErrorKind.THROTTLED : ErrorKind.RETRIABLE;
+    }
+
+    private static ErrorKind classify(Throwable error) {
+        if (error instanceof SdkServiceException) {
+            final SdkServiceException serviceError = (SdkServiceException) error;
+            if (serviceError.isThrottlingException()) {
+                return ErrorKind.THROTTLED;
+            }
+            // Server side errors are transient, client errors mean the request is invalid
+            return (serviceError.statusCode() >= 500) ? ErrorKind.RETRIABLE : ErrorKind.FATAL;
+        }
+        if (error instanceof SdkClientException) {
+            return ErrorKind.RETRIABLE;
+        }
+        return ErrorKind.FATAL;
+    }
+
+    /**
+     * A record converted into a message payload. The payload is kept so the record is not converted again when
+     * retried.
+     */
+    private static final class PendingMessage {
+        final ChangeEvent<Object, Object> record;
+        final MessagePayload payload;
+        // Set only for FIFO queues
+        final String groupId;
+        // Not set when content-based deduplication is used
+        final String deduplicationId;
+
+        PendingMessage(ChangeEvent<Object, Object> record, MessagePayload payload, String groupId, String deduplicationId) {
+            this.record = record;
+            this.payload = payload;
+            this.groupId = groupId;
+            this.deduplicationId = deduplicationId;
+        }
+
+        @Override
+        public String toString() {
+            return record.toString();
         }
     }
 }
@@ -0,0 +1,93 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.sqs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import io.debezium.DebeziumException;
+
+public class FifoMessageIdsTest {
+
+    private static final String SOURCE = "{\"version\":\"3.0.0\",\"connector\":\"postgresql\",\"lsn\":24023128,\"txId\":555}";
+
+    @Test
+    public void shouldFindSourcePosition() {
+        assertThat(FifoMessageIds.sourcePosition("{\"before\":null,\"after\":{\"id\":1,\"source\":\"x\"},\"source\":" + SOURCE + ",\"op\":\"c\"}"))
+                .isEqualTo(SOURCE);
+        assertThat(FifoMessageIds.sourcePosition("{\"schema\":{\"fields\":[{\"field\":\"source\"}]},\"payload\":{\"after\":{\"source\":{\"a\":1}},\"source\":"
+                + SOURCE + "}}")).isEqualTo(SOURCE);
+    }
+
+    @Test
+    public void shouldNotFindSourcePosition() {
+        assertThat(FifoMessageIds.sourcePosition("{\"id\":1,\"name\":\"a\"}")).isNull();
+        assertThat(FifoMessageIds.sourcePosition("{\"source\":\"db\"}")).isNull();
+        assertThat(FifoMessageIds.sourcePosition("not json")).isNull();
+        assertThat(FifoMessageIds.sourcePosition("{\"source\":")).isNull();
+        assertThat(FifoMessageIds.sourcePosition("")).isNull();
+    }
+
+    @Test
+    public void shouldDeriveDeduplicationIdFromSourcePosition() {
+        final FifoMessageIds ids = new FifoMessageIds(FifoMessageIds.GroupStrategy.KEY, "cdc-group", 0, true);
+        final String value = "{\"after\":{\"id\":1},\"source\":" + SOURCE + ",\"ts_ms\":1}";
+
+        final String id = ids.deduplicationId("queue", "{\"id\":1}", value);
+        assertThat(id).hasSize(64);
+        // Only the position identifies the change
+        assertThat(ids.deduplicationId("queue", "{\"id\":1}", "{\"after\":{\"id\":1},\"source\":" + SOURCE + ",\"ts_ms\":2}")).isEqualTo(id);
+        assertThat(ids.deduplicationId("queue", "{\"id\":2}", value)).isNotEqualTo(id);
+        assertThat(ids.deduplicationId("other", "{\"id\":1}", value)).isNotEqualTo(id);
+        assertThat(ids.deduplicationId("queue", "{\"id\":1}", value.replace("24023128", "24023129"))).isNotEqualTo(id);
+        // Values without position are identified by their content
+        assertThat(ids.deduplicationId("queue", "{\"id\":1}", "{\"id\":1,\"name\":\"a\"}"))
+                .isNotEqualTo(ids.deduplicationId("queue", "{\"id\":1}", "{\"id\":1,\"name\":\"b\"}"));
+    }
+
+    @Test
+    public void shouldUseContentBasedDeduplication() {
+        final FifoMessageIds ids = new FifoMessageIds(FifoMessageIds.GroupStrategy.STATIC, "cdc-group", 0, false);
+
+        assertThat(ids.deduplicationId("queue", "{\"id\":1}", "{\"id\":1}")).isNull();
+        assertThat(ids.groupId("{\"id\":1}")).isEqualTo("cdc-group");
+    }
+
+    @Test
+    public void shouldUseKeyAsMessageGroup() {
+        final FifoMessageIds ids = new FifoMessageIds(FifoMessageIds.GroupStrategy.KEY, "cdc-group", 0, true);
+
+        assertThat(ids.groupId("{\"id\":1}")).isEqualTo("{\"id\":1}");
+        assertThat(ids.groupId(null)).isEqualTo("cdc-group");
+        // Keys SQS does not accept as a group are hashed
+        assertThat(ids.groupId("{\"name\": \"a\"}")).hasSize(64).isEqualTo(ids.groupId("{\"name\": \"a\"}"));
+        assertThat(ids.groupId("k".repeat(200))).hasSize(64);
+    }
+
+    @Test
+    public void shouldHashKeysIntoGroups() {
+        final FifoMessageIds ids = new FifoMessageIds(FifoMessageIds.GroupStrategy.HASH, "cdc-group", 4, true);
+        final Set<String> groups = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            final String group = ids.groupId("{\"id\":" + i + "}");
+            assertThat(ids.groupId("{\"id\":" + i + "}")).isEqualTo(group);
+            groups.add(group);
+        }
+
+        assertThat(groups).containsExactlyInAnyOrder("group-0", "group-1", "group-2", "group-3");
+    }
+
+    @Test
+    public void shouldRejectInvalidConfiguration() {
+        assertThatThrownBy(() -> FifoMessageIds.GroupStrategy.parse("row")).isInstanceOf(DebeziumException.class);
+        assertThatThrownBy(() -> new FifoMessageIds(FifoMessageIds.GroupStrategy.HASH, "cdc-group", 0, true)).isInstanceOf(DebeziumException.class);
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.sqs;
+
+import static io.debezium.server.TestSinkFixture.RETRY_POLICY;
+import static io.debezium.server.TestSinkFixture.records;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.debezium.DebeziumException;
+import io.debezium.engine.ChangeEvent;
+import io.debezium.server.TestChangeEvent;
+import io.debezium.server.TestRecordCommitter;
+
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResultEntry;
+
+public class SqsAsyncChangeConsumerTest {
+
+    private static final String QUEUE_URL = "http://localhost:4566/000000000000/queue";
+
+    private final ScheduledExecutorService responses = Executors.newScheduledThreadPool(8);
+    private SqsChangeConsumer consumer;
+
+    @AfterEach
+    public void tearDown() {
+        if (consumer != null) {
+            consumer.close();
+        }
+        responses.shutdownNow();
+    }
+
+    /**
+     * Responds to every request after a delay and records how many requests were in flight. Messages matching the
+     * rejection predicate are failed with a sender fault.
+     */
+    private class FakeSqsAsyncClient implements SqsAsyncClient {
+
+        final List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger inFlight = new AtomicInteger();
+        final Predicate<String> reject;
+        volatile int maxInFlight;
+
+        FakeSqsAsyncClient(Predicate<String> reject) {
+            this.reject = reject;
+        }
+
+        @Override
+        public CompletableFuture<SendMessageBatchResponse> sendMessageBatch(SendMessageBatchRequest request) {
+            synchronized (this) {
+                maxInFlight = Math.max(maxInFlight, inFlight.incrementAndGet());
+            }
+
+            final CompletableFuture<SendMessageBatchResponse> response = new CompletableFuture<>();
+            responses.schedule(() -> {
+                final List<SendMessageBatchResultEntry> successful = new ArrayList<>();
+                final List<BatchResultErrorEntry> failed = new ArrayList<>();
+                for (SendMessageBatchRequestEntry entry : request.entries()) {
+                    if (reject.test(entry.messageBody())) {
+                        failed.add(BatchResultErrorEntry.builder().id(entry.id()).code("InvalidParameterValue").senderFault(true).build());
+                    }
+                    else {
+                        delivered.add(entry.messageBody());
+                        successful.add(SendMessageBatchResultEntry.builder().id(entry.id()).messageId("1").build());
+                    }
+                }
+                inFlight.decrementAndGet();
+                response.complete(SendMessageBatchResponse.builder().successful(successful).failed(failed).build());
+            }, 50, TimeUnit.MILLISECONDS);
+            return response;
+        }
+
+        @Override
+        public String serviceName() {
+            return SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    public void shouldSendRequestsConcurrentlyToStandardQueue() throws Exception {
+        final FakeSqsAsyncClient client = new FakeSqsAsyncClient(body -> false);
+        consumer = new SqsChangeConsumer(client, QUEUE_URL, null, RETRY_POLICY, 4);
+        final List<ChangeEvent<Object, Object>> records = records(200, "queue");
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        consumer.handleBatch(records, committer);
+
+        assertThat(client.maxInFlight).isGreaterThan(1).isLessThanOrEqualTo(4);
+        assertThat(client.delivered).hasSize(200).doesNotHaveDuplicates();
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+        assertThat(committer.isBatchFinished()).isTrue();
+    }
+
+    @Test
+    public void shouldSendMessageGroupInOrder() throws Exception {
+        final FakeSqsAsyncClient client = new FakeSqsAsyncClient(body -> false);
+        consumer = new SqsChangeConsumer(client, QUEUE_URL + ".fifo", new FifoMessageIds(FifoMessageIds.GroupStrategy.STATIC, "cdc-group", 0, true),
+                RETRY_POLICY, 4);
+        final List<ChangeEvent<Object, Object>> records = records(50, "queue");
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        consumer.handleBatch(records, committer);
+
+        assertThat(client.maxInFlight).isEqualTo(1);
+        assertThat(client.delivered).containsExactlyElementsOf(records.stream().map(r -> (String) r.value()).collect(Collectors.toList()));
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+    }
+
+    @Test
+    public void shouldSendMessageGroupOfSeveralDestinationsInOrder() throws Exception {
+        final FakeSqsAsyncClient client = new FakeSqsAsyncClient(body -> false);
+        consumer = new SqsChangeConsumer(client, QUEUE_URL + ".fifo", new FifoMessageIds(FifoMessageIds.GroupStrategy.STATIC, "cdc-group", 0, true),
+                RETRY_POLICY, 4);
+        final List<ChangeEvent<Object, Object>> records = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            records.add(new TestChangeEvent("key-" + i, "value-" + i, (i % 2 == 0) ? "table-a" : "table-b"));
+        }
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        consumer.handleBatch(records, committer);
+
+        assertThat(client.maxInFlight).isEqualTo(1);
+        assertThat(client.delivered).containsExactlyElementsOf(records.stream().map(r -> (String) r.value()).collect(Collectors.toList()));
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+    }
+
+    @Test
+    public void shouldMarkRecordsBeforeFailedRequest() {
+        final FakeSqsAsyncClient client = new FakeSqsAsyncClient(body -> body.equals("value-25"));
+        consumer = new SqsChangeConsumer(client, QUEUE_URL, null, RETRY_POLICY, 4);
+        final List<ChangeEvent<Object, Object>> records = records(50, "queue");
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        assertThatThrownBy(() -> consumer.handleBatch(records, committer)).isInstanceOf(DebeziumException.class);
+
+        // All requests are sent, the third one fails
+        assertThat(client.delivered).hasSize(49);
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records.subList(0, 20));
+        assertThat(committer.isBatchFinished()).isFalse();
+    }
+
+    @Test
+    public void shouldSendMessageGroupsConcurrently() throws Exception {
+        final FakeSqsAsyncClient client = new FakeSqsAsyncClient(body -> false);
+        consumer = new SqsChangeConsumer(client, QUEUE_URL + ".fifo", new FifoMessageIds(FifoMessageIds.GroupStrategy.KEY, "cdc-group", 0, true),
+                RETRY_POLICY, 4);
+        final List<ChangeEvent<Object, Object>> records = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            records.add(new TestChangeEvent("key-" + (i % 8), "value-" + i, "queue"));
+        }
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        consumer.handleBatch(records, committer);
+
+        assertThat(client.maxInFlight).isGreaterThan(1).isLessThanOrEqualTo(4);
+        for (int key = 0; key < 8; key++) {
+            final int group = key;
+            final List<Integer> sequence = client.delivered.stream()
+                    .map(body -> Integer.parseInt(body.substring(6)))
+                    .filter(i -> i % 8 == group)
+                    .collect(Collectors.toList());
+            assertThat(sequence).hasSize(25).isSorted();
+        }
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+    }
+}
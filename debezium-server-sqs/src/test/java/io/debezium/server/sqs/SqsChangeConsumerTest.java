@@ -0,0 +1,349 @@
+/*
+ * Copyright Debezium Authors.
+ *
+ * Licensed under the Apache Software License version 2.0, available at http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.debezium.server.sqs;
+
+import static io.debezium.server.TestSinkFixture.RETRY_POLICY;
+import static io.debezium.server.TestSinkFixture.records;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.debezium.DebeziumException;
+import io.debezium.engine.ChangeEvent;
+import io.debezium.server.TestChangeEvent;
+import io.debezium.server.TestDeadLetterStore;
+import io.debezium.server.TestRecordCommitter;
+import io.debezium.server.deadletter.DeadLetterQueue;
+import io.debezium.server.deadletter.DeadLetterRecord;
+import io.debezium.util.Testing;
+
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResultEntry;
+
+public class SqsChangeConsumerTest {
+
+    private static final Path PAYLOAD_PATH = Testing.Files.createTestingPath("sqs-payloads").toAbsolutePath();
+    private static final String QUEUE_URL = "http://localhost:4566/000000000000/queue";
+
+    private SqsChangeConsumer consumer;
+
+    @AfterEach
+    public void tearDown() {
+        if (consumer != null) {
+            consumer.close();
+        }
+    }
+
+    /**
+     * Accepts every message except those for which the rejection function, which gets the number of the request and
+     * the message body, returns an error entry.
+     */
+    private static class FakeSqsClient implements SqsClient {
+
+        final List<SendMessageBatchRequest> requests = Collections.synchronizedList(new ArrayList<>());
+        final List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+        final BiFunction<Integer, String, BatchResultErrorEntry.Builder> reject;
+
+        FakeSqsClient(BiFunction<Integer, String, BatchResultErrorEntry.Builder> reject) {
+            this.reject = reject;
+        }
+
+        @Override
+        public SendMessageBatchResponse sendMessageBatch(SendMessageBatchRequest request) {
+            final int requestNumber = requests.size();
+            requests.add(request);
+            final List<SendMessageBatchResultEntry> successful = new ArrayList<>();
+            final List<BatchResultErrorEntry> failed = new ArrayList<>();
+            for (SendMessageBatchRequestEntry entry : request.entries()) {
+                final BatchResultErrorEntry.Builder error = reject.apply(requestNumber, entry.messageBody());
+                if (error != null) {
+                    failed.add(error.id(entry.id()).build());
+                }
+                else {
+                    delivered.add(entry.messageBody());
+                    successful.add(SendMessageBatchResultEntry.builder().id(entry.id()).messageId(String.valueOf(delivered.size())).build());
+                }
+            }
+            return SendMessageBatchResponse.builder().successful(successful).failed(failed).build();
+        }
+
+        @Override
+        public String serviceName() {
+            return SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static BatchResultErrorEntry.Builder error(String code, boolean senderFault) {
+        return BatchResultErrorEntry.builder().code(code).message("Rejected").senderFault(senderFault);
+    }
+
+    @Test
+    public void shouldPackMessagesIntoRequestsOfAtMost10() throws Exception {
+        final FakeSqsClient client = new FakeSqsClient((request, body) -> null);
+        consumer = new SqsChangeConsumer(client, QUEUE_URL, null, RETRY_POLICY);
+        final List<ChangeEvent<Object, Object>> records = records(25, "queue");
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        consumer.handleBatch(records, committer);
+
+        assertThat(client.requests).extracting(r -> r.entries().size()).containsExactly(10, 10, 5);
+        assertThat(client.requests).extracting(SendMessageBatchRequest::queueUrl).containsOnly(QUEUE_URL);
+        assertThat(client.requests.get(0).entries()).extracting(SendMessageBatchRequestEntry::messageGroupId).containsOnlyNulls();
+        assertThat(client.delivered).hasSize(25).startsWith("value-0", "value-1");
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+        assertThat(committer.isBatchFinished()).isTrue();
+    }
+
+    @Test
+    public void shouldPackMessagesOfAllDestinationsInBatchOrder() throws Exception {
+        final FakeSqsClient client = new FakeSqsClient((request, body) -> null);
+        consumer = new SqsChangeConsumer(client, QUEUE_URL + ".fifo", new FifoMessageIds(FifoMessageIds.GroupStrategy.STATIC, "cdc-group", 0, true),
+                RETRY_POLICY);
+        final List<ChangeEvent<Object, Object>> records = new ArrayList<>();
+        for (int i = 0; i < 15; i++) {
+            records.add(new TestChangeEvent("key-" + i, "value-" + i, (i % 2 == 0) ? "table-a" : "table-b"));
+        }
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        consumer.handleBatch(records, committer);
+
+        assertThat(client.requests).extracting(r -> r.entries().size()).containsExactly(10, 5);
+        assertThat(client.delivered).containsExactlyElementsOf(records.stream().map(r -> (String) r.value()).collect(Collectors.toList()));
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+    }
+
+    @Test
+    public void shouldSplitRequestsBySize() throws Exception {
+        final FakeSqsClient client = new FakeSqsClient((request, body) -> null);
+        consumer = new SqsChangeConsumer(client, QUEUE_URL + ".fifo", new FifoMessageIds(FifoMessageIds.GroupStrategy.STATIC, "cdc-group", 0, false),
+                RETRY_POLICY);
+        final List<ChangeEvent<Object, Object>> records = new ArrayList<>();
+        // Three bytes per character in UTF-8
+        final String largeValue = "\u20ac".repeat(30 * 1024);
+        for (int i = 0; i < 5; i++) {
+            records.add(new TestChangeEvent("key-" + i, largeValue + i, "queue"));
+        }
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        consumer.handleBatch(records, committer);
+
+        // Two messages of 90 kB fit into the 256 kB request limit
+        assertThat(client.requests).extracting(r -> r.entries().size()).containsExactly(2, 2, 1);
+        assertThat(client.requests.get(0).entries()).extracting(SendMessageBatchRequestEntry::messageGroupId).containsOnly("cdc-group");
+        assertThat(client.requests.get(0).entries()).extracting(SendMessageBatchRequestEntry::messageDeduplicationId).containsOnlyNulls();
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+    }
+
+    @Test
+    public void shouldRetryOnlyFailedEntries() throws Exception {
+        // The first request fails every third message
+        final FakeSqsClient client = new FakeSqsClient(
+                (request, body) -> (request == 0 && Integer.parseInt(body.substring(6)) % 3 == 0) ? error("InternalError", false) : null);
+        consumer = new SqsChangeConsumer(client, QUEUE_URL, null, RETRY_POLICY);
+        final List<ChangeEvent<Object, Object>> records = records(10, "queue");
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        consumer.handleBatch(records, committer);
+
+        assertThat(client.requests).hasSize(2);
+        assertThat(client.requests.get(1).entries()).extracting(SendMessageBatchRequestEntry::messageBody)
+                .containsExactly("value-0", "value-3", "value-6", "value-9");
+        assertThat(client.delivered).hasSize(10).doesNotHaveDuplicates();
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+    }
+
+    @Test
+    public void shouldHoldBackMessagesFollowingFailedMessageOfSameGroup() throws Exception {
+        // Only the first message of group 'a' fails, the following ones of the same request are accepted
+        final AtomicBoolean failed = new AtomicBoolean();
+        final FakeSqsClient client = new FakeSqsClient(
+                (request, body) -> body.equals("value-0") && failed.compareAndSet(false, true) ? error("InternalError", false) : null);
+        consumer = new SqsChangeConsumer(client, QUEUE_URL + ".fifo", new FifoMessageIds(FifoMessageIds.GroupStrategy.KEY, "cdc-group", 0, true),
+                RETRY_POLICY);
+        final List<ChangeEvent<Object, Object>> records = List.of(
+                new TestChangeEvent("a", "value-0", "queue"),
+                new TestChangeEvent("b", "value-1", "queue"),
+                new TestChangeEvent("a", "value-2", "queue"),
+                new TestChangeEvent("b", "value-3", "queue"),
+                new TestChangeEvent("a", "value-4", "queue"));
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        consumer.handleBatch(records, committer);
+
+        assertThat(client.requests).hasSize(2);
+        // The accepted messages of group 'a' are sent again after the failed one, SQS drops them as duplicates
+        assertThat(client.requests.get(1).entries()).extracting(SendMessageBatchRequestEntry::messageBody)
+                .containsExactly("value-0", "value-2", "value-4");
+        final List<SendMessageBatchRequestEntry> first = client.requests.get(0).entries();
+        assertThat(client.requests.get(1).entries()).extracting(SendMessageBatchRequestEntry::messageDeduplicationId)
+                .containsExactly(first.get(0).messageDeduplicationId(), first.get(2).messageDeduplicationId(), first.get(4).messageDeduplicationId());
+        assertThat(client.delivered).containsExactly("value-1", "value-2", "value-3", "value-4", "value-0", "value-2", "value-4");
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+    }
+
+    @Test
+    public void shouldFailWhenEntryIsRejectedRepeatedly() {
+        final FakeSqsClient client = new FakeSqsClient((request, body) -> body.equals("value-1") ? error("InternalError", false) : null);
+        consumer = new SqsChangeConsumer(client, QUEUE_URL, null, RETRY_POLICY);
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        assertThatThrownBy(() -> consumer.handleBatch(records(3, "queue"), committer))
+                .isInstanceOf(DebeziumException.class)
+                .hasMessageContaining("maximum number of attempts");
+        assertThat(client.requests).hasSize(3);
+        assertThat(client.delivered).containsExactly("value-0", "value-2");
+        assertThat(committer.getProcessed()).isEmpty();
+        assertThat(committer.isBatchFinished()).isFalse();
+    }
+
+    @Test
+    public void shouldNotRetrySenderFault() {
+        final FakeSqsClient client = new FakeSqsClient((request, body) -> body.equals("value-1") ? error("InvalidParameterValue", true) : null);
+        consumer = new SqsChangeConsumer(client, QUEUE_URL, null, RETRY_POLICY);
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        assertThatThrownBy(() -> consumer.handleBatch(records(3, "queue"), committer))
+                .isInstanceOf(DebeziumException.class)
+                .hasStackTraceContaining("InvalidParameterValue: Rejected");
+        assertThat(client.requests).hasSize(1);
+        assertThat(committer.getProcessed()).isEmpty();
+    }
+
+    @Test
+    public void shouldSendToMessageGroupOfKey() throws Exception {
+        final FakeSqsClient client = new FakeSqsClient((request, body) -> null);
+        consumer = new SqsChangeConsumer(client, QUEUE_URL + ".fifo", new FifoMessageIds(FifoMessageIds.GroupStrategy.KEY, "cdc-group", 0, true),
+                RETRY_POLICY);
+        final List<ChangeEvent<Object, Object>> records = List.of(
+                new TestChangeEvent("{\"id\":1}", "{\"payload\":{\"source\":{\"lsn\":10}}}", "queue"),
+                new TestChangeEvent("{\"id\":2}", "{\"payload\":{\"source\":{\"lsn\":11}}}", "queue"),
+                new TestChangeEvent("{\"id\":1}", "{\"payload\":{\"source\":{\"lsn\":12}}}", "queue"),
+                new TestChangeEvent(null, "{\"payload\":{\"source\":{\"lsn\":13}}}", "queue"));
+
+        consumer.handleBatch(records, new TestRecordCommitter());
+        // The replayed records get the same deduplication ids
+        consumer.handleBatch(records, new TestRecordCommitter());
+
+        final List<SendMessageBatchRequestEntry> entries = client.requests.get(0).entries();
+        assertThat(entries).extracting(SendMessageBatchRequestEntry::messageGroupId).containsExactly("{\"id\":1}", "{\"id\":2}", "{\"id\":1}", "cdc-group");
+        assertThat(entries).extracting(SendMessageBatchRequestEntry::messageDeduplicationId).doesNotHaveDuplicates().allMatch(id -> id.length() == 64);
+        assertThat(client.requests.get(1).entries()).extracting(SendMessageBatchRequestEntry::messageDeduplicationId)
+                .containsExactlyElementsOf(entries.stream().map(SendMessageBatchRequestEntry::messageDeduplicationId).collect(Collectors.toList()));
+    }
+
+    private static String randomValue(int length) {
+        final Random random = new Random(1);
+        final StringBuilder value = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            value.append((char) ('a' + random.nextInt(26)));
+        }
+        return value.toString();
+    }
+
+    @Test
+    public void shouldCompressLargePayloads() throws Exception {
+        final FakeSqsClient client = new FakeSqsClient((request, body) -> null);
+        consumer = new SqsChangeConsumer(client, QUEUE_URL, RETRY_POLICY, 1024, null);
+        final String largeValue = "{\"after\":{\"description\":\"" + "abc".repeat(200 * 1024) + "\"}}";
+        final List<ChangeEvent<Object, Object>> records = List.of(
+                new TestChangeEvent("key-0", "value-0", "queue"),
+                new TestChangeEvent("key-1", largeValue, "queue"));
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        consumer.handleBatch(records, committer);
+
+        final List<SendMessageBatchRequestEntry> entries = client.requests.get(0).entries();
+        assertThat(entries.get(0).messageBody()).isEqualTo("value-0");
+        assertThat(entries.get(0).messageAttributes()).isEmpty();
+        assertThat(entries.get(1).messageAttributes().get(MessagePayload.ATTRIBUTE_CONTENT_ENCODING).stringValue())
+                .isEqualTo(MessagePayload.CONTENT_ENCODING_GZIP);
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(entries.get(1).messageBody())))) {
+            assertThat(new String(gzip.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(largeValue);
+        }
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+    }
+
+    @Test
+    public void shouldOffloadPayloadsExceedingSizeLimit() throws Exception {
+        Testing.Files.delete(PAYLOAD_PATH);
+        final FakeSqsClient client = new FakeSqsClient((request, body) -> null);
+        consumer = new SqsChangeConsumer(client, QUEUE_URL, RETRY_POLICY, 1024, new FilePayloadStore(PAYLOAD_PATH));
+        // Random letters do not compress below the size limit
+        final String largeValue = randomValue(400 * 1024);
+        final List<ChangeEvent<Object, Object>> records = List.of(new TestChangeEvent("key-0", largeValue, "queue"));
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        consumer.handleBatch(records, committer);
+
+        final SendMessageBatchRequestEntry entry = client.requests.get(0).entries().get(0);
+        assertThat(entry.messageBody()).startsWith("[\"software.amazon.payloadoffloading.PayloadS3Pointer\",{\"s3BucketName\":\"");
+        assertThat(entry.messageAttributes().get(MessagePayload.ATTRIBUTE_EXTENDED_PAYLOAD_SIZE).stringValue()).isEqualTo(String.valueOf(400 * 1024));
+        try (Stream<Path> files = Files.list(PAYLOAD_PATH)) {
+            final List<Path> payloads = files.collect(Collectors.toList());
+            assertThat(payloads).hasSize(1);
+            assertThat(entry.messageBody()).contains("\"s3Key\":\"" + payloads.get(0).getFileName() + "\"");
+            assertThat(Files.readString(payloads.get(0))).isEqualTo(largeValue);
+        }
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+    }
+
+    @Test
+    public void shouldDivertRejectedAndTooLargeMessagesToDeadLetterQueue() throws Exception {
+        final FakeSqsClient client = new FakeSqsClient((request, body) -> body.equals("value-1") ? error("InvalidParameterValue", true) : null);
+        consumer = new SqsChangeConsumer(client, QUEUE_URL, RETRY_POLICY, 1024, null);
+        final TestDeadLetterStore deadLetters = TestDeadLetterStore.attachTo(consumer);
+        final List<ChangeEvent<Object, Object>> records = records(3, "queue");
+        records.add(new TestChangeEvent("key-3", randomValue(400 * 1024), "queue"));
+        records.add(new TestChangeEvent("key-4", "value-4", "queue"));
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        consumer.handleBatch(records, committer);
+
+        assertThat(client.delivered).containsExactly("value-0", "value-2", "value-4");
+        assertThat(deadLetters.getRecords()).extracting(DeadLetterRecord::key).containsExactly("key-3", "key-1");
+        assertThat(deadLetters.getRecords()).extracting(DeadLetterRecord::reason)
+                .containsExactly(DeadLetterQueue.REASON_RECORD_TOO_LARGE, DeadLetterQueue.REASON_RECORD_REJECTED);
+        assertThat(committer.getProcessed()).containsExactlyElementsOf(records);
+        assertThat(committer.isBatchFinished()).isTrue();
+    }
+
+    @Test
+    public void shouldFailOnPayloadExceedingSizeLimitWithoutStore() {
+        final FakeSqsClient client = new FakeSqsClient((request, body) -> null);
+        consumer = new SqsChangeConsumer(client, QUEUE_URL, RETRY_POLICY, 1024, null);
+        final TestRecordCommitter committer = new TestRecordCommitter();
+
+        assertThatThrownBy(() -> consumer.handleBatch(List.of(new TestChangeEvent("key-0", randomValue(400 * 1024), "queue")), committer))
+                .isInstanceOf(DebeziumException.class)
+                .hasMessageContaining("size limit");
+        assertThat(client.requests).isEmpty();
+    }
+}